@@ -0,0 +1,24 @@
+package com.demo.ecommerce;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Starts the application for benchmarks that need real beans (JPA, H2, caches). The embedded server listens on a
+ * random port since the security configuration requires a servlet web application.
+ */
+public final class BenchmarkContext {
+    private BenchmarkContext() {
+    }
+
+    /**
+     * @param properties extra {@code key=value} properties overriding application.properties
+     * @return the started application context, to be closed in the benchmark's teardown
+     */
+    public static ConfigurableApplicationContext start(String... properties) {
+        return new SpringApplicationBuilder(EcommerceApplication.class)
+                .properties("server.port=0", "logging.level.root=error")
+                .properties(properties)
+                .run();
+    }
+}
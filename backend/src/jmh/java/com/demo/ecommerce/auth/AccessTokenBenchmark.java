@@ -0,0 +1,56 @@
+package com.demo.ecommerce.auth;
+
+import com.nimbusds.jose.jwk.source.ImmutableSecret;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.*;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of authenticating with an access token: signature check and claim validation against the
+ * in-memory key, as done by the resource server filter for every request carrying a bearer token.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccessTokenBenchmark {
+    private JwtEncoder jwtEncoder;
+    private JwtDecoder jwtDecoder;
+    private JwtClaimsSet claims;
+    private String accessToken;
+
+    @Setup
+    public void setup() {
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        SecretKey key = new SecretKeySpec(secret, "HmacSHA256");
+        jwtEncoder = new NimbusJwtEncoder(new ImmutableSecret<>(key));
+        jwtDecoder = NimbusJwtDecoder.withSecretKey(key).macAlgorithm(MacAlgorithm.HS256).build();
+        claims = JwtClaimsSet.builder()
+                .subject("42")
+                .claim(AuthService.ROLE_CLAIM, "CUSTOMER")
+                .issuedAt(Instant.now())
+                .expiresAt(Instant.now().plus(Duration.ofDays(1)))
+                .build();
+        accessToken = encode();
+    }
+
+    @Benchmark
+    public Jwt decode() {
+        return jwtDecoder.decode(accessToken);
+    }
+
+    @Benchmark
+    public String encode() {
+        return jwtEncoder.encode(JwtEncoderParameters.from(JwsHeader.with(MacAlgorithm.HS256).build(), claims)).getTokenValue();
+    }
+}
@@ -0,0 +1,60 @@
+package com.demo.ecommerce.invoices;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * Measures how many invoices one thread renders per second, into memory and through a file channel as
+ * {@link InvoiceService} does. Run with {@code -prof gc} to see the allocation per invoice, which must not grow with
+ * the number of pages.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class InvoiceRenderBenchmark {
+    /** 20 lines fit on one page, 200 take six **/
+    @Param({"20", "200"})
+    private int lines;
+
+    private InvoiceData invoice;
+    private Path file;
+
+    @Setup
+    public void setup() throws IOException {
+        invoice = new InvoiceData(1234, 0, Instant.now(), "Benchmark Customer", "bench@mail.com",
+                LongStream.rangeClosed(1, lines).mapToObj(id -> new InvoiceData.Line(id, "Benchmark product number " + id, (int) (id % 5) + 1, 1999)).toList(),
+                "EUR", 1999L * 3 * lines, 0, 1259L * lines, 7256L * lines);
+        file = Files.createTempFile("invoice-benchmark", ".pdf");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public void renderToStream() throws IOException {
+        InvoiceRenderer.render(invoice, new BufferedOutputStream(OutputStream.nullOutputStream(), 64 * 1024));
+    }
+
+    @Benchmark
+    public void renderToFile() throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            InvoiceRenderer.render(invoice, new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024));
+        }
+    }
+}
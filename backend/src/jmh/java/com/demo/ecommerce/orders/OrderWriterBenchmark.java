@@ -0,0 +1,62 @@
+package com.demo.ecommerce.orders;
+
+import com.demo.ecommerce.BenchmarkContext;
+import com.demo.ecommerce.products.Product;
+import com.demo.ecommerce.products.ProductRepository;
+import com.demo.ecommerce.users.Role;
+import com.demo.ecommerce.users.User;
+import com.demo.ecommerce.users.UserRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the throughput of saving orders from many concurrent checkouts with group commit against one transaction
+ * per order. The H2 database is file based, so every commit goes through the storage engine.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(32)
+public class OrderWriterBenchmark {
+    @Param({"true", "false"})
+    public boolean groupCommit;
+
+    private ConfigurableApplicationContext context;
+    private OrderWriter orderWriter;
+    private User user;
+    private List<Long> productIds;
+
+    @Setup
+    public void setup() {
+        context = BenchmarkContext.start("orders.group-commit.enabled=" + groupCommit,
+                // A fresh database per run, under target so that mvn clean removes it
+                "spring.datasource.url=jdbc:h2:file:./target/benchmark/orders-" + System.nanoTime() + ";DB_CLOSE_ON_EXIT=FALSE;WRITE_DELAY=0");
+        orderWriter = context.getBean(OrderWriter.class);
+        user = context.getBean(UserRepository.class).save(User.builder().name("Benchmark").email("bench@mail.com").role(Role.CUSTOMER).password("1234").build());
+        ProductRepository productRepository = context.getBean(ProductRepository.class);
+        productIds = List.of(1, 2, 3).stream()
+                .map(i -> productRepository.save(Product.builder().name("Benchmark product " + i).user(user).build()).getId())
+                .toList();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Order save() {
+        return orderWriter.save(Order.builder()
+                .user(user)
+                .status(OrderStatus.PLACED)
+                .lines(productIds.stream().map(productId -> new OrderLine(productId, 1, 0)).toList())
+                .currency("EUR")
+                .build());
+    }
+}
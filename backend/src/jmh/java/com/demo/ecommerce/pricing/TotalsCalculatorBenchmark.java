@@ -0,0 +1,76 @@
+package com.demo.ecommerce.pricing;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prices a cart of {@code lines} lines, with a discount on every other line and an order discount, with the
+ * {@link TotalsCalculator} and with the BigDecimal arithmetic it replaces. Run with {@code -prof gc}:
+ * {@code gc.alloc.rate.norm} of {@link #calculator} is the allocation per cart evaluation and should be 0.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TotalsCalculatorBenchmark {
+    private static final int TAX_RATE = 2100;
+
+    @Param({"10", "100"})
+    private int lines;
+
+    private long[] unitPrices;
+    private int[] quantities;
+    private long[] discounts;
+    private TotalsCalculator calculator;
+
+    @Setup
+    public void setup() {
+        unitPrices = new long[lines];
+        quantities = new int[lines];
+        discounts = new long[lines];
+        for (int i = 0; i < lines; i++) {
+            unitPrices[i] = 199 + 1000L * (i % 17);
+            quantities[i] = 1 + i % 4;
+            discounts[i] = i % 2 == 0 ? 50 : 0;
+        }
+        calculator = new TotalsCalculator(100);
+    }
+
+    @Benchmark
+    public long calculator() {
+        calculator.reset();
+        for (int i = 0; i < lines; i++) {
+            int line = calculator.addLine(unitPrices[i], quantities[i], TAX_RATE);
+            if (discounts[i] > 0) calculator.discountLine(line, discounts[i]);
+        }
+        calculator.discountOrder(500);
+        calculator.compute();
+        return calculator.total();
+    }
+
+    /** The same computation in decimal amounts, as a BigDecimal-per-line implementation would do it **/
+    @Benchmark
+    public BigDecimal bigDecimal() {
+        BigDecimal rate = BigDecimal.valueOf(TAX_RATE, 4);
+        BigDecimal[] net = new BigDecimal[lines];
+        BigDecimal sum = BigDecimal.ZERO;
+        for (int i = 0; i < lines; i++) {
+            BigDecimal gross = BigDecimal.valueOf(unitPrices[i], 2).multiply(BigDecimal.valueOf(quantities[i]));
+            net[i] = gross.subtract(BigDecimal.valueOf(discounts[i], 2)).max(BigDecimal.ZERO);
+            sum = sum.add(net[i]);
+        }
+        BigDecimal orderDiscount = BigDecimal.valueOf(500, 2).min(sum);
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < lines; i++) {
+            BigDecimal share = orderDiscount.multiply(net[i]).divide(sum, 2, RoundingMode.DOWN);
+            BigDecimal line = net[i].subtract(share);
+            total = total.add(line).add(line.multiply(rate).setScale(2, RoundingMode.HALF_UP));
+        }
+        return total;
+    }
+}
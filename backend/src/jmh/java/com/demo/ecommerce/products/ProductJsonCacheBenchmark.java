@@ -0,0 +1,80 @@
+package com.demo.ecommerce.products;
+
+import com.demo.ecommerce.BenchmarkContext;
+import com.demo.ecommerce.users.Role;
+import com.demo.ecommerce.users.User;
+import com.demo.ecommerce.users.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compares the work GET api/products/{id} does per request with and without the {@link ProductJsonCache}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductJsonCacheBenchmark {
+    private ConfigurableApplicationContext context;
+    private ProductService productService;
+    private ProductMapper productMapper;
+    private ObjectMapper objectMapper;
+    private ProductJsonCache productJsonCache;
+    private long productId;
+
+    @Setup
+    public void setup() {
+        context = BenchmarkContext.start();
+        productService = context.getBean(ProductService.class);
+        productMapper = context.getBean(ProductMapper.class);
+        objectMapper = context.getBean(ObjectMapper.class);
+        productJsonCache = context.getBean(ProductJsonCache.class);
+        User user = context.getBean(UserRepository.class).save(User.builder().name("Benchmark").email("bench@mail.com").role(Role.CUSTOMER).password("1234").build());
+        productId = context.getBean(ProductRepository.class).save(Product.builder()
+                .name("Benchmark product")
+                .description("A product description of a typical length used to benchmark mapping and serialization.")
+                .user(user)
+                .build()).getId();
+        productJsonCache.encode(productService.findById(productId).orElseThrow());
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    /** Cache disabled: load, map and serialise on every request **/
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return objectMapper.writeValueAsBytes(productMapper.entityToResponse(productService.findById(productId).orElseThrow()));
+    }
+
+    /** Cache disabled with response compression: serialise and gzip on every request **/
+    @Benchmark
+    public byte[] serializeGzip() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(serialize());
+        }
+        return out.toByteArray();
+    }
+
+    /** Cache enabled: look up the version and write the cached bytes **/
+    @Benchmark
+    public byte[] preserialized() {
+        return productJsonCache.get(productId, productService.findVersion(productId).orElseThrow()).json();
+    }
+
+    @Benchmark
+    public byte[] preserializedGzip() {
+        return productJsonCache.get(productId, productService.findVersion(productId).orElseThrow()).gzip();
+    }
+}
@@ -0,0 +1,57 @@
+package com.demo.ecommerce.products;
+
+import com.demo.ecommerce.products.dto.ProductResponse;
+import com.demo.ecommerce.users.User;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductMapperBenchmark {
+    private ProductMapper productMapper;
+    private ObjectMapper objectMapper;
+    private Product product;
+    private ProductResponse response;
+
+    @Setup
+    public void setup() {
+        productMapper = new ProductMapperImpl();
+        // Same settings Spring Boot applies to the MVC ObjectMapper
+        objectMapper = Jackson2ObjectMapperBuilder.json().featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+        product = Product.builder()
+                .id(42)
+                .user(User.builder().id(7L).build())
+                .name("Benchmark product")
+                .description("A product description of a typical length used to benchmark mapping and serialization.")
+                .createdAt(Instant.now())
+                .updatedAt(Instant.now())
+                .version(3)
+                .build();
+        response = productMapper.entityToResponse(product);
+    }
+
+    @Benchmark
+    public ProductResponse entityToResponse() {
+        return productMapper.entityToResponse(product);
+    }
+
+    @Benchmark
+    public byte[] responseToJson() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public byte[] entityToJson() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(productMapper.entityToResponse(product));
+    }
+}
@@ -0,0 +1,74 @@
+package com.demo.ecommerce.products;
+
+import com.demo.ecommerce.BenchmarkContext;
+import com.demo.ecommerce.users.Role;
+import com.demo.ecommerce.users.User;
+import com.demo.ecommerce.users.UserRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares keyset pagination ({@link ProductService#findPage}) with OFFSET/COUNT pagination at increasing depths.
+ * Keyset pages should cost the same whatever the page number, offset pages get slower the deeper they are.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductPaginationBenchmark {
+    private static final int PAGE_SIZE = 20;
+
+    @Param("200000")
+    private int products;
+
+    @Param({"1", "1000", "9999"})
+    private int pageNumber;
+
+    private ConfigurableApplicationContext context;
+    private ProductService productService;
+    private ProductRepository productRepository;
+    private ProductCursor cursor;
+
+    @Setup
+    public void setup() {
+        context = BenchmarkContext.start();
+        productService = context.getBean(ProductService.class);
+        productRepository = context.getBean(ProductRepository.class);
+        TransactionTemplate transactionTemplate = context.getBean(TransactionTemplate.class);
+
+        User user = context.getBean(UserRepository.class).save(User.builder().name("Benchmark").email("bench@mail.com").role(Role.CUSTOMER).password("1234").build());
+        for (int inserted = 0; inserted < products; inserted += 1000) {
+            List<Product> chunk = new ArrayList<>(1000);
+            for (int i = 0; i < 1000; i++) chunk.add(Product.builder().name("Benchmark product " + (inserted + i)).user(user).build());
+            transactionTemplate.executeWithoutResult(status -> productRepository.saveAll(chunk));
+        }
+
+        // Cursor pointing at the last product of the page before the measured one
+        long lastId = productRepository.findAll(PageRequest.of(pageNumber - 1, PAGE_SIZE, ProductSortKey.ID.toSort())).getContent().getLast().getId();
+        cursor = new ProductCursor(ProductSortKey.ID, null, lastId);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ProductPage keyset() {
+        return productService.findPage(cursor, ProductSortKey.ID, PAGE_SIZE, ProductService.DEFAULT_FILTER_FLAGS);
+    }
+
+    @Benchmark
+    public Page<Product> offset() {
+        return productRepository.findAll(ProductSpecification.filter(ProductService.DEFAULT_FILTER_FLAGS), PageRequest.of(pageNumber, PAGE_SIZE, ProductSortKey.ID.toSort()));
+    }
+}
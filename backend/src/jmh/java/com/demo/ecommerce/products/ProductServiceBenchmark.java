@@ -0,0 +1,66 @@
+package com.demo.ecommerce.products;
+
+import com.demo.ecommerce.BenchmarkContext;
+import com.demo.ecommerce.products.dto.ProductCreateRequest;
+import com.demo.ecommerce.products.dto.ProductUpdateRequest;
+import com.demo.ecommerce.users.Role;
+import com.demo.ecommerce.users.User;
+import com.demo.ecommerce.users.UserRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductServiceBenchmark {
+    private ConfigurableApplicationContext context;
+    private ProductService productService;
+    private ProductRepository productRepository;
+    private long productId;
+    private long ownerId;
+    private int updates;
+
+    @Setup
+    public void setup() {
+        context = BenchmarkContext.start();
+        productService = context.getBean(ProductService.class);
+        productRepository = context.getBean(ProductRepository.class);
+        User user = context.getBean(UserRepository.class).save(User.builder().name("Benchmark").email("bench@mail.com").role(Role.CUSTOMER).password("1234").build());
+        ownerId = user.getId();
+        productId = productRepository.save(Product.builder().name("Benchmark product").description("Benchmark description").user(user).build()).getId();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    /** Served from the product cache after the first call **/
+    @Benchmark
+    public Optional<Product> findById() {
+        return productService.findById(productId);
+    }
+
+    /** The query findById runs on a cache miss **/
+    @Benchmark
+    public Optional<Product> findByIdDatabase() {
+        return productRepository.findOne(ProductSpecification.hasId(productId).and(ProductSpecification.filter(ProductService.DEFAULT_FILTER_FLAGS)));
+    }
+
+    /** Owner existence is checked once, later creates attach a reference without querying users **/
+    @Benchmark
+    public Product create() {
+        return productService.create(ProductCreateRequest.builder().name("Benchmark product").description("Benchmark description").price(1000L).ownerId(ownerId).build());
+    }
+
+    @Benchmark
+    public Product updateById() {
+        return productService.updateById(productId, ProductUpdateRequest.builder().name("Benchmark product " + updates++).build());
+    }
+}
@@ -0,0 +1,42 @@
+package com.demo.ecommerce.products;
+
+import com.demo.ecommerce.BenchmarkContext;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductSpecificationBenchmark {
+    private ConfigurableApplicationContext context;
+    private CriteriaBuilder builder;
+
+    @Setup
+    public void setup() {
+        context = BenchmarkContext.start();
+        builder = context.getBean(EntityManagerFactory.class).getCriteriaBuilder();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public CriteriaQuery<Product> findByIdQuery() {
+        CriteriaQuery<Product> query = builder.createQuery(Product.class);
+        Root<Product> root = query.from(Product.class);
+        return query.where(ProductSpecification.hasId(42)
+                .and(ProductSpecification.filter(ProductService.DEFAULT_FILTER_FLAGS))
+                .toPredicate(root, query, builder));
+    }
+}
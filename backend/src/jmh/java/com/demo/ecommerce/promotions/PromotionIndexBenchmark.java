@@ -0,0 +1,142 @@
+package com.demo.ecommerce.promotions;
+
+import com.demo.ecommerce.pricing.TotalsCalculator;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prices a 100-line cart against 10,000 promotions with the {@link PromotionIndex}, and with the same rules
+ * interpreted one after the other for every line, as a list of rules would be. Also measures what a change to one
+ * promotion costs against compiling them all again. Run with {@code -prof gc}: {@link #compiled} should allocate 0 B/op.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PromotionIndexBenchmark {
+    private static final int PROMOTIONS = 10_000;
+    private static final int LINES = 100;
+    private static final int PRODUCTS = 20_000;
+    private static final int OWNERS = 1_000;
+    private static final int CATEGORIES = 100;
+    private static final long NOW = Instant.parse("2026-06-01T12:00:00Z").toEpochMilli();
+
+    private final long[] productIds = new long[LINES];
+    private final long[] ownerIds = new long[LINES];
+    private final String[] categories = new String[LINES];
+    private final long[] unitPrices = new long[LINES];
+    private final int[] quantities = new int[LINES];
+    private final TotalsCalculator totals = new TotalsCalculator(LINES);
+
+    private List<Promotion> promotions;
+    private PromotionIndex index;
+    private PromotionRule[] rules;
+    private long[] sums;
+    private int[] matched;
+    private Promotion changed;
+
+    @Setup
+    public void setup() {
+        SplittableRandom random = new SplittableRandom(42);
+        promotions = new ArrayList<>(PROMOTIONS);
+        for (int i = 1; i <= PROMOTIONS; i++) {
+            Promotion.PromotionBuilder promotion = Promotion.builder().id(i).name("Promotion " + i);
+            int kind = random.nextInt(100);
+            // Mostly products, then owners and categories; a few store-wide, most of them over
+            if (kind < 60) promotion.productId(random.nextLong(1, PRODUCTS + 1));
+            else if (kind < 80) promotion.ownerId(random.nextLong(1, OWNERS + 1));
+            else if (kind < 99) promotion.category(category(random.nextInt(CATEGORIES)));
+            else if (random.nextInt(4) != 0) promotion.endsAt(Instant.ofEpochMilli(NOW - 1));
+            switch (random.nextInt(10)) {
+                case 0, 1 -> promotion.type(PromotionType.THRESHOLD).minAmount(random.nextLong(1_000, 100_000)).amount(random.nextLong(100, 1_000));
+                case 2, 3, 4 -> promotion.type(PromotionType.BUNDLE).buyQuantity(3).freeQuantity(1);
+                default -> promotion.type(PromotionType.PERCENTAGE).rate(random.nextInt(1, 5_000));
+            }
+            promotions.add(promotion.build());
+        }
+        index = new PromotionIndex();
+        index.load(promotions);
+        rules = new PromotionRule[PROMOTIONS];
+        for (int i = 0; i < PROMOTIONS; i++) rules[i] = PromotionRule.compile(promotions.get(i), i);
+        sums = new long[PROMOTIONS];
+        matched = new int[PROMOTIONS];
+        changed = promotions.stream().filter(promotion -> promotion.getProductId() != null).findFirst().orElseThrow();
+
+        for (int line = 0; line < LINES; line++) {
+            productIds[line] = random.nextLong(1, PRODUCTS + 1);
+            ownerIds[line] = productIds[line] % OWNERS + 1;
+            categories[line] = category((int) (productIds[line] % CATEGORIES));
+            unitPrices[line] = random.nextLong(100, 10_000);
+            quantities[line] = random.nextInt(1, 5);
+        }
+        if (compiled() != interpreted()) throw new IllegalStateException("The index and the interpreted rules disagree");
+    }
+
+    private static String category(int n) {
+        return "category-" + n;
+    }
+
+    private void addLines() {
+        totals.reset();
+        for (int line = 0; line < LINES; line++) totals.addLine(unitPrices[line], quantities[line], 2100);
+    }
+
+    /** Only the buckets of each line's product, owner and category, and the store-wide promotions **/
+    @Benchmark
+    public long compiled() {
+        addLines();
+        index.apply(totals, productIds, ownerIds, categories, NOW);
+        totals.compute();
+        return totals.total();
+    }
+
+    /** Every promotion for every line, with the same rules and results **/
+    @Benchmark
+    public long interpreted() {
+        addLines();
+        Arrays.fill(sums, 0);
+        for (int line = 0; line < LINES; line++) {
+            long gross = unitPrices[line] * quantities[line];
+            long best = 0;
+            int reached = 0;
+            for (PromotionRule rule : rules) {
+                if (!rule.matches(productIds[line], ownerIds[line], categories[line], NOW)) continue;
+                if (rule.type == PromotionType.THRESHOLD) matched[reached++] = rule.slot;
+                else best = Math.max(best, rule.lineDiscount(unitPrices[line], quantities[line], gross));
+            }
+            long discount = Math.min(best, gross);
+            if (discount > 0) totals.discountLine(line, discount);
+            for (int i = 0; i < reached; i++) sums[matched[i]] += gross - discount;
+        }
+        long orderDiscount = 0;
+        for (PromotionRule rule : rules) {
+            if (rule.type == PromotionType.THRESHOLD && sums[rule.slot] > 0 && sums[rule.slot] >= rule.minAmount) orderDiscount = Math.max(orderDiscount, rule.amount);
+        }
+        if (orderDiscount > 0) totals.discountOrder(orderDiscount);
+        totals.compute();
+        return totals.total();
+    }
+
+    /** A change to one promotion: recompile it and rebuild its bucket **/
+    @Benchmark
+    public boolean put() {
+        changed.setVersion(changed.getVersion() + 1);
+        changed.setRate(changed.getVersion() % 2 == 0 ? 1_000 : 2_000);
+        return index.put(changed);
+    }
+
+    /** Compiling every promotion again, what a change would cost without incremental updates **/
+    @Benchmark
+    public int load() {
+        index.load(promotions);
+        return index.size();
+    }
+}
@@ -0,0 +1,78 @@
+package com.demo.ecommerce.ratelimit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Latency the {@link RateLimitFilter} adds to a request with 64 threads hitting it at once, when they all share one
+ * client bucket (worst-case contention on a single compare-and-set), when each has its own bucket and, as the
+ * baseline, on a route that is not limited. The limits are high enough that no request is rejected.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(64)
+@Fork(1)
+public class RateLimitFilterBenchmark {
+    private static final FilterChain NOOP = (request, response) -> {};
+    private static final AtomicInteger THREADS = new AtomicInteger();
+
+    private RateLimitFilter filter;
+
+    @State(Scope.Thread)
+    public static class Requests {
+        MockHttpServletRequest shared;
+        MockHttpServletRequest own;
+        MockHttpServletRequest unlimited;
+        MockHttpServletResponse response;
+
+        @Setup
+        public void setup() {
+            shared = request("/api/products/1", "10.0.0.1");
+            own = request("/api/products/1", "10.1.0." + THREADS.incrementAndGet());
+            unlimited = request("/swagger-ui/index.html", "10.0.0.1");
+            response = new MockHttpServletResponse();
+        }
+
+        private static MockHttpServletRequest request(String path, String address) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+            request.setRemoteAddr(address);
+            return request;
+        }
+    }
+
+    @Setup
+    public void setup() {
+        RateLimiter rateLimiter = new RateLimiter(new RateLimitProperties(true, Duration.ofMinutes(1), List.of(
+                new RateLimitProperties.Route("/api/auth/**", List.of("POST"), 10, Duration.ofMinutes(1)),
+                new RateLimitProperties.Route("/api/**", List.of(), Integer.MAX_VALUE, Duration.ofSeconds(1)))));
+        filter = new RateLimitFilter(rateLimiter, new ObjectMapper());
+    }
+
+    @Benchmark
+    public void sharedClient(Requests requests) throws ServletException, IOException {
+        filter.doFilterInternal(requests.shared, requests.response, NOOP);
+    }
+
+    @Benchmark
+    public void clientPerThread(Requests requests) throws ServletException, IOException {
+        filter.doFilterInternal(requests.own, requests.response, NOOP);
+    }
+
+    @Benchmark
+    public void unlimitedRoute(Requests requests) throws ServletException, IOException {
+        filter.doFilterInternal(requests.unlimited, requests.response, NOOP);
+    }
+}
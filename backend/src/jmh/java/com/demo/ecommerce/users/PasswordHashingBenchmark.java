@@ -0,0 +1,33 @@
+package com.demo.ecommerce.users;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a single BCrypt hash for the values {@code users.password-hashing.strength} can take.
+ * Together with {@code users.password-hashing.threads} it bounds how many registrations per second the pool serves.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PasswordHashingBenchmark {
+    @Param({"8", "10", "12"})
+    private int strength;
+
+    private BCryptPasswordEncoder passwordEncoder;
+
+    @Setup
+    public void setup() {
+        passwordEncoder = new BCryptPasswordEncoder(strength);
+    }
+
+    @Benchmark
+    public String encode() {
+        return passwordEncoder.encode("BenchmarkPass123");
+    }
+}
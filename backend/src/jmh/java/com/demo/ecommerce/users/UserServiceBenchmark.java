@@ -0,0 +1,38 @@
+package com.demo.ecommerce.users;
+
+import com.demo.ecommerce.BenchmarkContext;
+import com.demo.ecommerce.users.dto.UserCreate;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserServiceBenchmark {
+    private ConfigurableApplicationContext context;
+    private UserService userService;
+    // Emails are unique, every created user needs one of its own
+    private long created;
+
+    @Setup
+    public void setup() {
+        context = BenchmarkContext.start();
+        userService = context.getBean(UserService.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    /** Dominated by the BCrypt hash of the password **/
+    @Benchmark
+    public User createUser() {
+        return userService.createUser(new UserCreate("Benchmark", "bench" + created++ + "@mail.com", "BenchmarkPass123"));
+    }
+}
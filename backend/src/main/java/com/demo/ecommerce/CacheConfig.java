@@ -0,0 +1,14 @@
+package com.demo.ecommerce;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Enables the Spring cache abstraction. Caches and their limits are declared in application.properties
+ * (spring.cache.*) and backed by Caffeine; hit/miss/eviction statistics are published through the actuator
+ * metrics endpoint (cache.gets, cache.evictions).
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+}
@@ -1,7 +1,12 @@
 package com.demo.ecommerce;
 
+import com.demo.ecommerce.common.exceptions.BadGatewayException;
 import com.demo.ecommerce.common.exceptions.BadRequestException;
+import com.demo.ecommerce.common.exceptions.ConflictException;
 import com.demo.ecommerce.common.exceptions.ResourceNotFoundException;
+import com.demo.ecommerce.common.exceptions.TooManyRequestsException;
+import com.demo.ecommerce.common.exceptions.UnauthorizedException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -9,17 +14,7 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 
 import java.time.Instant;
 
-class RuntimeError {
-    String type;
-    String message;
-    Instant timestamp;
-
-    public RuntimeError(String type, String message, Instant timestamp) {
-        this.type = type;
-        this.message = message;
-        this.timestamp = timestamp;
-    }
-}
+record RuntimeError(String type, String message, Instant timestamp) {}
 
 @RestControllerAdvice
 public class GlobalExceptionHandler {
@@ -33,4 +28,26 @@ public class GlobalExceptionHandler {
     public ResponseEntity<?> handleResourceNotFound(BadRequestException exception) {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new RuntimeError("Bad Request", exception.getMessage(), Instant.now()));
     }
+
+    @ExceptionHandler(ConflictException.class)
+    public ResponseEntity<?> handleConflict(ConflictException exception) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(new RuntimeError("Conflict", exception.getMessage(), Instant.now()));
+    }
+
+    @ExceptionHandler(BadGatewayException.class)
+    public ResponseEntity<?> handleBadGateway(BadGatewayException exception) {
+        return ResponseEntity.status(HttpStatus.BAD_GATEWAY).body(new RuntimeError("Bad Gateway", exception.getMessage(), Instant.now()));
+    }
+
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<?> handleTooManyRequests(TooManyRequestsException exception) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(new RuntimeError("Too Many Requests", exception.getMessage(), Instant.now()));
+    }
+
+    @ExceptionHandler(UnauthorizedException.class)
+    public ResponseEntity<?> handleUnauthorized(UnauthorizedException exception) {
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(new RuntimeError("Unauthorized", exception.getMessage(), Instant.now()));
+    }
 }
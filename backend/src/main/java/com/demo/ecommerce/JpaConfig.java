@@ -0,0 +1,13 @@
+package com.demo.ecommerce;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+
+/**
+ * Enables JPA auditing so entities listening with AuditingEntityListener get their
+ * {@code @CreatedDate}/{@code @LastModifiedDate} fields populated.
+ */
+@Configuration
+@EnableJpaAuditing
+public class JpaConfig {
+}
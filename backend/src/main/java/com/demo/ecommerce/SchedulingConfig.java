@@ -0,0 +1,13 @@
+package com.demo.ecommerce;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables {@link org.springframework.scheduling.annotation.Scheduled @Scheduled} methods, used for periodic housekeeping
+ * such as expiring and snapshotting refresh tokens.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
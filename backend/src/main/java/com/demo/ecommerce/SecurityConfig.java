@@ -1,28 +1,114 @@
 package com.demo.ecommerce;
 
+import com.demo.ecommerce.auth.AuthService;
+import com.demo.ecommerce.ratelimit.RateLimitFilter;
+import com.demo.ecommerce.ratelimit.RateLimitProperties;
+import com.demo.ecommerce.ratelimit.RateLimiter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimbusds.jose.jwk.source.ImmutableSecret;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.authorization.AuthenticatedAuthorizationManager;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.annotation.web.configurers.CsrfConfigurer;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+import org.springframework.security.oauth2.server.resource.authentication.JwtGrantedAuthoritiesConverter;
+import org.springframework.security.oauth2.server.resource.web.authentication.BearerTokenAuthenticationFilter;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.util.Base64;
 
 @Configuration
+@EnableConfigurationProperties(RateLimitProperties.class)
 public class SecurityConfig {
 
+    /**
+     * @param strength the BCrypt cost factor (log2 of the rounds); every step doubles the time a hash takes
+     */
+    @Bean
+    public PasswordEncoder passwordEncoder(@Value("${users.password-hashing.strength}") int strength){
+        return new BCryptPasswordEncoder(strength);
+    }
+
+    /**
+     * @param secret the base64 encoded HMAC-SHA256 key access tokens are signed with, at least 256 bits
+     * @throws IllegalArgumentException if the secret is missing or shorter than 256 bits, so the application does not start
+     */
+    @Bean
+    public SecretKey jwtSigningKey(@Value("${security.jwt.secret}") String secret) {
+        if (secret.isBlank()) throw new IllegalArgumentException("security.jwt.secret is not set, set JWT_SECRET");
+        byte[] key = Base64.getDecoder().decode(secret);
+        if (key.length < 32) throw new IllegalArgumentException("security.jwt.secret must be at least 256 bits, it has " + key.length * 8);
+        return new SecretKeySpec(key, "HmacSHA256");
+    }
+
     @Bean
-    public PasswordEncoder passwordEncoder(){
-        return new BCryptPasswordEncoder();
+    public JwtEncoder jwtEncoder(SecretKey jwtSigningKey) {
+        return new NimbusJwtEncoder(new ImmutableSecret<>(jwtSigningKey));
     }
 
+    /**
+     * Verifies access tokens against the in-memory signing key, no remote key set or database is involved.
+     */
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public JwtDecoder jwtDecoder(SecretKey jwtSigningKey) {
+        return NimbusJwtDecoder.withSecretKey(jwtSigningKey).macAlgorithm(MacAlgorithm.HS256).build();
+    }
+
+    @Bean
+    public SecurityFilterChain filterChain(HttpSecurity http, RateLimiter rateLimiter, ObjectMapper objectMapper) throws Exception {
+        // The user's role travels in the token, mapped to ROLE_CUSTOMER / ROLE_ADMINISTRATOR
+        JwtGrantedAuthoritiesConverter authorities = new JwtGrantedAuthoritiesConverter();
+        authorities.setAuthoritiesClaimName(AuthService.ROLE_CLAIM);
+        authorities.setAuthorityPrefix("ROLE_");
+        JwtAuthenticationConverter authentication = new JwtAuthenticationConverter();
+        authentication.setJwtGrantedAuthoritiesConverter(authorities);
+
+        // After the bearer token is checked, so signed-in clients are limited per user rather than per address.
+        // Not a bean, Spring Boot would also register it as a servlet filter and run it twice
+        if (rateLimiter.isEnabled()) http.addFilterAfter(new RateLimitFilter(rateLimiter, objectMapper), BearerTokenAuthenticationFilter.class);
+
         return http
                 // Disable the auth login since we are going to use JWT
                 .formLogin(AbstractHttpConfigurer::disable)
                 // Not needed in a REST API
-                .csrf(CsrfConfigurer::disable).build();
+                .csrf(CsrfConfigurer::disable)
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .authorizeHttpRequests(requests -> requests
+                        .requestMatchers("/api/auth/me", "/api/cart/**", "/api/orders/**").authenticated()
+                        .requestMatchers("/api/products/bulk/**", "/api/users/bulk/**", "/api/users/import", "/api/users/*/role",
+                                "/api/inventory/*/adjustments", "/api/promotions/**").hasRole("ADMINISTRATOR")
+                        // Users only update their own account, the token subject is the user ID
+                        .requestMatchers(HttpMethod.PUT, "/api/users/{id}").access(self("id"))
+                        .anyRequest().permitAll())
+                .oauth2ResourceServer(resourceServer -> resourceServer.jwt(jwt -> jwt.jwtAuthenticationConverter(authentication)))
+                .build();
+    }
+
+    /**
+     * @param variable the path variable holding a user ID
+     * @return grants access to signed-in users whose ID is the one in the path
+     */
+    private static AuthorizationManager<RequestAuthorizationContext> self(String variable) {
+        AuthenticatedAuthorizationManager<RequestAuthorizationContext> authenticated = AuthenticatedAuthorizationManager.authenticated();
+        return (authentication, context) -> new AuthorizationDecision(authenticated.check(authentication, context).isGranted()
+                && authentication.get().getName().equals(context.getVariables().get(variable)));
     }
 }
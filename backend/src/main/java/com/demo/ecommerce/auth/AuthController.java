@@ -0,0 +1,87 @@
+package com.demo.ecommerce.auth;
+
+import com.demo.ecommerce.auth.dto.AuthenticatedUserResponse;
+import com.demo.ecommerce.auth.dto.LoginRequest;
+import com.demo.ecommerce.auth.dto.RefreshRequest;
+import com.demo.ecommerce.auth.dto.TokenResponse;
+import com.demo.ecommerce.common.exceptions.TooManyRequestsException;
+import com.demo.ecommerce.common.exceptions.UnauthorizedException;
+import com.demo.ecommerce.users.Role;
+import io.swagger.v3.oas.annotations.Operation;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping(path = "api/auth", produces = MediaType.APPLICATION_JSON_VALUE)
+public class AuthController {
+    @Autowired
+    AuthService authService;
+
+    /**
+     * Signs a user in.
+     *
+     * @param request the {@link LoginRequest} with the user's credentials
+     * @return a ResponseEntity containing the access and refresh tokens
+     * @throws UnauthorizedException    if the credentials are invalid
+     * @throws TooManyRequestsException if the password hashing pool is saturated
+     */
+    @Operation(summary = "Sign in with email and password")
+    @PostMapping("login")
+    public ResponseEntity<TokenResponse> login(@Valid @RequestBody LoginRequest request) {
+        return ResponseEntity.ok(toResponse(authService.login(request.getEmail(), request.getPassword())));
+    }
+
+    /**
+     * Exchanges a refresh token for new tokens. The refresh token can only be used once.
+     *
+     * @param request the {@link RefreshRequest} with the refresh token
+     * @return a ResponseEntity containing the new access and refresh tokens
+     * @throws UnauthorizedException if the refresh token is invalid, expired or already used
+     */
+    @Operation(summary = "Refresh the access token")
+    @PostMapping("refresh")
+    public ResponseEntity<TokenResponse> refresh(@Valid @RequestBody RefreshRequest request) {
+        return ResponseEntity.ok(toResponse(authService.refresh(request.getRefreshToken())));
+    }
+
+    /**
+     * Revokes a refresh token.
+     *
+     * @param request the {@link RefreshRequest} with the refresh token to revoke
+     */
+    @Operation(summary = "Sign out")
+    @PostMapping("logout")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void logout(@Valid @RequestBody RefreshRequest request) {
+        authService.logout(request.getRefreshToken());
+    }
+
+    /**
+     * Describes the user the request is authenticated as, straight from the access token.
+     *
+     * @param jwt the verified access token
+     * @return a ResponseEntity containing the user's ID and role
+     */
+    @Operation(summary = "Get the authenticated user")
+    @GetMapping("me")
+    public ResponseEntity<AuthenticatedUserResponse> me(@AuthenticationPrincipal Jwt jwt) {
+        return ResponseEntity.ok(AuthenticatedUserResponse.builder()
+                .id(Long.parseLong(jwt.getSubject()))
+                .role(Role.valueOf(jwt.getClaimAsString(AuthService.ROLE_CLAIM)))
+                .build());
+    }
+
+    private static TokenResponse toResponse(AuthService.Tokens tokens) {
+        return TokenResponse.builder()
+                .accessToken(tokens.accessToken())
+                .expiresIn(tokens.expiresIn().toSeconds())
+                .refreshToken(tokens.refreshToken())
+                .build();
+    }
+}
@@ -0,0 +1,120 @@
+package com.demo.ecommerce.auth;
+
+import com.demo.ecommerce.common.exceptions.TooManyRequestsException;
+import com.demo.ecommerce.common.exceptions.UnauthorizedException;
+import com.demo.ecommerce.users.PasswordHasher;
+import com.demo.ecommerce.users.User;
+import com.demo.ecommerce.users.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Issues JWT access tokens and refresh tokens.
+ * <p>
+ * Access tokens are short-lived and carry the user ID as subject and the user's role, so requests are authenticated by
+ * verifying the signature alone, without touching the database. Refresh tokens are single use: every refresh
+ * revokes the presented token and issues a new one.
+ */
+@Service
+public class AuthService {
+    /** Claim holding the user's {@link com.demo.ecommerce.users.Role} **/
+    public static final String ROLE_CLAIM = "role";
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordHasher passwordHasher;
+
+    @Autowired
+    private RefreshTokenStore refreshTokenStore;
+
+    @Autowired
+    private JwtEncoder jwtEncoder;
+
+    @Value("${security.jwt.access-token-ttl}")
+    private Duration accessTokenTtl;
+
+    // Hash compared against when the email is unknown, so both cases take as long; created on first use
+    private volatile String unknownUserHash;
+
+    /**
+     * A freshly issued token pair.
+     *
+     * @param accessToken  the signed JWT
+     * @param expiresIn    the lifetime of the access token
+     * @param refreshToken the opaque refresh token
+     */
+    public record Tokens(String accessToken, Duration expiresIn, String refreshToken) {}
+
+    /**
+     * Authenticates a user with their email and password.
+     *
+     * @param email    the user's email
+     * @param password the user's raw password
+     * @return the issued {@link Tokens}
+     * @throws UnauthorizedException    if the email is unknown or the password does not match
+     * @throws TooManyRequestsException if the password hashing pool is saturated
+     */
+    public Tokens login(String email, String password) {
+        User user = userRepository.findByEmail(email).orElse(null);
+        if (user == null) {
+            passwordHasher.matches(password, unknownUserHash());
+            throw new UnauthorizedException("Invalid email or password");
+        }
+        if (user.getPassword() == null || !passwordHasher.matches(password, user.getPassword())) {
+            throw new UnauthorizedException("Invalid email or password");
+        }
+        return issue(user);
+    }
+
+    /**
+     * Exchanges a refresh token for a new token pair. The presented refresh token can not be used again.
+     *
+     * @param refreshToken the refresh token
+     * @return the issued {@link Tokens}
+     * @throws UnauthorizedException if the token is unknown, expired or already used, or the user no longer exists
+     */
+    public Tokens refresh(String refreshToken) {
+        long userId = refreshTokenStore.consume(refreshToken).orElseThrow(() -> new UnauthorizedException("Invalid refresh token"));
+        return issue(userRepository.findById(userId).orElseThrow(() -> new UnauthorizedException("Invalid refresh token")));
+    }
+
+    /**
+     * Revokes a refresh token. Access tokens already issued stay valid until they expire.
+     *
+     * @param refreshToken the refresh token to revoke
+     */
+    public void logout(String refreshToken) {
+        refreshTokenStore.revoke(refreshToken);
+    }
+
+    private Tokens issue(User user) {
+        Instant now = Instant.now();
+        JwtClaimsSet claims = JwtClaimsSet.builder()
+                .id(UUID.randomUUID().toString())
+                .subject(user.getId().toString())
+                .claim(ROLE_CLAIM, user.getRole().name())
+                .issuedAt(now)
+                .expiresAt(now.plus(accessTokenTtl))
+                .build();
+        String accessToken = jwtEncoder.encode(JwtEncoderParameters.from(JwsHeader.with(MacAlgorithm.HS256).build(), claims)).getTokenValue();
+        return new Tokens(accessToken, accessTokenTtl, refreshTokenStore.issue(user.getId()));
+    }
+
+    private String unknownUserHash() {
+        String hash = unknownUserHash;
+        if (hash == null) unknownUserHash = hash = passwordHasher.encode(UUID.randomUUID().toString());
+        return hash;
+    }
+}
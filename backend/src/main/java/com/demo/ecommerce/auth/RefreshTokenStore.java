@@ -0,0 +1,185 @@
+package com.demo.ecommerce.auth;
+
+import com.demo.ecommerce.common.TimingWheel;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory store of the refresh tokens issued to users.
+ * <p>
+ * Tokens are opaque random strings and only their SHA-256 digests are kept, so neither the store nor its snapshot can
+ * be used to forge a token. Expired tokens are rejected on use and removed by a {@link TimingWheel} advanced every
+ * {@code security.refresh-tokens.expiry-tick}, which keeps expiry cost proportional to the tokens actually expiring.
+ * <p>
+ * When {@code security.refresh-tokens.snapshot-file} is set, the store is written to that file every
+ * {@code security.refresh-tokens.snapshot-interval} and on shutdown, and reloaded on startup, so users stay signed in
+ * across restarts. Tokens issued since the last snapshot are lost if the process dies.
+ */
+@Component
+public class RefreshTokenStore implements DisposableBean {
+    private static final int TOKEN_BYTES = 32;
+    private static final int SNAPSHOT_MAGIC = 0x52544B31;
+    private static final int WHEEL_SLOTS = 512;
+
+    private final Map<String, Entry> tokens = new ConcurrentHashMap<>();
+    // Guarded by itself
+    private final TimingWheel<String> expiries;
+    private final SecureRandom random = new SecureRandom();
+    private final Clock clock;
+    private final Duration ttl;
+    private final Path snapshotFile;
+
+    private record Entry(long userId, long expiresAt) {}
+
+    @Autowired
+    RefreshTokenStore(@Value("${security.refresh-tokens.ttl}") Duration ttl,
+                      @Value("${security.refresh-tokens.expiry-tick}") Duration expiryTick,
+                      @Value("${security.refresh-tokens.snapshot-file:}") String snapshotFile) throws IOException {
+        this(Clock.systemUTC(), ttl, expiryTick, snapshotFile.isBlank() ? null : Path.of(snapshotFile));
+    }
+
+    RefreshTokenStore(Clock clock, Duration ttl, Duration expiryTick, Path snapshotFile) throws IOException {
+        this.clock = clock;
+        this.ttl = ttl;
+        this.snapshotFile = snapshotFile;
+        this.expiries = new TimingWheel<>(expiryTick.toMillis(), WHEEL_SLOTS, clock.millis());
+        if (snapshotFile != null && Files.exists(snapshotFile)) load(snapshotFile);
+    }
+
+    /**
+     * Issues a new refresh token.
+     *
+     * @param userId the user the token is issued to
+     * @return the token, to be handed to the client
+     */
+    public String issue(long userId) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        put(digest(token), new Entry(userId, clock.millis() + ttl.toMillis()));
+        return token;
+    }
+
+    /**
+     * Redeems a refresh token. The token is removed, so it can be used only once.
+     *
+     * @param token the token presented by the client
+     * @return the ID of the user the token was issued to, or empty if the token is unknown, expired or already used
+     */
+    public OptionalLong consume(String token) {
+        String key = digest(token);
+        Entry entry = tokens.remove(key);
+        if (entry == null) return OptionalLong.empty();
+        synchronized (expiries) {
+            expiries.cancel(key, entry.expiresAt());
+        }
+        return entry.expiresAt() > clock.millis() ? OptionalLong.of(entry.userId()) : OptionalLong.empty();
+    }
+
+    /**
+     * Revokes a refresh token. Unknown tokens are ignored.
+     *
+     * @param token the token to revoke
+     */
+    public void revoke(String token) {
+        consume(token);
+    }
+
+    /**
+     * @return the number of stored tokens, including expired ones not yet removed
+     */
+    public int size() {
+        return tokens.size();
+    }
+
+    /**
+     * Removes the tokens that expired since the last run.
+     */
+    @Scheduled(fixedDelayString = "${security.refresh-tokens.expiry-tick}")
+    public void expire() {
+        synchronized (expiries) {
+            expiries.advance(clock.millis(), tokens::remove);
+        }
+    }
+
+    /**
+     * Writes all live tokens to the snapshot file, if one is configured. The file is replaced atomically.
+     *
+     * @throws IOException if the snapshot cannot be written
+     */
+    @Scheduled(fixedDelayString = "${security.refresh-tokens.snapshot-interval}", initialDelayString = "${security.refresh-tokens.snapshot-interval}")
+    public void snapshot() throws IOException {
+        if (snapshotFile == null) return;
+        Path directory = snapshotFile.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, snapshotFile.getFileName().toString(), ".tmp");
+        try {
+            long now = clock.millis();
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                for (Map.Entry<String, Entry> token : tokens.entrySet()) {
+                    if (token.getValue().expiresAt() <= now) continue;
+                    out.writeBoolean(true);
+                    out.writeUTF(token.getKey());
+                    out.writeLong(token.getValue().userId());
+                    out.writeLong(token.getValue().expiresAt());
+                }
+                out.writeBoolean(false);
+            }
+            Files.move(temporary, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        snapshot();
+    }
+
+    private void load(Path file) throws IOException {
+        long now = clock.millis();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC) throw new IOException("Not a refresh token snapshot: " + file);
+            while (in.readBoolean()) {
+                String key = in.readUTF();
+                Entry entry = new Entry(in.readLong(), in.readLong());
+                if (entry.expiresAt() > now) put(key, entry);
+            }
+        }
+    }
+
+    private void put(String key, Entry entry) {
+        tokens.put(key, entry);
+        synchronized (expiries) {
+            expiries.schedule(key, entry.expiresAt());
+        }
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
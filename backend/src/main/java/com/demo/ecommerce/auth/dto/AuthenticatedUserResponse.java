@@ -0,0 +1,13 @@
+package com.demo.ecommerce.auth.dto;
+
+import com.demo.ecommerce.users.Role;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+
+public class AuthenticatedUserResponse {
+    long id;
+    Role role;
+}
@@ -0,0 +1,17 @@
+package com.demo.ecommerce.auth.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+
+public class LoginRequest {
+    @NotBlank
+    String email;
+    @NotBlank
+    String password;
+}
@@ -0,0 +1,15 @@
+package com.demo.ecommerce.auth.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+
+public class RefreshRequest {
+    @NotBlank
+    String refreshToken;
+}
@@ -0,0 +1,16 @@
+package com.demo.ecommerce.auth.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+
+public class TokenResponse {
+    String accessToken;
+    @Builder.Default
+    String tokenType = "Bearer";
+    /** Lifetime of the access token in seconds **/
+    long expiresIn;
+    String refreshToken;
+}
@@ -0,0 +1,41 @@
+package com.demo.ecommerce.carts;
+
+/**
+ * The in-memory cart of one user: product IDs to quantities plus the bookkeeping of the write-behind.
+ * Every field is guarded by the cart itself.
+ */
+final class Cart {
+    final LongIntMap items;
+    /** Incremented by every change, compared with {@link #persisted} to know whether the cart is dirty **/
+    long modifications;
+    long persisted;
+    long lastAccessNanos;
+    /** Set once the cart is dropped from memory, a caller still holding it has to look the cart up again **/
+    boolean evicted;
+
+    Cart(LongIntMap items, long nowNanos) {
+        this.items = items;
+        this.lastAccessNanos = nowNanos;
+    }
+
+    /**
+     * @param userId the owner of the cart
+     * @return a copy of the cart's current contents
+     */
+    Snapshot snapshot(long userId) {
+        long[] productIds = new long[items.size()];
+        int[] quantities = new int[items.size()];
+        items.copyTo(productIds, quantities);
+        return new Snapshot(userId, modifications, productIds, quantities);
+    }
+
+    /**
+     * Contents of a cart at one point in time, ordered by product ID.
+     *
+     * @param userId        the owner of the cart
+     * @param modifications the modification count the snapshot was taken at
+     * @param productIds    the products in the cart
+     * @param quantities    the quantity of each product, parallel to {@code productIds}
+     */
+    record Snapshot(long userId, long modifications, long[] productIds, int[] quantities) {}
+}
@@ -0,0 +1,115 @@
+package com.demo.ecommerce.carts;
+
+import com.demo.ecommerce.carts.dto.CartItemRequest;
+import com.demo.ecommerce.carts.dto.CartQuantityRequest;
+import com.demo.ecommerce.carts.dto.CartResponse;
+import com.demo.ecommerce.carts.dto.CartTotalResponse;
+import com.demo.ecommerce.common.exceptions.BadRequestException;
+import com.demo.ecommerce.common.exceptions.ResourceNotFoundException;
+import io.swagger.v3.oas.annotations.Operation;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * The cart of the authenticated user. Every endpoint answers from memory, changes are persisted in the background.
+ */
+@RestController
+@RequestMapping(path = "api/cart", produces = MediaType.APPLICATION_JSON_VALUE)
+public class CartController {
+    @Autowired
+    CartService cartService;
+
+    @Autowired
+    CartMapper cartMapper;
+
+    /**
+     * Retrieves the cart of the authenticated user.
+     *
+     * @param jwt the verified access token
+     * @return a ResponseEntity containing the CartResponse with the items and totals of the cart
+     */
+    @Operation(summary = "Get the cart")
+    @GetMapping
+    public ResponseEntity<CartResponse> get(@AuthenticationPrincipal Jwt jwt) {
+        return ResponseEntity.ok(cartMapper.linesToResponse(cartService.get(userId(jwt))));
+    }
+
+    /**
+     * Adds units of a product to the cart of the authenticated user.
+     *
+     * @param jwt     the verified access token
+     * @param request the product and the number of units to add
+     * @return a ResponseEntity containing the CartResponse of the updated cart
+     * @throws ResourceNotFoundException if the product does not exist or is not active
+     * @throws BadRequestException       if the cart or the product's quantity would exceed its limit
+     */
+    @Operation(summary = "Add a product to the cart")
+    @PostMapping(path = "items", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<CartResponse> add(@AuthenticationPrincipal Jwt jwt, @Valid @RequestBody CartItemRequest request) {
+        return ResponseEntity.ok(cartMapper.linesToResponse(cartService.add(userId(jwt), request.getProductId(), request.getQuantity())));
+    }
+
+    /**
+     * Sets the quantity of a product in the cart of the authenticated user.
+     *
+     * @param jwt       the verified access token
+     * @param productId the ID of the product
+     * @param request   the new quantity, 0 removes the product
+     * @return a ResponseEntity containing the CartResponse of the updated cart
+     * @throws ResourceNotFoundException if the product does not exist or is not active
+     * @throws BadRequestException       if the cart or the product's quantity would exceed its limit
+     */
+    @Operation(summary = "Set the quantity of a product in the cart")
+    @PutMapping(path = "items/{productId}", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<CartResponse> setQuantity(@AuthenticationPrincipal Jwt jwt, @PathVariable long productId,
+                                                    @Valid @RequestBody CartQuantityRequest request) {
+        return ResponseEntity.ok(cartMapper.linesToResponse(cartService.setQuantity(userId(jwt), productId, request.getQuantity())));
+    }
+
+    /**
+     * Removes a product from the cart of the authenticated user.
+     *
+     * @param jwt       the verified access token
+     * @param productId the ID of the product
+     * @return a ResponseEntity containing the CartResponse of the updated cart
+     */
+    @Operation(summary = "Remove a product from the cart")
+    @DeleteMapping("items/{productId}")
+    public ResponseEntity<CartResponse> remove(@AuthenticationPrincipal Jwt jwt, @PathVariable long productId) {
+        return ResponseEntity.ok(cartMapper.linesToResponse(cartService.remove(userId(jwt), productId)));
+    }
+
+    /**
+     * Empties the cart of the authenticated user.
+     *
+     * @param jwt the verified access token
+     */
+    @Operation(summary = "Empty the cart")
+    @DeleteMapping
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void clear(@AuthenticationPrincipal Jwt jwt) {
+        cartService.clear(userId(jwt));
+    }
+
+    /**
+     * Computes the totals of the cart of the authenticated user.
+     *
+     * @param jwt the verified access token
+     * @return a ResponseEntity containing the CartTotalResponse with the number of products and units and their cost
+     */
+    @Operation(summary = "Get the totals of the cart")
+    @GetMapping("total")
+    public ResponseEntity<CartTotalResponse> total(@AuthenticationPrincipal Jwt jwt) {
+        return ResponseEntity.ok(cartMapper.totalsToResponse(cartService.totals(userId(jwt))));
+    }
+
+    private static long userId(Jwt jwt) {
+        return Long.parseLong(jwt.getSubject());
+    }
+}
@@ -0,0 +1,9 @@
+package com.demo.ecommerce.carts;
+
+/**
+ * One product in a cart.
+ *
+ * @param productId the ID of the product
+ * @param quantity  the number of units of the product, at least one
+ */
+public record CartLine(long productId, int quantity) {}
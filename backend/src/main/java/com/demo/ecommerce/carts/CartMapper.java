@@ -0,0 +1,39 @@
+package com.demo.ecommerce.carts;
+
+import com.demo.ecommerce.carts.dto.CartItemResponse;
+import com.demo.ecommerce.carts.dto.CartResponse;
+import com.demo.ecommerce.carts.dto.CartTotalResponse;
+import org.mapstruct.Mapper;
+
+import java.util.List;
+
+@Mapper(componentModel = "spring")
+public interface CartMapper {
+    /**
+     * Converts a {@link CartLine} to a {@link CartItemResponse}.
+     *
+     * @param line the line of the cart
+     * @return a {@link CartItemResponse} with the product and its quantity
+     */
+    CartItemResponse lineToResponse(CartLine line);
+    /**
+     * Converts {@link CartTotals} to a {@link CartTotalResponse}.
+     *
+     * @param totals the totals of a cart
+     * @return a {@link CartTotalResponse} with the same totals
+     */
+    CartTotalResponse totalsToResponse(CartTotals totals);
+    /**
+     * Converts the lines of a cart to a {@link CartResponse}, computing its totals along the way.
+     *
+     * @param lines the lines of the cart
+     * @return a {@link CartResponse} with the items and totals of the cart
+     */
+    default CartResponse linesToResponse(List<CartLine> lines) {
+        return CartResponse.builder()
+                .items(lines.stream().map(this::lineToResponse).toList())
+                .lines(lines.size())
+                .quantity(lines.stream().mapToLong(CartLine::quantity).sum())
+                .build();
+    }
+}
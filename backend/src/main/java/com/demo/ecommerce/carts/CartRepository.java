@@ -0,0 +1,53 @@
+package com.demo.ecommerce.carts;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Persists carts in the {@code cart_items} table, one row per product. Carts are always written whole, their rows are
+ * replaced rather than diffed, which keeps writes to two statements per batch of carts whatever changed.
+ */
+@Repository
+class CartRepository {
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    /**
+     * @param userId the owner of the cart
+     * @return the persisted contents of the cart, empty if it has none
+     */
+    LongIntMap findItems(long userId) {
+        LongIntMap items = new LongIntMap();
+        jdbcTemplate.query("select product_id, quantity from cart_items where user_id = ?",
+                row -> { items.put(row.getLong(1), row.getInt(2)); }, userId);
+        return items;
+    }
+
+    /**
+     * Replaces the persisted contents of several carts with one DELETE and one batched INSERT. Must run in a transaction.
+     *
+     * @param carts the new contents of the carts
+     */
+    void replaceAll(Collection<Cart.Snapshot> carts) {
+        List<Long> userIds = carts.stream().map(Cart.Snapshot::userId).toList();
+        namedParameterJdbcTemplate.update("delete from cart_items where user_id in (:userIds)", new MapSqlParameterSource("userIds", userIds));
+
+        List<Object[]> rows = new ArrayList<>();
+        for (Cart.Snapshot cart : carts) {
+            for (int i = 0; i < cart.productIds().length; i++) {
+                rows.add(new Object[]{cart.userId(), cart.productIds()[i], cart.quantities()[i]});
+            }
+        }
+        if (!rows.isEmpty()) jdbcTemplate.batchUpdate("insert into cart_items (user_id, product_id, quantity) values (?, ?, ?)", rows);
+    }
+}
@@ -0,0 +1,190 @@
+package com.demo.ecommerce.carts;
+
+import com.demo.ecommerce.common.exceptions.BadRequestException;
+import com.demo.ecommerce.common.exceptions.ResourceNotFoundException;
+import com.demo.ecommerce.pricing.PricingService;
+import com.demo.ecommerce.pricing.TotalsCalculator;
+import com.demo.ecommerce.products.Product;
+import com.demo.ecommerce.products.ProductService;
+import com.demo.ecommerce.promotions.PromotionService;
+import jakarta.validation.constraints.Min;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.validation.annotation.Validated;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shopping carts, one per user. Carts are kept by the {@link CartStore}, so changes are acknowledged from memory and
+ * reach the database with the next flush.
+ */
+@Validated
+@Service
+public class CartService {
+    @Autowired
+    CartStore cartStore;
+
+    @Autowired
+    ProductService productService;
+
+    @Autowired
+    PricingService pricingService;
+
+    @Autowired
+    PromotionService promotionService;
+
+    /** The lines of a cart, copied out of the store **/
+    private record Contents(long[] productIds, int[] quantities) {}
+
+    @Value("${carts.max-lines}")
+    int maxLines;
+
+    @Value("${carts.max-quantity}")
+    int maxQuantity;
+
+    /**
+     * Retrieves the contents of a user's cart.
+     *
+     * @param userId the owner of the cart
+     * @return the lines of the cart in product ID order, empty if the cart is empty
+     */
+    public List<CartLine> get(@Min(1) long userId) {
+        return cartStore.read(userId, CartService::lines);
+    }
+
+    /**
+     * Adds units of a product to a user's cart, on top of any already in it.
+     *
+     * @param userId    the owner of the cart
+     * @param productId the ID of the product to add
+     * @param quantity  the number of units to add
+     * @return the lines of the cart after the change
+     * @throws ResourceNotFoundException if the product does not exist or is not active
+     * @throws BadRequestException       if the product's quantity or the number of lines would exceed their limit
+     */
+    public List<CartLine> add(@Min(1) long userId, @Min(1) long productId, @Min(1) int quantity) {
+        checkProduct(productId);
+        return cartStore.write(userId, items -> {
+            int current = items.get(productId);
+            if (current == 0 && items.size() >= maxLines) throw new BadRequestException("A cart cannot hold more than %s products".formatted(maxLines));
+            if ((long) current + quantity > maxQuantity) throw new BadRequestException("A cart cannot hold more than %s units of a product".formatted(maxQuantity));
+            items.put(productId, current + quantity);
+            return lines(items);
+        });
+    }
+
+    /**
+     * Sets the quantity of a product in a user's cart. A quantity of zero removes the product.
+     *
+     * @param userId    the owner of the cart
+     * @param productId the ID of the product
+     * @param quantity  the new number of units
+     * @return the lines of the cart after the change
+     * @throws ResourceNotFoundException if the quantity is positive and the product does not exist or is not active
+     * @throws BadRequestException       if the quantity or the number of lines would exceed their limit
+     */
+    public List<CartLine> setQuantity(@Min(1) long userId, @Min(1) long productId, @Min(0) int quantity) {
+        if (quantity == 0) return remove(userId, productId);
+        if (quantity > maxQuantity) throw new BadRequestException("A cart cannot hold more than %s units of a product".formatted(maxQuantity));
+        checkProduct(productId);
+        return cartStore.write(userId, items -> {
+            if (items.get(productId) == 0 && items.size() >= maxLines) throw new BadRequestException("A cart cannot hold more than %s products".formatted(maxLines));
+            items.put(productId, quantity);
+            return lines(items);
+        });
+    }
+
+    /**
+     * Removes a product from a user's cart. Removing a product that is not in the cart changes nothing.
+     *
+     * @param userId    the owner of the cart
+     * @param productId the ID of the product to remove
+     * @return the lines of the cart after the change
+     */
+    public List<CartLine> remove(@Min(1) long userId, @Min(1) long productId) {
+        return cartStore.write(userId, items -> {
+            items.remove(productId);
+            return lines(items);
+        });
+    }
+
+    /**
+     * Removes every product from a user's cart.
+     *
+     * @param userId the owner of the cart
+     */
+    public void clear(@Min(1) long userId) {
+        cartStore.write(userId, items -> {
+            items.clear();
+            return null;
+        });
+    }
+
+    /**
+     * Takes lines that were ordered out of a user's cart. Only the ordered units are taken, so products added or
+     * quantities raised since the cart was read stay in the cart.
+     *
+     * @param userId the owner of the cart
+     * @param lines  the lines that were ordered
+     */
+    public void removeOrdered(@Min(1) long userId, List<CartLine> lines) {
+        cartStore.write(userId, items -> {
+            for (CartLine line : lines) {
+                int remaining = items.get(line.productId()) - line.quantity();
+                if (remaining > 0) items.put(line.productId(), remaining);
+                else items.remove(line.productId());
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Computes the totals of a user's cart at the current prices of its products, with the promotions running now.
+     * Products that are no longer available count towards the lines and units but not the amounts, checking out
+     * rejects them.
+     *
+     * @param userId the owner of the cart
+     * @return the number of lines and units in the cart and what it costs
+     */
+    public CartTotals totals(@Min(1) long userId) {
+        Contents contents = cartStore.read(userId, items -> {
+            Contents copy = new Contents(new long[items.size()], new int[items.size()]);
+            items.copyTo(copy.productIds(), copy.quantities());
+            return copy;
+        });
+        long[] ids = contents.productIds();
+        int[] counts = contents.quantities();
+
+        Map<Long, Product> products = productService.findAllById(Arrays.stream(ids).boxed().toList(), ProductService.DEFAULT_FILTER_FLAGS);
+        TotalsCalculator totals = pricingService.calculator();
+        List<Product> priced = new ArrayList<>(ids.length);
+        long units = 0;
+        for (int i = 0; i < ids.length; i++) {
+            units += counts[i];
+            Product product = products.get(ids[i]);
+            if (product == null) continue;
+            totals.addLine(product.getPrice(), counts[i], pricingService.taxRate());
+            priced.add(product);
+        }
+        promotionService.apply(totals, priced);
+        totals.compute();
+        return new CartTotals(ids.length, units, pricingService.currency(), totals.subtotal(), totals.discount(), totals.tax(), totals.total());
+    }
+
+    private void checkProduct(long productId) {
+        if (productService.findVersion(productId).isEmpty()) throw new ResourceNotFoundException("Product with id %s does not exist".formatted(productId));
+    }
+
+    private static List<CartLine> lines(LongIntMap items) {
+        long[] productIds = new long[items.size()];
+        int[] quantities = new int[items.size()];
+        items.copyTo(productIds, quantities);
+        List<CartLine> lines = new ArrayList<>(productIds.length);
+        for (int i = 0; i < productIds.length; i++) lines.add(new CartLine(productIds[i], quantities[i]));
+        return lines;
+    }
+}
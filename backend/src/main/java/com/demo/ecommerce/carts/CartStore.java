@@ -0,0 +1,194 @@
+package com.demo.ecommerce.carts;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Keeps the carts of active users in memory and writes them to the database behind the requests that change them.
+ * <p>
+ * A cart is loaded on first use and then only read and changed in memory, under its own lock, so cart requests never
+ * wait on a database round trip or commit. Changed carts are marked dirty and every {@code carts.flush-interval} the
+ * dirty ones are written in batches of {@code carts.flush-batch-size}, a batch per transaction; the store is flushed
+ * once more on shutdown. Clean carts unused for {@code carts.idle-timeout} are dropped and reloaded when needed.
+ * <p>
+ * Changes made since the last flush are lost if the process dies.
+ */
+@Component
+class CartStore implements DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(CartStore.class);
+
+    private final Map<Long, Cart> carts = new ConcurrentHashMap<>();
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+    private final CartRepository cartRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int flushBatchSize;
+    private final long idleTimeoutNanos;
+    private final LongSupplier nanoTime;
+
+    @Autowired
+    CartStore(CartRepository cartRepository, TransactionTemplate transactionTemplate,
+              @Value("${carts.flush-batch-size}") int flushBatchSize,
+              @Value("${carts.idle-timeout}") Duration idleTimeout) {
+        this(cartRepository, transactionTemplate, flushBatchSize, idleTimeout, System::nanoTime);
+    }
+
+    CartStore(CartRepository cartRepository, TransactionTemplate transactionTemplate, int flushBatchSize, Duration idleTimeout, LongSupplier nanoTime) {
+        this.cartRepository = cartRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.flushBatchSize = flushBatchSize;
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * Reads a cart, loading it first if it is not in memory.
+     *
+     * @param userId the owner of the cart
+     * @param reader reads the cart's items, under the cart's lock; must not keep a reference to them
+     * @return the result of the reader
+     */
+    <T> T read(long userId, Function<LongIntMap, T> reader) {
+        return access(userId, reader, false);
+    }
+
+    /**
+     * Changes a cart, loading it first if it is not in memory, and schedules it to be written.
+     *
+     * @param userId the owner of the cart
+     * @param writer changes the cart's items, under the cart's lock; must not keep a reference to them
+     * @return the result of the writer
+     */
+    <T> T write(long userId, Function<LongIntMap, T> writer) {
+        return access(userId, writer, true);
+    }
+
+    private <T> T access(long userId, Function<LongIntMap, T> action, boolean write) {
+        while (true) {
+            Cart cart = carts.get(userId);
+            if (cart == null) {
+                // Loaded outside the map so a slow query holds no lock; if two requests race, the first one in wins
+                Cart loaded = new Cart(cartRepository.findItems(userId), nanoTime.getAsLong());
+                cart = carts.putIfAbsent(userId, loaded);
+                if (cart == null) cart = loaded;
+            }
+            synchronized (cart) {
+                // Evicted between the lookup and the lock, its contents are in the database
+                if (cart.evicted) continue;
+                cart.lastAccessNanos = nanoTime.getAsLong();
+                T result = action.apply(cart.items);
+                if (write) {
+                    cart.modifications++;
+                    dirty.add(userId);
+                }
+                return result;
+            }
+        }
+    }
+
+    /**
+     * Writes every cart changed since the last flush, then drops idle carts.
+     * <p>
+     * A batch that fails is retried on the next flush. If it fails on an integrity constraint, its carts are written
+     * one by one and those still failing, whose user was deleted, are discarded.
+     */
+    @Scheduled(fixedDelayString = "${carts.flush-interval}", initialDelayString = "${carts.flush-interval}")
+    public synchronized void flush() {
+        List<Cart.Snapshot> batch = new ArrayList<>(flushBatchSize);
+        for (Long userId : List.copyOf(dirty)) {
+            dirty.remove(userId);
+            Cart cart = carts.get(userId);
+            if (cart == null) continue;
+            synchronized (cart) {
+                if (cart.modifications == cart.persisted) continue;
+                batch.add(cart.snapshot(userId));
+            }
+            if (batch.size() == flushBatchSize) {
+                writeBatch(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) writeBatch(batch);
+
+        evictIdle();
+    }
+
+    private void writeBatch(List<Cart.Snapshot> batch) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> cartRepository.replaceAll(batch));
+            batch.forEach(this::markPersisted);
+        } catch (DataIntegrityViolationException e) {
+            if (batch.size() > 1) {
+                for (Cart.Snapshot snapshot : batch) writeBatch(List.of(snapshot));
+                return;
+            }
+            Cart.Snapshot snapshot = batch.getFirst();
+            log.warn("Discarding the cart of user {}, it cannot be written: {}", snapshot.userId(), e.getMessage());
+            discard(snapshot.userId());
+        } catch (RuntimeException e) {
+            log.warn("Failed to write {} carts, retrying on the next flush", batch.size(), e);
+            batch.forEach(snapshot -> dirty.add(snapshot.userId()));
+        }
+    }
+
+    private void markPersisted(Cart.Snapshot snapshot) {
+        Cart cart = carts.get(snapshot.userId());
+        if (cart == null) return;
+        synchronized (cart) {
+            cart.persisted = Math.max(cart.persisted, snapshot.modifications());
+        }
+    }
+
+    private void discard(long userId) {
+        Cart cart = carts.remove(userId);
+        if (cart == null) return;
+        synchronized (cart) {
+            cart.evicted = true;
+        }
+    }
+
+    private void evictIdle() {
+        long now = nanoTime.getAsLong();
+        carts.forEach((userId, cart) -> {
+            synchronized (cart) {
+                if (cart.modifications != cart.persisted || now - cart.lastAccessNanos < idleTimeoutNanos) return;
+                cart.evicted = true;
+                carts.remove(userId, cart);
+            }
+        });
+    }
+
+    /**
+     * @return the number of carts in memory
+     */
+    int size() {
+        return carts.size();
+    }
+
+    /**
+     * @return the number of carts waiting to be written
+     */
+    int pending() {
+        return dirty.size();
+    }
+
+    @Override
+    public void destroy() {
+        flush();
+    }
+}
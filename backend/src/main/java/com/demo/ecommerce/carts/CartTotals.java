@@ -0,0 +1,14 @@
+package com.demo.ecommerce.carts;
+
+/**
+ * Aggregates over the contents of a cart.
+ *
+ * @param lines    the number of distinct products
+ * @param quantity the number of units over all products
+ * @param currency the ISO 4217 code of the currency of the amounts, which are in its minor units
+ * @param subtotal the sum of unit price times quantity over the available products
+ * @param discount the discount over all lines
+ * @param tax      the tax over all lines
+ * @param total    what checking out would cost: subtotal - discount + tax
+ */
+public record CartTotals(int lines, long quantity, String currency, long subtotal, long discount, long tax, long total) {}
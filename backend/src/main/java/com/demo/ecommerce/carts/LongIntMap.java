@@ -0,0 +1,145 @@
+package com.demo.ecommerce.carts;
+
+import java.util.Arrays;
+
+/**
+ * Map from positive {@code long} keys to {@code int} values stored in two primitive arrays with open addressing and
+ * linear probing, so an entry costs 12 bytes instead of two boxed objects and a node. Key 0 marks a free slot.
+ * Not thread-safe.
+ */
+final class LongIntMap {
+    private static final int MIN_CAPACITY = 8;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+
+    LongIntMap() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * @param expectedSize the number of entries to make room for without resizing
+     */
+    LongIntMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(MIN_CAPACITY, expectedSize * 2 - 1)) << 1;
+        keys = new long[capacity];
+        values = new int[capacity];
+    }
+
+    /**
+     * @param key a positive key
+     * @return the value of the key, or 0 if it has none
+     */
+    int get(long key) {
+        int slot = find(key);
+        return keys[slot] == 0 ? 0 : values[slot];
+    }
+
+    /**
+     * @param key   a positive key
+     * @param value the value to associate with the key
+     * @return the previous value of the key, or 0 if it had none
+     */
+    int put(long key, int value) {
+        if (key <= 0) throw new IllegalArgumentException("Keys must be positive: " + key);
+        int slot = find(key);
+        if (keys[slot] != 0) {
+            int previous = values[slot];
+            values[slot] = value;
+            return previous;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        // Keep the load factor at or below one half so probe sequences stay short
+        if (++size * 2 > keys.length) resize(keys.length << 1);
+        return 0;
+    }
+
+    /**
+     * @param key a positive key
+     * @return the value the key had, or 0 if it had none
+     */
+    int remove(long key) {
+        int slot = find(key);
+        if (keys[slot] == 0) return 0;
+        int previous = values[slot];
+        size--;
+
+        // Shift the following entries of the probe sequence back, so no tombstones are needed
+        int mask = keys.length - 1;
+        int free = slot;
+        for (int next = (free + 1) & mask; keys[next] != 0; next = (next + 1) & mask) {
+            int home = slot(keys[next]);
+            // Move the entry unless its home lies cyclically in (free, next]
+            if (((next - home) & mask) >= ((next - free) & mask)) {
+                keys[free] = keys[next];
+                values[free] = values[next];
+                free = next;
+            }
+        }
+        keys[free] = 0;
+        values[free] = 0;
+        return previous;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(values, 0);
+        size = 0;
+    }
+
+    /**
+     * @return the sum of all values
+     */
+    long sumValues() {
+        long sum = 0;
+        // Empty slots hold 0, so they can be summed along
+        for (int value : values) sum += value;
+        return sum;
+    }
+
+    /**
+     * Copies the entries into two parallel arrays, ordered by key.
+     *
+     * @param keysOut   receives the keys, must hold at least {@link #size()} elements
+     * @param valuesOut receives the values, must hold at least {@link #size()} elements
+     */
+    void copyTo(long[] keysOut, int[] valuesOut) {
+        int n = 0;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != 0) keysOut[n++] = keys[slot];
+        }
+        Arrays.sort(keysOut, 0, n);
+        for (int i = 0; i < n; i++) valuesOut[i] = get(keysOut[i]);
+    }
+
+    private int find(long key) {
+        int mask = keys.length - 1;
+        int slot = slot(key);
+        while (keys[slot] != 0 && keys[slot] != key) slot = (slot + 1) & mask;
+        return slot;
+    }
+
+    private int slot(long key) {
+        // Fibonacci hashing spreads sequential IDs over the table
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> (64 - Integer.numberOfTrailingZeros(keys.length)));
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[capacity];
+        values = new int[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == 0) continue;
+            int slot = find(oldKeys[i]);
+            keys[slot] = oldKeys[i];
+            values[slot] = oldValues[i];
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.demo.ecommerce.carts.dto;
+
+import jakarta.validation.constraints.Min;
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+
+public class CartItemRequest {
+    @Min(value = 1, message = "Product id has to be a positive integer")
+    long productId;
+    @Builder.Default
+    @Min(value = 1, message = "Quantity has to be a positive integer")
+    int quantity = 1;
+}
@@ -0,0 +1,12 @@
+package com.demo.ecommerce.carts.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+
+public class CartItemResponse {
+    long productId;
+    int quantity;
+}
@@ -0,0 +1,16 @@
+package com.demo.ecommerce.carts.dto;
+
+import jakarta.validation.constraints.Min;
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+
+public class CartQuantityRequest {
+    /** The new quantity of the product, 0 removes it from the cart **/
+    @Min(value = 0, message = "Quantity cannot be negative")
+    int quantity;
+}
@@ -0,0 +1,18 @@
+package com.demo.ecommerce.carts.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+
+public class CartResponse {
+    /** Products in the cart, in product ID order **/
+    List<CartItemResponse> items;
+    /** Number of distinct products in the cart **/
+    int lines;
+    /** Number of units over all products **/
+    long quantity;
+}
@@ -0,0 +1,20 @@
+package com.demo.ecommerce.carts.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+
+public class CartTotalResponse {
+    /** Number of distinct products in the cart **/
+    int lines;
+    /** Number of units over all products **/
+    long quantity;
+    /** Amounts are in minor units of this currency, e.g. cents **/
+    String currency;
+    long subtotal;
+    long discount;
+    long tax;
+    long total;
+}
@@ -0,0 +1,89 @@
+package com.demo.ecommerce.common;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Hashed timing wheel tracking the deadlines of a set of keys.
+ * <p>
+ * Time is cut into ticks of {@code tickMillis} and each deadline lands in the slot of its tick, modulo the number of
+ * slots. Scheduling and cancelling are O(1), and advancing the wheel only visits the slots of the ticks that passed
+ * instead of every key; deadlines more than one rotation away stay in their slot until a later round reaches them.
+ * Not thread-safe.
+ *
+ * @param <K> the type of the keys
+ */
+public final class TimingWheel<K> {
+    private final long tickMillis;
+    private final Map<K, Long>[] slots;
+    private long currentTick;
+    private int size;
+
+    /**
+     * @param tickMillis the resolution of the wheel; keys expire at most one tick after their deadline
+     * @param slotCount  the number of slots, one rotation covers {@code tickMillis * slotCount}
+     * @param nowMillis  the current time
+     */
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long tickMillis, int slotCount, long nowMillis) {
+        this.tickMillis = tickMillis;
+        this.slots = new Map[slotCount];
+        for (int i = 0; i < slotCount; i++) slots[i] = new HashMap<>();
+        this.currentTick = nowMillis / tickMillis;
+    }
+
+    /**
+     * Schedules a key. A key must not be scheduled twice without being cancelled or expired in between.
+     *
+     * @param key        the key
+     * @param deadline   the time the key expires at, in epoch milliseconds
+     */
+    public void schedule(K key, long deadline) {
+        if (slots[slot(deadline)].put(key, deadline) == null) size++;
+    }
+
+    /**
+     * Cancels a scheduled key.
+     *
+     * @param key      the key
+     * @param deadline the deadline it was scheduled with
+     */
+    public void cancel(K key, long deadline) {
+        if (slots[slot(deadline)].remove(key) != null) size--;
+    }
+
+    /**
+     * Moves the wheel to the current time, removing every key whose deadline has passed.
+     *
+     * @param nowMillis the current time
+     * @param expired   receives each expired key
+     */
+    public void advance(long nowMillis, Consumer<K> expired) {
+        long targetTick = nowMillis / tickMillis;
+        // Each slot needs visiting at most once, however far the clock jumped
+        for (long tick = Math.max(currentTick, targetTick - slots.length + 1); tick <= targetTick; tick++) {
+            Iterator<Map.Entry<K, Long>> entries = slots[(int) Math.floorMod(tick, slots.length)].entrySet().iterator();
+            while (entries.hasNext()) {
+                Map.Entry<K, Long> entry = entries.next();
+                if (entry.getValue() > nowMillis) continue;
+                entries.remove();
+                size--;
+                expired.accept(entry.getKey());
+            }
+        }
+        currentTick = targetTick;
+    }
+
+    /**
+     * @return the number of scheduled keys
+     */
+    public int size() {
+        return size;
+    }
+
+    private int slot(long deadline) {
+        return (int) Math.floorMod(deadline / tickMillis, slots.length);
+    }
+}
@@ -0,0 +1,12 @@
+package com.demo.ecommerce.common.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+
+public class BulkOperationResponse {
+    /** Number of rows the operation changed, entries that were already in the target state are not counted **/
+    long affected;
+}
@@ -0,0 +1,26 @@
+package com.demo.ecommerce.common.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_GATEWAY)
+public class BadGatewayException extends RuntimeException{
+    public BadGatewayException() {
+    }
+
+    public BadGatewayException(String message) {
+        super(message);
+    }
+
+    public BadGatewayException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public BadGatewayException(Throwable cause) {
+        super(cause);
+    }
+
+    public BadGatewayException(String message, Throwable cause, boolean enableSuppression, boolean writableStackTrace) {
+        super(message, cause, enableSuppression, writableStackTrace);
+    }
+}
@@ -0,0 +1,50 @@
+package com.demo.ecommerce.inventory;
+
+import com.demo.ecommerce.common.exceptions.ConflictException;
+import com.demo.ecommerce.common.exceptions.ResourceNotFoundException;
+import com.demo.ecommerce.inventory.dto.StockAdjustmentRequest;
+import com.demo.ecommerce.inventory.dto.StockLevelResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping(path = "api/inventory", produces = MediaType.APPLICATION_JSON_VALUE)
+public class InventoryController {
+    @Autowired
+    InventoryService inventoryService;
+
+    @Autowired
+    InventoryMapper inventoryMapper;
+
+    /**
+     * Retrieves the stock of a product. Products without stock report zero units.
+     *
+     * @param productId the ID of the product
+     * @return a ResponseEntity containing the StockLevelResponse with the units on hand and available
+     * @throws ResourceNotFoundException if the product does not exist or is deleted
+     */
+    @Operation(summary = "Get the stock of a product")
+    @GetMapping("{productId}")
+    public ResponseEntity<StockLevelResponse> get(@PathVariable long productId) {
+        return ResponseEntity.ok(inventoryMapper.levelToResponse(inventoryService.findLevel(productId)));
+    }
+
+    /**
+     * Adds units to the stock of a product, or removes available units. Requires the ADMINISTRATOR role.
+     *
+     * @param productId the ID of the product
+     * @param request   the number of units to add or remove
+     * @return a ResponseEntity containing the StockLevelResponse after the change
+     * @throws ResourceNotFoundException if the product does not exist or is deleted
+     * @throws ConflictException         if fewer units than removed are available
+     */
+    @Operation(summary = "Adjust the stock of a product")
+    @PostMapping(path = "{productId}/adjustments", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StockLevelResponse> adjust(@PathVariable long productId, @Valid @RequestBody StockAdjustmentRequest request) {
+        return ResponseEntity.ok(inventoryMapper.levelToResponse(inventoryService.adjust(productId, request.getDelta())));
+    }
+}
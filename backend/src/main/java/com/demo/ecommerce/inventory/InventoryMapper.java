@@ -0,0 +1,15 @@
+package com.demo.ecommerce.inventory;
+
+import com.demo.ecommerce.inventory.dto.StockLevelResponse;
+import org.mapstruct.Mapper;
+
+@Mapper(componentModel = "spring")
+public interface InventoryMapper {
+    /**
+     * Converts a {@link StockLevel} to a {@link StockLevelResponse}.
+     *
+     * @param level the stock of a product
+     * @return a {@link StockLevelResponse} with the units on hand and available
+     */
+    StockLevelResponse levelToResponse(StockLevel level);
+}
@@ -0,0 +1,45 @@
+package com.demo.ecommerce.inventory;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Persists the units on hand of each product in the {@code inventory} table. Products without a row have no stock.
+ */
+@Repository
+class InventoryRepository {
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * @param productId the ID of the product
+     * @return the persisted units on hand, 0 if the product has no row
+     */
+    long findOnHand(long productId) {
+        List<Long> onHand = jdbcTemplate.queryForList("select on_hand from inventory where product_id = ?", Long.class, productId);
+        return onHand.isEmpty() ? 0 : onHand.getFirst();
+    }
+
+    /**
+     * Adds to the units on hand of several products with one batched UPDATE, plus one batched INSERT for the products
+     * that have no row yet. Must run in a transaction.
+     *
+     * @param deltas the change of each product's units on hand, keyed by product ID
+     */
+    void applyDeltas(Map<Long, Long> deltas) {
+        List<Object[]> updates = new ArrayList<>(deltas.size());
+        deltas.forEach((productId, delta) -> updates.add(new Object[]{delta, productId}));
+        int[] counts = jdbcTemplate.batchUpdate("update inventory set on_hand = on_hand + ? where product_id = ?", updates);
+
+        List<Object[]> inserts = new ArrayList<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) inserts.add(new Object[]{updates.get(i)[1], updates.get(i)[0]});
+        }
+        if (!inserts.isEmpty()) jdbcTemplate.batchUpdate("insert into inventory (product_id, on_hand) values (?, ?)", inserts);
+    }
+}
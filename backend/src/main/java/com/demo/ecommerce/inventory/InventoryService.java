@@ -0,0 +1,323 @@
+package com.demo.ecommerce.inventory;
+
+import com.demo.ecommerce.common.TimingWheel;
+import com.demo.ecommerce.common.exceptions.BadRequestException;
+import com.demo.ecommerce.common.exceptions.ConflictException;
+import com.demo.ecommerce.common.exceptions.ResourceNotFoundException;
+import com.demo.ecommerce.products.ProductExcludeFlag;
+import com.demo.ecommerce.products.ProductService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stock of products, reserved while an order is placed and committed once it is.
+ * <p>
+ * Stock is counted in memory instead of locking product rows: the available units of a product are a
+ * {@link StripedCounter} of {@code inventory.stripes} stripes, so concurrent reservations of a hot product update
+ * different cache lines with a compare-and-set each and never wait on each other or on the database. A reservation
+ * either takes all of its units or none, and the available units never drop below zero, so stock cannot be oversold.
+ * <p>
+ * Reservations that are neither committed nor released within {@code inventory.reservation-ttl} are released by a
+ * {@link TimingWheel} advanced every {@code inventory.expiry-tick}. Committed units and adjustments are recorded as
+ * per-product deltas and written every {@code inventory.flush-interval}, {@code inventory.flush-batch-size} products
+ * per transaction, and on shutdown.
+ * <p>
+ * The counters assume a single instance owns the stock. Reservations are not persisted and are dropped on restart,
+ * deltas since the last flush are lost if the process dies.
+ */
+@Service
+public class InventoryService implements DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(InventoryService.class);
+    private static final int WHEEL_SLOTS = 512;
+
+    private final Map<Long, Stock> stocks = new ConcurrentHashMap<>();
+    private final Map<Long, Reservation> reservations = new ConcurrentHashMap<>();
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+    private final AtomicLong reservationIds = new AtomicLong();
+    // Guarded by itself
+    private final TimingWheel<Long> expiries;
+    private final InventoryRepository inventoryRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ProductService productService;
+    private final Clock clock;
+    private final Duration reservationTtl;
+    private final int stripes;
+    private final int flushBatchSize;
+
+    private static final class Stock {
+        final StripedCounter available;
+        final AtomicLong onHand;
+        /** Change of the units on hand not written yet **/
+        final AtomicLong pending = new AtomicLong();
+
+        Stock(int stripes, long onHand) {
+            this.available = new StripedCounter(stripes, onHand);
+            this.onHand = new AtomicLong(onHand);
+        }
+    }
+
+    private record Reservation(List<StockLine> lines, long expiresAt) {}
+
+    @Autowired
+    InventoryService(InventoryRepository inventoryRepository, TransactionTemplate transactionTemplate, ProductService productService,
+                     @Value("${inventory.reservation-ttl}") Duration reservationTtl,
+                     @Value("${inventory.expiry-tick}") Duration expiryTick,
+                     @Value("${inventory.stripes}") int stripes,
+                     @Value("${inventory.flush-batch-size}") int flushBatchSize) {
+        this(inventoryRepository, transactionTemplate, productService, Clock.systemUTC(), reservationTtl, expiryTick, stripes, flushBatchSize);
+    }
+
+    InventoryService(InventoryRepository inventoryRepository, TransactionTemplate transactionTemplate, ProductService productService,
+                     Clock clock, Duration reservationTtl, Duration expiryTick, int stripes, int flushBatchSize) {
+        this.inventoryRepository = inventoryRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.productService = productService;
+        this.clock = clock;
+        this.reservationTtl = reservationTtl;
+        this.stripes = stripes;
+        this.flushBatchSize = flushBatchSize;
+        this.expiries = new TimingWheel<>(expiryTick.toMillis(), WHEEL_SLOTS, clock.millis());
+    }
+
+    /**
+     * Retrieves the stock of a product.
+     *
+     * @param productId the ID of the product
+     * @return the units on hand and available; available units may lag behind a reservation in progress
+     * @throws ResourceNotFoundException if the product does not exist or is deleted
+     */
+    public StockLevel findLevel(long productId) {
+        Stock stock = load(productId);
+        if (stock == null) throw new ResourceNotFoundException("Product with id %s does not exist".formatted(productId));
+        return new StockLevel(productId, stock.onHand.get(), stock.available.sum());
+    }
+
+    /**
+     * Reserves units of several products, all or nothing. Lines of the same product are added up.
+     *
+     * @param lines the products and units to reserve
+     * @return the ID of the reservation, to commit or release it
+     * @throws BadRequestException if there are no lines or a quantity is not positive
+     * @throws ConflictException   if a product does not exist or does not have enough available units; nothing is
+     *                             reserved
+     */
+    public long reserve(Collection<StockLine> lines) {
+        List<StockLine> merged = merge(lines);
+        for (int i = 0; i < merged.size(); i++) {
+            StockLine line = merged.get(i);
+            Stock stock = load(line.productId());
+            if (stock == null || !stock.available.tryTake(line.quantity())) {
+                for (int j = 0; j < i; j++) stock(merged.get(j).productId()).available.add(merged.get(j).quantity());
+                throw new ConflictException("Not enough stock of product %s".formatted(line.productId()));
+            }
+        }
+
+        long id = reservationIds.incrementAndGet();
+        Reservation reservation = new Reservation(merged, clock.millis() + reservationTtl.toMillis());
+        reservations.put(id, reservation);
+        synchronized (expiries) {
+            expiries.schedule(id, reservation.expiresAt());
+        }
+        return id;
+    }
+
+    /**
+     * Turns a reservation into a sale, removing its units from the stock on hand.
+     *
+     * @param reservationId the ID returned by {@link #reserve}
+     * @return true if the reservation was committed, false if it is unknown, expired or already committed or released
+     */
+    public boolean commit(long reservationId) {
+        Reservation reservation = take(reservationId);
+        if (reservation == null) return false;
+        for (StockLine line : reservation.lines()) {
+            Stock stock = stock(line.productId());
+            stock.onHand.addAndGet(-line.quantity());
+            stock.pending.addAndGet(-line.quantity());
+            dirty.add(line.productId());
+        }
+        return true;
+    }
+
+    /**
+     * Sells units that have no reservation, for an order placed after its reservation was lost. Of each product, as
+     * many of the units as are still available are removed from the stock; units reserved by others meanwhile stay
+     * theirs, so the stock on hand never drops below what is reserved.
+     *
+     * @param lines the products and units sold
+     * @return true if every unit was sold, false if some were no longer available and the sale is short
+     * @throws BadRequestException if there are no lines or a quantity is not positive
+     */
+    public boolean sell(Collection<StockLine> lines) {
+        boolean sold = true;
+        for (StockLine line : merge(lines)) {
+            Stock stock = stock(line.productId());
+            long taken = stock.available.takeAtMost(line.quantity());
+            if (taken < line.quantity()) sold = false;
+            if (taken == 0) continue;
+            stock.onHand.addAndGet(-taken);
+            stock.pending.addAndGet(-taken);
+            dirty.add(line.productId());
+        }
+        return sold;
+    }
+
+    /**
+     * Returns the units of a reservation to the available stock.
+     *
+     * @param reservationId the ID returned by {@link #reserve}
+     * @return true if the reservation was released, false if it is unknown, expired or already committed or released
+     */
+    public boolean release(long reservationId) {
+        Reservation reservation = take(reservationId);
+        if (reservation == null) return false;
+        giveBack(reservation);
+        return true;
+    }
+
+    /**
+     * Adds units to the stock of a product, or removes available units if the delta is negative.
+     *
+     * @param productId the ID of the product
+     * @param delta     the number of units to add or remove
+     * @return the stock of the product after the change
+     * @throws ResourceNotFoundException if the product does not exist or is deleted
+     * @throws ConflictException         if fewer units than removed are available
+     */
+    public StockLevel adjust(long productId, long delta) {
+        if (productService.findVersion(productId, EnumSet.of(ProductExcludeFlag.DELETED)).isEmpty())
+            throw new ResourceNotFoundException("Product with id %s does not exist".formatted(productId));
+        Stock stock = stock(productId);
+        if (delta > 0) stock.available.add(delta);
+        else if (delta < 0 && !stock.available.tryTake(-delta)) throw new ConflictException("Not enough available stock of product %s".formatted(productId));
+        stock.onHand.addAndGet(delta);
+        stock.pending.addAndGet(delta);
+        dirty.add(productId);
+        return new StockLevel(productId, stock.onHand.get(), stock.available.sum());
+    }
+
+    /**
+     * @return the number of reservations neither committed, released nor expired
+     */
+    public int activeReservations() {
+        return reservations.size();
+    }
+
+    /**
+     * Releases the reservations that expired since the last run.
+     */
+    @Scheduled(fixedDelayString = "${inventory.expiry-tick}")
+    public void expire() {
+        List<Long> expired = new ArrayList<>();
+        synchronized (expiries) {
+            expiries.advance(clock.millis(), expired::add);
+        }
+        for (Long id : expired) {
+            Reservation reservation = reservations.remove(id);
+            if (reservation != null) giveBack(reservation);
+        }
+    }
+
+    /**
+     * Writes the changes of the units on hand made since the last flush. A batch that fails is retried on the next
+     * flush.
+     */
+    @Scheduled(fixedDelayString = "${inventory.flush-interval}", initialDelayString = "${inventory.flush-interval}")
+    public synchronized void flush() {
+        Map<Long, Long> batch = new HashMap<>();
+        for (Long productId : List.copyOf(dirty)) {
+            dirty.remove(productId);
+            long delta = stocks.get(productId).pending.getAndSet(0);
+            if (delta == 0) continue;
+            batch.put(productId, delta);
+            if (batch.size() == flushBatchSize) {
+                writeBatch(batch);
+                batch = new HashMap<>();
+            }
+        }
+        if (!batch.isEmpty()) writeBatch(batch);
+    }
+
+    private void writeBatch(Map<Long, Long> batch) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> inventoryRepository.applyDeltas(batch));
+        } catch (RuntimeException e) {
+            log.warn("Failed to write the stock of {} products, retrying on the next flush", batch.size(), e);
+            batch.forEach((productId, delta) -> {
+                stocks.get(productId).pending.addAndGet(delta);
+                dirty.add(productId);
+            });
+        }
+    }
+
+    @Override
+    public void destroy() {
+        flush();
+    }
+
+    private Reservation take(long reservationId) {
+        Reservation reservation = reservations.remove(reservationId);
+        if (reservation == null) return null;
+        synchronized (expiries) {
+            expiries.cancel(reservationId, reservation.expiresAt());
+        }
+        // Expired but not swept yet, the units go back as if the sweep had run
+        if (reservation.expiresAt() <= clock.millis()) {
+            giveBack(reservation);
+            return null;
+        }
+        return reservation;
+    }
+
+    private void giveBack(Reservation reservation) {
+        for (StockLine line : reservation.lines()) stock(line.productId()).available.add(line.quantity());
+    }
+
+    /**
+     * @return the stock of a product, loading it first if it is not in memory; null if the product does not exist or is
+     * deleted, so looking up unknown IDs fills no memory
+     */
+    private Stock load(long productId) {
+        Stock stock = stocks.get(productId);
+        if (stock != null) return stock;
+        if (productService.findVersion(productId, EnumSet.of(ProductExcludeFlag.DELETED)).isEmpty()) return null;
+        return stock(productId);
+    }
+
+    /**
+     * @return the stock of a product known to exist, loading it first if it is not in memory
+     */
+    private Stock stock(long productId) {
+        Stock stock = stocks.get(productId);
+        if (stock != null) return stock;
+        // Loaded outside the map so a slow query holds no lock; if two requests race, the first one in wins
+        Stock loaded = new Stock(stripes, inventoryRepository.findOnHand(productId));
+        stock = stocks.putIfAbsent(productId, loaded);
+        return stock == null ? loaded : stock;
+    }
+
+    private static List<StockLine> merge(Collection<StockLine> lines) {
+        if (lines.isEmpty()) throw new BadRequestException("Nothing to reserve");
+        // Sorted by product ID, with the units of repeated products added up
+        Map<Long, Integer> quantities = new TreeMap<>();
+        for (StockLine line : lines) {
+            if (line.quantity() <= 0) throw new BadRequestException("Quantity has to be a positive integer");
+            quantities.merge(line.productId(), line.quantity(), Math::addExact);
+        }
+        List<StockLine> merged = new ArrayList<>(quantities.size());
+        quantities.forEach((productId, quantity) -> merged.add(new StockLine(productId, quantity)));
+        return merged;
+    }
+}
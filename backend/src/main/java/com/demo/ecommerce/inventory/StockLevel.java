@@ -0,0 +1,10 @@
+package com.demo.ecommerce.inventory;
+
+/**
+ * The stock of a product.
+ *
+ * @param productId the ID of the product
+ * @param onHand    the units in stock, including reserved ones
+ * @param available the units in stock that are not reserved
+ */
+public record StockLevel(long productId, long onHand, long available) {}
@@ -0,0 +1,9 @@
+package com.demo.ecommerce.inventory;
+
+/**
+ * A number of units of one product.
+ *
+ * @param productId the ID of the product
+ * @param quantity  the number of units, positive
+ */
+public record StockLine(long productId, int quantity) {}
@@ -0,0 +1,108 @@
+package com.demo.ecommerce.inventory;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A non-negative counter split over several stripes, each updated with its own compare-and-set.
+ * <p>
+ * Threads take from a stripe picked from their ID, so concurrent takers of a hot counter mostly hit different cache
+ * lines instead of retrying on one. A take that its own stripe cannot cover gathers from the others under a lock and
+ * puts back what it took if the total falls short, so the counter never goes below zero. Takes from a single stripe
+ * are all or nothing, so while a gather runs no other take holds units it may give back, and falling short means the
+ * units are not there rather than that a concurrent take is holding them.
+ */
+final class StripedCounter {
+    // Stripes are this many longs apart, so no two of them share a 64 byte cache line
+    private static final int PADDING = 8;
+
+    private final AtomicLongArray cells;
+    private final int mask;
+
+    /**
+     * @param stripes the number of stripes, rounded up to a power of two
+     * @param initial the initial value, spread evenly over the stripes
+     */
+    StripedCounter(int stripes, long initial) {
+        if (initial < 0) throw new IllegalArgumentException("Counter cannot be negative: " + initial);
+        int count = Integer.highestOneBit(Math.max(1, stripes) * 2 - 1);
+        this.cells = new AtomicLongArray(count * PADDING);
+        this.mask = count - 1;
+        for (int i = 0; i < count; i++) cells.set(i * PADDING, initial / count + (i < initial % count ? 1 : 0));
+    }
+
+    /**
+     * Takes an amount if the counter holds at least that much.
+     *
+     * @param amount the amount to take, positive
+     * @return true if the amount was taken, false if the counter was left unchanged
+     */
+    boolean tryTake(long amount) {
+        int home = homeStripe();
+        if (takeAll(home, amount)) return true;
+        synchronized (this) {
+            while (true) {
+                long taken = 0;
+                for (int i = 0; i <= mask && taken < amount; i++) taken += takeUpTo((home + i) & mask, amount - taken);
+                if (taken == amount) return true;
+                if (taken > 0) add(taken);
+                // Units added to a stripe already passed are picked up on the next sweep
+                if (sum() < amount) return false;
+            }
+        }
+    }
+
+    /**
+     * Takes as much of an amount as the counter holds.
+     *
+     * @param amount the most to take, positive
+     * @return the amount taken, from zero up to the amount
+     */
+    long takeAtMost(long amount) {
+        if (tryTake(amount)) return amount;
+        synchronized (this) {
+            long taken = 0;
+            for (int i = 0; i <= mask && taken < amount; i++) taken += takeUpTo(i, amount - taken);
+            return taken;
+        }
+    }
+
+    /**
+     * @param amount the amount to add, positive
+     */
+    void add(long amount) {
+        cells.getAndAdd((homeStripe() & mask) * PADDING, amount);
+    }
+
+    /**
+     * @return the value of the counter; exact only when no update is in progress
+     */
+    long sum() {
+        long sum = 0;
+        for (int i = 0; i <= mask; i++) sum += cells.get(i * PADDING);
+        return sum;
+    }
+
+    private boolean takeAll(int stripe, long amount) {
+        int index = stripe * PADDING;
+        while (true) {
+            long value = cells.get(index);
+            if (value < amount) return false;
+            if (cells.compareAndSet(index, value, value - amount)) return true;
+        }
+    }
+
+    private long takeUpTo(int stripe, long max) {
+        int index = stripe * PADDING;
+        while (true) {
+            long value = cells.get(index);
+            if (value <= 0) return 0;
+            long taken = Math.min(value, max);
+            if (cells.compareAndSet(index, value, value - taken)) return taken;
+        }
+    }
+
+    private int homeStripe() {
+        // Spreads consecutive thread IDs over the stripes
+        return (int) (Thread.currentThread().threadId() * 0x9E3779B97F4A7C15L >>> 40) & mask;
+    }
+}
@@ -0,0 +1,14 @@
+package com.demo.ecommerce.inventory.dto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+
+public class StockAdjustmentRequest {
+    /** Units to add to the stock, negative to remove available units **/
+    long delta;
+}
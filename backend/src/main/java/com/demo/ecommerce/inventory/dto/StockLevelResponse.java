@@ -0,0 +1,15 @@
+package com.demo.ecommerce.inventory.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+
+public class StockLevelResponse {
+    long productId;
+    /** Units in stock, including reserved ones **/
+    long onHand;
+    /** Units in stock that can still be ordered **/
+    long available;
+}
@@ -0,0 +1,81 @@
+package com.demo.ecommerce.invoices;
+
+import com.demo.ecommerce.common.exceptions.ResourceNotFoundException;
+import com.demo.ecommerce.common.exceptions.TooManyRequestsException;
+import io.swagger.v3.oas.annotations.Operation;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+@RestController
+@RequestMapping(path = "api/orders/{id}/invoice")
+public class InvoiceController {
+    // Tomcat's sendfile request attributes, see org.apache.coyote.Constants
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    @Autowired
+    InvoiceService invoiceService;
+
+    /**
+     * Retrieves the PDF invoice of an order of the authenticated user.
+     * <p>
+     * The rendered file is handed to the connector's sendfile when it supports it, so the kernel copies it to the socket
+     * without it passing through the JVM. Otherwise it is copied to the response with {@link FileChannel#transferTo},
+     * which goes through a small buffer when the target is the servlet stream, so the document is never held in the heap
+     * as a whole.
+     *
+     * @param jwt      the verified access token
+     * @param id       the ID of the order
+     * @param request  the current request, carries the sendfile attributes
+     * @param response receives the document
+     * @throws ResourceNotFoundException if the order does not exist or belongs to another user
+     * @throws TooManyRequestsException  if the invoice has to be rendered and too many are in progress
+     * @throws IOException               if the file cannot be read or the client goes away
+     */
+    @Operation(summary = "Get the invoice of an order")
+    @GetMapping(produces = MediaType.APPLICATION_PDF_VALUE)
+    public void get(@AuthenticationPrincipal Jwt jwt, @PathVariable long id,
+                    HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Path file = invoiceService.findInvoice(id, Long.parseLong(jwt.getSubject()))
+                .orElseThrow(() -> new ResourceNotFoundException("Order with id %s does not exist".formatted(id)));
+        response.setContentType(MediaType.APPLICATION_PDF_VALUE);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.inline().filename("invoice-%d.pdf".formatted(id)).build().toString());
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            long size = Files.size(file);
+            response.setContentLengthLong(size);
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, size);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            response.setContentLengthLong(size);
+            WritableByteChannel target = Channels.newChannel(response.getOutputStream());
+            for (long position = 0; position < size; ) {
+                position += channel.transferTo(position, size - position, target);
+            }
+        }
+    }
+}
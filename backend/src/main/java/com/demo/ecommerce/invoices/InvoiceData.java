@@ -0,0 +1,31 @@
+package com.demo.ecommerce.invoices;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Everything printed on an invoice, read from the database before rendering starts. Amounts are in minor units of
+ * {@code currency}.
+ *
+ * @param orderId       the ID of the order
+ * @param orderVersion  the version of the order, part of the cache key of the rendered invoice
+ * @param placedAt      when the order was placed
+ * @param customerName  the name of the customer
+ * @param customerEmail the email address of the customer
+ * @param lines         the lines of the order, in product ID order
+ * @param currency      the ISO 4217 code of the currency of the order
+ * @param subtotal      the sum of the lines before discounts and tax
+ * @param discount      the discount of the order
+ * @param tax           the tax of the order
+ * @param total         what the customer pays
+ */
+public record InvoiceData(long orderId, int orderVersion, Instant placedAt, String customerName, String customerEmail, List<Line> lines,
+                          String currency, long subtotal, long discount, long tax, long total) {
+    /**
+     * @param productId   the ID of the product
+     * @param productName the name of the product, or null if it no longer exists
+     * @param quantity    the number of units ordered
+     * @param unitPrice   the price of one unit when the order was placed
+     */
+    public record Line(long productId, String productName, int quantity, long unitPrice) {}
+}
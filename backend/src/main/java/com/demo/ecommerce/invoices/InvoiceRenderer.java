@@ -0,0 +1,95 @@
+package com.demo.ecommerce.invoices;
+
+import com.demo.ecommerce.pricing.MoneyFormat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Lays out an invoice on as many A4 pages as its lines need, writing each page as soon as it is full.
+ */
+final class InvoiceRenderer {
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm 'UTC'").withZone(ZoneOffset.UTC);
+    private static final int MARGIN = 50;
+    private static final int LINE_HEIGHT = 16;
+    private static final int QUANTITY_X = 320;
+    private static final int PRICE_X = 380;
+    private static final int AMOUNT_X = PdfWriter.PAGE_WIDTH - MARGIN - 80;
+    private static final int MAX_NAME_LENGTH = 48;
+
+    private InvoiceRenderer() {
+    }
+
+    /**
+     * Renders an invoice as a PDF document.
+     *
+     * @param invoice the contents of the invoice
+     * @param out     receives the document, should be buffered; closed when done
+     * @throws IOException if the stream fails
+     */
+    static void render(InvoiceData invoice, OutputStream out) throws IOException {
+        try (PdfWriter pdf = new PdfWriter(out)) {
+            int y = firstPage(pdf, invoice);
+            String currency = invoice.currency();
+            for (InvoiceData.Line line : invoice.lines()) {
+                if (y < MARGIN + 2 * LINE_HEIGHT) y = nextPage(pdf, invoice);
+                String name = line.productName() == null ? "Product " + line.productId() : line.productName();
+                if (name.length() > MAX_NAME_LENGTH) name = name.substring(0, MAX_NAME_LENGTH - 3) + "...";
+                pdf.text(MARGIN, y, 10, false, name);
+                pdf.text(QUANTITY_X, y, 10, false, Integer.toString(line.quantity()));
+                pdf.text(PRICE_X, y, 10, false, MoneyFormat.format(line.unitPrice(), currency));
+                pdf.text(AMOUNT_X, y, 10, false, MoneyFormat.format(line.unitPrice() * line.quantity(), currency));
+                y -= LINE_HEIGHT;
+            }
+            // The summary stays together on one page
+            int summaryLines = invoice.discount() > 0 ? 4 : 3;
+            if (y < MARGIN + (summaryLines + 1) * LINE_HEIGHT) y = nextPage(pdf, invoice);
+            pdf.rule(MARGIN, PdfWriter.PAGE_WIDTH - MARGIN, y + LINE_HEIGHT - 4);
+            y = summary(pdf, y, false, "Subtotal", invoice.subtotal(), currency);
+            if (invoice.discount() > 0) y = summary(pdf, y, false, "Discount", -invoice.discount(), currency);
+            y = summary(pdf, y, false, "Tax", invoice.tax(), currency);
+            summary(pdf, y, true, "Total", invoice.total(), currency);
+        }
+    }
+
+    private static int summary(PdfWriter pdf, int y, boolean bold, String label, long amount, String currency) {
+        pdf.text(PRICE_X, y, 10, bold, label);
+        pdf.text(AMOUNT_X, y, 10, bold, MoneyFormat.format(amount, currency));
+        return y - LINE_HEIGHT;
+    }
+
+    private static int firstPage(PdfWriter pdf, InvoiceData invoice) throws IOException {
+        pdf.newPage();
+        int y = PdfWriter.PAGE_HEIGHT - MARGIN - 20;
+        pdf.text(MARGIN, y, 20, true, "Invoice");
+        y -= 30;
+        pdf.text(MARGIN, y, 10, false, "Order " + invoice.orderId());
+        pdf.text(MARGIN + 250, y, 10, false, "Placed " + (invoice.placedAt() == null ? "-" : DATE.format(invoice.placedAt())));
+        y -= 2 * LINE_HEIGHT;
+        pdf.text(MARGIN, y, 10, true, "Bill to");
+        y -= LINE_HEIGHT;
+        pdf.text(MARGIN, y, 10, false, invoice.customerName());
+        y -= LINE_HEIGHT;
+        pdf.text(MARGIN, y, 10, false, invoice.customerEmail());
+        y -= 2 * LINE_HEIGHT;
+        return tableHeader(pdf, y);
+    }
+
+    private static int nextPage(PdfWriter pdf, InvoiceData invoice) throws IOException {
+        pdf.newPage();
+        int y = PdfWriter.PAGE_HEIGHT - MARGIN - 10;
+        pdf.text(MARGIN, y, 10, false, "Invoice for order %s, page %s".formatted(invoice.orderId(), pdf.pages()));
+        return tableHeader(pdf, y - 2 * LINE_HEIGHT);
+    }
+
+    private static int tableHeader(PdfWriter pdf, int y) {
+        pdf.text(MARGIN, y, 10, true, "Product");
+        pdf.text(QUANTITY_X, y, 10, true, "Quantity");
+        pdf.text(PRICE_X, y, 10, true, "Unit price");
+        pdf.text(AMOUNT_X, y, 10, true, "Amount");
+        pdf.rule(MARGIN, PdfWriter.PAGE_WIDTH - MARGIN, y - 4);
+        return y - LINE_HEIGHT - 4;
+    }
+}
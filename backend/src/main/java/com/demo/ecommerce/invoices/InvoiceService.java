@@ -0,0 +1,169 @@
+package com.demo.ecommerce.invoices;
+
+import com.demo.ecommerce.common.exceptions.TooManyRequestsException;
+import com.demo.ecommerce.orders.Order;
+import com.demo.ecommerce.orders.OrderLine;
+import com.demo.ecommerce.orders.OrderRepository;
+import com.demo.ecommerce.products.Product;
+import com.demo.ecommerce.products.ProductExcludeFlag;
+import com.demo.ecommerce.products.ProductService;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Renders the PDF invoices of orders on a dedicated, bounded pool and keeps them on disk.
+ * <p>
+ * An invoice is rendered once per order version into {@code invoices.cache-directory}, streamed page by page through a
+ * file channel so no whole document is held in memory, and served from that file afterwards; checking the cache only
+ * reads the order's version. Rendering runs on {@code invoices.threads} threads with up to
+ * {@code invoices.queue-capacity} invoices waiting, anything beyond that is rejected with a
+ * {@link TooManyRequestsException}. Concurrent requests for the same invoice share one rendering.
+ * <p>
+ * A new version replaces the invoice of the previous one without deleting it, a request may have just been handed that
+ * file and not opened it yet. It is deleted once a newer version is rendered in turn. The file is named after the
+ * version that was rendered, which is newer than the one checked if the order changed in between.
+ */
+@Service
+public class InvoiceService implements DisposableBean {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final OrderRepository orderRepository;
+    private final ProductService productService;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Path directory;
+    private final ThreadPoolExecutor executor;
+    private final Map<Path, CompletableFuture<Path>> rendering = new ConcurrentHashMap<>();
+
+    InvoiceService(OrderRepository orderRepository, ProductService productService, PlatformTransactionManager transactionManager,
+                   @Value("${invoices.cache-directory}") Path directory,
+                   @Value("${invoices.threads}") int threads,
+                   @Value("${invoices.queue-capacity}") int queueCapacity) throws IOException {
+        this.orderRepository = orderRepository;
+        this.productService = productService;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.directory = Files.createDirectories(directory);
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("invoice-renderer-"),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Retrieves the invoice of an order, rendering it first if the current version of the order has none yet.
+     *
+     * @param orderId the ID of the order
+     * @param userId  the user who placed the order
+     * @return the PDF file of the invoice, or empty if the order does not exist or belongs to another user
+     * @throws TooManyRequestsException if the invoice has to be rendered and the pool and its queue are full
+     */
+    public Optional<Path> findInvoice(long orderId, long userId) {
+        Optional<Integer> version = orderRepository.findVersion(orderId, userId);
+        if (version.isEmpty()) return Optional.empty();
+        Path file = directory.resolve(fileName(orderId, version.get()));
+        if (Files.exists(file)) return Optional.of(file);
+
+        CompletableFuture<Path> result = rendering.computeIfAbsent(file, key -> {
+            CompletableFuture<Path> future = new CompletableFuture<>();
+            try {
+                executor.execute(() -> {
+                    try {
+                        future.complete(render(orderId));
+                    } catch (Throwable e) {
+                        future.completeExceptionally(e);
+                    } finally {
+                        rendering.remove(key);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                future.completeExceptionally(new TooManyRequestsException("Too many invoices being rendered, retry later"));
+                // Removed by the caller below, a failed rendering must not stay shared
+            }
+            return future;
+        });
+        try {
+            return Optional.of(result.join());
+        } catch (CompletionException e) {
+            rendering.remove(file, result);
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static String fileName(long orderId, int version) {
+        return "invoice-%d-v%d.pdf".formatted(orderId, version);
+    }
+
+    private Path render(long orderId) throws IOException {
+        InvoiceData invoice = readOnlyTransaction.execute(status -> load(orderId));
+        Path file = directory.resolve(fileName(orderId, invoice.orderVersion()));
+        Path temporary = Files.createTempFile(directory, "invoice", ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                InvoiceRenderer.render(invoice, new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE));
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+        deleteOldVersions(orderId, invoice.orderVersion());
+        return file;
+    }
+
+    private InvoiceData load(long orderId) {
+        Order order = orderRepository.findById(orderId).orElseThrow();
+        // Deleted products still appear on the invoices of the orders they were part of
+        Map<Long, Product> products = productService.findAllById(order.getLines().stream().map(OrderLine::getProductId).toList(),
+                EnumSet.noneOf(ProductExcludeFlag.class));
+        return new InvoiceData(order.getId(), order.getVersion(), order.getCreatedAt(), order.getUser().getName(), order.getUser().getEmail(),
+                order.getLines().stream()
+                        .map(line -> new InvoiceData.Line(line.getProductId(),
+                                products.containsKey(line.getProductId()) ? products.get(line.getProductId()).getName() : null,
+                                line.getQuantity(), line.getUnitPrice()))
+                        .toList(),
+                order.getCurrency(), order.getSubtotal(), order.getDiscount(), order.getTax(), order.getTotal());
+    }
+
+    /** Deletes the invoices of the versions before a rendered one, except the latest of them **/
+    private void deleteOldVersions(long orderId, int rendered) throws IOException {
+        String prefix = "invoice-%d-v".formatted(orderId);
+        List<Integer> older = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, prefix + "*.pdf")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                int version = Integer.parseInt(name, prefix.length(), name.length() - ".pdf".length(), 10);
+                if (version < rendered) older.add(version);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        older.sort(null);
+        for (int i = 0; i < older.size() - 1; i++) Files.deleteIfExists(directory.resolve(fileName(orderId, older.get(i))));
+    }
+
+    /**
+     * @return the number of invoices waiting for a rendering thread
+     */
+    public int queued() {
+        return executor.getQueue().size();
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,172 @@
+package com.demo.ecommerce.invoices;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Writes a PDF 1.4 document of text pages straight to an output stream.
+ * <p>
+ * Every page is written as soon as it is finished, so only the page being drawn is held in memory, plus one offset
+ * per object for the cross-reference table written at the end. Text uses the standard Helvetica fonts, which readers
+ * provide, so no font is embedded; characters outside Latin-1 are replaced. Not thread-safe.
+ */
+final class PdfWriter implements Closeable {
+    /** A4, in points **/
+    static final int PAGE_WIDTH = 595;
+    static final int PAGE_HEIGHT = 842;
+
+    private static final int CATALOG = 1;
+    private static final int PAGES = 2;
+    private static final int FONT_REGULAR = 3;
+    private static final int FONT_BOLD = 4;
+    private static final byte[] HEADER = {'%', 'P', 'D', 'F', '-', '1', '.', '4', '\n', '%', (byte) 0xE2, (byte) 0xE3, (byte) 0xCF, (byte) 0xD3, '\n'};
+
+    private final OutputStream out;
+    private final ByteArrayOutputStream page = new ByteArrayOutputStream(4096);
+    private long position;
+    private long[] offsets = new long[16];
+    private int objects = FONT_BOLD;
+    private int[] kids = new int[4];
+    private int pages;
+    private boolean inPage;
+
+    /**
+     * Starts a document. The stream should be buffered, the writer issues many small writes.
+     *
+     * @param out receives the document; closed by {@link #close()}
+     * @throws IOException if the stream fails
+     */
+    PdfWriter(OutputStream out) throws IOException {
+        this.out = out;
+        write(HEADER);
+        object(CATALOG, "<< /Type /Catalog /Pages " + PAGES + " 0 R >>");
+        object(FONT_REGULAR, "<< /Type /Font /Subtype /Type1 /BaseFont /Helvetica /Encoding /WinAnsiEncoding >>");
+        object(FONT_BOLD, "<< /Type /Font /Subtype /Type1 /BaseFont /Helvetica-Bold /Encoding /WinAnsiEncoding >>");
+    }
+
+    /**
+     * Starts a new page, finishing the current one if any.
+     *
+     * @throws IOException if the stream fails
+     */
+    void newPage() throws IOException {
+        if (inPage) endPage();
+        page.reset();
+        inPage = true;
+    }
+
+    /**
+     * Draws a line of text.
+     *
+     * @param x    the left edge, in points from the left of the page
+     * @param y    the baseline, in points from the bottom of the page
+     * @param size the font size in points
+     * @param bold whether to use the bold font
+     * @param text the text, on a single line
+     */
+    void text(int x, int y, int size, boolean bold, String text) {
+        append("BT /F").append(bold ? "2 " : "1 ").append(size).append(" Tf ").append(x).append(' ').append(y).append(" Td (");
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '(' || c == ')' || c == '\\') page.write('\\');
+            page.write(c < 0x20 || c > 0xFF ? '?' : c);
+        }
+        append(") Tj ET\n");
+    }
+
+    /**
+     * Draws a horizontal rule.
+     *
+     * @param x1 the start, in points from the left of the page
+     * @param x2 the end, in points from the left of the page
+     * @param y  the height, in points from the bottom of the page
+     */
+    void rule(int x1, int x2, int y) {
+        append("0.5 w ").append(x1).append(' ').append(y).append(" m ").append(x2).append(' ').append(y).append(" l S\n");
+    }
+
+    /**
+     * @return the number of pages started so far
+     */
+    int pages() {
+        return pages + (inPage ? 1 : 0);
+    }
+
+    /**
+     * Finishes the document, writing the page tree and cross-reference table, and closes the stream.
+     *
+     * @throws IOException if the stream fails
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (!inPage && pages == 0) newPage();
+            if (inPage) endPage();
+
+            StringBuilder tree = new StringBuilder("<< /Type /Pages /Count ").append(pages).append(" /Kids [");
+            for (int i = 0; i < pages; i++) tree.append(kids[i]).append(" 0 R ");
+            object(PAGES, tree.append("] >>").toString());
+
+            long xref = position;
+            StringBuilder table = new StringBuilder("xref\n0 ").append(objects + 1).append("\n0000000000 65535 f \n");
+            for (int i = 1; i <= objects; i++) {
+                String offset = Long.toString(offsets[i]);
+                table.repeat('0', 10 - offset.length()).append(offset).append(" 00000 n \n");
+            }
+            table.append("trailer\n<< /Size ").append(objects + 1).append(" /Root ").append(CATALOG).append(" 0 R >>\nstartxref\n")
+                    .append(xref).append("\n%%EOF\n");
+            write(table.toString().getBytes(StandardCharsets.US_ASCII));
+        } finally {
+            out.close();
+        }
+    }
+
+    private void endPage() throws IOException {
+        int contents = ++objects;
+        offset(contents);
+        write(("%d 0 obj\n<< /Length %d >>\nstream\n".formatted(contents, page.size())).getBytes(StandardCharsets.US_ASCII));
+        page.writeTo(out);
+        position += page.size();
+        write("\nendstream\nendobj\n".getBytes(StandardCharsets.US_ASCII));
+
+        int pageObject = ++objects;
+        object(pageObject, "<< /Type /Page /Parent %d 0 R /MediaBox [0 0 %d %d] /Contents %d 0 R /Resources << /Font << /F1 %d 0 R /F2 %d 0 R >> >> >>"
+                .formatted(PAGES, PAGE_WIDTH, PAGE_HEIGHT, contents, FONT_REGULAR, FONT_BOLD));
+        if (pages == kids.length) kids = Arrays.copyOf(kids, pages * 2);
+        kids[pages++] = pageObject;
+        inPage = false;
+    }
+
+    private void object(int number, String body) throws IOException {
+        offset(number);
+        write((number + " 0 obj\n" + body + "\nendobj\n").getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private void offset(int number) {
+        if (number >= offsets.length) offsets = Arrays.copyOf(offsets, Math.max(number + 1, offsets.length * 2));
+        offsets[number] = position;
+    }
+
+    private void write(byte[] bytes) throws IOException {
+        out.write(bytes);
+        position += bytes.length;
+    }
+
+    private PdfWriter append(String text) {
+        for (int i = 0; i < text.length(); i++) page.write(text.charAt(i));
+        return this;
+    }
+
+    private PdfWriter append(char c) {
+        page.write(c);
+        return this;
+    }
+
+    private PdfWriter append(int value) {
+        return append(Integer.toString(value));
+    }
+}
@@ -0,0 +1,50 @@
+package com.demo.ecommerce.mail;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Writes each email as an RFC 5322 message file to {@code mail.file-sink.directory} instead of sending it, for local
+ * development and tests. Files are named after the message ID, so a message sent again replaces its earlier copy.
+ */
+@Component
+public class FileMailSender implements MailSender {
+    private final Path directory;
+
+    FileMailSender(@Value("${mail.file-sink.directory}") Path directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    public void send(Mail mail) throws IOException {
+        Files.createDirectories(directory);
+        String message = "Message-ID: <" + mail.messageId() + ">\r\n"
+                + "To: " + mail.to() + "\r\n"
+                + "Subject: " + mail.subject() + "\r\n"
+                + "Content-Type: text/plain; charset=UTF-8\r\n"
+                + "\r\n"
+                + mail.body().replace("\n", "\r\n");
+        // Written aside and moved in place, so a reader never sees half a message
+        Path temporary = Files.createTempFile(directory, "mail", ".tmp");
+        try {
+            Files.writeString(temporary, message, StandardCharsets.UTF_8);
+            Files.move(temporary, file(mail.messageId()), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * @param messageId the ID of a sent message
+     * @return the file the message is written to
+     */
+    public Path file(String messageId) {
+        return directory.resolve(messageId.replaceAll("[^A-Za-z0-9.-]", "_") + ".eml");
+    }
+}
@@ -0,0 +1,11 @@
+package com.demo.ecommerce.mail;
+
+/**
+ * A plain text email.
+ *
+ * @param messageId a unique identifier, the same when a message is sent again so receivers can drop duplicates
+ * @param to        the recipient's address
+ * @param subject   the subject line
+ * @param body      the plain text body
+ */
+public record Mail(String messageId, String to, String subject, String body) {}
@@ -0,0 +1,15 @@
+package com.demo.ecommerce.mail;
+
+/**
+ * Delivers emails. The application uses {@link FileMailSender} unless another implementation is declared
+ * {@link org.springframework.context.annotation.Primary @Primary}.
+ */
+public interface MailSender {
+    /**
+     * Delivers an email. Called from many threads at once.
+     *
+     * @param mail the email to send
+     * @throws Exception if the email could not be delivered and should be retried
+     */
+    void send(Mail mail) throws Exception;
+}
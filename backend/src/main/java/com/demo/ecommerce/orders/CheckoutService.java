@@ -0,0 +1,135 @@
+package com.demo.ecommerce.orders;
+
+import com.demo.ecommerce.carts.CartLine;
+import com.demo.ecommerce.carts.CartService;
+import com.demo.ecommerce.common.exceptions.BadRequestException;
+import com.demo.ecommerce.common.exceptions.ConflictException;
+import com.demo.ecommerce.common.exceptions.ResourceNotFoundException;
+import com.demo.ecommerce.common.exceptions.TooManyRequestsException;
+import com.demo.ecommerce.inventory.InventoryService;
+import com.demo.ecommerce.inventory.StockLine;
+import com.demo.ecommerce.pricing.PricingService;
+import com.demo.ecommerce.pricing.TotalsCalculator;
+import com.demo.ecommerce.products.Product;
+import com.demo.ecommerce.products.ProductService;
+import com.demo.ecommerce.promotions.PromotionService;
+import com.demo.ecommerce.users.User;
+import com.demo.ecommerce.users.UserService;
+import jakarta.validation.constraints.Min;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.validation.annotation.Validated;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+@Validated
+@Service
+public class CheckoutService {
+    private static final Logger log = LoggerFactory.getLogger(CheckoutService.class);
+
+    @Autowired
+    CartService cartService;
+
+    @Autowired
+    ProductService productService;
+
+    @Autowired
+    InventoryService inventoryService;
+
+    @Autowired
+    UserService userService;
+
+    @Autowired
+    OrderWriter orderWriter;
+
+    @Autowired
+    PricingService pricingService;
+
+    @Autowired
+    PromotionService promotionService;
+
+    @Autowired
+    OrderRepository orderRepository;
+
+    /**
+     * Places an order for the contents of a user's cart.
+     * <p>
+     * Lines are priced at the current prices of their products, with the promotions running at checkout. The stock of
+     * every product is reserved first, so nothing is written unless all of it is available. The order is then saved
+     * through the {@link OrderWriter}, which may share the transaction with concurrent checkouts, and only once it is
+     * committed is the reservation turned into a sale and the ordered lines taken out of the cart, leaving anything
+     * added meanwhile. If the order cannot be saved the reservation is released. If the reservation expired before the
+     * order was committed, its units are sold again, and the order is {@link OrderStatus#OVERSOLD} if some of them were
+     * no longer available.
+     *
+     * @param userId the user checking out
+     * @return the placed order
+     * @throws BadRequestException       if the cart is empty
+     * @throws ResourceNotFoundException if the user does not exist
+     * @throws ConflictException         if a product is no longer available, has no price or is out of stock
+     * @throws TooManyRequestsException  if too many checkouts are waiting to be written
+     */
+    public Order checkout(@Min(1) long userId) {
+        List<CartLine> lines = cartService.get(userId);
+        if (lines.isEmpty()) throw new BadRequestException("The cart is empty");
+        User user = userService.findReferenceById(userId).orElseThrow(() -> new ResourceNotFoundException("User with id %s does not exist".formatted(userId)));
+        Map<Long, Product> products = productService.findAllById(lines.stream().map(CartLine::productId).toList(), ProductService.DEFAULT_FILTER_FLAGS);
+        for (CartLine line : lines) {
+            Product product = products.get(line.productId());
+            if (product == null) throw new ConflictException("Product %s is no longer available".formatted(line.productId()));
+            // Products that existed before prices were introduced are at zero until someone prices them
+            if (product.getPrice() <= 0) throw new ConflictException("Product %s has no price".formatted(line.productId()));
+        }
+
+        TotalsCalculator totals = pricingService.calculator();
+        for (CartLine line : lines) totals.addLine(products.get(line.productId()).getPrice(), line.quantity(), pricingService.taxRate());
+        promotionService.apply(totals, lines.stream().map(line -> products.get(line.productId())).toList());
+        totals.compute();
+        Order priced = Order.builder()
+                .user(user)
+                .status(OrderStatus.PLACED)
+                .lines(lines.stream().map(line -> new OrderLine(line.productId(), line.quantity(), products.get(line.productId()).getPrice())).toList())
+                .currency(pricingService.currency())
+                .subtotal(totals.subtotal())
+                .discount(totals.discount())
+                .tax(totals.tax())
+                .total(totals.total())
+                .build();
+
+        List<StockLine> stockLines = lines.stream().map(line -> new StockLine(line.productId(), line.quantity())).toList();
+        long reservation = inventoryService.reserve(stockLines);
+        Order order;
+        try {
+            order = orderWriter.save(priced);
+        } catch (RuntimeException e) {
+            inventoryService.release(reservation);
+            throw e;
+        }
+        // The reservation outlives any wait for the writer by far, losing it here means the TTL is misconfigured. Its
+        // units went back to the stock, so the order takes them again, and is flagged if others took them meanwhile
+        if (!inventoryService.commit(reservation)) {
+            log.error("Reservation {} of order {} expired before it was committed", reservation, order.getId());
+            if (!inventoryService.sell(stockLines)) {
+                orderRepository.updateStatus(order.getId(), OrderStatus.OVERSOLD);
+                order.setStatus(OrderStatus.OVERSOLD);
+            }
+        }
+        cartService.removeOrdered(userId, lines);
+        return order;
+    }
+
+    /**
+     * Retrieves an order of a user with its lines.
+     *
+     * @param id     the ID of the order
+     * @param userId the user who placed the order
+     * @return an Optional containing the order, or an empty Optional if it does not exist or belongs to another user
+     */
+    public Optional<Order> findById(@Min(1) long id, @Min(1) long userId) {
+        return orderRepository.findByIdAndUserId(id, userId);
+    }
+}
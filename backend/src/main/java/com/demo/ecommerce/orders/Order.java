@@ -0,0 +1,67 @@
+package com.demo.ecommerce.orders;
+
+import com.demo.ecommerce.users.User;
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+
+@Entity
+@EntityListeners(AuditingEntityListener.class)
+// Indexes are created by the Flyway migrations in db/migration and only listed here for reference
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_user_id_id", columnList = "user_id, id")
+})
+public class Order
+{
+    @Id
+    // The order writer inserts the orders of a group commit in JDBC batches, which needs ids assigned before the insert
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_seq", allocationSize = 50)
+    @EqualsAndHashCode.Include
+    @Column(name = "id", nullable = false)
+    private long id;
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private OrderStatus status;
+    @Builder.Default
+    @ElementCollection
+    @CollectionTable(name = "order_lines", joinColumns = @JoinColumn(name = "order_id"))
+    private List<OrderLine> lines = new ArrayList<>();
+    /** ISO 4217 code of every amount of the order, the amounts are in its minor units **/
+    @Column(name = "currency", nullable = false, length = 3)
+    private String currency;
+    /** Sum of the lines before discounts and tax **/
+    @Column(name = "subtotal", nullable = false)
+    private long subtotal;
+    @Column(name = "discount", nullable = false)
+    private long discount;
+    @Column(name = "tax", nullable = false)
+    private long tax;
+    /** What the customer pays: subtotal - discount + tax **/
+    @Column(name = "total", nullable = false)
+    private long total;
+    @CreatedDate
+    @Column(name = "createdAt")
+    private Instant createdAt;
+    @LastModifiedDate
+    @Column(name = "updatedAt")
+    private Instant updatedAt;
+    @Version
+    private int version;
+}
@@ -0,0 +1,61 @@
+package com.demo.ecommerce.orders;
+
+import com.demo.ecommerce.common.exceptions.BadRequestException;
+import com.demo.ecommerce.common.exceptions.ConflictException;
+import com.demo.ecommerce.common.exceptions.ResourceNotFoundException;
+import com.demo.ecommerce.common.exceptions.TooManyRequestsException;
+import com.demo.ecommerce.orders.dto.OrderResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.net.URI;
+
+@RestController
+@RequestMapping(path = "api/orders", produces = MediaType.APPLICATION_JSON_VALUE)
+public class OrderController {
+    @Autowired
+    CheckoutService checkoutService;
+
+    @Autowired
+    OrderMapper orderMapper;
+
+    /**
+     * Places an order for the contents of the authenticated user's cart and empties the cart.
+     *
+     * @param jwt the verified access token
+     * @return a ResponseEntity containing the OrderResponse of the placed order with HTTP status code 201 (Created)
+     * @throws BadRequestException       if the cart is empty
+     * @throws ResourceNotFoundException if the user no longer exists
+     * @throws ConflictException         if a product is no longer available, has no price or is out of stock
+     * @throws TooManyRequestsException  if too many checkouts are in progress
+     */
+    @Operation(summary = "Check out the cart")
+    @PostMapping("checkout")
+    public ResponseEntity<OrderResponse> checkout(@AuthenticationPrincipal Jwt jwt) {
+        Order order = checkoutService.checkout(Long.parseLong(jwt.getSubject()));
+        URI location = ServletUriComponentsBuilder.fromCurrentContextPath().path("/api/orders/{id}").buildAndExpand(order.getId()).toUri();
+        return ResponseEntity.created(location).body(orderMapper.entityToResponse(order));
+    }
+
+    /**
+     * Retrieves an order of the authenticated user.
+     *
+     * @param jwt the verified access token
+     * @param id  the ID of the order
+     * @return a ResponseEntity containing the OrderResponse
+     * @throws ResourceNotFoundException if the order does not exist or belongs to another user
+     */
+    @Operation(summary = "Get an order by id")
+    @GetMapping("{id}")
+    public ResponseEntity<OrderResponse> get(@AuthenticationPrincipal Jwt jwt, @PathVariable long id) {
+        Order order = checkoutService.findById(id, Long.parseLong(jwt.getSubject()))
+                .orElseThrow(() -> new ResourceNotFoundException("Order with id %s does not exist".formatted(id)));
+        return ResponseEntity.ok(orderMapper.entityToResponse(order));
+    }
+}
@@ -0,0 +1,23 @@
+package com.demo.ecommerce.orders;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.*;
+
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@EqualsAndHashCode
+
+@Embeddable
+public class OrderLine {
+    @Column(name = "product_id", nullable = false)
+    private long productId;
+    @Column(name = "quantity", nullable = false)
+    private int quantity;
+    /** The price of the product when the order was placed, in minor units of the order's currency **/
+    @Column(name = "unit_price", nullable = false)
+    private long unitPrice;
+}
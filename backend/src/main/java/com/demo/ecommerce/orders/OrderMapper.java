@@ -0,0 +1,18 @@
+package com.demo.ecommerce.orders;
+
+import com.demo.ecommerce.orders.dto.OrderResponse;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+@Mapper(componentModel = "spring")
+public interface OrderMapper {
+    /**
+     * Converts an {@link Order} entity to an {@link OrderResponse}.
+     *
+     * @param order the {@link Order} entity to be converted, with its lines loaded
+     * @return an {@link OrderResponse} containing the order and its lines
+     */
+    // Reading the ID of a lazy user does not initialize it
+    @Mapping(target = "userId", source = "user.id")
+    OrderResponse entityToResponse(Order order);
+}
@@ -0,0 +1,56 @@
+package com.demo.ecommerce.orders;
+
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+@Repository
+public interface OrderRepository extends JpaRepository<Order, Long> {
+    /**
+     * Finds an order of a user together with its lines.
+     *
+     * @param id     the ID of the order
+     * @param userId the ID of the user who placed it
+     * @return the order, or empty if it does not exist or belongs to another user
+     */
+    @EntityGraph(attributePaths = "lines")
+    Optional<Order> findByIdAndUserId(long id, long userId);
+
+    /**
+     * Reads the version of an order of a user without loading the order.
+     *
+     * @param id     the ID of the order
+     * @param userId the ID of the user who placed it
+     * @return the version of the order, or empty if it does not exist or belongs to another user
+     */
+    @Query("select o.version from Order o where o.id = :id and o.user.id = :userId")
+    Optional<Integer> findVersion(@Param("id") long id, @Param("userId") long userId);
+
+    /**
+     * Reads what a user has to pay for an order without loading the order.
+     *
+     * @param id     the ID of the order
+     * @param userId the ID of the user who placed it
+     * @return the total of the order, or empty if it does not exist or belongs to another user
+     */
+    @Query("select new com.demo.ecommerce.orders.OrderTotal(o.total, o.currency) from Order o where o.id = :id and o.user.id = :userId")
+    Optional<OrderTotal> findTotal(@Param("id") long id, @Param("userId") long userId);
+
+    /**
+     * Sets the status of an order without loading it.
+     *
+     * @param id     the ID of the order
+     * @param status the new status
+     * @return the number of orders updated
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Order o set o.status = :status, o.version = o.version + 1 where o.id = :id")
+    int updateStatus(@Param("id") long id, @Param("status") OrderStatus status);
+}
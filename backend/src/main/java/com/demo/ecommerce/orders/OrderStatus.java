@@ -0,0 +1,11 @@
+package com.demo.ecommerce.orders;
+
+public enum OrderStatus {
+    /** Stock is committed, the order awaits payment **/
+    PLACED,
+    /** Placed after its stock reservation expired, when some of its units had been sold meanwhile; the stock is short of
+     * them until it is restocked or the order cancelled **/
+    OVERSOLD,
+    /** The payment succeeded, see {@link com.demo.ecommerce.payments.PaymentService} **/
+    PAID
+}
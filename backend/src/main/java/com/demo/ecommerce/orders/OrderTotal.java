@@ -0,0 +1,9 @@
+package com.demo.ecommerce.orders;
+
+/**
+ * What is to be paid for an order.
+ *
+ * @param total    the total of the order, in minor units of its currency
+ * @param currency the ISO 4217 code of the currency
+ */
+public record OrderTotal(long total, String currency) {}
@@ -0,0 +1,139 @@
+package com.demo.ecommerce.orders;
+
+import com.demo.ecommerce.common.exceptions.TooManyRequestsException;
+import com.demo.ecommerce.outbox.OutboxMessageType;
+import com.demo.ecommerce.outbox.OutboxService;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Writes new orders, coalescing concurrent checkouts into shared transactions (group commit).
+ * <p>
+ * With {@code orders.group-commit.enabled}, orders are queued in a queue of {@code orders.group-commit.queue-capacity}
+ * and a single writer thread saves everything queued so far, up to {@code orders.group-commit.max-batch} orders, in
+ * one transaction with batched inserts. While a commit is in flight the next orders pile up and go out together, so
+ * the number of commits drops as load rises and no order waits for more than the commit before it. Each caller
+ * waits on its own future. If a shared transaction fails, its orders are retried one per transaction so that a
+ * single bad order fails alone; any failure, errors included, completes the futures of its orders, so the writer thread
+ * outlives it. Each order's confirmation email is queued in the {@link OutboxService} within the transaction that
+ * saves the order.
+ * <p>
+ * When disabled, every order is saved in its own transaction on the caller's thread.
+ */
+@Component
+class OrderWriter implements DisposableBean {
+    private final OrderRepository orderRepository;
+    private final OutboxService outboxService;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean groupCommit;
+    private final int maxBatch;
+    private final BlockingQueue<Pending> queue;
+    private final ExecutorService worker;
+    private volatile boolean running = true;
+
+    private record Pending(Order order, CompletableFuture<Order> result) {}
+
+    @Autowired
+    OrderWriter(OrderRepository orderRepository, OutboxService outboxService, TransactionTemplate transactionTemplate,
+                @Value("${orders.group-commit.enabled}") boolean groupCommit,
+                @Value("${orders.group-commit.queue-capacity}") int queueCapacity,
+                @Value("${orders.group-commit.max-batch}") int maxBatch) {
+        this.orderRepository = orderRepository;
+        this.outboxService = outboxService;
+        this.transactionTemplate = transactionTemplate;
+        this.groupCommit = groupCommit;
+        this.maxBatch = maxBatch;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.worker = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("order-writer-"));
+        if (groupCommit) worker.execute(this::run);
+    }
+
+    /**
+     * Saves a new order, waiting until it is committed.
+     *
+     * @param order the order to save
+     * @return the saved order
+     * @throws TooManyRequestsException if the queue of orders waiting to be written is full
+     */
+    Order save(Order order) {
+        if (!groupCommit) return transactionTemplate.execute(status -> saveAll(List.of(order)).getFirst());
+        if (!running) throw new IllegalStateException("The order writer is shut down");
+
+        Pending pending = new Pending(order, new CompletableFuture<>());
+        if (!queue.offer(pending)) throw new TooManyRequestsException("Too many checkouts in progress, retry later");
+        try {
+            return pending.result().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            if (e.getCause() instanceof Error cause) throw cause;
+            throw e;
+        }
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+            } catch (InterruptedException e) {
+                // Shutting down, whatever is queued is still written below
+                running = false;
+                continue;
+            }
+            queue.drainTo(batch, maxBatch - 1);
+            write(batch);
+            batch.clear();
+        }
+        // Queued after the last check of a shutting down writer
+        for (Pending pending; (pending = queue.poll()) != null; ) pending.result().completeExceptionally(new IllegalStateException("The order writer is shut down"));
+    }
+
+    private void write(List<Pending> batch) {
+        try {
+            List<Order> orders = transactionTemplate.execute(status -> saveAll(batch.stream().map(Pending::order).toList()));
+            for (int i = 0; i < batch.size(); i++) batch.get(i).result().complete(orders.get(i));
+        } catch (Throwable e) {
+            // Anything escaping would end the writer thread and leave every later save waiting forever
+            if (batch.size() == 1) {
+                batch.getFirst().result().completeExceptionally(e);
+                return;
+            }
+            for (Pending pending : batch) {
+                // The rolled back transaction may have assigned an ID, which would make the retry a merge
+                pending.order().setId(0);
+                write(List.of(pending));
+            }
+        }
+    }
+
+    private List<Order> saveAll(List<Order> orders) {
+        List<Order> saved = orderRepository.saveAll(orders);
+        // Confirmation emails are queued in the transaction of their order
+        for (Order order : saved) outboxService.enqueue(OutboxMessageType.ORDER_PLACED, order.getId());
+        return saved;
+    }
+
+    /**
+     * @return the number of orders waiting to be written
+     */
+    int queued() {
+        return queue.size();
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        worker.shutdown();
+        if (!worker.awaitTermination(10, TimeUnit.SECONDS)) worker.shutdownNow();
+    }
+}
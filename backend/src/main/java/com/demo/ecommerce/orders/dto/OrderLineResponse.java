@@ -0,0 +1,13 @@
+package com.demo.ecommerce.orders.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+
+public class OrderLineResponse {
+    long productId;
+    int quantity;
+    long unitPrice;
+}
@@ -0,0 +1,25 @@
+package com.demo.ecommerce.orders.dto;
+
+import com.demo.ecommerce.orders.OrderStatus;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@Builder
+
+public class OrderResponse {
+    long id;
+    long userId;
+    OrderStatus status;
+    List<OrderLineResponse> lines;
+    /** Amounts are in minor units of this currency **/
+    String currency;
+    long subtotal;
+    long discount;
+    long tax;
+    long total;
+    Instant createdAt;
+}
@@ -0,0 +1,48 @@
+package com.demo.ecommerce.outbox;
+
+import com.demo.ecommerce.mail.Mail;
+import com.demo.ecommerce.orders.Order;
+import com.demo.ecommerce.orders.OrderLine;
+import com.demo.ecommerce.orders.OrderRepository;
+import com.demo.ecommerce.users.User;
+import com.demo.ecommerce.users.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+/**
+ * Turns outbox messages into emails, reading the entities they are about at send time.
+ */
+@Component
+class MailComposer {
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    OrderRepository orderRepository;
+
+    /**
+     * @param message the outbox message
+     * @return the email to send, or empty if the entity the message is about no longer exists
+     */
+    @Transactional(readOnly = true)
+    public Optional<Mail> compose(OutboxMessage message) {
+        String messageId = "outbox-%s@ecommerce".formatted(message.getId());
+        return switch (message.getType()) {
+            case USER_REGISTERED -> userRepository.findById(message.getAggregateId()).map(user -> new Mail(messageId, user.getEmail(),
+                    "Welcome to the shop",
+                    "Hello %s,\n\nyour account has been created.\n".formatted(user.getName())));
+            case ORDER_PLACED -> orderRepository.findById(message.getAggregateId()).map(order -> new Mail(messageId, order.getUser().getEmail(),
+                    "Order %s confirmation".formatted(order.getId()),
+                    orderBody(order.getUser(), order)));
+        };
+    }
+
+    private static String orderBody(User user, Order order) {
+        StringBuilder body = new StringBuilder("Hello %s,\n\nwe have received your order %s:\n\n".formatted(user.getName(), order.getId()));
+        for (OrderLine line : order.getLines()) body.append("  %d x product %d\n".formatted(line.getQuantity(), line.getProductId()));
+        return body.toString();
+    }
+}
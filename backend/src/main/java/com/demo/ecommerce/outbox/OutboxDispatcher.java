@@ -0,0 +1,201 @@
+package com.demo.ecommerce.outbox;
+
+import com.demo.ecommerce.mail.Mail;
+import com.demo.ecommerce.mail.MailSender;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Delivers the messages of the outbox through the {@link MailSender}.
+ * <p>
+ * A virtual thread polls the outbox every {@code outbox.poll-interval}, or right away while full batches keep coming,
+ * and takes up to {@code outbox.batch-size} due messages at a time. Each message of a batch is composed and sent on
+ * its own virtual thread, so a slow mail server delays a batch by one send rather than one per message, and the
+ * outcome of the whole batch is written in one transaction. A failed message is retried after a backoff starting at
+ * {@code outbox.retry.initial-backoff}, doubling up to {@code outbox.retry.max-backoff}; after
+ * {@code outbox.retry.max-attempts} it is marked failed and kept for inspection.
+ * <p>
+ * Delivery is at least once: a message sent just before a crash is sent again, with the same message ID.
+ * <p>
+ * Metrics: {@code outbox.depth} (messages still to be delivered), {@code outbox.sent}, {@code outbox.retried} and
+ * {@code outbox.failed} counters, whose rates are the drain rate, and {@code outbox.batch.size}.
+ */
+@Component
+class OutboxDispatcher implements DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(OutboxDispatcher.class);
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final OutboxRepository outboxRepository;
+    private final MailComposer mailComposer;
+    private final MailSender mailSender;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    private final Duration pollInterval;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final int maxAttempts;
+    private final Counter sent;
+    private final Counter retried;
+    private final Counter failed;
+    private final DistributionSummary batchSizes;
+    private volatile Thread poller;
+
+    private record Outcome(OutboxMessage message, Exception error) {}
+
+    @Autowired
+    OutboxDispatcher(OutboxRepository outboxRepository, MailComposer mailComposer, MailSender mailSender,
+                     TransactionTemplate transactionTemplate, MeterRegistry meterRegistry,
+                     @Value("${outbox.enabled}") boolean enabled,
+                     @Value("${outbox.batch-size}") int batchSize,
+                     @Value("${outbox.poll-interval}") Duration pollInterval,
+                     @Value("${outbox.retry.initial-backoff}") Duration initialBackoff,
+                     @Value("${outbox.retry.max-backoff}") Duration maxBackoff,
+                     @Value("${outbox.retry.max-attempts}") int maxAttempts) {
+        this.outboxRepository = outboxRepository;
+        this.mailComposer = mailComposer;
+        this.mailSender = mailSender;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.pollInterval = pollInterval;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.maxAttempts = maxAttempts;
+        Gauge.builder("outbox.depth", outboxRepository, OutboxRepository::countByFailedAtIsNull)
+                .description("Messages waiting to be delivered").register(meterRegistry);
+        this.sent = Counter.builder("outbox.sent").description("Messages delivered").register(meterRegistry);
+        this.retried = Counter.builder("outbox.retried").description("Failed deliveries that will be retried").register(meterRegistry);
+        this.failed = Counter.builder("outbox.failed").description("Messages given up on").register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("outbox.batch.size").description("Messages taken per poll").register(meterRegistry);
+    }
+
+    /**
+     * Starts polling once the application is up, so no message is sent while it is still starting.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (enabled && poller == null) poller = Thread.ofVirtual().name("outbox-dispatcher").start(this::run);
+    }
+
+    private void run() {
+        while (poller != null) {
+            try {
+                if (drain() < batchSize) Thread.sleep(pollInterval);
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                log.warn("Failed to drain the outbox", e);
+                try {
+                    Thread.sleep(pollInterval);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Delivers one batch of due messages.
+     *
+     * @return the number of messages taken, delivered or not
+     * @throws InterruptedException if interrupted while waiting for the sends
+     */
+    int drain() throws InterruptedException {
+        Instant now = Instant.now();
+        List<OutboxMessage> batch = outboxRepository.findDue(now, PageRequest.of(0, batchSize));
+        if (batch.isEmpty()) return 0;
+        batchSizes.record(batch.size());
+
+        List<Outcome> outcomes = new ArrayList<>(batch.size());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> sends = new ArrayList<>(batch.size());
+            for (OutboxMessage message : batch) sends.add(executor.submit(() -> deliver(message)));
+            for (int i = 0; i < batch.size(); i++) {
+                try {
+                    sends.get(i).get();
+                    outcomes.add(new Outcome(batch.get(i), null));
+                } catch (ExecutionException e) {
+                    outcomes.add(new Outcome(batch.get(i), e.getCause() instanceof Exception cause ? cause : e));
+                }
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(status -> record(outcomes, Instant.now()));
+        return batch.size();
+    }
+
+    private Void deliver(OutboxMessage message) throws Exception {
+        Optional<Mail> mail = mailComposer.compose(message);
+        // The user or order is gone, there is nobody to write to
+        if (mail.isPresent()) mailSender.send(mail.get());
+        return null;
+    }
+
+    private void record(List<Outcome> outcomes, Instant now) {
+        List<Long> delivered = new ArrayList<>();
+        List<OutboxMessage> undelivered = new ArrayList<>();
+        for (Outcome outcome : outcomes) {
+            OutboxMessage message = outcome.message();
+            if (outcome.error() == null) {
+                delivered.add(message.getId());
+                continue;
+            }
+            message.setAttempts(message.getAttempts() + 1);
+            message.setLastError(truncate(String.valueOf(outcome.error())));
+            if (message.getAttempts() >= maxAttempts) {
+                log.warn("Giving up on outbox message {} after {} attempts", message.getId(), message.getAttempts(), outcome.error());
+                message.setFailedAt(now);
+                failed.increment();
+            } else {
+                message.setNextAttemptAt(now.plus(backoff(message.getAttempts())));
+                retried.increment();
+            }
+            undelivered.add(message);
+        }
+        if (!delivered.isEmpty()) outboxRepository.deleteAllByIdInBatch(delivered);
+        outboxRepository.saveAll(undelivered);
+        sent.increment(delivered.size());
+    }
+
+    private Duration backoff(int attempts) {
+        // Doubling from the initial backoff, shifted by at most 30 to stay clear of overflow
+        Duration backoff = initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 30));
+        return backoff.compareTo(maxBackoff) > 0 ? maxBackoff : backoff;
+    }
+
+    private static String truncate(String error) {
+        return error.length() <= MAX_ERROR_LENGTH ? error : error.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        Thread thread = poller;
+        poller = null;
+        if (thread == null) return;
+        thread.interrupt();
+        thread.join(Duration.ofSeconds(10));
+    }
+}
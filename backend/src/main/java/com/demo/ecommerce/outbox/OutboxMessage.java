@@ -0,0 +1,50 @@
+package com.demo.ecommerce.outbox;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.time.Instant;
+
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+
+@Entity
+@EntityListeners(AuditingEntityListener.class)
+// Indexes are created by the Flyway migrations in db/migration and only listed here for reference
+@Table(name = "outbox", indexes = {
+        @Index(name = "idx_outbox_next_attempt_at_id", columnList = "next_attempt_at, id")
+})
+public class OutboxMessage
+{
+    @Id
+    // A group commit of the order writer inserts one message per order, batched like the orders themselves
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_seq")
+    @SequenceGenerator(name = "outbox_seq", sequenceName = "outbox_seq", allocationSize = 50)
+    @EqualsAndHashCode.Include
+    @Column(name = "id", nullable = false)
+    private long id;
+    @Enumerated(EnumType.STRING)
+    @Column(name = "type", nullable = false)
+    private OutboxMessageType type;
+    /** ID of the entity the message is about, see {@link OutboxMessageType} **/
+    @Column(name = "aggregate_id", nullable = false)
+    private long aggregateId;
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+    @Column(name = "next_attempt_at", nullable = false)
+    private Instant nextAttemptAt;
+    /** Set once the message has failed too many times, it is no longer attempted **/
+    @Column(name = "failed_at")
+    private Instant failedAt;
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+    @CreatedDate
+    @Column(name = "createdAt")
+    private Instant createdAt;
+}
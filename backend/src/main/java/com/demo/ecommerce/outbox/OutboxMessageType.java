@@ -0,0 +1,8 @@
+package com.demo.ecommerce.outbox;
+
+public enum OutboxMessageType {
+    /** A user registered, the aggregate is the user **/
+    USER_REGISTERED,
+    /** An order was placed, the aggregate is the order **/
+    ORDER_PLACED
+}
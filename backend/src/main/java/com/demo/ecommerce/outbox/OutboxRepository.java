@@ -0,0 +1,28 @@
+package com.demo.ecommerce.outbox;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface OutboxRepository extends JpaRepository<OutboxMessage, Long> {
+    /**
+     * Finds the pending messages that are due, oldest first.
+     *
+     * @param now      the current time
+     * @param pageable the maximum number of messages to return
+     * @return the due messages
+     */
+    @Query("select m from OutboxMessage m where m.nextAttemptAt <= :now and m.failedAt is null order by m.nextAttemptAt, m.id")
+    List<OutboxMessage> findDue(@Param("now") Instant now, Pageable pageable);
+
+    /**
+     * @return the number of messages still to be delivered
+     */
+    long countByFailedAtIsNull();
+}
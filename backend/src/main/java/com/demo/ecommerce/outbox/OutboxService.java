@@ -0,0 +1,33 @@
+package com.demo.ecommerce.outbox;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+/**
+ * Records messages to be sent in the background, in the transaction of the change they are about: a message is
+ * stored if and only if the change commits, and the {@link OutboxDispatcher} delivers it after the commit.
+ */
+@Service
+public class OutboxService {
+    @Autowired
+    OutboxRepository outboxRepository;
+
+    /**
+     * Adds a message to the outbox. Must be called within the transaction of the change the message is about.
+     *
+     * @param type        the kind of message
+     * @param aggregateId the ID of the entity the message is about
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(OutboxMessageType type, long aggregateId) {
+        outboxRepository.save(OutboxMessage.builder()
+                .type(type)
+                .aggregateId(aggregateId)
+                .nextAttemptAt(Instant.now())
+                .build());
+    }
+}
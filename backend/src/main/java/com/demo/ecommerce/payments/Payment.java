@@ -0,0 +1,54 @@
+package com.demo.ecommerce.payments;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.time.Instant;
+
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+
+@Entity
+@EntityListeners(AuditingEntityListener.class)
+@Table(name = "payments")
+public class Payment
+{
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "payments_seq")
+    @SequenceGenerator(name = "payments_seq", sequenceName = "payments_seq", allocationSize = 50)
+    @EqualsAndHashCode.Include
+    @Column(name = "id", nullable = false)
+    private long id;
+    @Column(name = "order_id", nullable = false, unique = true)
+    private long orderId;
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private PaymentStatus status;
+    /** In the smallest unit of the currency, as Stripe expects it **/
+    @Column(name = "amount", nullable = false)
+    private long amount;
+    /** Lowercase ISO 4217 code **/
+    @Column(name = "currency", nullable = false, length = 3)
+    private String currency;
+    /** Sent with the creation of the PaymentIntent, so retries cannot create a second one **/
+    @Column(name = "idempotency_key", nullable = false, length = 64)
+    private String idempotencyKey;
+    /** ID of the Stripe PaymentIntent, null until Stripe has answered **/
+    @Column(name = "intent_id")
+    private String intentId;
+    @CreatedDate
+    @Column(name = "createdAt")
+    private Instant createdAt;
+    @LastModifiedDate
+    @Column(name = "updatedAt")
+    private Instant updatedAt;
+    @Version
+    private int version;
+}
@@ -0,0 +1,62 @@
+package com.demo.ecommerce.payments;
+
+import com.demo.ecommerce.common.exceptions.BadGatewayException;
+import com.demo.ecommerce.common.exceptions.BadRequestException;
+import com.demo.ecommerce.common.exceptions.ConflictException;
+import com.demo.ecommerce.common.exceptions.ResourceNotFoundException;
+import com.demo.ecommerce.payments.dto.PaymentResponse;
+import com.demo.ecommerce.payments.dto.PaymentSessionResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.concurrent.CompletableFuture;
+
+@RestController
+@RequestMapping(path = "api/orders/{id}/payment", produces = MediaType.APPLICATION_JSON_VALUE)
+public class PaymentController {
+    @Autowired
+    PaymentService paymentService;
+
+    @Autowired
+    PaymentMapper paymentMapper;
+
+    /**
+     * Starts the payment of the total of an order of the authenticated user, or resumes it if it was started before.
+     * The request thread is released while Stripe is called.
+     *
+     * @param jwt the verified access token
+     * @param id  the ID of the order
+     * @return a ResponseEntity containing the PaymentSessionResponse, whose client secret completes the payment
+     * @throws ResourceNotFoundException if the order does not exist or belongs to another user
+     * @throws ConflictException         if the order is paid
+     * @throws BadRequestException       if the order has nothing to pay or Stripe refuses the payment
+     * @throws BadGatewayException       if Stripe cannot be reached
+     */
+    @Operation(summary = "Start the payment of an order")
+    @PostMapping
+    public CompletableFuture<ResponseEntity<PaymentSessionResponse>> start(@AuthenticationPrincipal Jwt jwt, @PathVariable long id) {
+        return paymentService.start(id, Long.parseLong(jwt.getSubject()))
+                .thenApply(session -> ResponseEntity.ok(paymentMapper.sessionToResponse(session)));
+    }
+
+    /**
+     * Retrieves the payment of an order of the authenticated user.
+     *
+     * @param jwt the verified access token
+     * @param id  the ID of the order
+     * @return a ResponseEntity containing the PaymentResponse
+     * @throws ResourceNotFoundException if the order does not exist, belongs to another user or has no payment
+     */
+    @Operation(summary = "Get the payment of an order")
+    @GetMapping
+    public ResponseEntity<PaymentResponse> get(@AuthenticationPrincipal Jwt jwt, @PathVariable long id) {
+        Payment payment = paymentService.find(id, Long.parseLong(jwt.getSubject()))
+                .orElseThrow(() -> new ResourceNotFoundException("Order with id %s has no payment".formatted(id)));
+        return ResponseEntity.ok(paymentMapper.entityToResponse(payment));
+    }
+}
@@ -0,0 +1,24 @@
+package com.demo.ecommerce.payments;
+
+import com.demo.ecommerce.payments.dto.PaymentResponse;
+import com.demo.ecommerce.payments.dto.PaymentSessionResponse;
+import org.mapstruct.Mapper;
+
+@Mapper(componentModel = "spring")
+public interface PaymentMapper {
+    /**
+     * Converts a {@link Payment} entity to a {@link PaymentResponse}.
+     *
+     * @param payment the {@link Payment} entity to be converted
+     * @return a {@link PaymentResponse} containing the payment, without anything Stripe-specific
+     */
+    PaymentResponse entityToResponse(Payment payment);
+
+    /**
+     * Converts a {@link PaymentSession} to a {@link PaymentSessionResponse}.
+     *
+     * @param session the started payment
+     * @return a {@link PaymentSessionResponse} containing the payment and its client secret
+     */
+    PaymentSessionResponse sessionToResponse(PaymentSession session);
+}
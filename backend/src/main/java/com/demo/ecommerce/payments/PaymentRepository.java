@@ -0,0 +1,15 @@
+package com.demo.ecommerce.payments;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface PaymentRepository extends JpaRepository<Payment, Long> {
+    /**
+     * @param orderId the ID of the order
+     * @return the payment of the order, or empty if none was started
+     */
+    Optional<Payment> findByOrderId(long orderId);
+}
@@ -0,0 +1,349 @@
+package com.demo.ecommerce.payments;
+
+import com.demo.ecommerce.common.TimingWheel;
+import com.demo.ecommerce.common.exceptions.BadGatewayException;
+import com.demo.ecommerce.common.exceptions.BadRequestException;
+import com.demo.ecommerce.common.exceptions.ConflictException;
+import com.demo.ecommerce.common.exceptions.ResourceNotFoundException;
+import com.demo.ecommerce.common.exceptions.TooManyRequestsException;
+import com.demo.ecommerce.orders.OrderRepository;
+import com.demo.ecommerce.orders.OrderStatus;
+import com.demo.ecommerce.orders.OrderTotal;
+import com.stripe.StripeClient;
+import com.stripe.exception.IdempotencyException;
+import com.stripe.exception.InvalidRequestException;
+import com.stripe.exception.SignatureVerificationException;
+import com.stripe.exception.StripeException;
+import com.stripe.model.Event;
+import com.stripe.model.PaymentIntent;
+import com.stripe.model.StripeObject;
+import com.stripe.net.RequestOptions;
+import com.stripe.param.PaymentIntentCreateParams;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+/**
+ * Takes the payments of orders through Stripe PaymentIntents.
+ * <p>
+ * Stripe calls run on virtual threads, at most {@code payments.stripe.max-concurrent-requests} at once, and
+ * {@link #start} returns a future, so no request thread waits for the round trip. Every order has one payment and one
+ * PaymentIntent. The payment is stored with a random idempotency key before the intent is created and the key goes
+ * with the creation, so a retry after a timeout or a crash gets the same intent back from Stripe instead of charging
+ * twice; once the intent ID is known the intent is retrieved instead. Keys of recent payments are also kept in memory
+ * for {@code payments.idempotency-keys.ttl} (Stripe honours them for 24 hours), so retries skip the database, and
+ * concurrent starts for the same order share one call.
+ * <p>
+ * Webhook events are verified on the request thread and processed afterwards on a virtual thread. Up to
+ * {@code payments.webhook.max-pending} events wait at once, beyond that they are refused with 429 and Stripe delivers
+ * them again later. An event accepted just before a crash is lost; its payment catches up with Stripe the next time it
+ * is started.
+ */
+@Service
+public class PaymentService implements DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(PaymentService.class);
+    static final String ORDER_ID_METADATA = "order_id";
+    private static final int WHEEL_SLOTS = 512;
+
+    private final PaymentRepository paymentRepository;
+    private final OrderRepository orderRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final StripeClient stripe;
+    private final String webhookSecret;
+    private final Duration keyTtl;
+    private final Semaphore stripePermits;
+    private final Semaphore pendingEvents;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<Long, Attempt> attempts = new ConcurrentHashMap<>();
+    // Guarded by itself
+    private final TimingWheel<Long> expiries;
+    private final Map<Long, CompletableFuture<PaymentSession>> starting = new ConcurrentHashMap<>();
+
+    /** What a retry needs to reach the same PaymentIntent **/
+    private record Attempt(String idempotencyKey, long amount, String currency, String intentId, long expiresAt) {
+        Attempt withIntentId(String intentId) {
+            return new Attempt(idempotencyKey, amount, currency, intentId, expiresAt);
+        }
+    }
+
+    @FunctionalInterface
+    private interface StripeCall<T> {
+        T run() throws StripeException;
+    }
+
+    PaymentService(PaymentRepository paymentRepository, OrderRepository orderRepository, TransactionTemplate transactionTemplate,
+                   @Value("${payments.stripe.api-key}") String apiKey,
+                   @Value("${payments.stripe.api-base}") String apiBase,
+                   @Value("${payments.stripe.webhook-secret}") String webhookSecret,
+                   @Value("${payments.stripe.connect-timeout}") Duration connectTimeout,
+                   @Value("${payments.stripe.read-timeout}") Duration readTimeout,
+                   @Value("${payments.stripe.max-network-retries}") int maxNetworkRetries,
+                   @Value("${payments.stripe.max-concurrent-requests}") int maxConcurrentRequests,
+                   @Value("${payments.idempotency-keys.ttl}") Duration keyTtl,
+                   @Value("${payments.idempotency-keys.expiry-tick}") Duration expiryTick,
+                   @Value("${payments.webhook.max-pending}") int maxPendingEvents) {
+        // Without a webhook secret anyone could sign the events that mark orders paid
+        if (apiKey.isBlank()) throw new IllegalArgumentException("payments.stripe.api-key is not set, set STRIPE_API_KEY");
+        if (webhookSecret.isBlank()) throw new IllegalArgumentException("payments.stripe.webhook-secret is not set, set STRIPE_WEBHOOK_SECRET");
+        this.paymentRepository = paymentRepository;
+        this.orderRepository = orderRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.stripe = StripeClient.builder()
+                .setApiKey(apiKey)
+                .setApiBase(apiBase)
+                .setConnectTimeout((int) connectTimeout.toMillis())
+                .setReadTimeout((int) readTimeout.toMillis())
+                // Network retries reuse the idempotency key of the request
+                .setMaxNetworkRetries(maxNetworkRetries)
+                .build();
+        this.webhookSecret = webhookSecret;
+        this.keyTtl = keyTtl;
+        this.stripePermits = new Semaphore(maxConcurrentRequests);
+        this.pendingEvents = new Semaphore(maxPendingEvents);
+        this.expiries = new TimingWheel<>(expiryTick.toMillis(), WHEEL_SLOTS, System.currentTimeMillis());
+    }
+
+    /**
+     * Starts, or resumes, the payment of the total of an order of a user.
+     *
+     * @param orderId the ID of the order
+     * @param userId  the user who placed the order
+     * @return completes with the payment and the client secret of its PaymentIntent, or exceptionally with a
+     * {@link ConflictException} if the order is paid, a {@link BadRequestException} if Stripe refuses the payment or a
+     * {@link BadGatewayException} if Stripe cannot be reached
+     * @throws ResourceNotFoundException if the order does not exist or belongs to another user
+     * @throws BadRequestException       if the order has nothing to pay
+     */
+    public CompletableFuture<PaymentSession> start(long orderId, long userId) {
+        // Checked before joining a start in progress, which may be another user's
+        OrderTotal total = orderRepository.findTotal(orderId, userId)
+                .orElseThrow(() -> new ResourceNotFoundException("Order with id %s does not exist".formatted(orderId)));
+        if (total.total() <= 0) throw new BadRequestException("Order %s has nothing to pay".formatted(orderId));
+        long amount = total.total();
+        // Stripe takes lowercase codes
+        String code = total.currency().toLowerCase(Locale.ROOT);
+        return starting.computeIfAbsent(orderId, key -> {
+            CompletableFuture<PaymentSession> future = new CompletableFuture<>();
+            executor.execute(() -> {
+                PaymentSession session = null;
+                Throwable failure = null;
+                try {
+                    session = open(orderId, amount, code);
+                } catch (Throwable e) {
+                    failure = e;
+                }
+                // Removed before completing, so a caller that sees the outcome and starts again is not handed it back
+                starting.remove(key);
+                if (failure == null) future.complete(session);
+                else future.completeExceptionally(failure);
+            });
+            return future;
+        });
+    }
+
+    /**
+     * Retrieves the payment of an order of a user.
+     *
+     * @param orderId the ID of the order
+     * @param userId  the user who placed the order
+     * @return the payment, or empty if the order does not exist, belongs to another user or has no payment
+     */
+    public Optional<Payment> find(long orderId, long userId) {
+        if (orderRepository.findVersion(orderId, userId).isEmpty()) return Optional.empty();
+        return paymentRepository.findByOrderId(orderId);
+    }
+
+    /**
+     * Accepts a webhook event from Stripe. The signature is checked right away, the event is processed later.
+     *
+     * @param payload   the raw request body, exactly as received
+     * @param signature the Stripe-Signature header
+     * @throws BadRequestException      if the signature does not match the payload
+     * @throws TooManyRequestsException if too many events are waiting to be processed
+     */
+    public void receive(String payload, String signature) {
+        Event event;
+        try {
+            event = stripe.constructEvent(payload, signature, webhookSecret);
+        } catch (SignatureVerificationException e) {
+            throw new BadRequestException("Invalid webhook signature");
+        }
+        if (!pendingEvents.tryAcquire()) throw new TooManyRequestsException("Too many webhook events pending, retry later");
+        try {
+            executor.execute(() -> {
+                try {
+                    process(event);
+                } catch (RuntimeException e) {
+                    log.error("Failed to process Stripe event {}", event.getId(), e);
+                } finally {
+                    pendingEvents.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pendingEvents.release();
+            throw new TooManyRequestsException("Shutting down, retry later");
+        }
+    }
+
+    /**
+     * @return the number of payments whose idempotency keys are kept in memory
+     */
+    public int cachedKeys() {
+        return attempts.size();
+    }
+
+    /**
+     * Forgets the idempotency keys older than {@code payments.idempotency-keys.ttl}.
+     */
+    @Scheduled(fixedDelayString = "${payments.idempotency-keys.expiry-tick}")
+    public void expire() {
+        synchronized (expiries) {
+            expiries.advance(System.currentTimeMillis(), attempts::remove);
+        }
+    }
+
+    private PaymentSession open(long orderId, long amount, String currency) {
+        Attempt attempt = attempts.get(orderId);
+        if (attempt == null) attempt = remember(orderId, load(orderId, amount, currency));
+
+        PaymentIntent intent;
+        if (attempt.intentId() == null) {
+            String key = attempt.idempotencyKey();
+            // The stored amount, a request with the same key and other parameters is refused by Stripe
+            PaymentIntentCreateParams params = PaymentIntentCreateParams.builder()
+                    .setAmount(attempt.amount())
+                    .setCurrency(attempt.currency())
+                    .putMetadata(ORDER_ID_METADATA, Long.toString(orderId))
+                    .setAutomaticPaymentMethods(PaymentIntentCreateParams.AutomaticPaymentMethods.builder().setEnabled(true).build())
+                    .build();
+            intent = call(() -> stripe.paymentIntents().create(params, RequestOptions.builder().setIdempotencyKey(key).build()));
+            transactionTemplate.executeWithoutResult(status -> paymentRepository.findByOrderId(orderId)
+                    .ifPresent(payment -> payment.setIntentId(intent.getId())));
+            attempts.computeIfPresent(orderId, (id, current) -> current.withIntentId(intent.getId()));
+        } else {
+            String intentId = attempt.intentId();
+            intent = call(() -> stripe.paymentIntents().retrieve(intentId));
+        }
+
+        // Catches up with a webhook event that was lost or has not arrived yet
+        PaymentStatus status = "succeeded".equals(intent.getStatus())
+                ? update(orderId, PaymentStatus.SUCCEEDED)
+                : paymentRepository.findByOrderId(orderId).map(Payment::getStatus).orElse(PaymentStatus.PENDING);
+        return new PaymentSession(orderId, status, attempt.amount(), attempt.currency(), intent.getClientSecret());
+    }
+
+    /** Reads the payment of an order, storing a new one if there is none **/
+    private Payment load(long orderId, long amount, String currency) {
+        Payment payment;
+        try {
+            payment = transactionTemplate.execute(status -> paymentRepository.findByOrderId(orderId).orElseGet(() -> paymentRepository.save(Payment.builder()
+                    .orderId(orderId)
+                    .status(PaymentStatus.PENDING)
+                    .amount(amount)
+                    .currency(currency)
+                    .idempotencyKey(UUID.randomUUID().toString())
+                    .build())));
+        } catch (DataIntegrityViolationException e) {
+            // Another node stored one first
+            payment = paymentRepository.findByOrderId(orderId).orElseThrow(() -> e);
+        }
+        if (payment.getStatus() == PaymentStatus.SUCCEEDED) throw new ConflictException("Order %s is already paid".formatted(orderId));
+        return payment;
+    }
+
+    private Attempt remember(long orderId, Payment payment) {
+        Attempt attempt = new Attempt(payment.getIdempotencyKey(), payment.getAmount(), payment.getCurrency(), payment.getIntentId(),
+                System.currentTimeMillis() + keyTtl.toMillis());
+        // Only this order's start is in progress, nothing else can have stored it meanwhile
+        attempts.put(orderId, attempt);
+        synchronized (expiries) {
+            expiries.schedule(orderId, attempt.expiresAt());
+        }
+        return attempt;
+    }
+
+    private void forget(long orderId) {
+        Attempt attempt = attempts.remove(orderId);
+        if (attempt == null) return;
+        synchronized (expiries) {
+            expiries.cancel(orderId, attempt.expiresAt());
+        }
+    }
+
+    private void process(Event event) {
+        PaymentStatus status = switch (event.getType()) {
+            case "payment_intent.succeeded" -> PaymentStatus.SUCCEEDED;
+            case "payment_intent.payment_failed" -> PaymentStatus.FAILED;
+            default -> null;
+        };
+        if (status == null) return;
+        // Empty when the event was sent with another API version than the library's, the fields used here are stable
+        StripeObject object = event.getDataObjectDeserializer().getObject().orElseGet(() -> {
+            try {
+                return event.getDataObjectDeserializer().deserializeUnsafe();
+            } catch (StripeException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        if (!(object instanceof PaymentIntent intent) || intent.getMetadata() == null) return;
+        String orderId = intent.getMetadata().get(ORDER_ID_METADATA);
+        // Not one of ours, e.g. created from the dashboard
+        if (orderId == null) return;
+        update(Long.parseLong(orderId), status);
+    }
+
+    /** Moves a payment to a new status, a succeeded payment no longer changes **/
+    private PaymentStatus update(long orderId, PaymentStatus status) {
+        PaymentStatus updated = transactionTemplate.execute(tx -> {
+            Optional<Payment> found = paymentRepository.findByOrderId(orderId);
+            if (found.isEmpty()) return null;
+            Payment payment = found.get();
+            if (payment.getStatus() == PaymentStatus.SUCCEEDED) return PaymentStatus.SUCCEEDED;
+            payment.setStatus(status);
+            // An oversold order keeps its status until it is sorted out, its payment records that it is paid
+            if (status == PaymentStatus.SUCCEEDED) orderRepository.findById(orderId)
+                    .filter(order -> order.getStatus() == OrderStatus.PLACED).ifPresent(order -> order.setStatus(OrderStatus.PAID));
+            return status;
+        });
+        if (updated == PaymentStatus.SUCCEEDED) forget(orderId);
+        return updated;
+    }
+
+    private <T> T call(StripeCall<T> call) {
+        try {
+            stripePermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for Stripe", e);
+        }
+        try {
+            return call.run();
+        } catch (IdempotencyException e) {
+            throw new ConflictException(e.getStripeError() == null ? e.getMessage() : e.getStripeError().getMessage(), e);
+        } catch (InvalidRequestException e) {
+            throw new BadRequestException(e.getStripeError() == null ? e.getMessage() : e.getStripeError().getMessage(), e);
+        } catch (StripeException e) {
+            log.warn("Stripe request failed: {}", e.getMessage());
+            throw new BadGatewayException("Payment provider unavailable, retry later", e);
+        } finally {
+            stripePermits.release();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.close();
+    }
+}
@@ -0,0 +1,12 @@
+package com.demo.ecommerce.payments;
+
+/**
+ * A payment as the client needs it to complete it with Stripe.js.
+ *
+ * @param orderId      the ID of the order being paid
+ * @param status       the status of the payment
+ * @param amount       the amount, in the smallest unit of the currency
+ * @param currency     the lowercase ISO 4217 code of the currency
+ * @param clientSecret the client secret of the PaymentIntent, never stored
+ */
+public record PaymentSession(long orderId, PaymentStatus status, long amount, String currency, String clientSecret) {}
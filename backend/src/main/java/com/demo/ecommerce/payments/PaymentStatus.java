@@ -0,0 +1,10 @@
+package com.demo.ecommerce.payments;
+
+public enum PaymentStatus {
+    /** The PaymentIntent is created, or being created, and not paid yet **/
+    PENDING,
+    /** The last attempt to pay failed, the customer can try again with the same PaymentIntent **/
+    FAILED,
+    /** Paid, final **/
+    SUCCEEDED
+}
@@ -0,0 +1,31 @@
+package com.demo.ecommerce.payments;
+
+import com.demo.ecommerce.common.exceptions.BadRequestException;
+import com.demo.ecommerce.common.exceptions.TooManyRequestsException;
+import io.swagger.v3.oas.annotations.Operation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping(path = "api/payments/webhook")
+public class PaymentWebhookController {
+    @Autowired
+    PaymentService paymentService;
+
+    /**
+     * Receives an event from Stripe. Authenticated by its signature rather than a token.
+     *
+     * @param payload   the event, read as a string so the signature is checked against the exact bytes sent
+     * @param signature the Stripe-Signature header
+     * @return a ResponseEntity with HTTP status code 200 (OK) once the event is queued for processing
+     * @throws BadRequestException      if the signature does not match
+     * @throws TooManyRequestsException if too many events are waiting, Stripe retries later
+     */
+    @Operation(summary = "Receive a Stripe webhook event")
+    @PostMapping
+    public ResponseEntity<Void> receive(@RequestBody String payload, @RequestHeader("Stripe-Signature") String signature) {
+        paymentService.receive(payload, signature);
+        return ResponseEntity.ok().build();
+    }
+}
@@ -0,0 +1,19 @@
+package com.demo.ecommerce.payments.dto;
+
+import com.demo.ecommerce.payments.PaymentStatus;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Instant;
+
+@Data
+@Builder
+
+public class PaymentResponse {
+    long orderId;
+    PaymentStatus status;
+    long amount;
+    String currency;
+    Instant createdAt;
+    Instant updatedAt;
+}
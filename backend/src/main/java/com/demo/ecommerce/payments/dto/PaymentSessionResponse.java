@@ -0,0 +1,17 @@
+package com.demo.ecommerce.payments.dto;
+
+import com.demo.ecommerce.payments.PaymentStatus;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+
+public class PaymentSessionResponse {
+    long orderId;
+    PaymentStatus status;
+    long amount;
+    String currency;
+    /** Passed to Stripe.js to confirm the payment on the client **/
+    String clientSecret;
+}
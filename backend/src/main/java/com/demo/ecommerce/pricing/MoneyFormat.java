@@ -0,0 +1,31 @@
+package com.demo.ecommerce.pricing;
+
+import java.util.Currency;
+
+/**
+ * Formats amounts of money for display. Amounts are plain longs in the smallest unit of their currency everywhere,
+ * cents for EUR or USD, yen for JPY, see {@link TotalsCalculator}.
+ */
+public final class MoneyFormat {
+    private MoneyFormat() {
+    }
+
+    /**
+     * Formats an amount with the decimals of its currency, e.g. {@code 1999 EUR} as {@code 19.99 EUR}.
+     *
+     * @param amount   the amount in minor units
+     * @param currency the ISO 4217 code of the currency
+     * @return the amount and the currency code
+     */
+    public static String format(long amount, String currency) {
+        int digits = Math.max(0, Currency.getInstance(currency).getDefaultFractionDigits());
+        StringBuilder text = new StringBuilder(24);
+        if (amount < 0) text.append('-');
+        // Long.MIN_VALUE has no positive counterpart, the unsigned helpers read its magnitude correctly
+        String units = Long.toUnsignedString(amount < 0 ? -amount : amount);
+        if (digits == 0) return text.append(units).append(' ').append(currency).toString();
+        if (units.length() <= digits) units = "0".repeat(digits - units.length() + 1) + units;
+        return text.append(units, 0, units.length() - digits).append('.').append(units, units.length() - digits, units.length())
+                .append(' ').append(currency).toString();
+    }
+}
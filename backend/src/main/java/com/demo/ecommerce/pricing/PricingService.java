@@ -0,0 +1,65 @@
+package com.demo.ecommerce.pricing;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Currency;
+
+/**
+ * Store-wide pricing settings and the {@link TotalsCalculator}s that use them.
+ * <p>
+ * Every price is in {@code pricing.currency}, and products are taxed at {@code pricing.tax-rate} basis points. Each
+ * thread has its own calculator, sized for {@code carts.max-lines}, so pricing a cart allocates nothing once a thread
+ * has priced its first one.
+ * <p>
+ * Prices are capped at {@link TotalsCalculator#MAX_UNIT_PRICE}. The application does not start when a cart of them
+ * could overflow a long: a line of {@code carts.max-quantity} units taxed at up to 100%, or all the lines together.
+ */
+@Service
+public class PricingService {
+    private final String currency;
+    private final int taxRate;
+    private final ThreadLocal<TotalsCalculator> calculators;
+
+    PricingService(@Value("${pricing.currency}") String currency,
+                   @Value("${pricing.tax-rate}") int taxRate,
+                   @Value("${carts.max-lines}") int maxLines,
+                   @Value("${carts.max-quantity}") int maxQuantity) {
+        // Fails on startup on a code that is not ISO 4217
+        this.currency = Currency.getInstance(currency).getCurrencyCode();
+        if (taxRate < 0) throw new IllegalArgumentException("pricing.tax-rate cannot be negative");
+        if (taxRate > TotalsCalculator.BASIS_POINTS) throw new IllegalArgumentException("pricing.tax-rate cannot be more than 100%");
+        // Taxing a line multiplies its amount by up to BASIS_POINTS, the total adds up lines worth up to twice their amount
+        if (maxQuantity > Long.MAX_VALUE / Math.max(TotalsCalculator.BASIS_POINTS, 2L * maxLines) / TotalsCalculator.MAX_UNIT_PRICE) {
+            throw new IllegalArgumentException("carts.max-quantity and carts.max-lines are too high for a cart to be priced in a long");
+        }
+        this.taxRate = taxRate;
+        this.calculators = ThreadLocal.withInitial(() -> new TotalsCalculator(maxLines));
+    }
+
+    /**
+     * @return the ISO 4217 code of the currency of every price, uppercase
+     */
+    public String currency() {
+        return currency;
+    }
+
+    /**
+     * @return the tax rate of products, in basis points
+     */
+    public int taxRate() {
+        return taxRate;
+    }
+
+    /**
+     * Hands out the calculator of the current thread, reset. It is the same object on every call from a thread, so it
+     * must be done with before anything on the thread prices again.
+     *
+     * @return an empty calculator
+     */
+    public TotalsCalculator calculator() {
+        TotalsCalculator calculator = calculators.get();
+        calculator.reset();
+        return calculator;
+    }
+}
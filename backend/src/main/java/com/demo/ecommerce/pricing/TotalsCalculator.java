@@ -0,0 +1,225 @@
+package com.demo.ecommerce.pricing;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * Computes the totals of a cart or an order over primitive arrays, without allocating per line or per evaluation.
+ * <p>
+ * A calculator is reused: {@link #reset()}, add the lines, apply discounts, {@link #compute()}, then read the
+ * results. All amounts are longs in minor units of one currency, tax rates are in basis points (2100 is 21%).
+ * <p>
+ * A line is worth its unit price times its quantity. Its own discounts come off first, then an order discount is
+ * shared out over the lines in proportion to what is left of them, so tax is charged on the discounted amount; the
+ * units the proportional split leaves over go to the first lines. Tax is rounded half up per line, as it is printed
+ * on invoices. Discounts never take a line below zero. Not thread-safe.
+ */
+public final class TotalsCalculator {
+    public static final int BASIS_POINTS = 10_000;
+    /**
+     * The highest unit price a product can have. Times {@code carts.max-quantity} and {@link #BASIS_POINTS} it has to fit
+     * in a long, which {@link PricingService} checks on startup, so pricing a cart never overflows.
+     */
+    public static final long MAX_UNIT_PRICE = 1_000_000_000_000L;
+
+    private long[] unitPrices;
+    private int[] quantities;
+    private int[] taxRates;
+    private long[] requestedDiscounts;
+    private long[] lineDiscounts;
+    private long[] lineTaxes;
+    private long[] lineTotals;
+    private int size;
+    private long orderDiscount;
+
+    private long subtotal;
+    private long discount;
+    private long tax;
+    private long total;
+
+    /**
+     * @param capacity the number of lines to size the arrays for; more lines are allowed but grow them
+     */
+    public TotalsCalculator(int capacity) {
+        allocate(Math.max(1, capacity));
+    }
+
+    /**
+     * Removes all lines and discounts.
+     */
+    public void reset() {
+        size = 0;
+        orderDiscount = 0;
+        subtotal = discount = tax = total = 0;
+    }
+
+    /**
+     * Adds a line.
+     *
+     * @param unitPrice the price of one unit, not negative
+     * @param quantity  the number of units, not negative
+     * @param taxRate   the tax rate of the line in basis points, not negative
+     * @return the index of the line, for {@link #discountLine} and the line getters
+     */
+    public int addLine(long unitPrice, int quantity, int taxRate) {
+        if (unitPrice < 0 || quantity < 0 || taxRate < 0) throw new IllegalArgumentException("Prices, quantities and tax rates cannot be negative");
+        if (size == unitPrices.length) grow();
+        unitPrices[size] = unitPrice;
+        quantities[size] = quantity;
+        taxRates[size] = taxRate;
+        requestedDiscounts[size] = 0;
+        return size++;
+    }
+
+    /**
+     * Discounts a line, on top of any discount it already has.
+     *
+     * @param line   the index of the line
+     * @param amount the discount, not negative
+     */
+    public void discountLine(int line, long amount) {
+        if (amount < 0) throw new IllegalArgumentException("A discount cannot be negative");
+        if (line < 0 || line >= size) throw new IndexOutOfBoundsException(line);
+        requestedDiscounts[line] = saturatedAdd(requestedDiscounts[line], amount);
+    }
+
+    /**
+     * Discounts the whole order, on top of any order discount it already has.
+     *
+     * @param amount the discount, not negative
+     */
+    public void discountOrder(long amount) {
+        if (amount < 0) throw new IllegalArgumentException("A discount cannot be negative");
+        orderDiscount = saturatedAdd(orderDiscount, amount);
+    }
+
+    /**
+     * Computes the totals of the lines and discounts added since the last {@link #reset()}.
+     *
+     * @throws ArithmeticException if an amount does not fit in a long
+     */
+    public void compute() {
+        subtotal = discount = tax = total = 0;
+        long net = 0;
+        for (int i = 0; i < size; i++) {
+            long gross = Math.multiplyExact(unitPrices[i], (long) quantities[i]);
+            long lineDiscount = Math.min(requestedDiscounts[i], gross);
+            lineDiscounts[i] = lineDiscount;
+            lineTotals[i] = gross - lineDiscount;
+            subtotal = Math.addExact(subtotal, gross);
+            net += lineTotals[i];
+        }
+
+        long shared = Math.min(orderDiscount, net);
+        if (shared > 0) {
+            long left = shared;
+            for (int i = 0; i < size; i++) {
+                long share = multiplyDivide(shared, lineTotals[i], net);
+                lineTotals[i] -= share;
+                lineDiscounts[i] += share;
+                left -= share;
+            }
+            for (int i = 0; left > 0 && i < size; i++) {
+                if (lineTotals[i] == 0) continue;
+                lineTotals[i]--;
+                lineDiscounts[i]++;
+                left--;
+            }
+        }
+
+        for (int i = 0; i < size; i++) {
+            lineTaxes[i] = (Math.multiplyExact(lineTotals[i], (long) taxRates[i]) + BASIS_POINTS / 2) / BASIS_POINTS;
+            discount += lineDiscounts[i];
+            tax += lineTaxes[i];
+            total = Math.addExact(total, Math.addExact(lineTotals[i], lineTaxes[i]));
+        }
+    }
+
+    /** @return the number of lines **/
+    public int lines() {
+        return size;
+    }
+
+    /** @return the sum of unit price times quantity over all lines, before discounts and tax **/
+    public long subtotal() {
+        return subtotal;
+    }
+
+    /** @return the discount applied over all lines **/
+    public long discount() {
+        return discount;
+    }
+
+    /** @return the tax over all lines **/
+    public long tax() {
+        return tax;
+    }
+
+    /** @return subtotal minus discount plus tax **/
+    public long total() {
+        return total;
+    }
+
+    /** @return the price of one unit of a line **/
+    public long unitPrice(int line) {
+        return unitPrices[checked(line)];
+    }
+
+    /** @return the number of units of a line **/
+    public int quantity(int line) {
+        return quantities[checked(line)];
+    }
+
+    /** @return the discount applied to a line, its share of the order discount included **/
+    public long lineDiscount(int line) {
+        return lineDiscounts[checked(line)];
+    }
+
+    /** @return the tax of a line **/
+    public long lineTax(int line) {
+        return lineTaxes[checked(line)];
+    }
+
+    /** @return the amount of a line after discounts, before tax **/
+    public long lineTotal(int line) {
+        return lineTotals[checked(line)];
+    }
+
+    private int checked(int line) {
+        if (line < 0 || line >= size) throw new IndexOutOfBoundsException(line);
+        return line;
+    }
+
+    private void allocate(int capacity) {
+        unitPrices = new long[capacity];
+        quantities = new int[capacity];
+        taxRates = new int[capacity];
+        requestedDiscounts = new long[capacity];
+        lineDiscounts = new long[capacity];
+        lineTaxes = new long[capacity];
+        lineTotals = new long[capacity];
+    }
+
+    private void grow() {
+        int capacity = unitPrices.length * 2;
+        unitPrices = Arrays.copyOf(unitPrices, capacity);
+        quantities = Arrays.copyOf(quantities, capacity);
+        taxRates = Arrays.copyOf(taxRates, capacity);
+        requestedDiscounts = Arrays.copyOf(requestedDiscounts, capacity);
+        lineDiscounts = Arrays.copyOf(lineDiscounts, capacity);
+        lineTaxes = Arrays.copyOf(lineTaxes, capacity);
+        lineTotals = Arrays.copyOf(lineTotals, capacity);
+    }
+
+    private static long saturatedAdd(long a, long b) {
+        long sum = a + b;
+        return sum < 0 ? Long.MAX_VALUE : sum;
+    }
+
+    /** {@code a * b / c} rounded down, for non-negative arguments with {@code a, b <= c} **/
+    private static long multiplyDivide(long a, long b, long c) {
+        if (Math.multiplyHigh(a, b) == 0 && a * b >= 0) return a * b / c;
+        // Only reached with amounts beyond 3 * 10^9 each, allocation is not a concern there
+        return BigInteger.valueOf(a).multiply(BigInteger.valueOf(b)).divide(BigInteger.valueOf(c)).longValueExact();
+    }
+}
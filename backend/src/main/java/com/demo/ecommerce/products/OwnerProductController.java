@@ -0,0 +1,60 @@
+package com.demo.ecommerce.products;
+
+import com.demo.ecommerce.common.exceptions.BadRequestException;
+import com.demo.ecommerce.common.exceptions.ResourceNotFoundException;
+import com.demo.ecommerce.products.dto.OwnerProductPageResponse;
+import com.demo.ecommerce.users.User;
+import com.demo.ecommerce.users.UserMapper;
+import com.demo.ecommerce.users.UserService;
+import io.swagger.v3.oas.annotations.Operation;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping(path = "api/users/{id}/products", produces = MediaType.APPLICATION_JSON_VALUE)
+public class OwnerProductController {
+    @Autowired
+    ProductService productService;
+
+    @Autowired
+    ProductMapper productMapper;
+
+    @Autowired
+    UserService userService;
+
+    @Autowired
+    UserMapper userMapper;
+
+    /**
+     * Lists the active products of a user in ID order, using keyset pagination.
+     * <p>
+     * The owner is fetched together with the products, so a page takes a single query whatever its size; only an
+     * empty page looks the user up separately, to tell an unknown user from one without products.
+     *
+     * @param id     the ID of the owning user
+     * @param cursor the opaque cursor returned with the previous page, omitted for the first page
+     * @param limit  the maximum number of products to return
+     * @return a ResponseEntity containing the OwnerProductPageResponse with the owner, the products and the next page cursor
+     * @throws ResourceNotFoundException if no user with the given ID exists
+     * @throws BadRequestException       if the cursor is malformed or was created for another listing order
+     */
+    @Operation(summary = "List the products of a user")
+    @GetMapping
+    public ResponseEntity<OwnerProductPageResponse> list(@PathVariable long id,
+                                                         @RequestParam(required = false) String cursor,
+                                                         @RequestParam(defaultValue = "20") @Min(1) @Max(100) int limit) {
+        ProductPage page = productService.findPageByOwner(id, cursor == null ? null : ProductCursor.decode(cursor), limit, ProductService.DEFAULT_FILTER_FLAGS);
+        User owner = page.products().isEmpty()
+                ? userService.findById(id).orElseThrow(() -> new ResourceNotFoundException("User with id %s does not exist".formatted(id)))
+                : page.products().getFirst().getUser();
+        return ResponseEntity.ok(OwnerProductPageResponse.builder()
+                .owner(userMapper.entityToResponse(owner))
+                .items(page.products().stream().map(productMapper::entityToResponse).toList())
+                .nextCursor(page.next() == null ? null : page.next().encode())
+                .build());
+    }
+}
@@ -11,6 +11,7 @@ import org.hibernate.annotations.Filters;
 import org.hibernate.annotations.UpdateTimestamp;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import java.time.Instant;
 
@@ -22,11 +23,18 @@ import java.time.Instant;
 @EqualsAndHashCode(onlyExplicitlyIncluded = true)
 
 @Entity
-@Table(name = "products")
+@EntityListeners(AuditingEntityListener.class)
+// Indexes are created by the Flyway migrations in db/migration and only listed here for reference
+@Table(name = "products", indexes = {
+        @Index(name = "idx_products_updated_at_id", columnList = "updatedAt, id"),
+        @Index(name = "idx_products_owner_id_id", columnList = "owner_id, id")
+})
 public class Product
 {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Sequence ids (unlike IDENTITY) let Hibernate batch inserts, allocationSize keeps round trips to the sequence low
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "products_seq")
+    @SequenceGenerator(name = "products_seq", sequenceName = "products_seq", allocationSize = 50)
     @EqualsAndHashCode.Include
     @Column(name = "id", nullable = false)
     private long id;
@@ -37,6 +45,12 @@ public class Product
     private String name;
     @Column(name = "description")
     private String description;
+    /** Free-form, promotions can target it **/
+    @Column(name = "category", length = 64)
+    private String category;
+    /** In minor units of the store currency, see {@link com.demo.ecommerce.pricing.PricingService} **/
+    @Column(name = "price", nullable = false)
+    private long price;
     @Builder.Default
     @Column(name = "active", nullable = false)
     private boolean active = true;
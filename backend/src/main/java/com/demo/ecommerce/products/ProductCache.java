@@ -0,0 +1,172 @@
+package com.demo.ecommerce.products;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Read cache for {@link ProductService#findById(long, EnumSet)} lookups, keyed on the product id and the filter flags.
+ * <p>
+ * Entries carry the {@link Product#getVersion() version} they were read at and a write never replaces a newer
+ * version, so a slow reader cannot overwrite what a concurrent update stored. Products filtered out by a flag set are
+ * cached as empty entries for that key. Cache writes are deferred until the surrounding transaction commits and
+ * entries hold detached copies, so callers never see uncommitted data or share mutable state through the cache.
+ * Bulk writes, which do not load the products, leave tombstones carrying the new versions: they read as misses but
+ * still turn away the older versions of readers that raced with the write.
+ */
+@Component
+class ProductCache {
+    static final String CACHE_NAME = "products";
+
+    private static final ProductExcludeFlag[] FLAGS = ProductExcludeFlag.values();
+
+    private final Cache<Object, Object> cache;
+
+    @SuppressWarnings("unchecked")
+    ProductCache(CacheManager cacheManager) {
+        CaffeineCache springCache = (CaffeineCache) Objects.requireNonNull(cacheManager.getCache(CACHE_NAME),
+                "Cache '%s' is not configured".formatted(CACHE_NAME));
+        this.cache = springCache.getNativeCache();
+    }
+
+    record Key(long id, int flags) {}
+
+    /**
+     * A cached lookup result. {@code snapshot} is null when the product is filtered out by the key's flags, or when
+     * the entry is a {@code tombstone}, which only holds the version older lookups cannot replace.
+     */
+    record Entry(int version, Product snapshot, boolean tombstone) {
+        /**
+         * @return a fresh copy of the cached product, or an empty Optional if it is filtered out
+         */
+        Optional<Product> toProduct() {
+            return Optional.ofNullable(snapshot).map(ProductCache::copy);
+        }
+    }
+
+    /**
+     * Looks up a cached product.
+     *
+     * @param id    the product ID
+     * @param flags the filter flags of the lookup
+     * @return the cached {@link Entry}, or null on a cache miss or a tombstone
+     */
+    Entry get(long id, EnumSet<ProductExcludeFlag> flags) {
+        Entry entry = (Entry) cache.getIfPresent(new Key(id, mask(flags)));
+        return entry == null || entry.tombstone() ? null : entry;
+    }
+
+    /**
+     * Caches a product read from the database for a single key once the current transaction commits.
+     *
+     * @param product the product that was read
+     * @param flags   the filter flags it was read with
+     */
+    void putAfterCommit(Product product, EnumSet<ProductExcludeFlag> flags) {
+        afterCommit(() -> store(new Key(product.getId(), mask(flags)), entry(product, flags)));
+    }
+
+    /**
+     * Refreshes every cached flag combination of a product once the current transaction commits.
+     * Used by write paths, where the product's committed state and version are known.
+     *
+     * @param product the product that was written
+     */
+    void refreshAfterCommit(Product product) {
+        afterCommit(() -> {
+            for (int mask = 0; mask < 1 << FLAGS.length; mask++) {
+                store(new Key(product.getId(), mask), entry(product, flags(mask)));
+            }
+        });
+    }
+
+    /**
+     * Evicts every cached flag combination of some products right away, and replaces them with tombstones once the
+     * current transaction commits. Used by bulk writes, which do not load the products and so cannot refresh their
+     * entries. A reader that loaded a product before the write commits stores it afterwards, the tombstone's version
+     * keeps that stale copy out.
+     *
+     * @param ids      the IDs of the products that were written
+     * @param versions the versions the products were written at, keyed by ID; products without one are only evicted
+     */
+    void evictAfterCommit(Collection<Long> ids, Map<Long, Integer> versions) {
+        evict(ids);
+        afterCommit(() -> {
+            evict(ids);
+            versions.forEach((id, version) -> {
+                for (int mask = 0; mask < 1 << FLAGS.length; mask++) store(new Key(id, mask), new Entry(version, null, true));
+            });
+        });
+    }
+
+    private void evict(Collection<Long> ids) {
+        List<Key> keys = new ArrayList<>(ids.size() << FLAGS.length);
+        for (long id : ids) {
+            for (int mask = 0; mask < 1 << FLAGS.length; mask++) keys.add(new Key(id, mask));
+        }
+        cache.invalidateAll(keys);
+    }
+
+    private void store(Key key, Entry entry) {
+        cache.asMap().compute(key, (k, current) ->
+                current != null && ((Entry) current).version() > entry.version() ? current : entry);
+    }
+
+    private static Entry entry(Product product, EnumSet<ProductExcludeFlag> flags) {
+        return new Entry(product.getVersion(), ProductExcludeFlag.excludesAny(flags, product) ? null : copy(product), false);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static int mask(EnumSet<ProductExcludeFlag> flags) {
+        int mask = 0;
+        for (ProductExcludeFlag flag : flags) mask |= 1 << flag.ordinal();
+        return mask;
+    }
+
+    private static EnumSet<ProductExcludeFlag> flags(int mask) {
+        EnumSet<ProductExcludeFlag> flags = EnumSet.noneOf(ProductExcludeFlag.class);
+        for (ProductExcludeFlag flag : FLAGS) {
+            if ((mask & 1 << flag.ordinal()) != 0) flags.add(flag);
+        }
+        return flags;
+    }
+
+    private static Product copy(Product product) {
+        return Product.builder()
+                .id(product.getId())
+                .user(product.getUser())
+                .name(product.getName())
+                .description(product.getDescription())
+                .category(product.getCategory())
+                .price(product.getPrice())
+                .active(product.isActive())
+                .createdAt(product.getCreatedAt())
+                .updatedAt(product.getUpdatedAt())
+                .deletedAt(product.getDeletedAt())
+                .version(product.getVersion())
+                .build();
+    }
+}
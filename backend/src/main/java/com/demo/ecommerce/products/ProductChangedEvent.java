@@ -0,0 +1,9 @@
+package com.demo.ecommerce.products;
+
+/**
+ * Published by {@link ProductService} whenever a product is created, updated or deleted.
+ * Listeners that maintain derived state should use {@code @TransactionalEventListener} so they only see committed changes.
+ *
+ * @param product the product in its new state
+ */
+public record ProductChangedEvent(Product product) {}
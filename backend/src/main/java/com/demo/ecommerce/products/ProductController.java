@@ -1,39 +1,159 @@
 package com.demo.ecommerce.products;
 
+import com.demo.ecommerce.common.dto.BulkOperationResponse;
+import com.demo.ecommerce.common.exceptions.BadRequestException;
 import com.demo.ecommerce.common.exceptions.ResourceNotFoundException;
+import com.demo.ecommerce.products.dto.ProductBatchResponse;
+import com.demo.ecommerce.products.dto.ProductBulkRequest;
 import com.demo.ecommerce.products.dto.ProductCreateRequest;
+import com.demo.ecommerce.products.dto.ProductImportReport;
+import com.demo.ecommerce.products.dto.ProductPageResponse;
 import com.demo.ecommerce.products.dto.ProductResponse;
 import com.demo.ecommerce.products.dto.ProductUpdateRequest;
+import com.demo.ecommerce.products.search.ProductSearchIndex;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping(path = "api/products", produces = MediaType.APPLICATION_JSON_VALUE)
 public class ProductController {
+    private static final int EXPORT_BUFFER_SIZE = 64 * 1024;
+
     @Autowired
     ProductService productService;
 
     @Autowired
     ProductMapper productMapper;
 
+    @Autowired
+    ProductJsonCache productJsonCache;
+
+    @Autowired
+    ProductSearchIndex productSearchIndex;
+
+    @Autowired
+    ProductImportService productImportService;
+
+    @Autowired
+    ProductExportService productExportService;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
     /**
      * Retrieves a product by its ID.
+     * <p>
+     * Responses carry a strong ETag derived from the product's ID and version. When the request has an
+     * If-None-Match header only the version is looked up, and a 304 (Not Modified) is returned without loading or
+     * serialising the product if the client's copy is current.
+     * <p>
+     * With the {@link ProductJsonCache} enabled the version is always looked up first and an unchanged product is
+     * written from its cached JSON, gzipped if the client accepts it.
      *
-     * @param id the unique identifier of the product to be retrieved
-     * @return a ResponseEntity containing the ProductResponse object with HTTP status code 200 (OK)
+     * @param id      the unique identifier of the product to be retrieved
+     * @param request the current request, used to evaluate If-None-Match and Accept-Encoding
+     * @return a ResponseEntity containing the ProductResponse, or its encoded JSON, with HTTP status code 200 (OK), or null once a 304 has been sent
      * @throws ResourceNotFoundException if the product with the specified ID does not exist
      */
     @Operation(summary = "Get a product by id")
+    @ApiResponse(responseCode = "200", content = @Content(schema = @Schema(implementation = ProductResponse.class)))
     @GetMapping("{id}")
-    public ResponseEntity<ProductResponse> get(@PathVariable long id) {
-        return ResponseEntity.ok(productMapper.entityToResponse(productService.findById(id).orElseThrow(ResourceNotFoundException::new)));
+    public ResponseEntity<?> get(@PathVariable long id, WebRequest request) {
+        boolean gzip = productJsonCache.isEnabled() && acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        if (productJsonCache.isEnabled() || request.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+            int version = productService.findVersion(id).orElseThrow(ResourceNotFoundException::new);
+            if (request.checkNotModified(eTag(id, version, gzip))) return null;
+
+            ProductJsonCache.Encoded encoded = productJsonCache.get(id, version);
+            if (encoded != null) return encodedResponse(encoded, gzip);
+        }
+
+        Product product = productService.findById(id).orElseThrow(ResourceNotFoundException::new);
+        if (productJsonCache.isEnabled()) return encodedResponse(productJsonCache.encode(product), gzip);
+        return ResponseEntity.ok()
+                .eTag(eTag(product.getId(), product.getVersion(), false))
+                .body(productMapper.entityToResponse(product));
+    }
+
+    /**
+     * Retrieves several active products by their IDs in one request.
+     *
+     * @param ids the IDs of the products to retrieve
+     * @return a ResponseEntity containing the products found in request order and the IDs that were not found
+     */
+    @Operation(summary = "Get several products by id")
+    @GetMapping(params = "ids")
+    public ResponseEntity<ProductBatchResponse> getAll(@RequestParam @NotEmpty @Size(max = 100) List<@Min(1) Long> ids) {
+        Map<Long, Product> products = productService.findAllById(ids, ProductService.DEFAULT_FILTER_FLAGS);
+        return ResponseEntity.ok(ProductBatchResponse.builder()
+                .items(products.values().stream().map(productMapper::entityToResponse).toList())
+                .missing(ids.stream().distinct().filter(id -> !products.containsKey(id)).toList())
+                .build());
+    }
+
+    /**
+     * Lists active products using keyset pagination.
+     *
+     * @param cursor the opaque cursor returned with the previous page, omitted for the first page
+     * @param sort   the key the listing is ordered by
+     * @param limit  the maximum number of products to return
+     * @return a ResponseEntity containing the ProductPageResponse with the products and the next page cursor
+     * @throws BadRequestException if the cursor is malformed or was created for a different sort order
+     */
+    @Operation(summary = "List products")
+    @GetMapping
+    public ResponseEntity<ProductPageResponse> list(@RequestParam(required = false) String cursor,
+                                                    @RequestParam(defaultValue = "ID") ProductSortKey sort,
+                                                    @RequestParam(defaultValue = "20") @Min(1) @Max(100) int limit) {
+        ProductPage page = productService.findPage(cursor == null ? null : ProductCursor.decode(cursor), sort, limit, ProductService.DEFAULT_FILTER_FLAGS);
+        return ResponseEntity.ok(ProductPageResponse.builder()
+                .items(page.products().stream().map(productMapper::entityToResponse).toList())
+                .nextCursor(page.next() == null ? null : page.next().encode())
+                .build());
+    }
+
+    /**
+     * Searches active products by name and description.
+     *
+     * @param q     the free text query, its last word is matched as a prefix
+     * @param limit the maximum number of products to return
+     * @return a ResponseEntity containing the matching products, most relevant first
+     */
+    @Operation(summary = "Search products")
+    @GetMapping("search")
+    public ResponseEntity<List<ProductResponse>> search(@RequestParam @NotBlank String q,
+                                                        @RequestParam(defaultValue = "20") @Min(1) @Max(100) int limit) {
+        List<Long> ids = productSearchIndex.search(q, limit).stream().map(ProductSearchIndex.SearchHit::id).toList();
+        return ResponseEntity.ok(productService.findAllById(ids, ProductService.DEFAULT_FILTER_FLAGS).values().stream()
+                .map(productMapper::entityToResponse)
+                .toList());
     }
 
     /**
@@ -64,6 +184,61 @@ public class ProductController {
         return ResponseEntity.created(location).body(productMapper.entityToResponse(product));
     }
 
+    /**
+     * Bulk imports products from newline-delimited JSON, one {@link ProductCreateRequest} per line.
+     * <p>
+     * The report is streamed back as newline-delimited JSON while the import runs: an ERROR line for every rejected
+     * input line, a PROGRESS line after every committed chunk and a final SUMMARY line.
+     *
+     * @param body     the request body
+     * @param response the response the report is written to
+     * @throws IOException if the request cannot be read or the report cannot be written
+     */
+    @Operation(summary = "Bulk import products from NDJSON")
+    @PostMapping(path = "import", consumes = MediaType.APPLICATION_NDJSON_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void importProducts(InputStream body, HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        OutputStream out = response.getOutputStream();
+        ProductImportService.Summary summary = productImportService.importNdjson(body, new ProductImportService.Listener() {
+            @Override
+            public void onRowError(long line, String message) {
+                writeLine(out, ProductImportReport.builder().type(ProductImportReport.Type.ERROR).line(line).message(message).build());
+            }
+
+            @Override
+            public void onProgress(long processed, long imported) {
+                writeLine(out, ProductImportReport.builder().type(ProductImportReport.Type.PROGRESS).processed(processed).imported(imported).build());
+                try {
+                    out.flush();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        });
+        writeLine(out, ProductImportReport.builder().type(ProductImportReport.Type.SUMMARY)
+                .processed(summary.processed()).imported(summary.imported()).failed(summary.failed()).build());
+    }
+
+    /**
+     * Exports all active products as newline-delimited JSON, one {@link ProductResponse} per line.
+     * The catalog is streamed straight from a database cursor to the response, whatever its size.
+     *
+     * @param gzip     whether to gzip the response body
+     * @param response the response the products are written to
+     * @throws IOException if the export cannot be written
+     */
+    @Operation(summary = "Export products as NDJSON")
+    @GetMapping(path = "export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void exportProducts(@RequestParam(defaultValue = "false") boolean gzip, HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        if (gzip) response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+
+        OutputStream raw = response.getOutputStream();
+        try (OutputStream out = new BufferedOutputStream(gzip ? new GZIPOutputStream(raw, EXPORT_BUFFER_SIZE) : raw, EXPORT_BUFFER_SIZE)) {
+            productExportService.export(ProductService.DEFAULT_FILTER_FLAGS, product -> writeLine(out, productMapper.entityToResponse(product)));
+        }
+    }
+
     /**
      * Deletes a product by its ID.
      *
@@ -77,5 +252,71 @@ public class ProductController {
         return ResponseEntity.noContent().build();
     }
 
+    /**
+     * Deactivates several products, given by ID or by owner, without loading them. Administrators only.
+     *
+     * @param request the {@link ProductBulkRequest} selecting the products
+     * @return a ResponseEntity containing the number of products deactivated
+     */
+    @Operation(summary = "Deactivate several products")
+    @PostMapping("bulk/deactivate")
+    public ResponseEntity<BulkOperationResponse> deactivateAll(@Valid @RequestBody ProductBulkRequest request) {
+        int affected = request.getOwnerId() != null
+                ? productService.deactivateAllByOwner(request.getOwnerId())
+                : productService.deactivateAllById(request.getIds());
+        return ResponseEntity.ok(BulkOperationResponse.builder().affected(affected).build());
+    }
+
+    /**
+     * Soft-deletes several products, given by ID or by owner, without loading them. Administrators only.
+     *
+     * @param request the {@link ProductBulkRequest} selecting the products
+     * @return a ResponseEntity containing the number of products deleted
+     */
+    @Operation(summary = "Soft-delete several products")
+    @PostMapping("bulk/delete")
+    public ResponseEntity<BulkOperationResponse> deleteAll(@Valid @RequestBody ProductBulkRequest request) {
+        int affected = request.getOwnerId() != null
+                ? productService.deleteAllByOwner(request.getOwnerId())
+                : productService.deleteAllById(request.getIds());
+        return ResponseEntity.ok(BulkOperationResponse.builder().affected(affected).build());
+    }
+
     //TODO: Patch ops
+
+    private static ResponseEntity<byte[]> encodedResponse(ProductJsonCache.Encoded encoded, boolean gzip) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(eTag(encoded.id(), encoded.version(), gzip))
+                .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                .contentType(MediaType.APPLICATION_JSON);
+        if (gzip) response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        return response.body(gzip ? encoded.gzip() : encoded.json());
+    }
+
+    /**
+     * Builds the strong ETag of a product representation. The gzip encoding is a different representation and gets its own tag.
+     */
+    private static String eTag(long id, int version, boolean gzip) {
+        return "\"" + id + "-" + version + (gzip ? "-gzip" : "") + "\"";
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) return false;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (!parts[0].trim().equalsIgnoreCase("gzip")) continue;
+            // "gzip;q=0" explicitly refuses gzip
+            return parts.length == 1 || !parts[1].trim().matches("q=0(\\.0*)?");
+        }
+        return false;
+    }
+
+    private void writeLine(OutputStream out, Object value) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(value));
+            out.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 }
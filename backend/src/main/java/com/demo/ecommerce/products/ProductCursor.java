@@ -0,0 +1,52 @@
+package com.demo.ecommerce.products;
+
+import com.demo.ecommerce.common.exceptions.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Keyset position in a product listing: the sort key and the sort values of the last product returned.
+ * Clients only see it as an opaque string produced by {@link #encode()}.
+ *
+ * @param sortKey   the key the listing is ordered by
+ * @param updatedAt the last product's update time, only set for {@link ProductSortKey#UPDATED_AT}
+ * @param id        the last product's ID
+ */
+public record ProductCursor(ProductSortKey sortKey, Instant updatedAt, long id) {
+    private static final String SEPARATOR = ":";
+
+    /**
+     * @return the cursor as an opaque URL-safe string
+     */
+    public String encode() {
+        String raw = switch (sortKey) {
+            case ID -> sortKey + SEPARATOR + id;
+            case UPDATED_AT -> sortKey + SEPARATOR + updatedAt.getEpochSecond() + SEPARATOR + updatedAt.getNano() + SEPARATOR + id;
+        };
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Parses a cursor produced by {@link #encode()}.
+     *
+     * @param cursor the opaque cursor string
+     * @return the decoded cursor
+     * @throws BadRequestException if the cursor is malformed
+     */
+    public static ProductCursor decode(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(SEPARATOR);
+            ProductSortKey sortKey = ProductSortKey.valueOf(parts[0]);
+            return switch (sortKey) {
+                case ID -> new ProductCursor(sortKey, null, Long.parseLong(parts[1]));
+                case UPDATED_AT -> new ProductCursor(sortKey,
+                        Instant.ofEpochSecond(Long.parseLong(parts[1]), Long.parseLong(parts[2])),
+                        Long.parseLong(parts[3]));
+            };
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new BadRequestException("Invalid cursor", e);
+        }
+    }
+}
@@ -5,18 +5,30 @@ import jakarta.persistence.criteria.CriteriaQuery;
 import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
 
+import java.util.EnumSet;
+
 public enum ProductExcludeFlag {
     INACTIVE {
         @Override
         public Predicate toPredicate(Root<Product> root, CriteriaQuery<?> query, CriteriaBuilder builder) {
             return builder.isTrue(root.get(Product_.active));
         }
+
+        @Override
+        public boolean excludes(Product product) {
+            return !product.isActive();
+        }
     },
     DELETED {
         @Override
         public Predicate toPredicate(Root<Product> root, CriteriaQuery<?> query, CriteriaBuilder builder) {
             return builder.isNull(root.get(Product_.deletedAt));
         }
+
+        @Override
+        public boolean excludes(Product product) {
+            return product.getDeletedAt() != null;
+        }
     };
 
     /**
@@ -28,4 +40,26 @@ public enum ProductExcludeFlag {
      * @return a predicate that represents the condition for excluding products based on the flag
      */
     public abstract Predicate toPredicate(Root<Product> root, CriteriaQuery<?> query, CriteriaBuilder builder);
+
+    /**
+     * In-memory counterpart of {@link #toPredicate}, for products that are already loaded.
+     *
+     * @param product the product to check
+     * @return true if the flag filters the product out
+     */
+    public abstract boolean excludes(Product product);
+
+    /**
+     * Checks a product against a set of flags.
+     *
+     * @param flags   the flags to apply
+     * @param product the product to check
+     * @return true if any of the flags filters the product out
+     */
+    public static boolean excludesAny(EnumSet<ProductExcludeFlag> flags, Product product) {
+        for (ProductExcludeFlag flag : flags) {
+            if (flag.excludes(product)) return true;
+        }
+        return false;
+    }
 }
@@ -0,0 +1,63 @@
+package com.demo.ecommerce.products;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.EnumSet;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Streams the product catalog out of the database.
+ * <p>
+ * Products are read through a forward-only cursor fetching {@code products.export.fetch-size} rows per round trip and
+ * every product is detached once it has been handed to the consumer. Their lazy owners cannot be detached with them, as
+ * products of the same owner share one proxy, so the persistence context is also cleared every fetch size rows: it never
+ * holds more than one round trip of owners and memory use does not depend on the size of the catalog.
+ */
+@Service
+public class ProductExportService {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${products.export.fetch-size}")
+    private int fetchSize;
+
+    /**
+     * Streams every product matching the filter flags to a consumer, in ID order. Clears the persistence context, so it
+     * must not be called with unflushed changes.
+     *
+     * @param filterFlags the flags used to filter the products
+     * @param consumer    receives each product; it must not keep references to them
+     * @return the number of products exported
+     */
+    @Transactional(readOnly = true)
+    public long export(EnumSet<ProductExcludeFlag> filterFlags, Consumer<Product> consumer) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Product> query = builder.createQuery(Product.class);
+        Root<Product> root = query.from(Product.class);
+        query.where(ProductSpecification.filter(filterFlags).toPredicate(root, query, builder))
+                .orderBy(builder.asc(root.get(Product_.id)));
+
+        long exported = 0;
+        try (Stream<Product> products = entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream()) {
+            for (Product product : (Iterable<Product>) products::iterator) {
+                consumer.accept(product);
+                entityManager.detach(product);
+                if (++exported % fetchSize == 0) entityManager.clear();
+            }
+        }
+        entityManager.clear();
+        return exported;
+    }
+}
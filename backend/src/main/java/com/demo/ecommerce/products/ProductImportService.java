@@ -0,0 +1,184 @@
+package com.demo.ecommerce.products;
+
+import com.demo.ecommerce.products.dto.ProductCreateRequest;
+import com.demo.ecommerce.users.User;
+import com.demo.ecommerce.users.UserService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Streams products from newline-delimited JSON into the database.
+ * <p>
+ * Each line is a {@link ProductCreateRequest}. Lines are parsed and validated as they are read and valid ones are
+ * written in chunks of {@code products.import.chunk-size}, each chunk in its own transaction using JDBC batch inserts.
+ * The persistence context is cleared after every chunk, so memory use does not grow with the size of the input.
+ */
+@Service
+public class ProductImportService {
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ProductMapper productMapper;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${products.import.chunk-size}")
+    private int chunkSize;
+
+    /**
+     * Receives the progress of an import as it runs.
+     */
+    public interface Listener {
+        /**
+         * Called for every line that could not be imported.
+         *
+         * @param line    the 1-based line number in the input
+         * @param message why the line was rejected
+         */
+        void onRowError(long line, String message);
+
+        /**
+         * Called after every chunk written to the database.
+         *
+         * @param processed the number of lines processed so far
+         * @param imported  the number of products imported so far
+         */
+        void onProgress(long processed, long imported);
+    }
+
+    /**
+     * Totals of a finished import.
+     *
+     * @param processed the number of non-blank lines read
+     * @param imported  the number of products created
+     * @param failed    the number of lines rejected
+     */
+    public record Summary(long processed, long imported, long failed) {}
+
+    private record Row(long line, Product product) {}
+
+    /**
+     * Imports products from newline-delimited JSON. Blank lines are ignored.
+     *
+     * @param input    the input, read as UTF-8
+     * @param listener receives row errors and progress while the import runs
+     * @return the {@link Summary} of the import
+     * @throws IOException if the input cannot be read
+     */
+    public Summary importNdjson(InputStream input, Listener listener) throws IOException {
+        ObjectReader reader = objectMapper.readerFor(ProductCreateRequest.class);
+        // Owners are looked up once per distinct id; an empty Optional marks an id known not to exist
+        Map<Long, Optional<User>> owners = new HashMap<>();
+        List<Row> chunk = new ArrayList<>(chunkSize);
+        long lineNumber = 0, processed = 0, imported = 0, failed = 0;
+
+        BufferedReader lines = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        for (String line = lines.readLine(); line != null; line = lines.readLine()) {
+            lineNumber++;
+            if (line.isBlank()) continue;
+            processed++;
+
+            String error;
+            try {
+                ProductCreateRequest request = reader.readValue(line);
+                error = validate(request);
+                if (error == null) {
+                    Optional<User> owner = owners.computeIfAbsent(request.getOwnerId(), userService::findReferenceById);
+                    if (owner.isEmpty()) {
+                        error = "Owner cannot be found";
+                    } else {
+                        Product product = productMapper.createToEntity(request);
+                        product.setUser(owner.get());
+                        chunk.add(new Row(lineNumber, product));
+                    }
+                }
+            } catch (JsonProcessingException e) {
+                error = "Malformed JSON: " + e.getOriginalMessage();
+            }
+            if (error != null) {
+                failed++;
+                listener.onRowError(lineNumber, error);
+            }
+
+            if (chunk.size() >= chunkSize) {
+                int written = write(chunk, listener);
+                imported += written;
+                failed += chunk.size() - written;
+                chunk.clear();
+                listener.onProgress(processed, imported);
+            }
+        }
+
+        if (!chunk.isEmpty()) {
+            int written = write(chunk, listener);
+            imported += written;
+            failed += chunk.size() - written;
+            listener.onProgress(processed, imported);
+        }
+        return new Summary(processed, imported, failed);
+    }
+
+    private String validate(ProductCreateRequest request) {
+        Set<ConstraintViolation<ProductCreateRequest>> violations = validator.validate(request);
+        if (violations.isEmpty()) return null;
+        return violations.stream().map(ConstraintViolation::getMessage).sorted().collect(Collectors.joining(", "));
+    }
+
+    /**
+     * Writes a chunk in a single transaction. If the transaction fails every row of the chunk is reported as failed.
+     *
+     * @return the number of products written
+     */
+    private int write(List<Row> chunk, Listener listener) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (Row row : chunk) {
+                    entityManager.persist(row.product());
+                    eventPublisher.publishEvent(new ProductChangedEvent(row.product()));
+                }
+                entityManager.flush();
+                entityManager.clear();
+            });
+            return chunk.size();
+        } catch (RuntimeException e) {
+            entityManager.clear();
+            for (Row row : chunk) listener.onRowError(row.line(), "Chunk could not be written: " + e.getMessage());
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.demo.ecommerce.products;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Objects;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cache of products already serialised to the JSON of their {@link com.demo.ecommerce.products.dto.ProductResponse},
+ * keyed on the product id and stamped with the version it was encoded at.
+ * <p>
+ * Each entry holds the UTF-8 bytes and their gzip encoding, so an unchanged product is written to the response without
+ * mapping, serialising or compressing it again. Lookups only match the exact version asked for and a write never
+ * replaces a newer version. Entries are evicted when a product change commits. Enabled with
+ * {@code products.json-cache.enabled}.
+ */
+@Component
+class ProductJsonCache {
+    static final String CACHE_NAME = "productJson";
+
+    private final Cache<Object, Object> cache;
+    private final ProductMapper productMapper;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+
+    @SuppressWarnings("unchecked")
+    ProductJsonCache(CacheManager cacheManager, ProductMapper productMapper, ObjectMapper objectMapper,
+                     @Value("${products.json-cache.enabled}") boolean enabled) {
+        CaffeineCache springCache = (CaffeineCache) Objects.requireNonNull(cacheManager.getCache(CACHE_NAME),
+                "Cache '%s' is not configured".formatted(CACHE_NAME));
+        this.cache = springCache.getNativeCache();
+        this.productMapper = productMapper;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+    }
+
+    /**
+     * A product encoded as JSON.
+     *
+     * @param id      the product ID
+     * @param version the product version the bytes were encoded from
+     * @param json    the UTF-8 JSON of the product response
+     * @param gzip    the gzip encoding of {@code json}
+     */
+    record Encoded(long id, int version, byte[] json, byte[] gzip) {}
+
+    /**
+     * @return whether responses should be served from this cache
+     */
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Looks up the encoding of a product at a specific version.
+     *
+     * @param id      the product ID
+     * @param version the current version of the product
+     * @return the {@link Encoded} product, or null if the cache is disabled or holds no entry for that version
+     */
+    Encoded get(long id, int version) {
+        if (!enabled) return null;
+        Encoded encoded = (Encoded) cache.getIfPresent(id);
+        return encoded != null && encoded.version() == version ? encoded : null;
+    }
+
+    /**
+     * Encodes a product and caches the result if the cache is enabled.
+     *
+     * @param product the product to encode
+     * @return the {@link Encoded} product
+     */
+    Encoded encode(Product product) {
+        Encoded encoded;
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(productMapper.entityToResponse(product));
+            encoded = new Encoded(product.getId(), product.getVersion(), json, gzip(json));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        if (enabled) {
+            cache.asMap().compute(encoded.id(), (id, current) ->
+                    current != null && ((Encoded) current).version() > encoded.version() ? current : encoded);
+        }
+        return encoded;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        cache.invalidate(event.product().getId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductsHidden(ProductsHiddenEvent event) {
+        cache.invalidateAll(event.ids());
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
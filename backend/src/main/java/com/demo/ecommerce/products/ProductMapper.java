@@ -6,6 +6,7 @@ import com.demo.ecommerce.products.dto.ProductUpdateRequest;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.MappingTarget;
+import org.mapstruct.NullValuePropertyMappingStrategy;
 
 @Mapper(componentModel = "spring")
 public interface ProductMapper {
@@ -25,13 +26,16 @@ public interface ProductMapper {
      * @param product the {@link Product} entity to be converted.
      * @return a {@link ProductResponse} containing details of the product.
      */
+    // Reading the ID of a lazy owner does not initialize it
+    @Mapping(target = "owner_id", source = "user.id")
     ProductResponse entityToResponse(Product product);
     /**
      * Updates the fields of an existing {@link Product} entity based on the information provided in a
-     * {@link ProductUpdateRequest}.
+     * {@link ProductUpdateRequest}. The price is kept when the request has none.
      *
      * @param request The {@link ProductUpdateRequest} containing the updated data for the product.
      * @param product The target {@link Product} entity to be updated.
      */
+    @Mapping(target = "price", nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
     void updateProduct(ProductUpdateRequest request, @MappingTarget Product product);
 }
@@ -0,0 +1,11 @@
+package com.demo.ecommerce.products;
+
+import java.util.List;
+
+/**
+ * A page of a keyset-paginated product listing.
+ *
+ * @param products the products of the page, in sort order
+ * @param next     the cursor of the next page, or null if this is the last page
+ */
+public record ProductPage(List<Product> products, ProductCursor next) {}
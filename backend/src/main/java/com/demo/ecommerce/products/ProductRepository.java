@@ -2,7 +2,67 @@ package com.demo.ecommerce.products;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product> {}
+public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product> {
+    /**
+     * Finds the IDs of the products of an owner that are not soft-deleted, reading only the owner index.
+     *
+     * @param ownerId the ID of the owning user
+     * @return the IDs of the owner's products
+     */
+    @Query("select p.id from Product p where p.user.id = :ownerId and p.deletedAt is null")
+    List<Long> findIdsByOwner(@Param("ownerId") long ownerId);
+
+    /**
+     * The version of a product, read without loading it.
+     */
+    interface IdAndVersion {
+        long getId();
+
+        int getVersion();
+    }
+
+    /**
+     * Reads the versions of products, only the id and version columns.
+     *
+     * @param ids the IDs of the products
+     * @return the versions of the products that exist, in no particular order
+     */
+    @Query("select p.id as id, p.version as version from Product p where p.id in :ids")
+    List<IdAndVersion> findVersionsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Deactivates active, not deleted products with a single UPDATE, bumping their version as a managed update would.
+     * Bypasses the persistence context, which is flushed before and cleared after.
+     *
+     * @param ids the IDs of the products to deactivate
+     * @param now the update time to record
+     * @return the number of products deactivated
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Product p set p.active = false, p.updatedAt = :now, p.version = p.version + 1 " +
+            "where p.id in :ids and p.active = true and p.deletedAt is null")
+    int deactivateAllById(@Param("ids") Collection<Long> ids, @Param("now") Instant now);
+
+    /**
+     * Soft-deletes products that are not deleted yet with a single UPDATE, bumping their version as a managed update
+     * would. Bypasses the persistence context, which is flushed before and cleared after.
+     *
+     * @param ids the IDs of the products to delete
+     * @param now the deletion time to record
+     * @return the number of products deleted
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Product p set p.deletedAt = :now, p.updatedAt = :now, p.version = p.version + 1 " +
+            "where p.id in :ids and p.deletedAt is null")
+    int softDeleteAllById(@Param("ids") Collection<Long> ids, @Param("now") Instant now);
+}
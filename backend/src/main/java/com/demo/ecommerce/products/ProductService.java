@@ -5,11 +5,19 @@ import com.demo.ecommerce.common.exceptions.ResourceNotFoundException;
 import com.demo.ecommerce.products.dto.ProductCreateRequest;
 import com.demo.ecommerce.products.dto.ProductUpdateRequest;
 import com.demo.ecommerce.users.UserService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.JoinType;
 import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -17,6 +25,7 @@ import org.springframework.validation.annotation.Validated;
 
 import java.time.Instant;
 import java.util.*;
+import java.util.function.BiFunction;
 
 class ProductSpecification {
     /**
@@ -44,6 +53,66 @@ class ProductSpecification {
     public static Specification<Product> hasId(long id) {
         return (root, query, builder) -> builder.equal(root.get("id"), id);
     }
+
+    /**
+     * Creates a specification to filter products by a set of IDs.
+     *
+     * @param ids the product IDs to match
+     * @return a Specification that matches products with any of the specified IDs
+     */
+    public static Specification<Product> hasIdIn(Collection<Long> ids) {
+        return (root, query, builder) -> root.get("id").in(ids);
+    }
+
+    /**
+     * Creates a specification to filter products by their owner.
+     *
+     * @param ownerId the ID of the owning user
+     * @return a Specification that matches the products of the owner
+     */
+    public static Specification<Product> hasOwner(long ownerId) {
+        return (root, query, builder) -> builder.equal(root.get(Product_.user).get("id"), ownerId);
+    }
+
+    /**
+     * Creates a specification that orders products by owner, then by ID. Ordering on the owner's ID through the
+     * product's own path reads the owner_id column, where sorting on {@code user.id} would order by the joined owner's
+     * ID, which no products index covers.
+     *
+     * @return a Specification that orders the products and matches every product
+     */
+    public static Specification<Product> orderByOwnerAndId() {
+        return (root, query, builder) -> {
+            query.orderBy(builder.asc(root.get(Product_.user).get("id")), builder.asc(root.get(Product_.id)));
+            return builder.conjunction();
+        };
+    }
+
+    /**
+     * Creates a specification that loads the owner of every matched product in the same query, with a fetch join,
+     * instead of one query per product when the lazy {@link Product#getUser()} is first accessed.
+     *
+     * @return a Specification that fetches the owners and matches every product
+     */
+    public static Specification<Product> fetchOwner() {
+        return (root, query, builder) -> {
+            // Count queries cannot fetch
+            if (query.getResultType() != Long.class) root.fetch(Product_.user, JoinType.INNER);
+            return builder.conjunction();
+        };
+    }
+
+    /**
+     * Creates a keyset specification matching the products that sort after a cursor.
+     *
+     * @param cursor the position of the last product of the previous page, or null to start from the beginning
+     * @return a Specification that matches products after the cursor
+     */
+    public static Specification<Product> after(ProductCursor cursor) {
+        return (root, query, builder) -> cursor == null
+                ? builder.conjunction()
+                : cursor.sortKey().after(cursor, root, builder);
+    }
 }
 
 @Service
@@ -63,6 +132,18 @@ public class ProductService {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private ProductCache productCache;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${products.bulk.batch-size}")
+    private int bulkBatchSize;
+
     /**
      * Retrieves a product by its ID using default filter flags.
      *
@@ -76,6 +157,7 @@ public class ProductService {
 
     /**
      * Retrieves a product by its ID with optional filtering.
+     * Results are served from the {@link ProductCache} when possible; the returned entity is detached on a cache hit.
      *
      * @param id            The unique identifier of the product to retrieve
      * @param filterFlags   The flags used to filter the product during retrieval
@@ -83,6 +165,148 @@ public class ProductService {
      */
     @Transactional
     public Optional<Product> findById(@Min(1) long id, EnumSet<ProductExcludeFlag> filterFlags) {
+        ProductCache.Entry cached = productCache.get(id, filterFlags);
+        if (cached != null) return cached.toProduct();
+
+        Optional<Product> product = findOne(id, filterFlags);
+        product.ifPresent(p -> productCache.putAfterCommit(p, filterFlags));
+        return product;
+    }
+
+    /**
+     * Retrieves the current version of a product using default filter flags.
+     *
+     * @param id the unique identifier of the product
+     * @return an Optional containing the product's version if found, or an empty Optional otherwise
+     */
+    @Transactional(readOnly = true)
+    public Optional<Integer> findVersion(@Min(1) long id) {
+        return findVersion(id, DEFAULT_FILTER_FLAGS);
+    }
+
+    /**
+     * Retrieves the current version of a product with optional filtering, without loading the product itself.
+     * The version is taken from the {@link ProductCache} when possible, otherwise only the version column is queried.
+     *
+     * @param id          the unique identifier of the product
+     * @param filterFlags the flags used to filter the product
+     * @return an Optional containing the product's version if found, or an empty Optional otherwise
+     */
+    @Transactional(readOnly = true)
+    public Optional<Integer> findVersion(@Min(1) long id, EnumSet<ProductExcludeFlag> filterFlags) {
+        ProductCache.Entry cached = productCache.get(id, filterFlags);
+        if (cached != null) return cached.snapshot() == null ? Optional.empty() : Optional.of(cached.version());
+
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Integer> query = builder.createQuery(Integer.class);
+        Root<Product> root = query.from(Product.class);
+        query.select(root.get(Product_.version))
+                .where(ProductSpecification.hasId(id).and(ProductSpecification.filter(filterFlags)).toPredicate(root, query, builder));
+        return entityManager.createQuery(query).getResultStream().findFirst();
+    }
+
+    /**
+     * Retrieves several products by their IDs with optional filtering.
+     * Cached products are served from the {@link ProductCache}, the rest are loaded with a single query.
+     *
+     * @param ids         the unique identifiers of the products to retrieve
+     * @param filterFlags the flags used to filter the products during retrieval
+     * @return the products found, keyed by ID in the iteration order of {@code ids}; missing IDs have no entry
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, Product> findAllById(@NotNull Collection<Long> ids, EnumSet<ProductExcludeFlag> filterFlags) {
+        Map<Long, Product> found = new HashMap<>();
+        Set<Long> uncached = new HashSet<>();
+        for (long id : ids) {
+            ProductCache.Entry cached = productCache.get(id, filterFlags);
+            if (cached == null) uncached.add(id);
+            else cached.toProduct().ifPresent(product -> found.put(id, product));
+        }
+
+        if (!uncached.isEmpty()) {
+            for (Product product : productRepository.findAll(ProductSpecification.hasIdIn(uncached).and(ProductSpecification.filter(filterFlags)))) {
+                found.put(product.getId(), product);
+                productCache.putAfterCommit(product, filterFlags);
+            }
+        }
+
+        Map<Long, Product> ordered = new LinkedHashMap<>();
+        for (long id : ids) {
+            Product product = found.get(id);
+            if (product != null) ordered.put(id, product);
+        }
+        return ordered;
+    }
+
+    /**
+     * Retrieves a page of products using keyset pagination.
+     * <p>
+     * The page is read with a single limited query seeking past the cursor, so neither OFFSET scans nor a total count
+     * are needed and the cost of a page does not depend on how deep into the listing it is.
+     *
+     * @param cursor      the position after which the page starts, or null for the first page
+     * @param sortKey     the key the listing is ordered by, must match the cursor's
+     * @param limit       the maximum number of products in the page
+     * @param filterFlags the flags used to filter the products
+     * @return the {@link ProductPage} with the products and the cursor of the next page, if any
+     * @throws BadRequestException if the cursor was created for a different sort key
+     */
+    @Transactional(readOnly = true)
+    public ProductPage findPage(ProductCursor cursor, @NotNull ProductSortKey sortKey, @Min(1) int limit, EnumSet<ProductExcludeFlag> filterFlags) {
+        if (cursor != null && cursor.sortKey() != sortKey) throw new BadRequestException("Cursor does not match the sort order");
+
+        // Fetch one extra row to know whether a next page exists without counting
+        List<Product> products = productRepository.findBy(
+                ProductSpecification.after(cursor).and(ProductSpecification.filter(filterFlags)),
+                query -> query.sortBy(sortKey.toSort()).limit(limit + 1).all()
+        );
+        if (products.size() <= limit) return new ProductPage(products, null);
+
+        List<Product> page = products.subList(0, limit);
+        return new ProductPage(page, sortKey.cursorOf(page.getLast()));
+    }
+
+    /**
+     * Retrieves a page of the products of one owner using keyset pagination in ID order.
+     * <p>
+     * The page is read with a single query seeking the (owner_id, id) index past the cursor, which also fetches the
+     * owner, so the returned products' {@link Product#getUser()} is initialized and rendering it costs no further query.
+     *
+     * @param ownerId     the ID of the owning user
+     * @param cursor      the position after which the page starts, or null for the first page
+     * @param limit       the maximum number of products in the page
+     * @param filterFlags the flags used to filter the products
+     * @return the {@link ProductPage} with the products and the cursor of the next page, if any
+     * @throws BadRequestException if the cursor was not created for {@link ProductSortKey#ID}
+     */
+    @Transactional(readOnly = true)
+    public ProductPage findPageByOwner(@Min(1) long ownerId, ProductCursor cursor, @Min(1) int limit, EnumSet<ProductExcludeFlag> filterFlags) {
+        if (cursor != null && cursor.sortKey() != ProductSortKey.ID) throw new BadRequestException("Cursor does not match the sort order");
+
+        // H2 only reads an index in order when the ORDER BY starts with its columns, and only prefers (owner_id, id)
+        // over the owner_id index of the foreign key when the ID is bounded, so the first page starts after ID 0
+        List<Product> products = productRepository.findBy(
+                ProductSpecification.hasOwner(ownerId)
+                        .and(ProductSpecification.after(cursor != null ? cursor : new ProductCursor(ProductSortKey.ID, null, 0)))
+                        .and(ProductSpecification.filter(filterFlags))
+                        .and(ProductSpecification.fetchOwner())
+                        .and(ProductSpecification.orderByOwnerAndId()),
+                query -> query.limit(limit + 1).all()
+        );
+        if (products.size() <= limit) return new ProductPage(products, null);
+
+        List<Product> page = products.subList(0, limit);
+        return new ProductPage(page, ProductSortKey.ID.cursorOf(page.getLast()));
+    }
+
+    /**
+     * Loads a product by its ID from the database, bypassing the cache. Used by write paths that need a managed entity.
+     *
+     * @param id          The unique identifier of the product to retrieve
+     * @param filterFlags The flags used to filter the product during retrieval
+     * @return An {@link Optional} containing the managed product if found, or an empty {@link Optional} otherwise
+     */
+    private Optional<Product> findOne(long id, EnumSet<ProductExcludeFlag> filterFlags) {
         return productRepository.findOne(ProductSpecification
                 .hasId(id)
                 .and(ProductSpecification.filter(filterFlags))
@@ -115,7 +339,7 @@ public class ProductService {
     @NotNull
     @Transactional
     public Product updateById(@Min(1) long id, @NotNull @Valid ProductUpdateRequest updateRequest, EnumSet<ProductExcludeFlag> filterFlags) {
-        Product product = findById(id, filterFlags).orElseThrow(ResourceNotFoundException::new);
+        Product product = findOne(id, filterFlags).orElseThrow(ResourceNotFoundException::new);
         productMapper.updateProduct(updateRequest, product);
         return save(product);
     }
@@ -131,7 +355,7 @@ public class ProductService {
     @Transactional
     public Product create(@NotNull @Valid ProductCreateRequest request) {
         Product product = productMapper.createToEntity(request);
-        product.setUser(userService.findById(request.getOwnerId()).orElseThrow(() -> new BadRequestException("Owner cannot be found")));
+        product.setUser(userService.findReferenceById(request.getOwnerId()).orElseThrow(() -> new BadRequestException("Owner cannot be found")));
 
         return save(product);
     }
@@ -155,10 +379,82 @@ public class ProductService {
      */
     @Transactional
     public void deleteById(@Min(1) long id, EnumSet<ProductExcludeFlag> filterFlags) {
-        Product product = productRepository.findOne(ProductSpecification.filter(filterFlags)
-                .and(ProductSpecification.hasId(id))
-        ).orElseThrow(ResourceNotFoundException::new);
+        Product product = findOne(id, filterFlags).orElseThrow(ResourceNotFoundException::new);
         product.setDeletedAt(Instant.now());
+        productCache.refreshAfterCommit(product);
+        eventPublisher.publishEvent(new ProductChangedEvent(product));
+    }
+
+    /**
+     * Deactivates several products without loading them, see {@link #bulkUpdate}.
+     *
+     * @param ids the IDs of the products to deactivate; inactive, deleted and unknown IDs are skipped
+     * @return the number of products deactivated
+     */
+    @Transactional
+    public int deactivateAllById(@NotNull Collection<Long> ids) {
+        return bulkUpdate(ids, productRepository::deactivateAllById);
+    }
+
+    /**
+     * Deactivates all products of an owner without loading them, see {@link #bulkUpdate}.
+     *
+     * @param ownerId the ID of the owning user
+     * @return the number of products deactivated
+     */
+    @Transactional
+    public int deactivateAllByOwner(@Min(1) long ownerId) {
+        return bulkUpdate(productRepository.findIdsByOwner(ownerId), productRepository::deactivateAllById);
+    }
+
+    /**
+     * Soft-deletes several products without loading them, see {@link #bulkUpdate}.
+     *
+     * @param ids the IDs of the products to delete; deleted and unknown IDs are skipped
+     * @return the number of products deleted
+     */
+    @Transactional
+    public int deleteAllById(@NotNull Collection<Long> ids) {
+        return bulkUpdate(ids, productRepository::softDeleteAllById);
+    }
+
+    /**
+     * Soft-deletes all products of an owner without loading them, see {@link #bulkUpdate}.
+     *
+     * @param ownerId the ID of the owning user
+     * @return the number of products deleted
+     */
+    @Transactional
+    public int deleteAllByOwner(@Min(1) long ownerId) {
+        return bulkUpdate(productRepository.findIdsByOwner(ownerId), productRepository::softDeleteAllById);
+    }
+
+    /**
+     * Runs a set-based update over products in batches of {@code products.bulk.batch-size} IDs, one statement per
+     * batch. The update sets the same columns a managed update would, including the version, so optimistic locking
+     * and ETags keep working. As no entity is loaded, cached copies are replaced with tombstones at the new versions,
+     * read back with one query per batch, and a {@link ProductsHiddenEvent} is published in place of per-product
+     * {@link ProductChangedEvent}s.
+     *
+     * @param ids    the IDs of the products to update
+     * @param update the update, given a batch of IDs and the update time, returning the number of rows changed
+     * @return the number of products changed
+     */
+    private int bulkUpdate(Collection<Long> ids, BiFunction<Collection<Long>, Instant, Integer> update) {
+        List<Long> distinct = List.copyOf(new LinkedHashSet<>(ids));
+        if (distinct.isEmpty()) return 0;
+
+        Instant now = Instant.now();
+        int affected = 0;
+        Map<Long, Integer> versions = new HashMap<>(distinct.size());
+        for (int from = 0; from < distinct.size(); from += bulkBatchSize) {
+            List<Long> batch = distinct.subList(from, Math.min(from + bulkBatchSize, distinct.size()));
+            affected += update.apply(batch, now);
+            for (ProductRepository.IdAndVersion row : productRepository.findVersionsByIdIn(batch)) versions.put(row.getId(), row.getVersion());
+        }
+        productCache.evictAfterCommit(distinct, versions);
+        eventPublisher.publishEvent(new ProductsHiddenEvent(distinct));
+        return affected;
     }
 
     /**
@@ -170,6 +466,9 @@ public class ProductService {
     @NotNull
     @Transactional
     public Product save(@NotNull @Valid Product product) {
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        productCache.refreshAfterCommit(saved);
+        eventPublisher.publishEvent(new ProductChangedEvent(saved));
+        return saved;
     }
 }
@@ -0,0 +1,71 @@
+package com.demo.ecommerce.products;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Sort;
+
+public enum ProductSortKey {
+    ID {
+        @Override
+        public Sort toSort() {
+            return Sort.by(Product_.ID);
+        }
+
+        @Override
+        public Predicate after(ProductCursor cursor, Root<Product> root, CriteriaBuilder builder) {
+            return builder.greaterThan(root.get(Product_.id), cursor.id());
+        }
+
+        @Override
+        public ProductCursor cursorOf(Product product) {
+            return new ProductCursor(this, null, product.getId());
+        }
+    },
+    UPDATED_AT {
+        @Override
+        public Sort toSort() {
+            return Sort.by(Product_.UPDATED_AT, Product_.ID);
+        }
+
+        @Override
+        public Predicate after(ProductCursor cursor, Root<Product> root, CriteriaBuilder builder) {
+            // The leading range lets the (updatedAt, id) index seek to the cursor instead of scanning from the start
+            return builder.and(
+                    builder.greaterThanOrEqualTo(root.get(Product_.updatedAt), cursor.updatedAt()),
+                    builder.or(
+                            builder.greaterThan(root.get(Product_.updatedAt), cursor.updatedAt()),
+                            builder.greaterThan(root.get(Product_.id), cursor.id())
+                    )
+            );
+        }
+
+        @Override
+        public ProductCursor cursorOf(Product product) {
+            return new ProductCursor(this, product.getUpdatedAt(), product.getId());
+        }
+    };
+
+    /**
+     * @return the sort order of this key, always ending with the unique product ID so pages are deterministic
+     */
+    public abstract Sort toSort();
+
+    /**
+     * Converts a cursor into a keyset predicate matching the products that sort strictly after it.
+     *
+     * @param cursor  the position of the last product of the previous page
+     * @param root    the root of the query
+     * @param builder the criteria builder
+     * @return a predicate selecting the products after the cursor
+     */
+    public abstract Predicate after(ProductCursor cursor, Root<Product> root, CriteriaBuilder builder);
+
+    /**
+     * Builds the cursor pointing at a product.
+     *
+     * @param product the product to point at
+     * @return a cursor whose next page starts right after the product
+     */
+    public abstract ProductCursor cursorOf(Product product);
+}
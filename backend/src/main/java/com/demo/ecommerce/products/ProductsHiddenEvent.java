@@ -0,0 +1,12 @@
+package com.demo.ecommerce.products;
+
+import java.util.Collection;
+
+/**
+ * Published by {@link ProductService} when products are deactivated or soft-deleted in bulk. The products are not
+ * loaded for a bulk update, so only their IDs are known; they are excluded by {@link ProductService#DEFAULT_FILTER_FLAGS}
+ * from then on. Listeners that maintain derived state should use {@code @TransactionalEventListener}.
+ *
+ * @param ids the IDs of the products that may have changed
+ */
+public record ProductsHiddenEvent(Collection<Long> ids) {}
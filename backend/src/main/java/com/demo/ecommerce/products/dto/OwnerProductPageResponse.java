@@ -0,0 +1,17 @@
+package com.demo.ecommerce.products.dto;
+
+import com.demo.ecommerce.users.dto.UserPublicData;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+
+public class OwnerProductPageResponse {
+    UserPublicData owner;
+    List<ProductResponse> items;
+    /** Opaque cursor to request the next page with, null on the last page **/
+    String nextCursor;
+}
@@ -0,0 +1,16 @@
+package com.demo.ecommerce.products.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+
+public class ProductBatchResponse {
+    /** Products found, in the order they were requested **/
+    List<ProductResponse> items;
+    /** Requested IDs that do not exist or are filtered out **/
+    List<Long> missing;
+}
@@ -0,0 +1,30 @@
+package com.demo.ecommerce.products.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Size;
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+
+public class ProductBulkRequest {
+    /** Products to apply the operation to **/
+    @Size(min = 1, max = 1000)
+    List<@Min(1) Long> ids;
+    /** Owner whose products the operation applies to, instead of ids **/
+    @Min(1)
+    Long ownerId;
+
+    @JsonIgnore
+    @AssertTrue(message = "Exactly one of ids and ownerId has to be given")
+    public boolean isTargetValid() {
+        return (ids == null) != (ownerId == null);
+    }
+}
@@ -1,7 +1,11 @@
 package com.demo.ecommerce.products.dto;
 
+import com.demo.ecommerce.pricing.TotalsCalculator;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 import lombok.*;
 
 @Getter
@@ -14,6 +18,13 @@ public class ProductCreateRequest {
     @NotBlank(message = "Product name cannot be empty")
     String name;
     String description;
+    @Size(max = 64, message = "Category cannot be longer than 64 characters")
+    String category;
+    /** In minor units of the store currency, e.g. cents **/
+    @NotNull(message = "Price is required")
+    @Min(value = 1, message = "Price has to be positive")
+    @Max(value = TotalsCalculator.MAX_UNIT_PRICE, message = "Price cannot be more than " + TotalsCalculator.MAX_UNIT_PRICE)
+    Long price;
     @Builder.Default
     @Min(value = 1, message = "User id has to be a positive integer")
     long ownerId = 0;
@@ -0,0 +1,24 @@
+package com.demo.ecommerce.products.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * One line of the newline-delimited JSON report streamed back while a product import runs.
+ */
+@Data
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+
+public class ProductImportReport {
+    public enum Type { ERROR, PROGRESS, SUMMARY }
+
+    Type type;
+    /** Input line an ERROR refers to **/
+    Long line;
+    String message;
+    Long processed;
+    Long imported;
+    Long failed;
+}
@@ -0,0 +1,15 @@
+package com.demo.ecommerce.products.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+
+public class ProductPageResponse {
+    List<ProductResponse> items;
+    /** Opaque cursor to request the next page with, null on the last page **/
+    String nextCursor;
+}
@@ -13,6 +13,9 @@ public class ProductResponse {
     long owner_id;
     String name;
     String description;
+    String category;
+    /** In minor units of the store currency, e.g. cents **/
+    long price;
     boolean active;
     Instant createdAt;
     Instant updatedAt;
@@ -0,0 +1,276 @@
+package com.demo.ecommerce.products.search;
+
+import com.demo.ecommerce.products.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index over product names and descriptions, ranked with BM25.
+ * <p>
+ * Only products visible under {@link ProductService#DEFAULT_FILTER_FLAGS} are indexed. The index is rebuilt in parallel
+ * when the application starts and kept up to date from committed {@link ProductChangedEvent}s afterwards.
+ * The last query term is matched as a prefix so the index can serve search-as-you-type.
+ */
+@Component
+public class ProductSearchIndex {
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    /** Name terms count this many times more than description terms **/
+    private static final int NAME_WEIGHT = 2;
+    private static final int REINDEX_BATCH_SIZE = 1000;
+    private static final int FORK_THRESHOLD = 128;
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    @Autowired
+    private ProductService productService;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Guarded by lock
+    private Segment segment = new Segment();
+    // Guarded by lock, non-null while a full reindex is running
+    private List<Product> changedDuringReindex;
+
+    /**
+     * A ranked search result.
+     *
+     * @param id    the product ID
+     * @param score the BM25 score of the product for the query
+     */
+    public record SearchHit(long id, double score) {}
+
+    /**
+     * Searches the index.
+     *
+     * @param query the free text query
+     * @param limit the maximum number of hits to return
+     * @return the best matching products, highest score first
+     */
+    public List<SearchHit> search(String query, int limit) {
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty()) return List.of();
+
+        lock.readLock().lock();
+        try {
+            int documents = segment.documents.size();
+            if (documents == 0) return List.of();
+            double averageLength = (double) segment.totalLength / documents;
+
+            Map<Long, Double> scores = new HashMap<>();
+            for (int i = 0; i < terms.size(); i++) {
+                String term = terms.get(i);
+                Map<String, Map<Long, Integer>> matches = i == terms.size() - 1
+                        ? segment.postings.subMap(term, true, term + Character.MAX_VALUE, false)
+                        : segment.postings.containsKey(term) ? Map.of(term, segment.postings.get(term)) : Map.of();
+
+                for (Map<Long, Integer> postings : matches.values()) {
+                    double idf = Math.log(1 + (documents - postings.size() + 0.5) / (postings.size() + 0.5));
+                    postings.forEach((id, frequency) -> {
+                        double norm = K1 * (1 - B + B * segment.documents.get(id).length() / averageLength);
+                        scores.merge(id, idf * frequency * (K1 + 1) / (frequency + norm), Double::sum);
+                    });
+                }
+            }
+            return top(scores, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of indexed products
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return segment.documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds, replaces or removes a product in the index depending on its current state.
+     *
+     * @param product the product in its latest committed state
+     */
+    public void index(Product product) {
+        Document document = ProductExcludeFlag.excludesAny(ProductService.DEFAULT_FILTER_FLAGS, product) ? null : Document.of(product);
+
+        lock.writeLock().lock();
+        try {
+            segment.remove(product.getId());
+            if (document != null) segment.add(product.getId(), document);
+            if (changedDuringReindex != null) changedDuringReindex.add(product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        index(event.product());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductsHidden(ProductsHiddenEvent event) {
+        // Indexing an inactive stand-in removes the product, and is replayed like any change if a reindex is running
+        for (long id : event.ids()) index(Product.builder().id(id).active(false).build());
+    }
+
+    /**
+     * Rebuilds the whole index from the database. Products are read in keyset pages and each page is tokenized in
+     * parallel on the fork-join pool; the new index replaces the current one once complete, after replaying any
+     * change that was committed while it was being built.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reindex() {
+        lock.writeLock().lock();
+        try {
+            changedDuringReindex = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Segment rebuilt = new Segment();
+        try {
+            ProductCursor cursor = null;
+            do {
+                ProductPage page = productService.findPage(cursor, ProductSortKey.ID, REINDEX_BATCH_SIZE, ProductService.DEFAULT_FILTER_FLAGS);
+                rebuilt.mergeDisjoint(ForkJoinPool.commonPool().invoke(new BuildTask(page.products())));
+                cursor = page.next();
+            } while (cursor != null);
+        } finally {
+            lock.writeLock().lock();
+            try {
+                for (Product product : changedDuringReindex) {
+                    rebuilt.remove(product.getId());
+                    if (!ProductExcludeFlag.excludesAny(ProductService.DEFAULT_FILTER_FLAGS, product)) {
+                        rebuilt.add(product.getId(), Document.of(product));
+                    }
+                }
+                segment = rebuilt;
+                changedDuringReindex = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private static List<SearchHit> top(Map<Long, Double> scores, int limit) {
+        Comparator<SearchHit> ranking = Comparator.comparingDouble(SearchHit::score).thenComparing(SearchHit::id, Comparator.reverseOrder());
+        PriorityQueue<SearchHit> best = new PriorityQueue<>(limit + 1, ranking);
+        scores.forEach((id, score) -> {
+            best.add(new SearchHit(id, score));
+            if (best.size() > limit) best.poll();
+        });
+
+        List<SearchHit> hits = new ArrayList<>(best);
+        hits.sort(ranking.reversed());
+        return hits;
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null) return List.of();
+        List<String> tokens = new ArrayList<>();
+        for (String token : TOKEN_SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty()) tokens.add(token);
+        }
+        return tokens;
+    }
+
+    /**
+     * Weighted term frequencies of a single product.
+     */
+    record Document(int length, Map<String, Integer> frequencies) {
+        static Document of(Product product) {
+            Map<String, Integer> frequencies = new HashMap<>();
+            int length = 0;
+            for (String token : tokenize(product.getName())) {
+                frequencies.merge(token, NAME_WEIGHT, Integer::sum);
+                length += NAME_WEIGHT;
+            }
+            for (String token : tokenize(product.getDescription())) {
+                frequencies.merge(token, 1, Integer::sum);
+                length++;
+            }
+            return new Document(length, frequencies);
+        }
+    }
+
+    /**
+     * A set of indexed documents and their postings. Not thread-safe.
+     */
+    static final class Segment {
+        final Map<Long, Document> documents = new HashMap<>();
+        final NavigableMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+        long totalLength;
+
+        void add(long id, Document document) {
+            documents.put(id, document);
+            totalLength += document.length();
+            document.frequencies().forEach((term, frequency) ->
+                    postings.computeIfAbsent(term, t -> new HashMap<>()).put(id, frequency));
+        }
+
+        void remove(long id) {
+            Document document = documents.remove(id);
+            if (document == null) return;
+            totalLength -= document.length();
+            for (String term : document.frequencies().keySet()) {
+                Map<Long, Integer> termPostings = postings.get(term);
+                termPostings.remove(id);
+                if (termPostings.isEmpty()) postings.remove(term);
+            }
+        }
+
+        /**
+         * Merges another segment into this one. Both segments must index different products.
+         */
+        void mergeDisjoint(Segment other) {
+            documents.putAll(other.documents);
+            totalLength += other.totalLength;
+            other.postings.forEach((term, termPostings) -> postings.merge(term, termPostings, (mine, theirs) -> {
+                mine.putAll(theirs);
+                return mine;
+            }));
+        }
+    }
+
+    /**
+     * Builds a segment for a list of products by splitting it until the parts are small enough to index directly.
+     */
+    private static final class BuildTask extends RecursiveTask<Segment> {
+        private final List<Product> products;
+
+        BuildTask(List<Product> products) {
+            this.products = products;
+        }
+
+        @Override
+        protected Segment compute() {
+            if (products.size() <= FORK_THRESHOLD) {
+                Segment segment = new Segment();
+                for (Product product : products) segment.add(product.getId(), Document.of(product));
+                return segment;
+            }
+
+            int middle = products.size() / 2;
+            BuildTask left = new BuildTask(products.subList(0, middle));
+            left.fork();
+            Segment right = new BuildTask(products.subList(middle, products.size())).compute();
+            Segment merged = left.join();
+            merged.mergeDisjoint(right);
+            return merged;
+        }
+    }
+}
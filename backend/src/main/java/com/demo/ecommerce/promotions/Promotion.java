@@ -0,0 +1,75 @@
+package com.demo.ecommerce.promotions;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.time.Instant;
+
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+
+@Entity
+@EntityListeners(AuditingEntityListener.class)
+@Table(name = "promotions")
+public class Promotion
+{
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "promotions_seq")
+    @SequenceGenerator(name = "promotions_seq", sequenceName = "promotions_seq", allocationSize = 50)
+    @EqualsAndHashCode.Include
+    @Column(name = "id", nullable = false)
+    private long id;
+    @Column(name = "name", nullable = false)
+    private String name;
+    @Enumerated(EnumType.STRING)
+    @Column(name = "type", nullable = false)
+    private PromotionType type;
+    /** Only lines of this product match, null for any product **/
+    @Column(name = "product_id")
+    private Long productId;
+    /** Only lines of products of this owner match, null for any owner **/
+    @Column(name = "owner_id")
+    private Long ownerId;
+    /** Only lines of products of this category match, null for any category **/
+    @Column(name = "category", length = 64)
+    private String category;
+    /** PERCENTAGE: basis points off, 1000 is 10% **/
+    @Column(name = "rate", nullable = false)
+    private int rate;
+    /** BUNDLE: the units a group is made of **/
+    @Column(name = "buy_quantity", nullable = false)
+    private int buyQuantity;
+    /** BUNDLE: the units of a group that are free **/
+    @Column(name = "free_quantity", nullable = false)
+    private int freeQuantity;
+    /** THRESHOLD: what the matching lines must add up to, in minor units **/
+    @Column(name = "min_amount", nullable = false)
+    private long minAmount;
+    /** THRESHOLD: the discount, in minor units **/
+    @Column(name = "amount", nullable = false)
+    private long amount;
+    /** Null when it has always applied **/
+    @Column(name = "startsAt")
+    private Instant startsAt;
+    /** Exclusive, null when it never ends **/
+    @Column(name = "endsAt")
+    private Instant endsAt;
+    @Builder.Default
+    @Column(name = "active", nullable = false)
+    private boolean active = true;
+    @CreatedDate
+    @Column(name = "createdAt")
+    private Instant createdAt;
+    @LastModifiedDate
+    @Column(name = "updatedAt")
+    private Instant updatedAt;
+    @Version
+    private int version;
+}
@@ -0,0 +1,10 @@
+package com.demo.ecommerce.promotions;
+
+/**
+ * Published by {@link PromotionService} whenever a promotion is created, updated or deleted.
+ * Listeners that maintain derived state should use {@code @TransactionalEventListener} so they only see committed changes.
+ *
+ * @param id        the ID of the promotion
+ * @param promotion the promotion in its new state, null if it was deleted
+ */
+public record PromotionChangedEvent(long id, Promotion promotion) {}
@@ -0,0 +1,99 @@
+package com.demo.ecommerce.promotions;
+
+import com.demo.ecommerce.common.exceptions.BadRequestException;
+import com.demo.ecommerce.common.exceptions.ResourceNotFoundException;
+import com.demo.ecommerce.promotions.dto.PromotionRequest;
+import com.demo.ecommerce.promotions.dto.PromotionResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.net.URI;
+import java.util.List;
+
+@RestController
+@RequestMapping(path = "api/promotions", produces = MediaType.APPLICATION_JSON_VALUE)
+public class PromotionController {
+    @Autowired
+    PromotionService promotionService;
+
+    @Autowired
+    PromotionMapper promotionMapper;
+
+    /**
+     * Lists promotions in ID order, active or not. Requires the ADMINISTRATOR role.
+     *
+     * @param after the ID of the last promotion of the previous page, omitted for the first page
+     * @param limit the maximum number of promotions to return
+     * @return a ResponseEntity containing the promotions
+     */
+    @Operation(summary = "List promotions")
+    @GetMapping
+    public ResponseEntity<List<PromotionResponse>> list(@RequestParam(defaultValue = "0") @Min(0) long after,
+                                                        @RequestParam(defaultValue = "20") @Min(1) @Max(100) int limit) {
+        return ResponseEntity.ok(promotionService.findAll(after, limit).stream().map(promotionMapper::entityToResponse).toList());
+    }
+
+    /**
+     * Retrieves a promotion by its ID. Requires the ADMINISTRATOR role.
+     *
+     * @param id the ID of the promotion
+     * @return a ResponseEntity containing the PromotionResponse
+     * @throws ResourceNotFoundException if the promotion does not exist
+     */
+    @Operation(summary = "Get a promotion by id")
+    @GetMapping("{id}")
+    public ResponseEntity<PromotionResponse> get(@PathVariable long id) {
+        return ResponseEntity.ok(promotionMapper.entityToResponse(promotionService.findById(id).orElseThrow(ResourceNotFoundException::new)));
+    }
+
+    /**
+     * Creates a promotion. Requires the ADMINISTRATOR role.
+     *
+     * @param request the promotion
+     * @return a ResponseEntity containing the created PromotionResponse with HTTP 201 Created status and its URI in the Location header
+     * @throws BadRequestException if the parameters do not fit the type, or a target does not exist
+     */
+    @Operation(summary = "Create a promotion")
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<PromotionResponse> create(@Valid @RequestBody PromotionRequest request) {
+        Promotion promotion = promotionService.create(request);
+        URI location = ServletUriComponentsBuilder.fromCurrentRequest().path("/{id}").build(promotion.getId());
+        return ResponseEntity.created(location).body(promotionMapper.entityToResponse(promotion));
+    }
+
+    /**
+     * Replaces a promotion. Requires the ADMINISTRATOR role.
+     *
+     * @param id      the ID of the promotion
+     * @param request the new state of the promotion
+     * @return a ResponseEntity containing the updated PromotionResponse
+     * @throws ResourceNotFoundException if the promotion does not exist
+     * @throws BadRequestException       if the parameters do not fit the type, or a target does not exist
+     */
+    @Operation(summary = "Update a promotion by id")
+    @PutMapping(path = "{id}", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<PromotionResponse> update(@PathVariable long id, @Valid @RequestBody PromotionRequest request) {
+        return ResponseEntity.ok(promotionMapper.entityToResponse(promotionService.updateById(id, request)));
+    }
+
+    /**
+     * Deletes a promotion. Requires the ADMINISTRATOR role.
+     *
+     * @param id the ID of the promotion
+     * @return a ResponseEntity with HTTP 204 No Content
+     * @throws ResourceNotFoundException if the promotion does not exist
+     */
+    @Operation(summary = "Delete a promotion by id")
+    @DeleteMapping("{id}")
+    public ResponseEntity<?> delete(@PathVariable long id) {
+        promotionService.deleteById(id);
+        return ResponseEntity.noContent().build();
+    }
+}
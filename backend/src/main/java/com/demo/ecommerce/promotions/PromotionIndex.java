@@ -0,0 +1,376 @@
+package com.demo.ecommerce.promotions;
+
+import com.demo.ecommerce.pricing.TotalsCalculator;
+
+import java.util.*;
+import java.util.function.UnaryOperator;
+
+/**
+ * Active promotions compiled into a decision structure, so pricing a line evaluates only the promotions that can apply
+ * to it rather than every promotion.
+ * <p>
+ * A promotion is filed under its most selective target: its product if it has one, else its owner, else its category,
+ * else it is global. A line looks up the buckets of its product and its owner in primitive open-addressing tables and
+ * the bucket of its category in a map, and scans those and the global promotions, checking any further targets and
+ * the window of each. The state of an evaluation is kept per thread and grows to the largest cart it has seen, so
+ * evaluating a cart allocates nothing once its thread has evaluated one as large.
+ * <p>
+ * Per line, the largest PERCENTAGE or BUNDLE discount applies; they do not stack. Per order, the largest THRESHOLD
+ * discount whose matching lines reach its minimum is taken off the order, on top of the line discounts.
+ * <p>
+ * The structure is an immutable snapshot behind a volatile field, so readers never lock. {@link #put} and
+ * {@link #remove} recompile one promotion and rebuild only the buckets it leaves and enters, then publish a new
+ * snapshot sharing everything else; the tables holding the buckets are copied, not rebuilt. Changes are serialised and
+ * ordered by version, a change older than the one already applied is ignored.
+ */
+public final class PromotionIndex {
+    private static final PromotionRule[] NONE = {};
+    /** Recorded for deleted promotions, so a late update cannot bring one back **/
+    private static final int DELETED = Integer.MAX_VALUE;
+
+    private volatile Snapshot snapshot = new Snapshot(RuleTable.EMPTY, RuleTable.EMPTY, Map.of(), NONE, 0);
+    private final ThreadLocal<Scratch> scratches = ThreadLocal.withInitial(Scratch::new);
+    // Guarded by this
+    private final Map<Long, PromotionRule> rules = new HashMap<>();
+    // Guarded by this, the last version applied per promotion
+    private final Map<Long, Integer> versions = new HashMap<>();
+    // Guarded by this, THRESHOLD accumulators to hand out again
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+    // Guarded by this
+    private int slots;
+
+    private record Snapshot(RuleTable byProduct, RuleTable byOwner, Map<String, PromotionRule[]> byCategory, PromotionRule[] global, int size) {
+        Snapshot with(PromotionRule rule) {
+            return change(rule, bucket -> {
+                PromotionRule[] grown = Arrays.copyOf(bucket, bucket.length + 1);
+                grown[bucket.length] = rule;
+                return grown;
+            }, size + 1);
+        }
+
+        Snapshot without(PromotionRule rule) {
+            return change(rule, bucket -> {
+                PromotionRule[] shrunk = new PromotionRule[bucket.length - 1];
+                int n = 0;
+                for (PromotionRule other : bucket) if (other != rule) shrunk[n++] = other;
+                return shrunk;
+            }, size - 1);
+        }
+
+        private Snapshot change(PromotionRule rule, UnaryOperator<PromotionRule[]> update, int size) {
+            if (rule.productId != 0) return new Snapshot(byProduct.with(rule.productId, update.apply(byProduct.get(rule.productId))), byOwner, byCategory, global, size);
+            if (rule.ownerId != 0) return new Snapshot(byProduct, byOwner.with(rule.ownerId, update.apply(byOwner.get(rule.ownerId))), byCategory, global, size);
+            if (rule.category != null) {
+                Map<String, PromotionRule[]> categories = new HashMap<>(byCategory);
+                PromotionRule[] bucket = update.apply(categories.getOrDefault(rule.category, NONE));
+                if (bucket.length == 0) categories.remove(rule.category);
+                else categories.put(rule.category, bucket);
+                return new Snapshot(byProduct, byOwner, categories, global, size);
+            }
+            return new Snapshot(byProduct, byOwner, byCategory, update.apply(global), size);
+        }
+    }
+
+    /**
+     * Replaces the whole structure, compiling every promotion.
+     *
+     * @param promotions the promotions; inactive ones are skipped
+     */
+    public synchronized void load(Collection<Promotion> promotions) {
+        rules.clear();
+        versions.clear();
+        freeSlots.clear();
+        slots = 0;
+
+        Map<Long, List<PromotionRule>> byProduct = new HashMap<>();
+        Map<Long, List<PromotionRule>> byOwner = new HashMap<>();
+        Map<String, List<PromotionRule>> byCategory = new HashMap<>();
+        List<PromotionRule> global = new ArrayList<>();
+        for (Promotion promotion : promotions) {
+            versions.put(promotion.getId(), promotion.getVersion());
+            if (!promotion.isActive()) continue;
+            PromotionRule rule = PromotionRule.compile(promotion, slots);
+            if (rule.slot >= 0) slots++;
+            rules.put(rule.id, rule);
+            if (rule.productId != 0) byProduct.computeIfAbsent(rule.productId, key -> new ArrayList<>()).add(rule);
+            else if (rule.ownerId != 0) byOwner.computeIfAbsent(rule.ownerId, key -> new ArrayList<>()).add(rule);
+            else if (rule.category != null) byCategory.computeIfAbsent(rule.category, key -> new ArrayList<>()).add(rule);
+            else global.add(rule);
+        }
+
+        Map<String, PromotionRule[]> categories = new HashMap<>();
+        byCategory.forEach((category, bucket) -> categories.put(category, bucket.toArray(NONE)));
+        snapshot = new Snapshot(RuleTable.of(byProduct), RuleTable.of(byOwner), categories, global.toArray(NONE), rules.size());
+    }
+
+    /**
+     * Adds, replaces or removes a promotion depending on its state.
+     *
+     * @param promotion the promotion in its latest committed state
+     * @return false if the same or a later version was already applied, nothing changed
+     */
+    public synchronized boolean put(Promotion promotion) {
+        Integer applied = versions.get(promotion.getId());
+        if (applied != null && applied >= promotion.getVersion()) return false;
+        versions.put(promotion.getId(), promotion.getVersion());
+
+        PromotionRule previous = rules.remove(promotion.getId());
+        PromotionRule rule = null;
+        if (promotion.isActive()) {
+            int slot = promotion.getType() != PromotionType.THRESHOLD ? -1 : previous != null && previous.slot >= 0 ? previous.slot : nextSlot();
+            rule = PromotionRule.compile(promotion, slot);
+            rules.put(rule.id, rule);
+        }
+        if (previous != null && previous.slot >= 0 && (rule == null || rule.slot != previous.slot)) freeSlots.push(previous.slot);
+
+        Snapshot next = snapshot;
+        if (previous != null) next = next.without(previous);
+        if (rule != null) next = next.with(rule);
+        snapshot = next;
+        return true;
+    }
+
+    /**
+     * Removes a deleted promotion. Later updates of it are ignored.
+     *
+     * @param id the ID of the promotion
+     */
+    public synchronized void remove(long id) {
+        versions.put(id, DELETED);
+        PromotionRule previous = rules.remove(id);
+        if (previous == null) return;
+        if (previous.slot >= 0) freeSlots.push(previous.slot);
+        snapshot = snapshot.without(previous);
+    }
+
+    /**
+     * @return the number of active promotions in the structure
+     */
+    public int size() {
+        return snapshot.size();
+    }
+
+    /**
+     * Discounts the lines and the order of a calculator with the promotions that apply to them. The arrays describe the
+     * product of each line of the calculator, in the same order.
+     *
+     * @param totals     the calculator, with its lines added and not computed yet
+     * @param productIds the product of each line
+     * @param ownerIds   the owner of the product of each line
+     * @param categories the category of the product of each line, elements may be null
+     * @param now        the time the promotions must be running at, in epoch milliseconds
+     */
+    public void apply(TotalsCalculator totals, long[] productIds, long[] ownerIds, String[] categories, long now) {
+        Snapshot snapshot = this.snapshot;
+        Scratch scratch = scratches.get();
+        try {
+            for (int line = 0; line < totals.lines(); line++) {
+                scratch.startLine(productIds[line], ownerIds[line], categories[line], now, totals.unitPrice(line), totals.quantity(line));
+                scan(snapshot.byProduct().get(productIds[line]), scratch);
+                scan(snapshot.byOwner().get(ownerIds[line]), scratch);
+                if (categories[line] != null) scan(snapshot.byCategory().getOrDefault(categories[line], NONE), scratch);
+                scan(snapshot.global(), scratch);
+
+                long discount = Math.min(scratch.best, scratch.gross);
+                if (discount > 0) totals.discountLine(line, discount);
+                long net = scratch.gross - discount;
+                for (int i = 0; i < scratch.hitCount; i++) scratch.sums[scratch.hits[i]] = Math.addExact(scratch.sums[scratch.hits[i]], net);
+            }
+
+            long orderDiscount = 0;
+            for (int i = 0; i < scratch.matchedCount; i++) {
+                PromotionRule rule = scratch.matched[i];
+                if (scratch.sums[rule.slot] >= rule.minAmount) orderDiscount = Math.max(orderDiscount, rule.amount);
+            }
+            if (orderDiscount > 0) totals.discountOrder(orderDiscount);
+        } finally {
+            scratch.reset();
+        }
+    }
+
+    private static void scan(PromotionRule[] bucket, Scratch scratch) {
+        for (PromotionRule rule : bucket) {
+            if (!rule.matches(scratch.productId, scratch.ownerId, scratch.category, scratch.now)) continue;
+            if (rule.slot >= 0) scratch.hit(rule);
+            else scratch.best = Math.max(scratch.best, rule.lineDiscount(scratch.unitPrice, scratch.quantity, scratch.gross));
+        }
+    }
+
+    private int nextSlot() {
+        return freeSlots.isEmpty() ? slots++ : freeSlots.pop();
+    }
+
+    /**
+     * State of one evaluation, reused by a thread. Grows to the largest cart and slot it has seen.
+     */
+    private static final class Scratch {
+        long productId;
+        long ownerId;
+        String category;
+        long now;
+        long unitPrice;
+        int quantity;
+        long gross;
+        /** The largest line discount of the current line **/
+        long best;
+        /** Per THRESHOLD slot, what its matching lines add up to, -1 while none matched **/
+        long[] sums = filled(16);
+        /** The THRESHOLD rules matched by any line **/
+        PromotionRule[] matched = new PromotionRule[16];
+        int matchedCount;
+        /** The slots matched by the current line **/
+        int[] hits = new int[16];
+        int hitCount;
+
+        void startLine(long productId, long ownerId, String category, long now, long unitPrice, int quantity) {
+            this.productId = productId;
+            this.ownerId = ownerId;
+            this.category = category;
+            this.now = now;
+            this.unitPrice = unitPrice;
+            this.quantity = quantity;
+            this.gross = Math.multiplyExact(unitPrice, (long) quantity);
+            this.best = 0;
+            this.hitCount = 0;
+        }
+
+        void hit(PromotionRule rule) {
+            if (rule.slot >= sums.length) {
+                long[] grown = filled(Math.max(sums.length * 2, rule.slot + 1));
+                System.arraycopy(sums, 0, grown, 0, sums.length);
+                sums = grown;
+            }
+            if (sums[rule.slot] < 0) {
+                sums[rule.slot] = 0;
+                if (matchedCount == matched.length) matched = Arrays.copyOf(matched, matchedCount * 2);
+                matched[matchedCount++] = rule;
+            }
+            if (hitCount == hits.length) hits = Arrays.copyOf(hits, hitCount * 2);
+            hits[hitCount++] = rule.slot;
+        }
+
+        void reset() {
+            for (int i = 0; i < matchedCount; i++) {
+                sums[matched[i].slot] = -1;
+                matched[i] = null;
+            }
+            matchedCount = 0;
+            hitCount = 0;
+            category = null;
+        }
+
+        private static long[] filled(int length) {
+            long[] array = new long[length];
+            Arrays.fill(array, -1);
+            return array;
+        }
+    }
+
+    /**
+     * Immutable map from positive {@code long} keys to buckets of rules, with open addressing and linear probing as in
+     * {@code LongIntMap}, so a lookup neither boxes the key nor follows a node. Changes return a modified copy.
+     */
+    private static final class RuleTable {
+        private static final int MIN_CAPACITY = 16;
+        static final RuleTable EMPTY = new RuleTable(new long[MIN_CAPACITY], new PromotionRule[MIN_CAPACITY][], 0);
+
+        private final long[] keys;
+        private final PromotionRule[][] buckets;
+        private final int size;
+
+        private RuleTable(long[] keys, PromotionRule[][] buckets, int size) {
+            this.keys = keys;
+            this.buckets = buckets;
+            this.size = size;
+        }
+
+        static RuleTable of(Map<Long, List<PromotionRule>> buckets) {
+            int capacity = Integer.highestOneBit(Math.max(MIN_CAPACITY, buckets.size() * 2 - 1)) << 1;
+            long[] keys = new long[capacity];
+            PromotionRule[][] values = new PromotionRule[capacity][];
+            buckets.forEach((key, bucket) -> insert(keys, values, key, bucket.toArray(NONE)));
+            return new RuleTable(keys, values, buckets.size());
+        }
+
+        /**
+         * @return the bucket of a key, empty if it has none
+         */
+        PromotionRule[] get(long key) {
+            if (key <= 0) return NONE;
+            int slot = find(keys, key);
+            return keys[slot] == 0 ? NONE : buckets[slot];
+        }
+
+        /**
+         * @param key    a positive key
+         * @param bucket the new bucket of the key, empty to remove the key
+         * @return a table with the change
+         */
+        RuleTable with(long key, PromotionRule[] bucket) {
+            int slot = find(keys, key);
+            boolean present = keys[slot] != 0;
+            if (bucket.length == 0) {
+                if (!present) return this;
+                long[] newKeys = keys.clone();
+                PromotionRule[][] newBuckets = buckets.clone();
+                delete(newKeys, newBuckets, slot);
+                return new RuleTable(newKeys, newBuckets, size - 1);
+            }
+            if (present) {
+                PromotionRule[][] newBuckets = buckets.clone();
+                newBuckets[slot] = bucket;
+                return new RuleTable(keys, newBuckets, size);
+            }
+
+            // Keep the load factor at or below one half so probe sequences stay short
+            int capacity = (size + 1) * 2 > keys.length ? keys.length << 1 : keys.length;
+            long[] newKeys = new long[capacity];
+            PromotionRule[][] newBuckets = new PromotionRule[capacity][];
+            if (capacity == keys.length) {
+                System.arraycopy(keys, 0, newKeys, 0, capacity);
+                System.arraycopy(buckets, 0, newBuckets, 0, capacity);
+            } else {
+                for (int i = 0; i < keys.length; i++) {
+                    if (keys[i] != 0) insert(newKeys, newBuckets, keys[i], buckets[i]);
+                }
+            }
+            insert(newKeys, newBuckets, key, bucket);
+            return new RuleTable(newKeys, newBuckets, size + 1);
+        }
+
+        private static void insert(long[] keys, PromotionRule[][] buckets, long key, PromotionRule[] bucket) {
+            int slot = find(keys, key);
+            keys[slot] = key;
+            buckets[slot] = bucket;
+        }
+
+        /** Shifts the following entries of the probe sequence back, so no tombstones are needed **/
+        private static void delete(long[] keys, PromotionRule[][] buckets, int slot) {
+            int mask = keys.length - 1;
+            int free = slot;
+            for (int next = (free + 1) & mask; keys[next] != 0; next = (next + 1) & mask) {
+                int home = home(keys, keys[next]);
+                // Move the entry unless its home lies cyclically in (free, next]
+                if (((next - home) & mask) >= ((next - free) & mask)) {
+                    keys[free] = keys[next];
+                    buckets[free] = buckets[next];
+                    free = next;
+                }
+            }
+            keys[free] = 0;
+            buckets[free] = null;
+        }
+
+        private static int find(long[] keys, long key) {
+            int mask = keys.length - 1;
+            int slot = home(keys, key);
+            while (keys[slot] != 0 && keys[slot] != key) slot = (slot + 1) & mask;
+            return slot;
+        }
+
+        private static int home(long[] keys, long key) {
+            // Fibonacci hashing spreads sequential IDs over the table
+            return (int) ((key * 0x9E3779B97F4A7C15L) >>> (64 - Integer.numberOfTrailingZeros(keys.length)));
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.demo.ecommerce.promotions;
+
+import com.demo.ecommerce.promotions.dto.PromotionRequest;
+import com.demo.ecommerce.promotions.dto.PromotionResponse;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.MappingTarget;
+
+@Mapper(componentModel = "spring")
+public interface PromotionMapper {
+    /**
+     * Maps a {@link PromotionRequest} to a new {@link Promotion} entity.
+     *
+     * @param request the request object containing the promotion
+     * @return a new {@link Promotion} entity populated with data from the request
+     */
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "createdAt", ignore = true)
+    @Mapping(target = "updatedAt", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    Promotion requestToEntity(PromotionRequest request);
+
+    /**
+     * Converts a {@link Promotion} entity to a {@link PromotionResponse}.
+     *
+     * @param promotion the {@link Promotion} entity to be converted
+     * @return a {@link PromotionResponse} containing details of the promotion
+     */
+    PromotionResponse entityToResponse(Promotion promotion);
+
+    /**
+     * Replaces the fields of an existing {@link Promotion} entity with those of a {@link PromotionRequest}.
+     *
+     * @param request   the {@link PromotionRequest} containing the new state of the promotion
+     * @param promotion the target {@link Promotion} entity to be updated
+     */
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "createdAt", ignore = true)
+    @Mapping(target = "updatedAt", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    void updatePromotion(PromotionRequest request, @MappingTarget Promotion promotion);
+}
@@ -0,0 +1,22 @@
+package com.demo.ecommerce.promotions;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface PromotionRepository extends JpaRepository<Promotion, Long> {
+    /**
+     * @return every active promotion, including those outside their window
+     */
+    List<Promotion> findAllByActiveTrue();
+
+    /**
+     * @param id    the ID to start after
+     * @param limit the maximum number of promotions to return
+     * @return the promotions with a greater ID, in ID order
+     */
+    List<Promotion> findByIdGreaterThanOrderById(long id, Limit limit);
+}
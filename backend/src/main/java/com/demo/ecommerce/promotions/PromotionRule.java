@@ -0,0 +1,81 @@
+package com.demo.ecommerce.promotions;
+
+import com.demo.ecommerce.pricing.TotalsCalculator;
+
+/**
+ * A {@link Promotion} compiled for evaluation: targets and parameters as primitives, the window as epoch milliseconds.
+ * Immutable, so every thread reading a {@link PromotionIndex} can share it.
+ */
+final class PromotionRule {
+    final long id;
+    final int version;
+    final PromotionType type;
+    /** 0 for any product **/
+    final long productId;
+    /** 0 for any owner **/
+    final long ownerId;
+    /** Null for any category **/
+    final String category;
+    final int rate;
+    final int buyQuantity;
+    final int freeQuantity;
+    final long minAmount;
+    final long amount;
+    final long startsAt;
+    /** Exclusive **/
+    final long endsAt;
+    /** The accumulator of a THRESHOLD rule while a cart is evaluated, -1 for other types **/
+    final int slot;
+
+    private PromotionRule(Promotion promotion, int slot) {
+        this.id = promotion.getId();
+        this.version = promotion.getVersion();
+        this.type = promotion.getType();
+        this.productId = promotion.getProductId() == null ? 0 : promotion.getProductId();
+        this.ownerId = promotion.getOwnerId() == null ? 0 : promotion.getOwnerId();
+        this.category = promotion.getCategory();
+        this.rate = promotion.getRate();
+        this.buyQuantity = promotion.getBuyQuantity();
+        this.freeQuantity = promotion.getFreeQuantity();
+        this.minAmount = promotion.getMinAmount();
+        this.amount = promotion.getAmount();
+        this.startsAt = promotion.getStartsAt() == null ? Long.MIN_VALUE : promotion.getStartsAt().toEpochMilli();
+        this.endsAt = promotion.getEndsAt() == null ? Long.MAX_VALUE : promotion.getEndsAt().toEpochMilli();
+        this.slot = slot;
+    }
+
+    /**
+     * @param promotion the promotion, validated by {@link PromotionService}
+     * @param slot      the accumulator of a THRESHOLD promotion, ignored for other types
+     * @return the compiled promotion
+     */
+    static PromotionRule compile(Promotion promotion, int slot) {
+        return new PromotionRule(promotion, promotion.getType() == PromotionType.THRESHOLD ? slot : -1);
+    }
+
+    /**
+     * @return true if the rule applies to a line of a product at a point in time, checking every target
+     */
+    boolean matches(long productId, long ownerId, String category, long now) {
+        return (this.productId == 0 || this.productId == productId)
+                && (this.ownerId == 0 || this.ownerId == ownerId)
+                && (this.category == null || this.category.equals(category))
+                && now >= startsAt && now < endsAt;
+    }
+
+    /**
+     * @param unitPrice the price of one unit of the line
+     * @param quantity  the units of the line
+     * @param gross     unit price times quantity
+     * @return the discount the rule gives the line, at most {@code gross}; 0 for THRESHOLD rules
+     */
+    long lineDiscount(long unitPrice, int quantity, long gross) {
+        return switch (type) {
+            // Split so the product cannot overflow, rounded down
+            case PERCENTAGE -> gross / TotalsCalculator.BASIS_POINTS * rate + gross % TotalsCalculator.BASIS_POINTS * rate / TotalsCalculator.BASIS_POINTS;
+            // At most the whole line, freeQuantity < buyQuantity
+            case BUNDLE -> (long) (quantity / buyQuantity) * freeQuantity * unitPrice;
+            case THRESHOLD -> 0;
+        };
+    }
+}
@@ -0,0 +1,212 @@
+package com.demo.ecommerce.promotions;
+
+import com.demo.ecommerce.common.exceptions.BadRequestException;
+import com.demo.ecommerce.common.exceptions.ResourceNotFoundException;
+import com.demo.ecommerce.pricing.TotalsCalculator;
+import com.demo.ecommerce.products.Product;
+import com.demo.ecommerce.products.ProductExcludeFlag;
+import com.demo.ecommerce.products.ProductService;
+import com.demo.ecommerce.promotions.dto.PromotionRequest;
+import com.demo.ecommerce.users.UserService;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Clock;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Promotions, and the {@link PromotionIndex} that applies them when carts and orders are priced.
+ * <p>
+ * The index is compiled from the database when the application starts and kept up to date from committed
+ * {@link PromotionChangedEvent}s afterwards, one promotion at a time. It is local to the instance: other instances see
+ * a change when they restart.
+ */
+@Validated
+@Service
+public class PromotionService {
+    @Autowired
+    PromotionRepository promotionRepository;
+
+    @Autowired
+    PromotionMapper promotionMapper;
+
+    @Autowired
+    ProductService productService;
+
+    @Autowired
+    UserService userService;
+
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
+
+    private final PromotionIndex index = new PromotionIndex();
+    private final ThreadLocal<LineKeys> lineKeys = ThreadLocal.withInitial(LineKeys::new);
+    private final Clock clock = Clock.systemUTC();
+
+    /**
+     * The product, owner and category of each line of a cart, as the index takes them, reused by a thread. Grows to the
+     * largest cart it has seen.
+     */
+    private static final class LineKeys {
+        long[] productIds = new long[16];
+        long[] ownerIds = new long[16];
+        String[] categories = new String[16];
+
+        void ensureCapacity(int lines) {
+            if (lines <= productIds.length) return;
+            int capacity = Math.max(productIds.length * 2, lines);
+            productIds = new long[capacity];
+            ownerIds = new long[capacity];
+            categories = new String[capacity];
+        }
+    }
+
+    /**
+     * Retrieves a promotion by its ID.
+     *
+     * @param id the ID of the promotion
+     * @return an Optional containing the promotion, or an empty Optional if it does not exist
+     */
+    public Optional<Promotion> findById(@Min(1) long id) {
+        return promotionRepository.findById(id);
+    }
+
+    /**
+     * Lists promotions in ID order, active or not.
+     *
+     * @param afterId the ID of the last promotion of the previous page, 0 for the first page
+     * @param limit   the maximum number of promotions to return
+     * @return the promotions after {@code afterId}
+     */
+    public List<Promotion> findAll(@Min(0) long afterId, @Min(1) int limit) {
+        return promotionRepository.findByIdGreaterThanOrderById(afterId, Limit.of(limit));
+    }
+
+    /**
+     * Creates a promotion. It applies to carts as soon as the transaction commits.
+     *
+     * @param request the promotion
+     * @return the created promotion
+     * @throws BadRequestException if the parameters do not fit the type, or a target does not exist
+     */
+    @Transactional
+    public Promotion create(@NotNull @Valid PromotionRequest request) {
+        check(request);
+        return save(promotionMapper.requestToEntity(request));
+    }
+
+    /**
+     * Replaces a promotion.
+     *
+     * @param id      the ID of the promotion
+     * @param request the new state of the promotion
+     * @return the updated promotion
+     * @throws ResourceNotFoundException if the promotion does not exist
+     * @throws BadRequestException       if the parameters do not fit the type, or a target does not exist
+     */
+    @Transactional
+    public Promotion updateById(@Min(1) long id, @NotNull @Valid PromotionRequest request) {
+        Promotion promotion = promotionRepository.findById(id).orElseThrow(ResourceNotFoundException::new);
+        check(request);
+        promotionMapper.updatePromotion(request, promotion);
+        return save(promotion);
+    }
+
+    /**
+     * Deletes a promotion.
+     *
+     * @param id the ID of the promotion
+     * @throws ResourceNotFoundException if the promotion does not exist
+     */
+    @Transactional
+    public void deleteById(@Min(1) long id) {
+        Promotion promotion = promotionRepository.findById(id).orElseThrow(ResourceNotFoundException::new);
+        promotionRepository.delete(promotion);
+        eventPublisher.publishEvent(new PromotionChangedEvent(id, null));
+    }
+
+    /**
+     * Discounts the lines of a calculator with the promotions running now. The lines are described to the index in
+     * arrays of the current thread, so once a thread has priced a cart as large this allocates nothing.
+     *
+     * @param totals   the calculator, with its lines added and not computed yet
+     * @param products the product of each line of the calculator, in the same order
+     */
+    public void apply(TotalsCalculator totals, List<Product> products) {
+        LineKeys keys = lineKeys.get();
+        keys.ensureCapacity(products.size());
+        for (int i = 0; i < products.size(); i++) {
+            Product product = products.get(i);
+            keys.productIds[i] = product.getId();
+            // Reading the ID of a lazy owner does not initialize it
+            keys.ownerIds[i] = product.getUser() == null ? 0 : product.getUser().getId();
+            keys.categories[i] = product.getCategory();
+        }
+        try {
+            index.apply(totals, keys.productIds, keys.ownerIds, keys.categories, clock.millis());
+        } finally {
+            Arrays.fill(keys.categories, 0, products.size(), null);
+        }
+    }
+
+    /**
+     * @return the number of active promotions compiled into the index
+     */
+    public int indexed() {
+        return index.size();
+    }
+
+    /**
+     * Compiles every active promotion into a new index. Changes committed meanwhile wait and are applied after it.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void load() {
+        index.load(promotionRepository.findAllByActiveTrue());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onPromotionChanged(PromotionChangedEvent event) {
+        if (event.promotion() == null) index.remove(event.id());
+        else index.put(event.promotion());
+    }
+
+    private Promotion save(Promotion promotion) {
+        Promotion saved = promotionRepository.save(promotion);
+        eventPublisher.publishEvent(new PromotionChangedEvent(saved.getId(), saved));
+        return saved;
+    }
+
+    private void check(PromotionRequest request) {
+        switch (request.getType()) {
+            case PERCENTAGE -> {
+                if (request.getRate() == 0) throw new BadRequestException("A percentage promotion needs a rate");
+            }
+            case BUNDLE -> {
+                if (request.getFreeQuantity() < 1 || request.getFreeQuantity() >= request.getBuyQuantity())
+                    throw new BadRequestException("A bundle promotion needs a free quantity of at least 1 and below the buy quantity");
+            }
+            case THRESHOLD -> {
+                if (request.getAmount() == 0) throw new BadRequestException("A threshold promotion needs an amount");
+            }
+        }
+        if (request.getStartsAt() != null && request.getEndsAt() != null && !request.getEndsAt().isAfter(request.getStartsAt()))
+            throw new BadRequestException("A promotion must end after it starts");
+        if (request.getProductId() != null && productService.findVersion(request.getProductId(), EnumSet.of(ProductExcludeFlag.DELETED)).isEmpty())
+            throw new BadRequestException("Product cannot be found");
+        if (request.getOwnerId() != null && userService.findReferenceById(request.getOwnerId()).isEmpty())
+            throw new BadRequestException("Owner cannot be found");
+    }
+}
@@ -0,0 +1,10 @@
+package com.demo.ecommerce.promotions;
+
+public enum PromotionType {
+    /** {@code rate} basis points off every matching line **/
+    PERCENTAGE,
+    /** Of every {@code buyQuantity} units of a matching line, {@code freeQuantity} are free ("3 for 2") **/
+    BUNDLE,
+    /** {@code amount} off the order once the matching lines add up to {@code minAmount}, after their own discounts **/
+    THRESHOLD
+}
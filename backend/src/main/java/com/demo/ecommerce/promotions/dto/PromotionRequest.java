@@ -0,0 +1,50 @@
+package com.demo.ecommerce.promotions.dto;
+
+import com.demo.ecommerce.promotions.PromotionType;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.*;
+
+import java.time.Instant;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+
+public class PromotionRequest {
+    @NotBlank(message = "Promotion name cannot be empty")
+    String name;
+    @NotNull(message = "Promotion type is required")
+    PromotionType type;
+    /** Targets, each optional: the promotion applies to lines matching all that are given, to every line if none is **/
+    @Min(value = 1, message = "Product id has to be a positive integer")
+    Long productId;
+    @Min(value = 1, message = "Owner id has to be a positive integer")
+    Long ownerId;
+    @Size(max = 64, message = "Category cannot be longer than 64 characters")
+    String category;
+    /** PERCENTAGE: basis points off, 1000 is 10% **/
+    @Min(value = 0, message = "Rate cannot be negative")
+    @Max(value = 10_000, message = "Rate cannot be over 10000 basis points")
+    int rate;
+    /** BUNDLE: of every buyQuantity units, freeQuantity are free **/
+    @Min(value = 0, message = "Buy quantity cannot be negative")
+    int buyQuantity;
+    @Min(value = 0, message = "Free quantity cannot be negative")
+    int freeQuantity;
+    /** THRESHOLD: amount off the order once the matching lines add up to minAmount, in minor units **/
+    @Min(value = 0, message = "Minimum amount cannot be negative")
+    long minAmount;
+    @Min(value = 0, message = "Amount cannot be negative")
+    long amount;
+    Instant startsAt;
+    /** Exclusive **/
+    Instant endsAt;
+    @Builder.Default
+    boolean active = true;
+}
@@ -0,0 +1,30 @@
+package com.demo.ecommerce.promotions.dto;
+
+import com.demo.ecommerce.promotions.PromotionType;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Instant;
+
+@Data
+@Builder
+
+public class PromotionResponse {
+    long id;
+    String name;
+    PromotionType type;
+    Long productId;
+    Long ownerId;
+    String category;
+    int rate;
+    int buyQuantity;
+    int freeQuantity;
+    long minAmount;
+    long amount;
+    Instant startsAt;
+    Instant endsAt;
+    boolean active;
+    Instant createdAt;
+    Instant updatedAt;
+    int version;
+}
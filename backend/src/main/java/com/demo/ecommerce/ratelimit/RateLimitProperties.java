@@ -0,0 +1,25 @@
+package com.demo.ecommerce.ratelimit;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Rate limits applied per client, bound from {@code security.rate-limit.*}.
+ *
+ * @param enabled          whether requests are rate limited at all
+ * @param evictionInterval how often buckets that have fully refilled are dropped
+ * @param routes           the limited routes; a request is counted against the first route it matches and is not
+ *                         limited if it matches none
+ */
+@ConfigurationProperties("security.rate-limit")
+public record RateLimitProperties(boolean enabled, Duration evictionInterval, List<Route> routes) {
+    /**
+     * @param path     the path pattern of the route, e.g. {@code /api/products/**}
+     * @param methods  the HTTP methods the route applies to, all when empty
+     * @param capacity the number of requests a client can burst
+     * @param period   the time an empty bucket takes to refill, so the sustained rate is {@code capacity / period}
+     */
+    public record Route(String path, List<String> methods, int capacity, Duration period) {}
+}
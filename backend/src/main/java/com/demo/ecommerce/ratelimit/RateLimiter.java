@@ -0,0 +1,107 @@
+package com.demo.ecommerce.ratelimit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.server.PathContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps a {@link TokenBucket} per client and route, as configured by {@link RateLimitProperties}.
+ * <p>
+ * Buckets live in a {@link ConcurrentHashMap}, so looking one up never blocks and creating one only locks a single
+ * bin, and taking a token is lock-free. A bucket that has fully refilled holds no information, so every
+ * {@code security.rate-limit.eviction-interval} those are dropped and memory stays proportional to the clients seen
+ * recently. A request racing the eviction may take its token from the dropped bucket, which lets at most one extra
+ * request through.
+ */
+@Component
+public class RateLimiter {
+    private final boolean enabled;
+    private final List<Limit> limits;
+    private final LongSupplier nanoTime;
+    private final Map<Key, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    private record Limit(PathPattern path, Set<String> methods, long intervalNanos, long capacityNanos) {
+        boolean matches(String method, PathContainer path) {
+            return (methods.isEmpty() || methods.contains(method)) && this.path.matches(path);
+        }
+    }
+
+    private record Key(int limit, String client) {}
+
+    @Autowired
+    RateLimiter(RateLimitProperties properties) {
+        this(properties, System::nanoTime);
+    }
+
+    RateLimiter(RateLimitProperties properties, LongSupplier nanoTime) {
+        this.enabled = properties.enabled();
+        this.nanoTime = nanoTime;
+        this.limits = properties.routes() == null ? List.of() : properties.routes().stream().map(RateLimiter::compile).toList();
+    }
+
+    private static Limit compile(RateLimitProperties.Route route) {
+        if (route.capacity() <= 0) throw new IllegalArgumentException("Rate limit capacity must be positive: " + route.path());
+        long intervalNanos = Math.max(1, route.period().toNanos() / route.capacity());
+        Set<String> methods = route.methods() == null ? Set.of()
+                : route.methods().stream().map(method -> method.toUpperCase(Locale.ROOT)).collect(Collectors.toUnmodifiableSet());
+        return new Limit(PathPatternParser.defaultInstance.parse(route.path()), methods, intervalNanos, intervalNanos * route.capacity());
+    }
+
+    /**
+     * @return whether requests are rate limited at all
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Counts a request against the bucket of its client for the first route it matches.
+     *
+     * @param method the HTTP method of the request
+     * @param path   the path of the request
+     * @param client identifies the client, e.g. its user or address
+     * @return 0 if the request is allowed, otherwise the nanoseconds until the client may retry
+     */
+    public long tryAcquire(String method, String path, String client) {
+        if (!enabled || limits.isEmpty()) return 0;
+        PathContainer container = PathContainer.parsePath(path);
+        for (int i = 0; i < limits.size(); i++) {
+            Limit limit = limits.get(i);
+            if (!limit.matches(method, container)) continue;
+
+            long now = nanoTime.getAsLong();
+            TokenBucket bucket = buckets.get(new Key(i, client));
+            if (bucket == null) bucket = buckets.computeIfAbsent(new Key(i, client), key -> new TokenBucket(now));
+            return bucket.tryTake(now, limit.intervalNanos(), limit.capacityNanos());
+        }
+        return 0;
+    }
+
+    /**
+     * @return the number of buckets currently kept
+     */
+    public int size() {
+        return buckets.size();
+    }
+
+    /**
+     * Drops the buckets that have fully refilled.
+     */
+    @Scheduled(fixedDelayString = "${security.rate-limit.eviction-interval}")
+    public void evictIdle() {
+        long now = nanoTime.getAsLong();
+        // Removal is conditional on the bucket, a bucket replaced in the meantime stays
+        buckets.entrySet().removeIf(entry -> entry.getValue().isFull(now));
+    }
+}
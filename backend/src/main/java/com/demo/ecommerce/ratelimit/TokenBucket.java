@@ -0,0 +1,51 @@
+package com.demo.ecommerce.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket, implemented as the generic cell rate algorithm.
+ * <p>
+ * Instead of a token count and a refill timestamp the bucket keeps a single value, the theoretical arrival time: the
+ * instant the bucket would be full again if no more tokens were taken. Taking a token pushes it one emission interval
+ * further, and a token is available while it stays within the capacity of the bucket ahead of now. Because the whole
+ * state is one long, taking a token is a single compare-and-set and no lock is ever held.
+ */
+final class TokenBucket {
+    private final AtomicLong theoreticalArrival;
+
+    /**
+     * Creates a full bucket.
+     *
+     * @param nowNanos the current time, from {@link System#nanoTime()}
+     */
+    TokenBucket(long nowNanos) {
+        this.theoreticalArrival = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * Takes a token if one is available.
+     *
+     * @param nowNanos      the current time, from {@link System#nanoTime()}
+     * @param intervalNanos the time it takes to refill one token
+     * @param capacityNanos the time it takes to refill the whole bucket, {@code intervalNanos * capacity}
+     * @return 0 if a token was taken, otherwise the nanoseconds until one is available
+     */
+    long tryTake(long nowNanos, long intervalNanos, long capacityNanos) {
+        while (true) {
+            long current = theoreticalArrival.get();
+            // Compared by difference, nanoTime values may wrap
+            long next = (current - nowNanos > 0 ? current : nowNanos) + intervalNanos;
+            long wait = next - nowNanos - capacityNanos;
+            if (wait > 0) return wait;
+            if (theoreticalArrival.compareAndSet(current, next)) return 0;
+        }
+    }
+
+    /**
+     * @param nowNanos the current time, from {@link System#nanoTime()}
+     * @return true if every token has been refilled, so the bucket is indistinguishable from a new one
+     */
+    boolean isFull(long nowNanos) {
+        return theoreticalArrival.get() - nowNanos <= 0;
+    }
+}
@@ -0,0 +1,43 @@
+package com.demo.ecommerce.users;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Creates the first administrator, the only account that can grant roles to the others.
+ * <p>
+ * Configured with {@code users.bootstrap-admin.email} and {@code users.bootstrap-admin.password-hash}, a BCrypt hash
+ * so the raw password never sits in the configuration. Nothing is done when either is blank or a user with the email
+ * already exists: an existing account is never promoted, as anyone could have registered it.
+ */
+@Component
+public class AdminBootstrap {
+    private static final Logger log = LoggerFactory.getLogger(AdminBootstrap.class);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${users.bootstrap-admin.email}")
+    private String email;
+
+    @Value("${users.bootstrap-admin.password-hash}")
+    private String passwordHash;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void createAdmin() {
+        if (email.isBlank() || passwordHash.isBlank()) return;
+        if (userRepository.existsByEmail(email)) {
+            log.warn("Not creating the bootstrap administrator, a user with email {} already exists", email);
+            return;
+        }
+        userRepository.save(User.builder().name("Administrator").email(email).password(passwordHash).role(Role.ADMINISTRATOR).build());
+        log.info("Created the bootstrap administrator {}", email);
+    }
+}
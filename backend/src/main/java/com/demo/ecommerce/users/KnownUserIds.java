@@ -0,0 +1,74 @@
+package com.demo.ecommerce.users;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of user IDs known to exist, so references to users can be created without querying the users table.
+ * <p>
+ * IDs are only added after reading them from the database and are forgotten when the user is deleted, both right away
+ * and again once the deleting transaction completes. A lookup can read the user before the delete commits and add the
+ * ID after both invalidations, so removals are counted: an ID is added with the count taken before its read and is
+ * dropped again if the count has changed since. The count is checked after storing the ID, so a removal the check
+ * misses invalidates the stored ID.
+ */
+@Component
+class KnownUserIds {
+    static final String CACHE_NAME = "knownUserIds";
+
+    private final Cache<Object, Object> cache;
+    private final AtomicLong removals = new AtomicLong();
+
+    @SuppressWarnings("unchecked")
+    KnownUserIds(CacheManager cacheManager) {
+        CaffeineCache springCache = (CaffeineCache) Objects.requireNonNull(cacheManager.getCache(CACHE_NAME),
+                "Cache '%s' is not configured".formatted(CACHE_NAME));
+        this.cache = springCache.getNativeCache();
+    }
+
+    boolean contains(long id) {
+        return cache.getIfPresent(id) != null;
+    }
+
+    /**
+     * @return the stamp to add an ID with, taken before reading whether the user exists
+     */
+    long stamp() {
+        return removals.get();
+    }
+
+    /**
+     * Adds the ID of a user read from the database, unless a user was removed since the stamp was taken.
+     *
+     * @param id    the ID of the user
+     * @param stamp the {@link #stamp()} taken before the read
+     */
+    void add(long id, long stamp) {
+        cache.put(id, Boolean.TRUE);
+        if (removals.get() != stamp) cache.invalidate(id);
+    }
+
+    void remove(long id) {
+        invalidate(id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidate(id);
+                }
+            });
+        }
+    }
+
+    private void invalidate(long id) {
+        removals.incrementAndGet();
+        cache.invalidate(id);
+    }
+}
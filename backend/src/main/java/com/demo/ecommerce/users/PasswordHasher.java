@@ -0,0 +1,89 @@
+package com.demo.ecommerce.users;
+
+import com.demo.ecommerce.common.exceptions.TooManyRequestsException;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.*;
+
+/**
+ * Hashes passwords on a dedicated, bounded pool of {@code users.password-hashing.threads} threads.
+ * <p>
+ * BCrypt is deliberately slow, so hashing on request threads lets a burst of registrations take every CPU from the
+ * rest of the application. Here at most {@code threads} hashes run at once and up to
+ * {@code users.password-hashing.queue-capacity} more wait for a thread; anything beyond that is rejected with a
+ * {@link TooManyRequestsException} instead of piling up.
+ */
+@Component
+public class PasswordHasher implements DisposableBean {
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+
+    PasswordHasher(PasswordEncoder passwordEncoder,
+                   @Value("${users.password-hashing.threads}") int threads,
+                   @Value("${users.password-hashing.queue-capacity}") int queueCapacity) {
+        this.passwordEncoder = passwordEncoder;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                queueCapacity == 0 ? new SynchronousQueue<>() : new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("password-hasher-"),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Hashes a raw password, waiting for a hashing thread.
+     *
+     * @param rawPassword the password to hash
+     * @return the encoded password
+     * @throws TooManyRequestsException if the hashing pool and its queue are full
+     */
+    public String encode(String rawPassword) {
+        return run(() -> passwordEncoder.encode(rawPassword));
+    }
+
+    /**
+     * Checks a raw password against a hash, waiting for a hashing thread. Costs as much as {@link #encode}.
+     *
+     * @param rawPassword     the password to check
+     * @param encodedPassword the stored hash
+     * @return true if the password matches the hash
+     * @throws TooManyRequestsException if the hashing pool and its queue are full
+     */
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return run(() -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    private <T> T run(Callable<T> task) {
+        Future<T> result;
+        try {
+            result = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            throw new TooManyRequestsException("Too many password operations in progress, retry later");
+        }
+
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing a password", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * @return the number of hashes waiting for a thread
+     */
+    public int queued() {
+        return executor.getQueue().size();
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
@@ -1,9 +1,19 @@
 package com.demo.ecommerce.users;
 
+import com.demo.ecommerce.common.dto.BulkOperationResponse;
+import com.demo.ecommerce.common.exceptions.BadRequestException;
+import com.demo.ecommerce.common.exceptions.ConflictException;
 import com.demo.ecommerce.common.exceptions.ResourceNotFoundException;
+import com.demo.ecommerce.common.exceptions.TooManyRequestsException;
+import com.demo.ecommerce.users.dto.UserBulkDeleteRequest;
 import com.demo.ecommerce.users.dto.UserCreate;
+import com.demo.ecommerce.users.dto.UserImportReport;
 import com.demo.ecommerce.users.dto.UserPublicData;
+import com.demo.ecommerce.users.dto.UserRoleUpdate;
+import com.demo.ecommerce.users.dto.UserUpdate;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -12,6 +22,10 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.util.Optional;
 
@@ -22,6 +36,10 @@ public class UserController {
     UserService userService;
     @Autowired
     UserMapper userMapper;
+    @Autowired
+    UserImportService userImportService;
+    @Autowired
+    ObjectMapper objectMapper;
 
     /**
      * Retrieves a user by their ID and returns the user's public data.
@@ -39,24 +57,45 @@ public class UserController {
     }
 
     /**
-     * Updates a user by their ID.
+     * Updates a user by their ID. Users can only update their own account, the role is changed with
+     * {@link #updateRole}.
      *
      * @param id   the ID of the user to update
-     * @param user the {@link UserCreate} object containing the updated user data
+     * @param user the {@link UserUpdate} object containing the updated user data, the password may be omitted to keep it
      * @return a ResponseEntity containing the updated {@link UserPublicData}
      * @throws ResourceNotFoundException if no user is found with the specified ID
+     * @throws ConflictException         if another user has the new email
+     * @throws TooManyRequestsException  if a new password is given and the password hashing pool is saturated
      */
     @Operation(summary = "Update user by id")
     @PutMapping("{id}")
-    public ResponseEntity<UserPublicData> updateUser(@PathVariable long id, @Valid @RequestBody UserCreate user) {
+    public ResponseEntity<UserPublicData> updateUser(@PathVariable long id, @Valid @RequestBody UserUpdate user) {
         return ResponseEntity.ok().body(userMapper.entityToResponse(userService.updateUser(id, user)));
     }
 
     /**
-     * Creates a new user in the system.
+     * Changes the role of a user. Requires the ADMINISTRATOR role.
+     * <p>
+     * The role travels in access tokens, so tokens issued before the change keep the old role until they expire.
+     *
+     * @param id      the ID of the user
+     * @param request the {@link UserRoleUpdate} with the new role
+     * @return a ResponseEntity containing the updated {@link UserPublicData}
+     * @throws ResourceNotFoundException if no user is found with the specified ID
+     */
+    @Operation(summary = "Change the role of a user")
+    @PutMapping("{id}/role")
+    public ResponseEntity<UserPublicData> updateRole(@PathVariable long id, @Valid @RequestBody UserRoleUpdate request) {
+        return ResponseEntity.ok().body(userMapper.entityToResponse(userService.updateRole(id, request.getRole())));
+    }
+
+    /**
+     * Creates a new user in the system, as a customer.
      *
      * @param createUser The UserCreate object containing the details of the user to be created.
      * @return A ResponseEntity containing the newly created UserPublicData with HTTP status code 201 (Created).
+     * @throws ConflictException        if a user with the email already exists
+     * @throws TooManyRequestsException if the password hashing pool is saturated
      */
     @Operation(summary = "Create new user")
     @PostMapping
@@ -66,11 +105,44 @@ public class UserController {
         return ResponseEntity.created(location).body(userMapper.entityToResponse(user));
     }
 
+    /**
+     * Bulk registers users from newline-delimited JSON, one {@link UserCreate} per line, as customers. Requires the
+     * ADMINISTRATOR role.
+     * <p>
+     * The report is streamed back as newline-delimited JSON while the import runs: a CREATED line with the new ID or an
+     * ERROR line for every input line, and a final SUMMARY line.
+     *
+     * @param hashed   whether the passwords are BCrypt hashes to store as they are, rather than raw passwords
+     * @param body     the request body
+     * @param response the response the report is written to
+     * @throws IOException if the request cannot be read or the report cannot be written
+     */
+    @Operation(summary = "Bulk import users from NDJSON")
+    @PostMapping(path = "import", consumes = MediaType.APPLICATION_NDJSON_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void importUsers(@RequestParam(defaultValue = "false") boolean hashed, InputStream body, HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        OutputStream out = response.getOutputStream();
+        UserImportService.Summary summary = userImportService.importNdjson(body, hashed, new UserImportService.Listener() {
+            @Override
+            public void onCreated(long line, long id) {
+                writeLine(out, UserImportReport.builder().type(UserImportReport.Type.CREATED).line(line).id(id).build());
+            }
+
+            @Override
+            public void onRowError(long line, String message) {
+                writeLine(out, UserImportReport.builder().type(UserImportReport.Type.ERROR).line(line).message(message).build());
+            }
+        });
+        writeLine(out, UserImportReport.builder().type(UserImportReport.Type.SUMMARY)
+                .processed(summary.processed()).created(summary.created()).failed(summary.failed()).build());
+    }
+
     /**
      * Deletes a user by their unique identifier.
      *
      * @param id the unique identifier of the user to be deleted
      * @throws ResourceNotFoundException if no user is found with the specified ID
+     * @throws BadRequestException       if the user still owns products or promotions, or has placed orders
      */
     @Operation(summary = "Delete user by id")
     @DeleteMapping("{id}")
@@ -78,4 +150,27 @@ public class UserController {
     public void deleteUser(@PathVariable long id) {
         userService.deleteById(id);
     }
+
+    /**
+     * Deletes several users in one statement. Administrators only.
+     *
+     * @param request the {@link UserBulkDeleteRequest} with the IDs of the users to delete
+     * @return a ResponseEntity containing the number of users deleted, unknown IDs are skipped
+     * @throws BadRequestException if any of the users still owns products or promotions, or has placed orders, in
+     *                             which case none is deleted
+     */
+    @Operation(summary = "Delete several users")
+    @PostMapping("bulk/delete")
+    public ResponseEntity<BulkOperationResponse> deleteUsers(@Valid @RequestBody UserBulkDeleteRequest request) {
+        return ResponseEntity.ok(BulkOperationResponse.builder().affected(userService.deleteAllById(request.getIds())).build());
+    }
+
+    private void writeLine(OutputStream out, Object value) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(value));
+            out.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 }
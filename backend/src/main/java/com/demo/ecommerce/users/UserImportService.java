@@ -0,0 +1,234 @@
+package com.demo.ecommerce.users;
+
+import com.demo.ecommerce.users.dto.UserCreate;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Streams users from newline-delimited JSON into the database.
+ * <p>
+ * Each line is a {@link UserCreate}. Lines are parsed and validated as they are read and valid ones are collected in
+ * chunks of {@code users.import.chunk-size}. The passwords of a chunk are hashed in parallel on a dedicated fork-join
+ * pool of {@code users.import.hashing-parallelism} threads (every core when 0), then the chunk is written in its own
+ * transaction using JDBC batch inserts. Rows whose email is already taken, by an existing user or an earlier row of the
+ * chunk, are rejected before hashing; earlier chunks are committed by then, so the lookup sees them too.
+ * <p>
+ * Unlike {@link PasswordHasher}, which keeps registrations from starving request threads, the pool is sized to use the
+ * whole machine: an import is an administrative job where throughput is what matters. Inputs exported from another
+ * system can carry BCrypt hashes instead of raw passwords, which are then stored as they are.
+ */
+@Service
+public class UserImportService implements DisposableBean {
+    private static final Pattern BCRYPT_HASH = Pattern.compile("^\\$2[aby]?\\$\\d{2}\\$[./A-Za-z0-9]{53}$");
+    // Below this many passwords a hashing task runs them itself instead of forking
+    private static final int HASHING_THRESHOLD = 4;
+    private static final String EMAIL_TAKEN = "A user with this email already exists";
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${users.import.chunk-size}")
+    private int chunkSize;
+
+    private final ForkJoinPool hashingPool;
+
+    UserImportService(@Value("${users.import.hashing-parallelism}") int parallelism) {
+        this.hashingPool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Receives the result of every row of an import as it runs.
+     */
+    public interface Listener {
+        /**
+         * Called for every user written to the database.
+         *
+         * @param line the 1-based line number in the input
+         * @param id   the ID of the created user
+         */
+        void onCreated(long line, long id);
+
+        /**
+         * Called for every line that could not be imported.
+         *
+         * @param line    the 1-based line number in the input
+         * @param message why the line was rejected
+         */
+        void onRowError(long line, String message);
+    }
+
+    /**
+     * Totals of a finished import.
+     *
+     * @param processed the number of non-blank lines read
+     * @param created   the number of users created
+     * @param failed    the number of lines rejected
+     */
+    public record Summary(long processed, long created, long failed) {}
+
+    private record Row(long line, User user) {}
+
+    /**
+     * Imports users from newline-delimited JSON. Blank lines are ignored.
+     *
+     * @param input    the input, read as UTF-8
+     * @param hashed   whether the passwords are BCrypt hashes to store as they are, rather than raw passwords
+     * @param listener receives the result of every row while the import runs
+     * @return the {@link Summary} of the import
+     * @throws IOException if the input cannot be read
+     */
+    public Summary importNdjson(InputStream input, boolean hashed, Listener listener) throws IOException {
+        ObjectReader reader = objectMapper.readerFor(UserCreate.class);
+        List<Row> chunk = new ArrayList<>(chunkSize);
+        long lineNumber = 0, processed = 0, created = 0, failed = 0;
+
+        BufferedReader lines = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        for (String line = lines.readLine(); line != null; line = lines.readLine()) {
+            lineNumber++;
+            if (line.isBlank()) continue;
+            processed++;
+
+            String error;
+            try {
+                UserCreate request = reader.readValue(line);
+                error = validate(request);
+                if (error == null && hashed && !BCRYPT_HASH.matcher(request.getPassword()).matches()) {
+                    error = "Password is not a BCrypt hash";
+                }
+                if (error == null) chunk.add(new Row(lineNumber, userMapper.createToEntity(request)));
+            } catch (JsonProcessingException e) {
+                error = "Malformed JSON: " + e.getOriginalMessage();
+            }
+            if (error != null) {
+                failed++;
+                listener.onRowError(lineNumber, error);
+            }
+
+            if (chunk.size() >= chunkSize) {
+                int written = write(chunk, hashed, listener);
+                created += written;
+                failed += chunk.size() - written;
+                chunk.clear();
+            }
+        }
+
+        if (!chunk.isEmpty()) {
+            int written = write(chunk, hashed, listener);
+            created += written;
+            failed += chunk.size() - written;
+        }
+        return new Summary(processed, created, failed);
+    }
+
+    private String validate(UserCreate request) {
+        Set<ConstraintViolation<UserCreate>> violations = validator.validate(request);
+        if (violations.isEmpty()) return null;
+        return violations.stream().map(ConstraintViolation::getMessage).sorted().collect(Collectors.joining(", "));
+    }
+
+    /**
+     * Drops the rows whose email is taken, hashes the passwords of the others unless they already are, then writes
+     * them in a single transaction. The hashing happens before the transaction starts, so no connection is held while
+     * BCrypt runs. If the transaction fails every remaining row of the chunk is reported as failed.
+     *
+     * @return the number of users written
+     */
+    private int write(List<Row> chunk, boolean hashed, Listener listener) {
+        Set<String> taken = new HashSet<>(userRepository.findEmailsIn(chunk.stream().map(row -> row.user().getEmail()).toList()));
+        List<Row> rows = new ArrayList<>(chunk.size());
+        for (Row row : chunk) {
+            if (taken.add(row.user().getEmail())) rows.add(row);
+            else listener.onRowError(row.line(), EMAIL_TAKEN);
+        }
+        if (rows.isEmpty()) return 0;
+
+        try {
+            if (!hashed) hashingPool.invoke(new HashTask(rows, passwordEncoder));
+            List<User> users = rows.stream().map(Row::user).toList();
+            transactionTemplate.executeWithoutResult(status -> {
+                userRepository.saveAll(users);
+                entityManager.flush();
+                entityManager.clear();
+            });
+        } catch (RuntimeException e) {
+            entityManager.clear();
+            for (Row row : rows) listener.onRowError(row.line(), "Chunk could not be written: " + e.getMessage());
+            return 0;
+        }
+        for (Row row : rows) listener.onCreated(row.line(), row.user().getId());
+        return rows.size();
+    }
+
+    @Override
+    public void destroy() {
+        hashingPool.shutdownNow();
+    }
+
+    /**
+     * Replaces the raw passwords of the rows with their hashes, splitting the rows in halves until few enough are left
+     * to hash sequentially.
+     */
+    private static final class HashTask extends RecursiveAction {
+        private final List<Row> rows;
+        private final PasswordEncoder passwordEncoder;
+
+        HashTask(List<Row> rows, PasswordEncoder passwordEncoder) {
+            this.rows = rows;
+            this.passwordEncoder = passwordEncoder;
+        }
+
+        @Override
+        protected void compute() {
+            if (rows.size() <= HASHING_THRESHOLD) {
+                for (Row row : rows) row.user().setPassword(passwordEncoder.encode(row.user().getPassword()));
+                return;
+            }
+
+            int middle = rows.size() / 2;
+            invokeAll(new HashTask(rows.subList(0, middle), passwordEncoder), new HashTask(rows.subList(middle, rows.size()), passwordEncoder));
+        }
+    }
+}
@@ -2,7 +2,9 @@ package com.demo.ecommerce.users;
 
 import com.demo.ecommerce.users.dto.UserCreate;
 import com.demo.ecommerce.users.dto.UserPublicData;
+import com.demo.ecommerce.users.dto.UserUpdate;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 import org.mapstruct.MappingTarget;
 
 @Mapper(componentModel = "spring")
@@ -16,18 +18,21 @@ public interface UserMapper {
     UserPublicData entityToResponse(User user);
     /**
      * Maps a {@link UserCreate} DTO to a {@link User} entity.
+     * New users are always customers, only administrators can change roles.
      *
      * @param user the {@link UserCreate} object containing user details to be mapped
      * @return a new {@link User} entity initialized with data from the {@link UserCreate} DTO
      */
+    @Mapping(target = "role", constant = "CUSTOMER")
     User createToEntity(UserCreate user);
     /**
-     * Updates a {@link User} entity with data from a {@link UserCreate} DTO.
-     * This method maps the fields from the provided {@link UserCreate} object to the target {@link User}
-     * entity.
+     * Updates a {@link User} entity with data from a {@link UserUpdate} DTO.
+     * The password is not mapped, it has to be hashed by the caller. The role is kept.
      *
-     * @param userCreate The {@link UserCreate} object containing the new data for the user.
+     * @param userUpdate The {@link UserUpdate} object containing the new data for the user.
      * @param user       The target {@link User} entity to be updated with new values from the DTO.
      */
-    void updateUser(UserCreate userCreate, @MappingTarget User user);
+    @Mapping(target = "password", ignore = true)
+    @Mapping(target = "role", ignore = true)
+    void updateUser(UserUpdate userUpdate, @MappingTarget User user);
 }
@@ -1,7 +1,50 @@
 package com.demo.ecommerce.users;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.Optional;
+import java.util.Set;
+
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {}
+public interface UserRepository extends JpaRepository<User, Long> {
+    /**
+     * Finds a user by email address.
+     *
+     * @param email the email address to look up
+     * @return an Optional containing the {@link User} if found, or an empty Optional otherwise
+     */
+    Optional<User> findByEmail(String email);
+
+    /**
+     * Checks whether a user has the given email address.
+     *
+     * @param email the email address to look up
+     * @return true if a user has the email address
+     */
+    boolean existsByEmail(String email);
+
+    /**
+     * Finds which of the given email addresses already belong to users.
+     *
+     * @param emails the email addresses to look up
+     * @return the email addresses that are taken
+     */
+    @Query("select u.email from User u where u.email in :emails")
+    Set<String> findEmailsIn(@Param("emails") Collection<String> emails);
+
+    /**
+     * Deletes users with a single DELETE, without loading them.
+     * Bypasses the persistence context, which is flushed before and cleared after.
+     *
+     * @param ids the IDs of the users to delete
+     * @return the number of users deleted
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from User u where u.id in :ids")
+    int deleteAllByIdIn(@Param("ids") Collection<Long> ids);
+}
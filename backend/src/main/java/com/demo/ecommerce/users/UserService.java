@@ -1,19 +1,31 @@
 package com.demo.ecommerce.users;
 
+import com.demo.ecommerce.common.exceptions.BadRequestException;
+import com.demo.ecommerce.common.exceptions.ConflictException;
 import com.demo.ecommerce.common.exceptions.ResourceNotFoundException;
+import com.demo.ecommerce.common.exceptions.TooManyRequestsException;
+import com.demo.ecommerce.outbox.OutboxMessageType;
+import com.demo.ecommerce.outbox.OutboxService;
 import com.demo.ecommerce.users.dto.UserCreate;
+import com.demo.ecommerce.users.dto.UserUpdate;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.validation.annotation.Validated;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Validated
 @Service
 public class UserService {
+    private static final String EMAIL_TAKEN = "A user with this email already exists";
+
     @Autowired
     UserRepository userRepository;
 
@@ -21,7 +33,16 @@ public class UserService {
     UserMapper userMapper;
 
     @Autowired
-    PasswordEncoder passwordEncoder;
+    PasswordHasher passwordHasher;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    KnownUserIds knownUserIds;
+
+    @Autowired
+    OutboxService outboxService;
 
     /**
      * Retrieves a user by their unique identifier.
@@ -33,16 +54,46 @@ public class UserService {
         return userRepository.findById(id);
     }
 
+    /**
+     * Retrieves a reference to a user without loading it, for setting foreign keys.
+     * Existence is checked with a count query unless the ID is already known to exist.
+     *
+     * @param id the unique identifier of the user
+     * @return an Optional containing an uninitialized {@link User} proxy if the user exists, or an empty Optional otherwise
+     */
+    public Optional<User> findReferenceById(long id) {
+        if (!knownUserIds.contains(id)) {
+            long stamp = knownUserIds.stamp();
+            if (!userRepository.existsById(id)) return Optional.empty();
+            knownUserIds.add(id, stamp);
+        }
+        return Optional.of(userRepository.getReferenceById(id));
+    }
+
     /**
      * Creates a new user by encoding their password and saving it to the database.
+     * The password is hashed before the transaction starts, so no connection is held while BCrypt runs. The welcome
+     * email is queued in the same transaction and sent in the background. A taken email is rejected before hashing,
+     * the unique index on emails catches a registration racing for the same one.
      *
      * @param user The {@link User} object containing the details of the new user.
      * @return The saved {@link User}.
+     * @throws ConflictException        if a user with the email already exists
+     * @throws TooManyRequestsException if the password hashing pool is saturated
      */
     private User create(User user) {
-        user.setPassword(passwordEncoder.encode(user.getPassword()));
-
-        return save(user);
+        if (userRepository.existsByEmail(user.getEmail())) throw new ConflictException(EMAIL_TAKEN);
+        user.setPassword(passwordHasher.encode(user.getPassword()));
+
+        try {
+            return transactionTemplate.execute(status -> {
+                User saved = userRepository.save(user);
+                outboxService.enqueue(OutboxMessageType.USER_REGISTERED, saved.getId());
+                return saved;
+            });
+        } catch (DataIntegrityViolationException e) {
+            throw new ConflictException(EMAIL_TAKEN, e);
+        }
     }
 
     /**
@@ -50,10 +101,11 @@ public class UserService {
      *
      * @param userCreate The {@link UserCreate} object containing the details of the new user.
      * @return The created {@link User} entity.
+     * @throws ConflictException        if a user with the email already exists
+     * @throws TooManyRequestsException if the password hashing pool is saturated
      */
     // TODO: We probably shouldn't use a controller DTO for domain mapping, instead should be some kind of command
     //  but it should be fine since it is a small app
-    @Transactional
     public User createUser(@Valid UserCreate userCreate) {
         User user = userMapper.createToEntity(userCreate);
 
@@ -62,36 +114,74 @@ public class UserService {
 
     /**
      * Updates an existing user by their unique identifier.
-     * This method retrieves a user by the specified ID and updates it with the details provided in the {@link UserCreate} DTO.
+     * This method retrieves a user by the specified ID and updates it with the details provided in the {@link UserUpdate} DTO.
+     * The password is only re-hashed when a new one is given, before the transaction starts.
      *
      * @param id         the unique identifier of the user to update
-     * @param userUpdate the {@link UserCreate} object containing the new data for the user
+     * @param userUpdate the {@link UserUpdate} object containing the new data for the user
      * @return the updated {@link User} entity
      * @throws ResourceNotFoundException if no user is found with the specified ID
+     * @throws ConflictException         if another user has the new email
+     * @throws TooManyRequestsException  if a new password is given and the password hashing pool is saturated
      */
-    @Transactional
-    public User updateUser(long id, @Valid UserCreate userUpdate) {
-        Optional<User> maybeUser = findById(id);
-
-        if (maybeUser.isEmpty()) throw new ResourceNotFoundException();
-
-        User user = maybeUser.get();
-        userMapper.updateUser(userUpdate, user);
-        user.setPassword(passwordEncoder.encode(user.getPassword()));
+    public User updateUser(long id, @Valid UserUpdate userUpdate) {
+        String password = userUpdate.getPassword() == null ? null : passwordHasher.encode(userUpdate.getPassword());
+
+        try {
+            return transactionTemplate.execute(status -> {
+                User user = findById(id).orElseThrow(ResourceNotFoundException::new);
+                userMapper.updateUser(userUpdate, user);
+                if (password != null) user.setPassword(password);
+                return user;
+            });
+        } catch (DataIntegrityViolationException e) {
+            throw new ConflictException(EMAIL_TAKEN, e);
+        }
+    }
 
+    /**
+     * Changes the role of a user.
+     *
+     * @param id   the unique identifier of the user
+     * @param role the new role
+     * @return the updated {@link User} entity
+     * @throws ResourceNotFoundException if no user is found with the specified ID
+     */
+    @Transactional
+    public User updateRole(long id, Role role) {
+        User user = findById(id).orElseThrow(ResourceNotFoundException::new);
+        user.setRole(role);
         return user;
     }
 
     /**
-     * Deletes a user by their unique identifier.
+     * Deletes a user by their unique identifier with a single DELETE statement, without loading the user.
      *
      * @param id the unique identifier of the user to be deleted
      * @throws ResourceNotFoundException if no user is found with the specified ID
+     * @throws BadRequestException       if the user still owns products or promotions, or has placed orders
      */
     @Transactional
     public void deleteById(long id) {
-        if (!userRepository.existsById(id)) throw new ResourceNotFoundException();
-        userRepository.deleteById(id);
+        if (deleteAllById(List.of(id)) == 0) throw new ResourceNotFoundException();
+    }
+
+    /**
+     * Deletes several users with a single DELETE statement, without loading them. Either all of them are deleted or,
+     * if any is still referenced by products, promotions or orders, none. Carts are deleted with their users.
+     *
+     * @param ids the unique identifiers of the users to delete, unknown IDs are skipped
+     * @return the number of users deleted
+     * @throws BadRequestException if any of the users still owns products or promotions, or has placed orders
+     */
+    @Transactional
+    public int deleteAllById(@NotEmpty Collection<Long> ids) {
+        ids.forEach(knownUserIds::remove);
+        try {
+            return userRepository.deleteAllByIdIn(ids);
+        } catch (DataIntegrityViolationException e) {
+            throw new BadRequestException("Users that still own products or promotions, or have placed orders, cannot be deleted", e);
+        }
     }
 
     /**
@@ -0,0 +1,20 @@
+package com.demo.ecommerce.users.dto;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+
+public class UserBulkDeleteRequest {
+    @NotEmpty
+    @Size(max = 1000)
+    List<@Min(1) Long> ids;
+}
@@ -1,9 +1,7 @@
 package com.demo.ecommerce.users.dto;
 
-import com.demo.ecommerce.users.Role;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
-import jakarta.validation.constraints.NotNull;
 import lombok.*;
 
 @Getter
@@ -19,6 +17,4 @@ public class UserCreate {
     String email;
     @NotBlank
     String password;
-    @NotNull
-    Role role;
 }
@@ -0,0 +1,26 @@
+package com.demo.ecommerce.users.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * One line of the newline-delimited JSON report streamed back while a user import runs.
+ */
+@Data
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+
+public class UserImportReport {
+    public enum Type { CREATED, ERROR, SUMMARY }
+
+    Type type;
+    /** Input line a CREATED or ERROR refers to **/
+    Long line;
+    /** ID of the user a CREATED line reports **/
+    Long id;
+    String message;
+    Long processed;
+    Long created;
+    Long failed;
+}
@@ -0,0 +1,16 @@
+package com.demo.ecommerce.users.dto;
+
+import com.demo.ecommerce.users.Role;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+
+public class UserRoleUpdate {
+    @NotNull
+    Role role;
+}
@@ -0,0 +1,22 @@
+package com.demo.ecommerce.users.dto;
+
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+
+public class UserUpdate {
+    @NotBlank
+    String name;
+    @Email
+    String email;
+    /** Optional, the current password is kept (and not re-hashed) when omitted **/
+    @Pattern(regexp = ".*\\S.*", message = "must not be blank")
+    String password;
+}
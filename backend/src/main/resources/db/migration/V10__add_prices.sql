@@ -0,0 +1,11 @@
+-- Amounts are in minor units of the store currency (pricing.currency), existing products and orders start at zero.
+-- A zero price means the product has not been priced yet, checkout refuses to sell it
+alter table products add column price bigint default 0 not null;
+
+alter table order_lines add column unit_price bigint default 0 not null;
+
+alter table orders add column currency varchar(3) default 'EUR' not null;
+alter table orders add column subtotal bigint default 0 not null;
+alter table orders add column discount bigint default 0 not null;
+alter table orders add column tax bigint default 0 not null;
+alter table orders add column total bigint default 0 not null;
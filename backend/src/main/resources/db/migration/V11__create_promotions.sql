@@ -0,0 +1,29 @@
+-- Free-form, matched exactly by promotions targeting a category
+alter table products add column category varchar(64);
+
+create sequence promotions_seq start with 1 increment by 50;
+
+-- Targets are optional and combine, a promotion with none applies to every line. Which parameters are used depends on
+-- the type, see PromotionType; amounts are in minor units of the store currency
+create table promotions (
+    id            bigint       not null,
+    name          varchar(255) not null,
+    type          varchar(32)  not null,
+    product_id    bigint,
+    owner_id      bigint,
+    category      varchar(64),
+    rate          integer      not null,
+    buy_quantity  integer      not null,
+    free_quantity integer      not null,
+    min_amount    bigint       not null,
+    amount        bigint       not null,
+    starts_at     timestamp(6) with time zone,
+    ends_at       timestamp(6) with time zone,
+    active        boolean      not null,
+    created_at    timestamp(6) with time zone,
+    updated_at    timestamp(6) with time zone,
+    version       integer      not null,
+    primary key (id),
+    constraint fk_promotions_product foreign key (product_id) references products (id),
+    constraint fk_promotions_owner foreign key (owner_id) references users (id)
+);
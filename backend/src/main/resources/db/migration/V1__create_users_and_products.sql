@@ -0,0 +1,29 @@
+create table users (
+    id         bigint generated by default as identity,
+    name       varchar(255),
+    mail       varchar(255),
+    password   varchar(255),
+    role       varchar(32),
+    created_at timestamp(6) with time zone,
+    updated_at timestamp(6) with time zone,
+    version    integer,
+    primary key (id)
+);
+
+create sequence products_seq start with 1 increment by 50;
+
+create table products (
+    id          bigint       not null,
+    owner_id    bigint       not null,
+    name        varchar(255) not null,
+    description varchar(255),
+    active      boolean      not null,
+    created_at  timestamp(6) with time zone,
+    updated_at  timestamp(6) with time zone,
+    deleted_at  timestamp(6) with time zone,
+    version     integer      not null,
+    primary key (id),
+    constraint fk_products_owner foreign key (owner_id) references users (id)
+);
+
+create index idx_products_updated_at_id on products (updated_at, id);
@@ -0,0 +1,3 @@
+-- Products of an owner in id order. H2 keeps an owner_id index of its own for the owner foreign key, it only backs a
+-- key with an index on exactly the key's columns
+create index idx_products_owner_id_id on products (owner_id, id);
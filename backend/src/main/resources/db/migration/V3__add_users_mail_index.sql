@@ -0,0 +1,2 @@
+-- Login looks users up by email, so an email can belong to one user only
+create unique index idx_users_mail on users (mail);
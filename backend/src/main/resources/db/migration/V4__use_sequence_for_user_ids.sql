@@ -0,0 +1,3 @@
+-- Sequence ids let Hibernate batch user inserts, IDENTITY forces one round trip per row
+create sequence users_seq start with 1 increment by 50;
+alter sequence users_seq restart with (select coalesce(max(id), 0) + 1 from users);
@@ -0,0 +1,8 @@
+create table cart_items (
+    user_id    bigint  not null,
+    product_id bigint  not null,
+    quantity   integer not null,
+    primary key (user_id, product_id),
+    constraint fk_cart_items_user foreign key (user_id) references users (id) on delete cascade,
+    constraint fk_cart_items_product foreign key (product_id) references products (id)
+);
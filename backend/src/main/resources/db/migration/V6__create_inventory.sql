@@ -0,0 +1,7 @@
+create table inventory (
+    product_id bigint  not null,
+    on_hand    integer not null,
+    primary key (product_id),
+    constraint fk_inventory_product foreign key (product_id) references products (id),
+    constraint ck_inventory_on_hand check (on_hand >= 0)
+);
@@ -0,0 +1,23 @@
+create sequence orders_seq start with 1 increment by 50;
+
+create table orders (
+    id         bigint      not null,
+    user_id    bigint      not null,
+    status     varchar(32) not null,
+    created_at timestamp(6) with time zone,
+    updated_at timestamp(6) with time zone,
+    version    integer     not null,
+    primary key (id),
+    constraint fk_orders_user foreign key (user_id) references users (id)
+);
+
+create index idx_orders_user_id_id on orders (user_id, id);
+
+create table order_lines (
+    order_id   bigint  not null,
+    product_id bigint  not null,
+    quantity   integer not null,
+    primary key (order_id, product_id),
+    constraint fk_order_lines_order foreign key (order_id) references orders (id),
+    constraint fk_order_lines_product foreign key (product_id) references products (id)
+);
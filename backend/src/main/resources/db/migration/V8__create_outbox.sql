@@ -0,0 +1,16 @@
+create sequence outbox_seq start with 1 increment by 50;
+
+create table outbox (
+    id              bigint        not null,
+    type            varchar(32)   not null,
+    aggregate_id    bigint        not null,
+    attempts        integer       not null,
+    next_attempt_at timestamp(6) with time zone not null,
+    failed_at       timestamp(6) with time zone,
+    last_error      varchar(1000),
+    created_at      timestamp(6) with time zone,
+    primary key (id)
+);
+
+-- Only pending messages are polled, in the order they become due
+create index idx_outbox_next_attempt_at_id on outbox (next_attempt_at, id);
@@ -0,0 +1,18 @@
+create sequence payments_seq start with 1 increment by 50;
+
+create table payments (
+    id              bigint       not null,
+    order_id        bigint       not null,
+    status          varchar(32)  not null,
+    amount          bigint       not null,
+    currency        varchar(3)   not null,
+    idempotency_key varchar(64)  not null,
+    intent_id       varchar(255),
+    created_at      timestamp(6) with time zone,
+    updated_at      timestamp(6) with time zone,
+    version         integer      not null,
+    primary key (id),
+    -- One payment per order, also what stops two nodes from starting a payment for the same order
+    constraint uk_payments_order_id unique (order_id),
+    constraint fk_payments_order foreign key (order_id) references orders (id)
+);
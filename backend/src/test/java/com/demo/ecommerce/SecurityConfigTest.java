@@ -0,0 +1,33 @@
+package com.demo.ecommerce;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@Tag("Unit")
+public class SecurityConfigTest {
+    private final SecurityConfig securityConfig = new SecurityConfig();
+
+    @DisplayName("A missing JWT secret is rejected")
+    @Test
+    void missingSecret() {
+        assertThrows(IllegalArgumentException.class, () -> securityConfig.jwtSigningKey(""));
+    }
+
+    @DisplayName("A JWT secret shorter than 256 bits is rejected")
+    @Test
+    void shortSecret() {
+        assertThrows(IllegalArgumentException.class, () -> securityConfig.jwtSigningKey(Base64.getEncoder().encodeToString(new byte[31])));
+    }
+
+    @DisplayName("A JWT secret of 256 bits is used as the signing key")
+    @Test
+    void secret() {
+        assertEquals(32, securityConfig.jwtSigningKey(Base64.getEncoder().encodeToString(new byte[32])).getEncoded().length);
+    }
+}
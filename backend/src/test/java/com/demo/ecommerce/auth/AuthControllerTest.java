@@ -0,0 +1,121 @@
+package com.demo.ecommerce.auth;
+
+import com.demo.ecommerce.auth.dto.LoginRequest;
+import com.demo.ecommerce.auth.dto.RefreshRequest;
+import com.demo.ecommerce.common.annotations.ImportTestContext;
+import com.demo.ecommerce.common.exceptions.UnauthorizedException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@Tag("Unit")
+@ImportTestContext({})
+@WebMvcTest(AuthController.class)
+public class AuthControllerTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JwtEncoder jwtEncoder;
+
+    @MockitoBean
+    private AuthService authService;
+
+    private String accessToken(Instant expiresAt) {
+        JwtClaimsSet claims = JwtClaimsSet.builder().subject("7").claim(AuthService.ROLE_CLAIM, "CUSTOMER").expiresAt(expiresAt).build();
+        return jwtEncoder.encode(JwtEncoderParameters.from(JwsHeader.with(MacAlgorithm.HS256).build(), claims)).getTokenValue();
+    }
+
+    @DisplayName("Login returns the access and refresh tokens")
+    @Test
+    void login() throws Exception {
+        when(authService.login("test@outlook.com", "Pass123")).thenReturn(new AuthService.Tokens("access", Duration.ofMinutes(15), "refresh"));
+
+        mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new LoginRequest("test@outlook.com", "Pass123"))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accessToken").value("access"))
+                .andExpect(jsonPath("$.tokenType").value("Bearer"))
+                .andExpect(jsonPath("$.expiresIn").value(900))
+                .andExpect(jsonPath("$.refreshToken").value("refresh"));
+    }
+
+    @DisplayName("Login with invalid credentials returns 401")
+    @Test
+    void loginInvalid() throws Exception {
+        when(authService.login("test@outlook.com", "Wrong")).thenThrow(new UnauthorizedException("Invalid email or password"));
+
+        mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new LoginRequest("test@outlook.com", "Wrong"))))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @DisplayName("Refresh with a used token returns 401")
+    @Test
+    void refreshInvalid() throws Exception {
+        when(authService.refresh("used")).thenThrow(new UnauthorizedException("Invalid refresh token"));
+
+        mockMvc.perform(post("/api/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new RefreshRequest("used"))))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @DisplayName("Logout revokes the refresh token")
+    @Test
+    void logout() throws Exception {
+        mockMvc.perform(post("/api/auth/logout")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new RefreshRequest("refresh"))))
+                .andExpect(status().isNoContent());
+        verify(authService).logout("refresh");
+    }
+
+    @DisplayName("The authenticated user is read from a valid access token")
+    @Test
+    void me() throws Exception {
+        mockMvc.perform(get("/api/auth/me").header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken(Instant.now().plusSeconds(60))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(7))
+                .andExpect(jsonPath("$.role").value("CUSTOMER"));
+    }
+
+    @DisplayName("Requests without a token, with an expired or with a tampered token are rejected with 401")
+    @Test
+    void meUnauthenticated() throws Exception {
+        mockMvc.perform(get("/api/auth/me"))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/api/auth/me").header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken(Instant.now().minusSeconds(3600))))
+                .andExpect(status().isUnauthorized());
+
+        String token = accessToken(Instant.now().plusSeconds(60));
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+        mockMvc.perform(get("/api/auth/me").header(HttpHeaders.AUTHORIZATION, "Bearer " + tampered))
+                .andExpect(status().isUnauthorized());
+    }
+}
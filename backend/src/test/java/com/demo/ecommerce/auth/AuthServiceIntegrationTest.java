@@ -0,0 +1,90 @@
+package com.demo.ecommerce.auth;
+
+import com.demo.ecommerce.common.exceptions.UnauthorizedException;
+import com.demo.ecommerce.users.Role;
+import com.demo.ecommerce.users.User;
+import com.demo.ecommerce.users.UserService;
+import com.demo.ecommerce.users.dto.UserCreate;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("Integration")
+@SpringBootTest
+public class AuthServiceIntegrationTest {
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private JwtDecoder jwtDecoder;
+
+    private User testUser(String email) {
+        User user = userService.createUser(new UserCreate("Test", email, "Pass123"));
+        return userService.updateRole(user.getId(), Role.ADMINISTRATOR);
+    }
+
+    private String uniqueEmail() {
+        return UUID.randomUUID() + "@outlook.com";
+    }
+
+    @DisplayName("Login issues an access token carrying the user id and role")
+    @Test
+    void login() {
+        String email = uniqueEmail();
+        User user = testUser(email);
+
+        AuthService.Tokens tokens = authService.login(email, "Pass123");
+
+        Jwt jwt = jwtDecoder.decode(tokens.accessToken());
+        assertEquals(user.getId().toString(), jwt.getSubject());
+        assertEquals("ADMINISTRATOR", jwt.getClaimAsString(AuthService.ROLE_CLAIM));
+        assertNotNull(tokens.refreshToken());
+    }
+
+    @DisplayName("Login with a wrong password or an unknown email throws UnauthorizedException")
+    @Test
+    void loginInvalid() {
+        String email = uniqueEmail();
+        testUser(email);
+
+        assertThrows(UnauthorizedException.class, () -> authService.login(email, "Wrong123"));
+        assertThrows(UnauthorizedException.class, () -> authService.login(uniqueEmail(), "Pass123"));
+    }
+
+    @DisplayName("Refresh tokens are rotated and can only be used once")
+    @Test
+    void refresh() {
+        String email = uniqueEmail();
+        User user = testUser(email);
+        AuthService.Tokens tokens = authService.login(email, "Pass123");
+
+        AuthService.Tokens refreshed = authService.refresh(tokens.refreshToken());
+
+        assertEquals(user.getId().toString(), jwtDecoder.decode(refreshed.accessToken()).getSubject());
+        assertNotEquals(tokens.refreshToken(), refreshed.refreshToken());
+        assertThrows(UnauthorizedException.class, () -> authService.refresh(tokens.refreshToken()));
+    }
+
+    @DisplayName("Logout revokes the refresh token")
+    @Test
+    void logout() {
+        String email = uniqueEmail();
+        testUser(email);
+        AuthService.Tokens tokens = authService.login(email, "Pass123");
+
+        authService.logout(tokens.refreshToken());
+
+        assertThrows(UnauthorizedException.class, () -> authService.refresh(tokens.refreshToken()));
+    }
+}
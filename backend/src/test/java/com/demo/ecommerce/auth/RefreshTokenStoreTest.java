@@ -0,0 +1,88 @@
+package com.demo.ecommerce.auth;
+
+import com.demo.ecommerce.common.MutableClock;
+import com.demo.ecommerce.common.TimingWheel;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("Unit")
+public class RefreshTokenStoreTest {
+    private static final Duration TTL = Duration.ofHours(1);
+    private static final Duration TICK = Duration.ofSeconds(1);
+
+    @DisplayName("Issued tokens can be consumed once")
+    @Test
+    void consumeOnce() throws Exception {
+        RefreshTokenStore store = new RefreshTokenStore(new MutableClock(), TTL, TICK, null);
+        String token = store.issue(42);
+
+        assertEquals(OptionalLong.of(42), store.consume(token));
+        assertTrue(store.consume(token).isEmpty());
+        assertTrue(store.consume("unknown").isEmpty());
+    }
+
+    @DisplayName("Expired tokens are rejected and removed by the timing wheel")
+    @Test
+    void expire() throws Exception {
+        MutableClock clock = new MutableClock();
+        RefreshTokenStore store = new RefreshTokenStore(clock, TTL, TICK, null);
+        String expiring = store.issue(1);
+        clock.advance(Duration.ofMinutes(30));
+        String live = store.issue(2);
+
+        clock.advance(Duration.ofMinutes(31));
+        store.expire();
+
+        assertEquals(1, store.size());
+        assertTrue(store.consume(expiring).isEmpty());
+        assertEquals(OptionalLong.of(2), store.consume(live));
+    }
+
+    @DisplayName("Live tokens survive a snapshot and reload, expired ones are dropped")
+    @Test
+    void snapshot(@TempDir Path directory) throws Exception {
+        Path file = directory.resolve("refresh-tokens.snapshot");
+        MutableClock clock = new MutableClock();
+        RefreshTokenStore store = new RefreshTokenStore(clock, TTL, TICK, file);
+        String expiring = store.issue(1);
+        clock.advance(Duration.ofMinutes(30));
+        String live = store.issue(2);
+        store.snapshot();
+
+        clock.advance(Duration.ofMinutes(31));
+        RefreshTokenStore reloaded = new RefreshTokenStore(clock, TTL, TICK, file);
+
+        assertEquals(1, reloaded.size());
+        assertTrue(reloaded.consume(expiring).isEmpty());
+        assertEquals(OptionalLong.of(2), reloaded.consume(live));
+    }
+
+    @DisplayName("The timing wheel expires deadlines beyond one rotation in a later round")
+    @Test
+    void timingWheelRounds() {
+        TimingWheel<String> wheel = new TimingWheel<>(1000, 4, 0);
+        wheel.schedule("soon", 1500);
+        wheel.schedule("next-round", 5500);
+        List<String> expired = new ArrayList<>();
+
+        wheel.advance(2000, expired::add);
+        assertEquals(List.of("soon"), expired);
+
+        wheel.advance(5000, expired::add);
+        assertEquals(List.of("soon"), expired);
+
+        wheel.advance(60_000, expired::add);
+        assertEquals(List.of("soon", "next-round"), expired);
+        assertEquals(0, wheel.size());
+    }
+}
@@ -0,0 +1,158 @@
+package com.demo.ecommerce.carts;
+
+import com.demo.ecommerce.auth.AuthService;
+import com.demo.ecommerce.carts.dto.CartItemRequest;
+import com.demo.ecommerce.carts.dto.CartQuantityRequest;
+import com.demo.ecommerce.common.annotations.ImportTestContext;
+import com.demo.ecommerce.common.exceptions.BadRequestException;
+import com.demo.ecommerce.common.exceptions.ResourceNotFoundException;
+import com.demo.ecommerce.users.Role;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@Tag("Unit")
+@ImportTestContext(CartMapperImpl.class)
+@WebMvcTest(CartController.class)
+public class CartControllerTest {
+    private static final long USER_ID = 5;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockitoBean
+    private CartService cartService;
+
+    @Autowired
+    private JwtEncoder jwtEncoder;
+
+    private String bearer() {
+        JwtClaimsSet claims = JwtClaimsSet.builder().subject(String.valueOf(USER_ID)).claim(AuthService.ROLE_CLAIM, Role.CUSTOMER.name())
+                .expiresAt(Instant.now().plus(1, ChronoUnit.HOURS)).build();
+        return "Bearer " + jwtEncoder.encode(JwtEncoderParameters.from(JwsHeader.with(MacAlgorithm.HS256).build(), claims)).getTokenValue();
+    }
+
+    @DisplayName("Get the cart of the authenticated user with its totals")
+    @Test
+    void getCart() throws Exception {
+        when(cartService.get(USER_ID)).thenReturn(List.of(new CartLine(1, 2), new CartLine(3, 4)));
+
+        mockMvc.perform(get("/api/cart").header(HttpHeaders.AUTHORIZATION, bearer()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(2))
+                .andExpect(jsonPath("$.items[1].productId").value(3))
+                .andExpect(jsonPath("$.items[1].quantity").value(4))
+                .andExpect(jsonPath("$.lines").value(2))
+                .andExpect(jsonPath("$.quantity").value(6));
+    }
+
+    @DisplayName("The cart requires authentication")
+    @Test
+    void unauthenticated() throws Exception {
+        mockMvc.perform(get("/api/cart")).andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/api/cart/total")).andExpect(status().isUnauthorized());
+        verifyNoInteractions(cartService);
+    }
+
+    @DisplayName("Add a product, one unit by default")
+    @Test
+    void addItem() throws Exception {
+        when(cartService.add(USER_ID, 7, 1)).thenReturn(List.of(new CartLine(7, 1)));
+
+        mockMvc.perform(post("/api/cart/items").header(HttpHeaders.AUTHORIZATION, bearer())
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"productId\":7}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].productId").value(7))
+                .andExpect(jsonPath("$.quantity").value(1));
+    }
+
+    @DisplayName("Adding an invalid quantity is a bad request")
+    @Test
+    void addInvalid() throws Exception {
+        mockMvc.perform(post("/api/cart/items").header(HttpHeaders.AUTHORIZATION, bearer())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(CartItemRequest.builder().productId(7).quantity(0).build())))
+                .andExpect(status().isBadRequest());
+        verify(cartService, never()).add(anyLong(), anyLong(), anyInt());
+    }
+
+    @DisplayName("Adding an unknown product is not found, exceeding a limit is a bad request")
+    @Test
+    void addRejected() throws Exception {
+        when(cartService.add(USER_ID, 7, 1)).thenThrow(new ResourceNotFoundException());
+        when(cartService.add(USER_ID, 8, 1)).thenThrow(new BadRequestException());
+
+        mockMvc.perform(post("/api/cart/items").header(HttpHeaders.AUTHORIZATION, bearer())
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"productId\":7}"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(post("/api/cart/items").header(HttpHeaders.AUTHORIZATION, bearer())
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"productId\":8}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @DisplayName("Set the quantity of a product")
+    @Test
+    void setQuantity() throws Exception {
+        when(cartService.setQuantity(USER_ID, 7, 3)).thenReturn(List.of(new CartLine(7, 3)));
+
+        mockMvc.perform(put("/api/cart/items/7").header(HttpHeaders.AUTHORIZATION, bearer())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(CartQuantityRequest.builder().quantity(3).build())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].quantity").value(3));
+    }
+
+    @DisplayName("Remove a product and empty the cart")
+    @Test
+    void removeAndClear() throws Exception {
+        when(cartService.remove(USER_ID, 7)).thenReturn(List.of());
+
+        mockMvc.perform(delete("/api/cart/items/7").header(HttpHeaders.AUTHORIZATION, bearer()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.lines").value(0));
+        mockMvc.perform(delete("/api/cart").header(HttpHeaders.AUTHORIZATION, bearer()))
+                .andExpect(status().isNoContent());
+        verify(cartService).clear(USER_ID);
+    }
+
+    @DisplayName("Get the totals of the cart")
+    @Test
+    void getTotal() throws Exception {
+        when(cartService.totals(USER_ID)).thenReturn(new CartTotals(2, 9, "EUR", 4498, 0, 945, 5443));
+
+        mockMvc.perform(get("/api/cart/total").header(HttpHeaders.AUTHORIZATION, bearer()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.lines").value(2))
+                .andExpect(jsonPath("$.quantity").value(9))
+                .andExpect(jsonPath("$.currency").value("EUR"))
+                .andExpect(jsonPath("$.subtotal").value(4498))
+                .andExpect(jsonPath("$.tax").value(945))
+                .andExpect(jsonPath("$.total").value(5443));
+    }
+}
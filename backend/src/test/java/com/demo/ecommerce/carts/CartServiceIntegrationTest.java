@@ -0,0 +1,170 @@
+package com.demo.ecommerce.carts;
+
+import com.demo.ecommerce.common.TestUsers;
+import com.demo.ecommerce.common.exceptions.BadRequestException;
+import com.demo.ecommerce.common.exceptions.ResourceNotFoundException;
+import com.demo.ecommerce.products.Product;
+import com.demo.ecommerce.products.ProductRepository;
+import com.demo.ecommerce.products.ProductService;
+import com.demo.ecommerce.users.User;
+import com.demo.ecommerce.users.UserRepository;
+import com.demo.ecommerce.users.UserService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("Integration")
+// Flushed by the tests only, so they can observe the database before and after
+@SpringBootTest(properties = {"carts.max-lines=2", "carts.max-quantity=5", "carts.flush-interval=1h"})
+public class CartServiceIntegrationTest {
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private CartStore cartStore;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User user() {
+        return userRepository.save(TestUsers.customer().build());
+    }
+
+    private Product product(User owner, boolean active) {
+        return productRepository.save(Product.builder().name("Test Product").user(owner).active(active).build());
+    }
+
+    private List<Map<String, Object>> rows(long userId) {
+        return jdbcTemplate.queryForList("select product_id, quantity from cart_items where user_id = ? order by product_id", userId);
+    }
+
+    @DisplayName("Add, change and remove products, quantities accumulate")
+    @Test
+    void addSetRemove() {
+        User user = user();
+        Product first = product(user, true);
+        Product second = product(user, true);
+
+        cartService.add(user.getId(), second.getId(), 1);
+        cartService.add(user.getId(), first.getId(), 2);
+        assertEquals(List.of(new CartLine(first.getId(), 2), new CartLine(second.getId(), 3)), cartService.add(user.getId(), second.getId(), 2));
+        assertEquals(new CartTotals(2, 5, "EUR", 0, 0, 0, 0), cartService.totals(user.getId()));
+
+        assertEquals(List.of(new CartLine(first.getId(), 4), new CartLine(second.getId(), 3)), cartService.setQuantity(user.getId(), first.getId(), 4));
+        assertEquals(List.of(new CartLine(second.getId(), 3)), cartService.setQuantity(user.getId(), first.getId(), 0));
+        assertEquals(List.of(), cartService.remove(user.getId(), second.getId()));
+        assertEquals(List.of(), cartService.remove(user.getId(), second.getId()));
+    }
+
+    @DisplayName("Totals price the cart at current prices, leaving out products no longer available")
+    @Test
+    void totals() {
+        User user = user();
+        Product first = productRepository.save(Product.builder().name("Priced Product").price(1999).user(user).build());
+        Product second = productRepository.save(Product.builder().name("Priced Product").price(500).user(user).build());
+        cartService.add(user.getId(), first.getId(), 2);
+        cartService.add(user.getId(), second.getId(), 1);
+
+        // 39.98 + 5.00, taxed at 21% per line: 8.40 (8.3958) + 1.05
+        assertEquals(new CartTotals(2, 3, "EUR", 4498, 0, 945, 5443), cartService.totals(user.getId()));
+
+        productService.deactivateAllById(List.of(second.getId()));
+        assertEquals(new CartTotals(2, 3, "EUR", 3998, 0, 840, 4838), cartService.totals(user.getId()));
+    }
+
+    @DisplayName("Only active products can be added, within the limits")
+    @Test
+    void validation() {
+        User user = user();
+        Product inactive = product(user, false);
+        Product first = product(user, true);
+        Product second = product(user, true);
+        Product third = product(user, true);
+
+        assertThrows(ResourceNotFoundException.class, () -> cartService.add(user.getId(), Long.MAX_VALUE, 1));
+        assertThrows(ResourceNotFoundException.class, () -> cartService.add(user.getId(), inactive.getId(), 1));
+        assertThrows(ResourceNotFoundException.class, () -> cartService.setQuantity(user.getId(), inactive.getId(), 1));
+
+        cartService.add(user.getId(), first.getId(), 5);
+        assertThrows(BadRequestException.class, () -> cartService.add(user.getId(), first.getId(), 1));
+        assertThrows(BadRequestException.class, () -> cartService.setQuantity(user.getId(), first.getId(), 6));
+        cartService.add(user.getId(), second.getId(), 1);
+        assertThrows(BadRequestException.class, () -> cartService.add(user.getId(), third.getId(), 1));
+
+        assertEquals(List.of(new CartLine(first.getId(), 5), new CartLine(second.getId(), 1)), cartService.get(user.getId()));
+    }
+
+    @DisplayName("Changes reach the database on flush, not before")
+    @Test
+    void flush() {
+        User user = user();
+        Product first = product(user, true);
+        Product second = product(user, true);
+
+        cartStore.flush();
+        cartService.add(user.getId(), first.getId(), 2);
+        cartService.add(user.getId(), second.getId(), 1);
+        assertTrue(rows(user.getId()).isEmpty());
+
+        cartStore.flush();
+        assertEquals(List.of(Map.of("PRODUCT_ID", first.getId(), "QUANTITY", 2), Map.of("PRODUCT_ID", second.getId(), "QUANTITY", 1)), rows(user.getId()));
+
+        cartService.remove(user.getId(), first.getId());
+        cartStore.flush();
+        assertEquals(List.of(Map.of("PRODUCT_ID", second.getId(), "QUANTITY", 1)), rows(user.getId()));
+
+        cartService.clear(user.getId());
+        cartStore.flush();
+        assertTrue(rows(user.getId()).isEmpty());
+        assertEquals(0, cartStore.pending());
+    }
+
+    @DisplayName("A cart not in memory is loaded from the database")
+    @Test
+    void load() {
+        User user = user();
+        Product product = product(user, true);
+        jdbcTemplate.update("insert into cart_items (user_id, product_id, quantity) values (?, ?, ?)", user.getId(), product.getId(), 3);
+
+        assertEquals(List.of(new CartLine(product.getId(), 3)), cartService.get(user.getId()));
+        assertEquals(List.of(new CartLine(product.getId(), 4)), cartService.add(user.getId(), product.getId(), 1));
+    }
+
+    @DisplayName("The cart of a deleted user is discarded instead of failing every flush")
+    @Test
+    void deletedUser() {
+        User owner = user();
+        Product product = product(owner, true);
+        User user = user();
+        User other = user();
+
+        cartService.add(user.getId(), product.getId(), 1);
+        cartService.add(other.getId(), product.getId(), 2);
+        userService.deleteById(user.getId());
+        cartStore.flush();
+
+        assertEquals(0, cartStore.pending());
+        assertEquals(List.of(Map.of("PRODUCT_ID", product.getId(), "QUANTITY", 2)), rows(other.getId()));
+        assertTrue(rows(user.getId()).isEmpty());
+    }
+}
@@ -0,0 +1,81 @@
+package com.demo.ecommerce.carts;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("Unit")
+public class LongIntMapTest {
+    @DisplayName("Put, get and remove single entries")
+    @Test
+    void putGetRemove() {
+        LongIntMap map = new LongIntMap();
+        assertEquals(0, map.put(7, 3));
+        assertEquals(3, map.put(7, 5));
+        assertEquals(5, map.get(7));
+        assertEquals(0, map.get(8));
+        assertEquals(1, map.size());
+        assertEquals(5, map.remove(7));
+        assertEquals(0, map.remove(7));
+        assertEquals(0, map.size());
+        assertThrows(IllegalArgumentException.class, () -> map.put(0, 1));
+    }
+
+    @DisplayName("Random operations match a HashMap, across resizes and removals")
+    @Test
+    void matchesHashMap() {
+        LongIntMap map = new LongIntMap();
+        Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            // A small key range makes collisions, overwrites and removals of present keys frequent
+            long key = 1 + random.nextInt(2_000);
+            if (random.nextInt(3) == 0) {
+                Integer previous = expected.remove(key);
+                assertEquals(previous == null ? 0 : previous, map.remove(key));
+            } else {
+                int value = 1 + random.nextInt(99);
+                Integer previous = expected.put(key, value);
+                assertEquals(previous == null ? 0 : previous, map.put(key, value));
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        for (long key = 1; key <= 2_000; key++) assertEquals(expected.getOrDefault(key, 0), map.get(key));
+        assertEquals(expected.values().stream().mapToLong(Integer::longValue).sum(), map.sumValues());
+    }
+
+    @DisplayName("Entries are copied in key order")
+    @Test
+    void copyTo() {
+        LongIntMap map = new LongIntMap(4);
+        TreeMap<Long, Integer> expected = new TreeMap<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 50; i++) {
+            long key = 1 + random.nextLong(Long.MAX_VALUE - 1);
+            map.put(key, i + 1);
+            expected.put(key, i + 1);
+        }
+
+        long[] keys = new long[map.size()];
+        int[] values = new int[map.size()];
+        map.copyTo(keys, values);
+        int i = 0;
+        for (Map.Entry<Long, Integer> entry : expected.entrySet()) {
+            assertEquals(entry.getKey(), keys[i]);
+            assertEquals(entry.getValue(), values[i]);
+            i++;
+        }
+
+        map.clear();
+        assertEquals(0, map.size());
+        assertEquals(0, map.sumValues());
+    }
+}
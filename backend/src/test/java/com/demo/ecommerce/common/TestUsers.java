@@ -0,0 +1,23 @@
+package com.demo.ecommerce.common;
+
+import com.demo.ecommerce.users.Role;
+import com.demo.ecommerce.users.User;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Builds users for tests that save them. Emails are unique in the schema, so every user gets an email of its own.
+ */
+public final class TestUsers {
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    private TestUsers() {
+    }
+
+    /**
+     * @return a builder for a customer named "Test User" with a fresh email
+     */
+    public static User.UserBuilder customer() {
+        return User.builder().name("Test User").email("test" + SEQUENCE.incrementAndGet() + "@outlook.com").role(Role.CUSTOMER).password("1234");
+    }
+}
@@ -1,6 +1,7 @@
 package com.demo.ecommerce.common.annotations;
 
 import com.demo.ecommerce.SecurityConfig;
+import com.demo.ecommerce.ratelimit.RateLimiter;
 import io.micrometer.common.lang.NonNullApi;
 import jakarta.validation.constraints.NotNull;
 import org.springframework.context.annotation.Import;
@@ -32,6 +33,7 @@ class ImportTestContextSelector implements ImportSelector {
         // Add required classes for testing
         // TODO: Look into automatic discovery to avoid hardcoding this
         imports.add(SecurityConfig.class.getName());
+        imports.add(RateLimiter.class.getName());
 
         // Read user-specified classes
         Map<String, Object> attributes = importingClassMetadata
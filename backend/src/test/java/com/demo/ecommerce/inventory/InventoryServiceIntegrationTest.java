@@ -0,0 +1,84 @@
+package com.demo.ecommerce.inventory;
+
+import com.demo.ecommerce.common.TestUsers;
+import com.demo.ecommerce.common.exceptions.ConflictException;
+import com.demo.ecommerce.common.exceptions.ResourceNotFoundException;
+import com.demo.ecommerce.products.Product;
+import com.demo.ecommerce.products.ProductRepository;
+import com.demo.ecommerce.users.User;
+import com.demo.ecommerce.users.UserRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("Integration")
+// Flushed by the tests only, so they can observe the database before and after
+@SpringBootTest(properties = "inventory.flush-interval=1h")
+public class InventoryServiceIntegrationTest {
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Product product() {
+        User user = userRepository.save(TestUsers.customer().build());
+        return productRepository.save(Product.builder().name("Test Product").user(user).build());
+    }
+
+    private List<Long> onHand(long productId) {
+        return jdbcTemplate.queryForList("select on_hand from inventory where product_id = ?", Long.class, productId);
+    }
+
+    @DisplayName("Adjustments and commits reach the database on flush")
+    @Test
+    void flush() {
+        Product product = product();
+
+        assertEquals(new StockLevel(product.getId(), 10, 10), inventoryService.adjust(product.getId(), 10));
+        assertTrue(onHand(product.getId()).isEmpty());
+        inventoryService.flush();
+        assertEquals(List.of(10L), onHand(product.getId()));
+
+        assertTrue(inventoryService.commit(inventoryService.reserve(List.of(new StockLine(product.getId(), 4)))));
+        inventoryService.release(inventoryService.reserve(List.of(new StockLine(product.getId(), 1))));
+        inventoryService.flush();
+        assertEquals(List.of(6L), onHand(product.getId()));
+    }
+
+    @DisplayName("Stock not in memory is loaded from the database, for existing products only")
+    @Test
+    void load() {
+        Product product = product();
+        jdbcTemplate.update("insert into inventory (product_id, on_hand) values (?, ?)", product.getId(), 3);
+
+        assertEquals(new StockLevel(product.getId(), 3, 3), inventoryService.findLevel(product.getId()));
+        assertThrows(ConflictException.class, () -> inventoryService.reserve(List.of(new StockLine(product.getId(), 4))));
+        assertThrows(ResourceNotFoundException.class, () -> inventoryService.findLevel(Long.MAX_VALUE));
+    }
+
+    @DisplayName("Only existing products can be adjusted, and not below the available units")
+    @Test
+    void adjustInvalid() {
+        Product product = product();
+
+        assertThrows(ResourceNotFoundException.class, () -> inventoryService.adjust(Long.MAX_VALUE, 1));
+        inventoryService.adjust(product.getId(), 2);
+        inventoryService.reserve(List.of(new StockLine(product.getId(), 1)));
+        assertThrows(ConflictException.class, () -> inventoryService.adjust(product.getId(), -2));
+        assertEquals(new StockLevel(product.getId(), 1, 0), inventoryService.adjust(product.getId(), -1));
+    }
+}
@@ -0,0 +1,210 @@
+package com.demo.ecommerce.inventory;
+
+import com.demo.ecommerce.common.MutableClock;
+import com.demo.ecommerce.common.exceptions.BadRequestException;
+import com.demo.ecommerce.common.exceptions.ConflictException;
+import com.demo.ecommerce.common.exceptions.ResourceNotFoundException;
+import com.demo.ecommerce.products.ProductService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@Tag("Unit")
+public class InventoryServiceTest {
+    private static final Duration TTL = Duration.ofMinutes(15);
+    private static final int THREADS = 64;
+
+    private final MutableClock clock = new MutableClock();
+
+    private InventoryRepository repository;
+
+    private InventoryService inventory(long... onHand) {
+        repository = mock(InventoryRepository.class);
+        ProductService productService = mock(ProductService.class);
+        when(productService.findVersion(anyLong(), any())).thenReturn(Optional.empty());
+        for (int i = 0; i < onHand.length; i++) {
+            when(repository.findOnHand(i + 1)).thenReturn(onHand[i]);
+            when(productService.findVersion(eq(i + 1L), any())).thenReturn(Optional.of(0));
+        }
+        return new InventoryService(repository, null, productService, clock, TTL, Duration.ofSeconds(1), 8, 500);
+    }
+
+    @DisplayName("A reservation takes all of its units or none")
+    @Test
+    void reserveAllOrNothing() {
+        InventoryService inventory = inventory(5, 2);
+
+        long id = inventory.reserve(List.of(new StockLine(1, 2), new StockLine(2, 1), new StockLine(1, 1)));
+        assertEquals(new StockLevel(1, 5, 2), inventory.findLevel(1));
+        assertEquals(new StockLevel(2, 2, 1), inventory.findLevel(2));
+
+        assertThrows(ConflictException.class, () -> inventory.reserve(List.of(new StockLine(1, 1), new StockLine(2, 2))));
+        assertEquals(new StockLevel(1, 5, 2), inventory.findLevel(1));
+        assertThrows(BadRequestException.class, () -> inventory.reserve(List.of(new StockLine(1, 0))));
+
+        assertTrue(inventory.release(id));
+        assertFalse(inventory.release(id));
+        assertEquals(new StockLevel(1, 5, 5), inventory.findLevel(1));
+    }
+
+    @DisplayName("Products that do not exist have no stock and are never loaded")
+    @Test
+    void unknownProduct() {
+        InventoryService inventory = inventory(5);
+
+        assertThrows(ResourceNotFoundException.class, () -> inventory.findLevel(2));
+        assertThrows(ConflictException.class, () -> inventory.reserve(List.of(new StockLine(1, 1), new StockLine(2, 1))));
+        assertEquals(new StockLevel(1, 5, 5), inventory.findLevel(1));
+        verify(repository, never()).findOnHand(2);
+    }
+
+    @DisplayName("Committing removes the units from the stock on hand, once")
+    @Test
+    void commit() {
+        InventoryService inventory = inventory(5);
+
+        long id = inventory.reserve(List.of(new StockLine(1, 3)));
+        assertTrue(inventory.commit(id));
+        assertFalse(inventory.commit(id));
+        assertFalse(inventory.release(id));
+        assertEquals(new StockLevel(1, 2, 2), inventory.findLevel(1));
+    }
+
+    @DisplayName("Reservations expire after their TTL and can no longer be committed")
+    @Test
+    void expire() {
+        InventoryService inventory = inventory(5);
+
+        long expired = inventory.reserve(List.of(new StockLine(1, 2)));
+        long swept = inventory.reserve(List.of(new StockLine(1, 3)));
+        clock.advance(TTL.plusSeconds(1));
+
+        assertFalse(inventory.commit(expired));
+        assertEquals(2, inventory.findLevel(1).available());
+        inventory.expire();
+        assertFalse(inventory.commit(swept));
+        assertEquals(new StockLevel(1, 5, 5), inventory.findLevel(1));
+        assertEquals(0, inventory.activeReservations());
+    }
+
+    @DisplayName("Selling without a reservation takes the units still available and reports a short sale")
+    @Test
+    void sell() {
+        InventoryService inventory = inventory(5, 5);
+        long reserved = inventory.reserve(List.of(new StockLine(2, 4)));
+
+        assertTrue(inventory.sell(List.of(new StockLine(1, 2))));
+        assertEquals(new StockLevel(1, 3, 3), inventory.findLevel(1));
+        assertFalse(inventory.sell(List.of(new StockLine(2, 3))));
+        assertEquals(new StockLevel(2, 4, 0), inventory.findLevel(2));
+        assertTrue(inventory.commit(reserved));
+        assertEquals(new StockLevel(2, 0, 0), inventory.findLevel(2));
+    }
+
+    @DisplayName("Concurrent single unit reservations of a hot product sell exactly its stock")
+    @Test
+    void noOversellingOfHotProduct() throws Exception {
+        final int STOCK = 1_000;
+        InventoryService inventory = inventory(STOCK);
+        AtomicLong sold = new AtomicLong();
+
+        runConcurrently(() -> {
+            while (true) {
+                try {
+                    inventory.commit(inventory.reserve(List.of(new StockLine(1, 1))));
+                    sold.incrementAndGet();
+                } catch (ConflictException e) {
+                    return;
+                }
+            }
+        });
+
+        assertEquals(STOCK, sold.get());
+        assertEquals(new StockLevel(1, 0, 0), inventory.findLevel(1));
+    }
+
+    @DisplayName("Concurrent reservations that the stock covers all succeed, however its units are spread")
+    @Test
+    void noFalseConflicts() throws Exception {
+        final int UNITS = 5;
+        InventoryService inventory = inventory(THREADS * UNITS);
+
+        // Uneven amounts move units between stripes, so takes keep having to gather from several of them
+        runConcurrently(() -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < 5_000; i++) {
+                assertTrue(inventory.release(inventory.reserve(List.of(new StockLine(1, 1 + random.nextInt(UNITS))))));
+            }
+        });
+
+        assertEquals(new StockLevel(1, THREADS * UNITS, THREADS * UNITS), inventory.findLevel(1));
+    }
+
+    @DisplayName("Concurrent mixed reservations, commits and releases never oversell and lose no units")
+    @Test
+    void noOversellingUnderMixedLoad() throws Exception {
+        final long[] STOCK = {500, 100, 20};
+        InventoryService inventory = inventory(STOCK);
+        AtomicLong[] sold = {new AtomicLong(), new AtomicLong(), new AtomicLong()};
+
+        runConcurrently(() -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < 2_000; i++) {
+                List<StockLine> lines = new ArrayList<>();
+                for (int product = 1; product <= 3; product++) {
+                    if (random.nextBoolean()) lines.add(new StockLine(product, 1 + random.nextInt(3)));
+                }
+                if (lines.isEmpty()) continue;
+                long id;
+                try {
+                    id = inventory.reserve(lines);
+                } catch (ConflictException e) {
+                    continue;
+                }
+                if (random.nextInt(4) == 0) {
+                    assertTrue(inventory.release(id));
+                } else {
+                    assertTrue(inventory.commit(id));
+                    for (StockLine line : lines) sold[(int) line.productId() - 1].addAndGet(line.quantity());
+                }
+            }
+        });
+
+        for (int product = 1; product <= 3; product++) {
+            long remaining = STOCK[product - 1] - sold[product - 1].get();
+            assertTrue(remaining >= 0, "Product " + product + " oversold");
+            assertEquals(new StockLevel(product, remaining, remaining), inventory.findLevel(product));
+        }
+        assertEquals(0, inventory.activeReservations());
+    }
+
+    private static void runConcurrently(Runnable task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CyclicBarrier start = new CyclicBarrier(THREADS);
+            List<Future<?>> results = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    task.run();
+                    return null;
+                }));
+            }
+            for (Future<?> result : results) result.get(1, TimeUnit.MINUTES);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.demo.ecommerce.invoices;
+
+import com.demo.ecommerce.auth.AuthService;
+import com.demo.ecommerce.common.annotations.ImportTestContext;
+import com.demo.ecommerce.common.exceptions.TooManyRequestsException;
+import com.demo.ecommerce.users.Role;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@Tag("Unit")
+@ImportTestContext({})
+@WebMvcTest(InvoiceController.class)
+public class InvoiceControllerTest {
+    private static final long USER_ID = 5;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private InvoiceService invoiceService;
+
+    @Autowired
+    private JwtEncoder jwtEncoder;
+
+    @TempDir
+    private Path directory;
+
+    private String bearer() {
+        JwtClaimsSet claims = JwtClaimsSet.builder().subject(String.valueOf(USER_ID)).claim(AuthService.ROLE_CLAIM, Role.CUSTOMER.name())
+                .expiresAt(Instant.now().plus(1, ChronoUnit.HOURS)).build();
+        return "Bearer " + jwtEncoder.encode(JwtEncoderParameters.from(JwsHeader.with(MacAlgorithm.HS256).build(), claims)).getTokenValue();
+    }
+
+    @DisplayName("Get the invoice of an order of the authenticated user")
+    @Test
+    void getInvoice() throws Exception {
+        byte[] pdf = "%PDF-1.4 invoice".getBytes();
+        Path file = Files.write(directory.resolve("invoice-12-v0.pdf"), pdf);
+        when(invoiceService.findInvoice(12, USER_ID)).thenReturn(Optional.of(file));
+
+        mockMvc.perform(get("/api/orders/12/invoice").header(HttpHeaders.AUTHORIZATION, bearer()))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_PDF))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, pdf.length))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"invoice-12.pdf\""))
+                .andExpect(content().bytes(pdf));
+    }
+
+    @DisplayName("Connectors with sendfile get the file instead of the bytes")
+    @Test
+    void sendfile() throws Exception {
+        Path file = Files.write(directory.resolve("invoice-12-v0.pdf"), "%PDF-1.4 invoice".getBytes());
+        when(invoiceService.findInvoice(12, USER_ID)).thenReturn(Optional.of(file));
+
+        mockMvc.perform(get("/api/orders/12/invoice").header(HttpHeaders.AUTHORIZATION, bearer())
+                        .requestAttr("org.apache.tomcat.sendfile.support", true))
+                .andExpect(status().isOk())
+                .andExpect(request().attribute("org.apache.tomcat.sendfile.filename", file.toAbsolutePath().toString()))
+                .andExpect(request().attribute("org.apache.tomcat.sendfile.end", 16L))
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    @DisplayName("Invoices require authentication, unknown orders are not found, a full pool is 429")
+    @Test
+    void getInvoiceRejected() throws Exception {
+        mockMvc.perform(get("/api/orders/12/invoice")).andExpect(status().isUnauthorized());
+        verify(invoiceService, never()).findInvoice(anyLong(), anyLong());
+
+        when(invoiceService.findInvoice(12, USER_ID)).thenReturn(Optional.empty());
+        mockMvc.perform(get("/api/orders/12/invoice").header(HttpHeaders.AUTHORIZATION, bearer()))
+                .andExpect(status().isNotFound());
+
+        when(invoiceService.findInvoice(12, USER_ID)).thenThrow(new TooManyRequestsException("Too many invoices being rendered, retry later"));
+        mockMvc.perform(get("/api/orders/12/invoice").header(HttpHeaders.AUTHORIZATION, bearer()))
+                .andExpect(status().isTooManyRequests());
+    }
+}
@@ -0,0 +1,75 @@
+package com.demo.ecommerce.invoices;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("Unit")
+public class InvoiceRendererTest {
+
+    private static String render(int lines) throws IOException {
+        InvoiceData invoice = new InvoiceData(7, 0, Instant.parse("2025-01-02T10:15:00Z"), "Test (User)", "test@outlook.com",
+                LongStream.rangeClosed(1, lines).mapToObj(id -> new InvoiceData.Line(id, id % 2 == 0 ? "Product \\" + id : null, 2, 1050)).toList(),
+                "EUR", 2100L * lines, 100, 441L * lines - 21, 2541L * lines - 121);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        InvoiceRenderer.render(invoice, out);
+        // PDF syntax is ASCII apart from the binary comment, which Latin-1 keeps at the same offsets
+        return out.toString(StandardCharsets.ISO_8859_1);
+    }
+
+    @DisplayName("The cross-reference table points at every object")
+    @Test
+    void crossReference() throws IOException {
+        String pdf = render(3);
+
+        assertTrue(pdf.startsWith("%PDF-1.4"));
+        assertTrue(pdf.endsWith("%%EOF\n"));
+        Matcher startxref = Pattern.compile("startxref\n(\\d+)\n%%EOF\n$").matcher(pdf);
+        assertTrue(startxref.find());
+        int xref = Integer.parseInt(startxref.group(1));
+        assertTrue(pdf.startsWith("xref\n", xref));
+
+        Matcher header = Pattern.compile("0 (\\d+)\n").matcher(pdf);
+        assertTrue(header.find(xref));
+        int objects = Integer.parseInt(header.group(1));
+        List<String> entries = pdf.substring(header.end()).lines().limit(objects).toList();
+        assertEquals("0000000000 65535 f ", entries.getFirst());
+        for (int object = 1; object < objects; object++) {
+            int offset = Integer.parseInt(entries.get(object).substring(0, 10));
+            assertTrue(pdf.startsWith(object + " 0 obj", offset), "object " + object);
+        }
+        assertTrue(pdf.contains("/Size " + objects));
+    }
+
+    @DisplayName("Long invoices continue on further pages, text is escaped")
+    @Test
+    void pagination() throws IOException {
+        String single = render(3);
+        String multiple = render(120);
+
+        assertTrue(single.contains("/Count 1"));
+        assertTrue(multiple.contains("/Count 4"));
+        assertTrue(multiple.contains("(Invoice for order 7, page 4)"));
+        assertTrue(multiple.contains("(10.50 EUR)"));
+        assertTrue(multiple.contains("(21.00 EUR)"));
+        assertTrue(multiple.contains("(Subtotal)"));
+        assertTrue(multiple.contains("(2520.00 EUR)"));
+        assertTrue(multiple.contains("(-1.00 EUR)"));
+        assertTrue(multiple.contains("(Total)"));
+        assertTrue(multiple.contains("(3047.99 EUR)"));
+        assertTrue(single.contains("(Test \\(User\\))"));
+        assertTrue(single.contains("(Product \\\\2)"));
+        assertTrue(single.contains("(Product 1)"));
+    }
+}
@@ -0,0 +1,147 @@
+package com.demo.ecommerce.invoices;
+
+import com.demo.ecommerce.carts.CartService;
+import com.demo.ecommerce.common.TestUsers;
+import com.demo.ecommerce.inventory.InventoryService;
+import com.demo.ecommerce.orders.CheckoutService;
+import com.demo.ecommerce.orders.Order;
+import com.demo.ecommerce.orders.OrderRepository;
+import com.demo.ecommerce.products.Product;
+import com.demo.ecommerce.products.ProductRepository;
+import com.demo.ecommerce.users.User;
+import com.demo.ecommerce.users.UserRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.doReturn;
+
+@Tag("Integration")
+@SpringBootTest
+public class InvoiceServiceIntegrationTest {
+    @Autowired
+    private InvoiceService invoiceService;
+
+    @Autowired
+    private CheckoutService checkoutService;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @MockitoSpyBean
+    private OrderRepository orderRepository;
+
+    private User user() {
+        return userRepository.save(TestUsers.customer().name("Invoice User").build());
+    }
+
+    private Order order(User user) {
+        Product product = productRepository.save(Product.builder().name("Invoiced Product").price(1000).user(user).build());
+        inventoryService.adjust(product.getId(), 10);
+        cartService.add(user.getId(), product.getId(), 3);
+        return checkoutService.checkout(user.getId());
+    }
+
+    @DisplayName("An invoice is rendered once per order version and only for the owner")
+    @Test
+    void cached() throws IOException {
+        User user = user();
+        Order order = order(user);
+
+        Path file = invoiceService.findInvoice(order.getId(), user.getId()).orElseThrow();
+        String pdf = Files.readString(file, StandardCharsets.ISO_8859_1);
+        assertTrue(pdf.startsWith("%PDF-1.4"));
+        assertTrue(pdf.contains("(Invoiced Product)"));
+        assertTrue(pdf.contains("(" + user.getEmail() + ")"));
+
+        Files.writeString(file, "cached");
+        assertEquals(Optional.of(file), invoiceService.findInvoice(order.getId(), user.getId()));
+        assertEquals("cached", Files.readString(file));
+
+        assertEquals(Optional.empty(), invoiceService.findInvoice(order.getId(), user().getId()));
+        assertEquals(Optional.empty(), invoiceService.findInvoice(Long.MAX_VALUE, user.getId()));
+    }
+
+    @DisplayName("A new order version gets a new invoice, the previous one is kept until it is replaced too")
+    @Test
+    void newVersion() throws IOException {
+        User user = user();
+        Order order = order(user);
+        Path first = invoiceService.findInvoice(order.getId(), user.getId()).orElseThrow();
+
+        changeQuantity(order, user, 4);
+        Path second = invoiceService.findInvoice(order.getId(), user.getId()).orElseThrow();
+        assertNotEquals(first, second);
+        assertTrue(Files.exists(second));
+        // A request handed the first invoice just before can still send it
+        assertTrue(Files.exists(first));
+
+        changeQuantity(order, user, 5);
+        Path third = invoiceService.findInvoice(order.getId(), user.getId()).orElseThrow();
+        assertTrue(Files.exists(third));
+        assertTrue(Files.exists(second));
+        assertFalse(Files.exists(first));
+    }
+
+    @DisplayName("An order changed after its version is checked gets an invoice named after the version rendered")
+    @Test
+    void changedAfterCheck() throws IOException {
+        User user = user();
+        Order order = order(user);
+        int checked = orderRepository.findVersion(order.getId(), user.getId()).orElseThrow();
+        changeQuantity(order, user, 4);
+        int rendered = orderRepository.findVersion(order.getId(), user.getId()).orElseThrow();
+        // The version is checked before the change, the order is loaded after it
+        doReturn(Optional.of(checked)).when(orderRepository).findVersion(order.getId(), user.getId());
+
+        Path file = invoiceService.findInvoice(order.getId(), user.getId()).orElseThrow();
+
+        assertEquals("invoice-%d-v%d.pdf".formatted(order.getId(), rendered), file.getFileName().toString());
+        assertFalse(Files.exists(file.resolveSibling("invoice-%d-v%d.pdf".formatted(order.getId(), checked))));
+    }
+
+    private void changeQuantity(Order order, User user, int quantity) {
+        Order stored = orderRepository.findByIdAndUserId(order.getId(), user.getId()).orElseThrow();
+        stored.getLines().getFirst().setQuantity(quantity);
+        orderRepository.save(stored);
+    }
+
+    @DisplayName("Concurrent requests for the same invoice share the file")
+    @Test
+    void concurrent() throws Exception {
+        User user = user();
+        Order order = order(user);
+
+        List<Future<Optional<Path>>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            for (int i = 0; i < 8; i++) results.add(executor.submit(() -> invoiceService.findInvoice(order.getId(), user.getId())));
+        }
+        Path file = results.getFirst().get().orElseThrow();
+        for (Future<Optional<Path>> result : results) assertEquals(Optional.of(file), result.get());
+        assertTrue(Files.readString(file, StandardCharsets.ISO_8859_1).endsWith("%%EOF\n"));
+    }
+}
@@ -0,0 +1,30 @@
+package com.demo.ecommerce.mail;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("Unit")
+public class FileMailSenderTest {
+    @DisplayName("Emails are written as message files, a resent message replaces its copy")
+    @Test
+    void send(@TempDir Path directory) throws Exception {
+        FileMailSender sender = new FileMailSender(directory.resolve("mail"));
+
+        sender.send(new Mail("outbox-1@ecommerce", "test@outlook.com", "Welcome", "Hello\nthere"));
+        sender.send(new Mail("outbox-1@ecommerce", "test@outlook.com", "Welcome", "Hello\nagain"));
+
+        try (var files = Files.list(directory.resolve("mail"))) {
+            assertEquals(1, files.count());
+        }
+        String message = Files.readString(sender.file("outbox-1@ecommerce"));
+        assertTrue(message.startsWith("Message-ID: <outbox-1@ecommerce>\r\nTo: test@outlook.com\r\nSubject: Welcome\r\n"));
+        assertTrue(message.endsWith("\r\n\r\nHello\r\nagain"));
+    }
+}
@@ -0,0 +1,213 @@
+package com.demo.ecommerce.orders;
+
+import com.demo.ecommerce.carts.CartLine;
+import com.demo.ecommerce.carts.CartService;
+import com.demo.ecommerce.common.TestUsers;
+import com.demo.ecommerce.common.exceptions.BadRequestException;
+import com.demo.ecommerce.common.exceptions.ConflictException;
+import com.demo.ecommerce.inventory.InventoryService;
+import com.demo.ecommerce.inventory.StockLevel;
+import com.demo.ecommerce.products.Product;
+import com.demo.ecommerce.products.ProductRepository;
+import com.demo.ecommerce.users.User;
+import com.demo.ecommerce.users.UserRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+
+@Tag("Integration")
+@SpringBootTest
+public class CheckoutServiceIntegrationTest {
+    @Autowired
+    private CheckoutService checkoutService;
+
+    @MockitoSpyBean
+    private CartService cartService;
+
+    @MockitoSpyBean
+    private InventoryService inventoryService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    private User user() {
+        return userRepository.save(TestUsers.customer().build());
+    }
+
+    private Product product(User owner, long stock) {
+        Product product = productRepository.save(Product.builder().name("Test Product").price(1000).user(owner).build());
+        inventoryService.adjust(product.getId(), stock);
+        return product;
+    }
+
+    @DisplayName("Checkout places a priced order for the cart, commits the stock and empties the cart")
+    @Test
+    void checkout() {
+        User user = user();
+        Product first = product(user, 5);
+        Product second = product(user, 5);
+        cartService.add(user.getId(), first.getId(), 2);
+        cartService.add(user.getId(), second.getId(), 1);
+
+        Order order = checkoutService.checkout(user.getId());
+
+        Order saved = checkoutService.findById(order.getId(), user.getId()).orElseThrow();
+        assertEquals(OrderStatus.PLACED, saved.getStatus());
+        assertEquals(List.of(new OrderLine(first.getId(), 2, 1000), new OrderLine(second.getId(), 1, 1000)), saved.getLines());
+        assertEquals("EUR", saved.getCurrency());
+        assertEquals(3000, saved.getSubtotal());
+        assertEquals(630, saved.getTax());
+        assertEquals(3630, saved.getTotal());
+        assertEquals(new StockLevel(first.getId(), 3, 3), inventoryService.findLevel(first.getId()));
+        assertEquals(new StockLevel(second.getId(), 4, 4), inventoryService.findLevel(second.getId()));
+        assertTrue(cartService.get(user.getId()).isEmpty());
+        assertTrue(checkoutService.findById(order.getId(), user().getId()).isEmpty());
+    }
+
+    @DisplayName("Units added to the cart while checking out stay in the cart")
+    @Test
+    void checkoutConcurrentAdd() {
+        User user = user();
+        Product ordered = product(user, 5);
+        Product added = product(user, 5);
+        cartService.add(user.getId(), ordered.getId(), 2);
+
+        // Another request adds to the cart right after checkout read it
+        doAnswer(invocation -> {
+            Object lines = invocation.callRealMethod();
+            CompletableFuture.runAsync(() -> {
+                cartService.add(user.getId(), ordered.getId(), 1);
+                cartService.add(user.getId(), added.getId(), 3);
+            }).join();
+            return lines;
+        }).when(cartService).get(user.getId());
+
+        Order order = checkoutService.checkout(user.getId());
+
+        assertEquals(List.of(new OrderLine(ordered.getId(), 2, 1000)), order.getLines());
+        assertEquals(List.of(new CartLine(ordered.getId(), 1), new CartLine(added.getId(), 3)), cartService.get(user.getId()));
+    }
+
+    @DisplayName("An order whose reservation expired takes its units again, and is flagged if some were sold meanwhile")
+    @Test
+    void checkoutExpiredReservation() {
+        User user = user();
+        Product product = product(user, 5);
+        // The reservation expires while the order is written, and its units go back to the stock
+        doAnswer(invocation -> {
+            inventoryService.release(invocation.getArgument(0));
+            return false;
+        }).when(inventoryService).commit(anyLong());
+
+        cartService.add(user.getId(), product.getId(), 2);
+        Order order = checkoutService.checkout(user.getId());
+        assertEquals(OrderStatus.PLACED, checkoutService.findById(order.getId(), user.getId()).orElseThrow().getStatus());
+        assertEquals(new StockLevel(product.getId(), 3, 3), inventoryService.findLevel(product.getId()));
+
+        cartService.add(user.getId(), product.getId(), 2);
+        // Another checkout takes the units before the order takes them again
+        doAnswer(invocation -> {
+            inventoryService.release(invocation.getArgument(0));
+            inventoryService.adjust(product.getId(), -2);
+            return false;
+        }).when(inventoryService).commit(anyLong());
+        Order oversold = checkoutService.checkout(user.getId());
+
+        assertEquals(OrderStatus.OVERSOLD, oversold.getStatus());
+        assertEquals(OrderStatus.OVERSOLD, checkoutService.findById(oversold.getId(), user.getId()).orElseThrow().getStatus());
+        assertEquals(new StockLevel(product.getId(), 0, 0), inventoryService.findLevel(product.getId()));
+        assertTrue(cartService.get(user.getId()).isEmpty());
+    }
+
+    @DisplayName("Checkout of an empty cart or beyond the stock fails without writing anything")
+    @Test
+    void checkoutRejected() {
+        User user = user();
+        Product inStock = product(user, 5);
+        Product scarce = product(user, 1);
+        long orders = orderRepository.count();
+
+        assertThrows(BadRequestException.class, () -> checkoutService.checkout(user.getId()));
+
+        cartService.add(user.getId(), inStock.getId(), 2);
+        cartService.add(user.getId(), scarce.getId(), 2);
+        assertThrows(ConflictException.class, () -> checkoutService.checkout(user.getId()));
+
+        assertEquals(orders, orderRepository.count());
+        assertEquals(new StockLevel(inStock.getId(), 5, 5), inventoryService.findLevel(inStock.getId()));
+        assertEquals(2, cartService.get(user.getId()).size());
+    }
+
+    @DisplayName("Checkout of a product without a price fails without writing anything")
+    @Test
+    void checkoutUnpriced() {
+        User user = user();
+        // Left at zero like the products that existed before prices were introduced
+        Product unpriced = productRepository.save(Product.builder().name("Unpriced Product").user(user).build());
+        inventoryService.adjust(unpriced.getId(), 5);
+        cartService.add(user.getId(), unpriced.getId(), 1);
+        long orders = orderRepository.count();
+
+        ConflictException e = assertThrows(ConflictException.class, () -> checkoutService.checkout(user.getId()));
+
+        assertEquals("Product %s has no price".formatted(unpriced.getId()), e.getMessage());
+        assertEquals(orders, orderRepository.count());
+        assertEquals(new StockLevel(unpriced.getId(), 5, 5), inventoryService.findLevel(unpriced.getId()));
+    }
+
+    @DisplayName("Concurrent checkouts of a scarce product place exactly as many orders as there is stock")
+    @Test
+    void concurrentCheckouts() throws Exception {
+        final int BUYERS = 32;
+        final int STOCK = 20;
+        Product product = product(user(), STOCK);
+        List<User> buyers = new ArrayList<>();
+        for (int i = 0; i < BUYERS; i++) {
+            User buyer = user();
+            cartService.add(buyer.getId(), product.getId(), 1);
+            buyers.add(buyer);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(BUYERS);
+        List<Future<Order>> results = new ArrayList<>();
+        try {
+            CyclicBarrier start = new CyclicBarrier(BUYERS);
+            for (User buyer : buyers) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return checkoutService.checkout(buyer.getId());
+                }));
+            }
+            int placed = 0;
+            for (Future<Order> result : results) {
+                try {
+                    assertTrue(orderRepository.existsById(result.get(1, TimeUnit.MINUTES).getId()));
+                    placed++;
+                } catch (ExecutionException e) {
+                    assertInstanceOf(ConflictException.class, e.getCause());
+                }
+            }
+            assertEquals(STOCK, placed);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(new StockLevel(product.getId(), 0, 0), inventoryService.findLevel(product.getId()));
+    }
+}
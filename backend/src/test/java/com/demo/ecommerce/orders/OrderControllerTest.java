@@ -0,0 +1,102 @@
+package com.demo.ecommerce.orders;
+
+import com.demo.ecommerce.auth.AuthService;
+import com.demo.ecommerce.common.annotations.ImportTestContext;
+import com.demo.ecommerce.common.exceptions.ConflictException;
+import com.demo.ecommerce.users.Role;
+import com.demo.ecommerce.users.User;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@Tag("Unit")
+@ImportTestContext(OrderMapperImpl.class)
+@WebMvcTest(OrderController.class)
+public class OrderControllerTest {
+    private static final long USER_ID = 5;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private CheckoutService checkoutService;
+
+    @Autowired
+    private JwtEncoder jwtEncoder;
+
+    private String bearer() {
+        JwtClaimsSet claims = JwtClaimsSet.builder().subject(String.valueOf(USER_ID)).claim(AuthService.ROLE_CLAIM, Role.CUSTOMER.name())
+                .expiresAt(Instant.now().plus(1, ChronoUnit.HOURS)).build();
+        return "Bearer " + jwtEncoder.encode(JwtEncoderParameters.from(JwsHeader.with(MacAlgorithm.HS256).build(), claims)).getTokenValue();
+    }
+
+    private static Order order() {
+        return Order.builder().id(12).user(User.builder().id(USER_ID).build()).status(OrderStatus.PLACED)
+                .lines(List.of(new OrderLine(3, 2, 1000))).currency("EUR").subtotal(2000).tax(420).total(2420).build();
+    }
+
+    @DisplayName("Check out the cart of the authenticated user")
+    @Test
+    void checkout() throws Exception {
+        when(checkoutService.checkout(USER_ID)).thenReturn(order());
+
+        mockMvc.perform(post("/api/orders/checkout").header(HttpHeaders.AUTHORIZATION, bearer()))
+                .andExpect(status().isCreated())
+                .andExpect(header().string(HttpHeaders.LOCATION, "http://localhost/api/orders/12"))
+                .andExpect(jsonPath("$.id").value(12))
+                .andExpect(jsonPath("$.userId").value(USER_ID))
+                .andExpect(jsonPath("$.status").value("PLACED"))
+                .andExpect(jsonPath("$.lines[0].productId").value(3))
+                .andExpect(jsonPath("$.lines[0].quantity").value(2))
+                .andExpect(jsonPath("$.lines[0].unitPrice").value(1000))
+                .andExpect(jsonPath("$.currency").value("EUR"))
+                .andExpect(jsonPath("$.total").value(2420));
+    }
+
+    @DisplayName("Checking out requires authentication, out of stock is a conflict")
+    @Test
+    void checkoutRejected() throws Exception {
+        mockMvc.perform(post("/api/orders/checkout")).andExpect(status().isUnauthorized());
+        verify(checkoutService, never()).checkout(anyLong());
+
+        when(checkoutService.checkout(USER_ID)).thenThrow(new ConflictException("Not enough stock of product 3"));
+        mockMvc.perform(post("/api/orders/checkout").header(HttpHeaders.AUTHORIZATION, bearer()))
+                .andExpect(status().isConflict());
+    }
+
+    @DisplayName("Get an order of the authenticated user, orders of others are not found")
+    @Test
+    void getOrder() throws Exception {
+        when(checkoutService.findById(12, USER_ID)).thenReturn(Optional.of(order()));
+        when(checkoutService.findById(13, USER_ID)).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/orders/12").header(HttpHeaders.AUTHORIZATION, bearer()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.lines.length()").value(1));
+        mockMvc.perform(get("/api/orders/13").header(HttpHeaders.AUTHORIZATION, bearer()))
+                .andExpect(status().isNotFound());
+    }
+}
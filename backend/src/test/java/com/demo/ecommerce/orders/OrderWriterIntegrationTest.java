@@ -0,0 +1,166 @@
+package com.demo.ecommerce.orders;
+
+import com.demo.ecommerce.common.TestUsers;
+import com.demo.ecommerce.common.exceptions.TooManyRequestsException;
+import com.demo.ecommerce.outbox.OutboxService;
+import com.demo.ecommerce.products.Product;
+import com.demo.ecommerce.products.ProductRepository;
+import com.demo.ecommerce.users.User;
+import com.demo.ecommerce.users.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+@Tag("Integration")
+@SpringBootTest
+public class OrderWriterIntegrationTest {
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final List<OrderWriter> writers = new ArrayList<>();
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    // Holds the first write of a writer until released, so the orders saved meanwhile are written as one batch
+    private final CountDownLatch gate = new CountDownLatch(1);
+    private final CountDownLatch writing = new CountDownLatch(1);
+
+    @AfterEach
+    void close() throws InterruptedException {
+        gate.countDown();
+        for (OrderWriter writer : writers) writer.destroy();
+        executor.shutdownNow();
+    }
+
+    private OrderWriter writer(int queueCapacity, OrderRepository repository) {
+        OrderWriter writer = new OrderWriter(repository, outboxService, transactionTemplate, true, queueCapacity, 100);
+        writers.add(writer);
+        return writer;
+    }
+
+    /** @return the order repository, with the first saveAll waiting for the gate **/
+    private OrderRepository gatedRepository() {
+        OrderRepository repository = mock(OrderRepository.class, delegatesTo(orderRepository));
+        AtomicBoolean first = new AtomicBoolean(true);
+        doAnswer(invocation -> {
+            if (first.getAndSet(false)) {
+                writing.countDown();
+                gate.await();
+            }
+            return orderRepository.saveAll(invocation.<List<Order>>getArgument(0));
+        }).when(repository).saveAll(anyList());
+        return repository;
+    }
+
+    private Order order(User user, Product product) {
+        return Order.builder().user(user).status(OrderStatus.PLACED).currency("EUR").subtotal(1000).total(1000)
+                .lines(new ArrayList<>(List.of(new OrderLine(product.getId(), 1, 1000)))).build();
+    }
+
+    private static void awaitQueued(OrderWriter writer, int orders) throws InterruptedException {
+        for (int i = 0; writer.queued() < orders; i++) {
+            assertTrue(i < 500, "orders were not queued");
+            Thread.sleep(10);
+        }
+    }
+
+    @DisplayName("A failing order in a batch fails alone, the others are written with their lines")
+    @Test
+    void batchFailure() throws Exception {
+        User user = userRepository.save(TestUsers.customer().build());
+        Product product = productRepository.save(Product.builder().name("Ordered Product").price(1000).user(user).build());
+        // Neither exists, their foreign keys fail the flush of the transaction the orders are written in, one on the
+        // order and the other on its line
+        User missing = User.builder().id(Long.MAX_VALUE).version(0).build();
+        Product removed = Product.builder().id(Long.MAX_VALUE).build();
+        OrderWriter writer = writer(10, gatedRepository());
+
+        Future<Order> held = executor.submit(() -> writer.save(order(user, product)));
+        assertTrue(writing.await(1, TimeUnit.MINUTES));
+        Future<Order> good = executor.submit(() -> writer.save(order(user, product)));
+        awaitQueued(writer, 1);
+        Future<Order> bad = executor.submit(() -> writer.save(order(missing, product)));
+        awaitQueued(writer, 2);
+        Future<Order> other = executor.submit(() -> writer.save(order(user, product)));
+        awaitQueued(writer, 3);
+        Future<Order> badLine = executor.submit(() -> writer.save(order(user, removed)));
+        awaitQueued(writer, 4);
+        gate.countDown();
+
+        assertTrue(orderRepository.existsById(held.get(1, TimeUnit.MINUTES).getId()));
+        for (Future<Order> result : List.of(bad, badLine)) {
+            ExecutionException failure = assertThrows(ExecutionException.class, () -> result.get(1, TimeUnit.MINUTES));
+            assertInstanceOf(RuntimeException.class, failure.getCause());
+        }
+        for (Future<Order> result : List.of(good, other)) {
+            long id = result.get(1, TimeUnit.MINUTES).getId();
+            List<OrderLine> lines = transactionTemplate.execute(status -> List.copyOf(orderRepository.findById(id).orElseThrow().getLines()));
+            assertEquals(1, lines.size());
+            assertEquals(List.copyOf(result.get().getLines()), lines);
+        }
+    }
+
+    @DisplayName("Saving while the queue is full is refused with a TooManyRequestsException")
+    @Test
+    void queueFull() throws Exception {
+        User user = userRepository.save(TestUsers.customer().build());
+        Product product = productRepository.save(Product.builder().name("Ordered Product").price(1000).user(user).build());
+        OrderWriter writer = writer(1, gatedRepository());
+
+        Future<Order> held = executor.submit(() -> writer.save(order(user, product)));
+        assertTrue(writing.await(1, TimeUnit.MINUTES));
+        Future<Order> queued = executor.submit(() -> writer.save(order(user, product)));
+        awaitQueued(writer, 1);
+
+        assertThrows(TooManyRequestsException.class, () -> writer.save(order(user, product)));
+
+        gate.countDown();
+        assertTrue(orderRepository.existsById(held.get(1, TimeUnit.MINUTES).getId()));
+        assertTrue(orderRepository.existsById(queued.get(1, TimeUnit.MINUTES).getId()));
+    }
+
+    @DisplayName("An error while writing fails its order and the writer keeps writing")
+    @Test
+    void writeError() {
+        User user = userRepository.save(TestUsers.customer().build());
+        Product product = productRepository.save(Product.builder().name("Ordered Product").price(1000).user(user).build());
+        OrderRepository repository = mock(OrderRepository.class, delegatesTo(orderRepository));
+        AtomicBoolean first = new AtomicBoolean(true);
+        doAnswer(invocation -> {
+            if (first.getAndSet(false)) throw new StackOverflowError();
+            return orderRepository.saveAll(invocation.<List<Order>>getArgument(0));
+        }).when(repository).saveAll(anyList());
+        OrderWriter writer = writer(10, repository);
+
+        assertThrows(StackOverflowError.class, () -> writer.save(order(user, product)));
+
+        Order saved = assertTimeoutPreemptively(Duration.ofMinutes(1), () -> writer.save(order(user, product)));
+        assertTrue(orderRepository.existsById(saved.getId()));
+    }
+}
@@ -0,0 +1,155 @@
+package com.demo.ecommerce.outbox;
+
+import com.demo.ecommerce.carts.CartService;
+import com.demo.ecommerce.inventory.InventoryService;
+import com.demo.ecommerce.mail.Mail;
+import com.demo.ecommerce.mail.MailSender;
+import com.demo.ecommerce.orders.CheckoutService;
+import com.demo.ecommerce.orders.Order;
+import com.demo.ecommerce.products.Product;
+import com.demo.ecommerce.products.ProductRepository;
+import com.demo.ecommerce.users.Role;
+import com.demo.ecommerce.users.User;
+import com.demo.ecommerce.users.UserService;
+import com.demo.ecommerce.users.dto.UserCreate;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@Tag("Integration")
+// The dispatcher is drained by the tests only, failed messages are due again right away
+@SpringBootTest(properties = {"outbox.enabled=false", "outbox.retry.initial-backoff=0s", "outbox.retry.max-attempts=2"})
+public class OutboxDispatcherIntegrationTest {
+    @Autowired
+    private OutboxDispatcher outboxDispatcher;
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private CheckoutService checkoutService;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @MockitoBean
+    private MailSender mailSender;
+
+    @BeforeEach
+    void emptyOutbox() {
+        outboxRepository.deleteAll();
+    }
+
+    private User register(String email) {
+        return userService.createUser(UserCreate.builder().name("Test User").email(email).password("Pass123").build());
+    }
+
+    @DisplayName("Registering queues a welcome email, which is removed once delivered")
+    @Test
+    void welcomeEmail() throws Exception {
+        User user = register("welcome@outlook.com");
+        assertEquals(1, outboxRepository.count());
+        assertEquals(1.0, meterRegistry.get("outbox.depth").gauge().value());
+
+        assertEquals(1, outboxDispatcher.drain());
+
+        ArgumentCaptor<Mail> mail = ArgumentCaptor.forClass(Mail.class);
+        verify(mailSender).send(mail.capture());
+        assertEquals(user.getEmail(), mail.getValue().to());
+        assertEquals(0, outboxRepository.count());
+        assertEquals(0, outboxDispatcher.drain());
+    }
+
+    @DisplayName("Nothing is queued when the change rolls back")
+    @Test
+    void rolledBack() {
+        transactionTemplate.executeWithoutResult(status -> {
+            register("rolledback@outlook.com");
+            status.setRollbackOnly();
+        });
+        assertEquals(0, outboxRepository.count());
+    }
+
+    @DisplayName("Checkout queues an order confirmation listing the order's lines")
+    @Test
+    void orderConfirmation() throws Exception {
+        User user = register("order@outlook.com");
+        Product product = productRepository.save(Product.builder().name("Test Product").price(1000).user(user).build());
+        inventoryService.adjust(product.getId(), 5);
+        cartService.add(user.getId(), product.getId(), 3);
+        Order order = checkoutService.checkout(user.getId());
+
+        assertEquals(2, outboxDispatcher.drain());
+
+        ArgumentCaptor<Mail> mails = ArgumentCaptor.forClass(Mail.class);
+        verify(mailSender, times(2)).send(mails.capture());
+        Mail confirmation = mails.getAllValues().stream().filter(mail -> mail.subject().contains(String.valueOf(order.getId()))).findFirst().orElseThrow();
+        assertEquals(user.getEmail(), confirmation.to());
+        assertTrue(confirmation.body().contains("3 x product " + product.getId()));
+    }
+
+    @DisplayName("A failed delivery is retried, and given up after the maximum attempts")
+    @Test
+    void retryThenGiveUp() throws Exception {
+        doThrow(new IOException("Mail server down")).when(mailSender).send(any());
+        register("retry@outlook.com");
+        double failed = meterRegistry.get("outbox.failed").counter().count();
+
+        assertEquals(1, outboxDispatcher.drain());
+        OutboxMessage message = outboxRepository.findAll().getFirst();
+        assertEquals(1, message.getAttempts());
+        assertNull(message.getFailedAt());
+        assertTrue(message.getLastError().contains("Mail server down"));
+
+        assertEquals(1, outboxDispatcher.drain());
+        message = outboxRepository.findAll().getFirst();
+        assertEquals(2, message.getAttempts());
+        assertNotNull(message.getFailedAt());
+
+        assertEquals(0, outboxDispatcher.drain());
+        verify(mailSender, times(2)).send(any());
+        assertEquals(failed + 1, meterRegistry.get("outbox.failed").counter().count());
+        assertEquals(0.0, meterRegistry.get("outbox.depth").gauge().value());
+    }
+
+    @DisplayName("A delivery that succeeds on retry removes the message")
+    @Test
+    void retrySucceeds() throws Exception {
+        doThrow(new IOException("Mail server down")).doNothing().when(mailSender).send(any());
+        register("recover@outlook.com");
+
+        assertEquals(1, outboxDispatcher.drain());
+        assertEquals(1, outboxRepository.count());
+        assertEquals(1, outboxDispatcher.drain());
+        assertEquals(List.of(), outboxRepository.findAll());
+    }
+}
@@ -0,0 +1,121 @@
+package com.demo.ecommerce.payments;
+
+import com.demo.ecommerce.auth.AuthService;
+import com.demo.ecommerce.common.annotations.ImportTestContext;
+import com.demo.ecommerce.common.exceptions.BadGatewayException;
+import com.demo.ecommerce.common.exceptions.BadRequestException;
+import com.demo.ecommerce.users.Role;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@Tag("Unit")
+@ImportTestContext(PaymentMapperImpl.class)
+@WebMvcTest({PaymentController.class, PaymentWebhookController.class})
+public class PaymentControllerTest {
+    private static final long USER_ID = 5;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private PaymentService paymentService;
+
+    @Autowired
+    private JwtEncoder jwtEncoder;
+
+    private String bearer() {
+        JwtClaimsSet claims = JwtClaimsSet.builder().subject(String.valueOf(USER_ID)).claim(AuthService.ROLE_CLAIM, Role.CUSTOMER.name())
+                .expiresAt(Instant.now().plus(1, ChronoUnit.HOURS)).build();
+        return "Bearer " + jwtEncoder.encode(JwtEncoderParameters.from(JwsHeader.with(MacAlgorithm.HS256).build(), claims)).getTokenValue();
+    }
+
+    @DisplayName("Start the payment of an order, answered once Stripe has")
+    @Test
+    void start() throws Exception {
+        when(paymentService.start(12, USER_ID))
+                .thenReturn(CompletableFuture.completedFuture(new PaymentSession(12, PaymentStatus.PENDING, 1999, "eur", "pi_1_secret")));
+
+        MvcResult started = mockMvc.perform(post("/api/orders/12/payment").header(HttpHeaders.AUTHORIZATION, bearer()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.orderId").value(12))
+                .andExpect(jsonPath("$.status").value("PENDING"))
+                .andExpect(jsonPath("$.amount").value(1999))
+                .andExpect(jsonPath("$.currency").value("eur"))
+                .andExpect(jsonPath("$.clientSecret").value("pi_1_secret"));
+    }
+
+    @DisplayName("Payments require authentication, an order with nothing to pay is 400, Stripe outages are 502")
+    @Test
+    void startRejected() throws Exception {
+        mockMvc.perform(post("/api/orders/12/payment")).andExpect(status().isUnauthorized());
+        verify(paymentService, never()).start(anyLong(), anyLong());
+
+        when(paymentService.start(12, USER_ID)).thenReturn(CompletableFuture.failedFuture(new BadGatewayException("Payment provider unavailable, retry later")));
+        when(paymentService.start(13, USER_ID)).thenThrow(new BadRequestException("Order 13 has nothing to pay"));
+        mockMvc.perform(post("/api/orders/13/payment").header(HttpHeaders.AUTHORIZATION, bearer()))
+                .andExpect(status().isBadRequest());
+
+        MvcResult started = mockMvc.perform(post("/api/orders/12/payment").header(HttpHeaders.AUTHORIZATION, bearer()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(started)).andExpect(status().isBadGateway());
+    }
+
+    @DisplayName("Get the payment of an order")
+    @Test
+    void getPayment() throws Exception {
+        when(paymentService.find(12, USER_ID)).thenReturn(Optional.of(Payment.builder().orderId(12).status(PaymentStatus.SUCCEEDED)
+                .amount(1999).currency("eur").idempotencyKey("key").intentId("pi_1").build()));
+
+        mockMvc.perform(get("/api/orders/12/payment").header(HttpHeaders.AUTHORIZATION, bearer()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("SUCCEEDED"))
+                .andExpect(jsonPath("$.clientSecret").doesNotExist())
+                .andExpect(jsonPath("$.idempotencyKey").doesNotExist());
+        mockMvc.perform(get("/api/orders/13/payment").header(HttpHeaders.AUTHORIZATION, bearer()))
+                .andExpect(status().isNotFound());
+    }
+
+    @DisplayName("Webhook events are accepted without a token, by signature")
+    @Test
+    void webhook() throws Exception {
+        String event = "{\"id\": \"evt_1\"}";
+        mockMvc.perform(post("/api/payments/webhook").header("Stripe-Signature", "t=1,v1=good")
+                        .contentType(MediaType.APPLICATION_JSON).content(event))
+                .andExpect(status().isOk());
+        verify(paymentService).receive(event, "t=1,v1=good");
+
+        doThrow(new BadRequestException("Invalid webhook signature")).when(paymentService).receive(event, "t=1,v1=bad");
+        mockMvc.perform(post("/api/payments/webhook").header("Stripe-Signature", "t=1,v1=bad")
+                        .contentType(MediaType.APPLICATION_JSON).content(event))
+                .andExpect(status().isBadRequest());
+    }
+}
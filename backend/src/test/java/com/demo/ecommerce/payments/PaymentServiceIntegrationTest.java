@@ -0,0 +1,211 @@
+package com.demo.ecommerce.payments;
+
+import com.demo.ecommerce.carts.CartService;
+import com.demo.ecommerce.common.TestUsers;
+import com.demo.ecommerce.common.exceptions.BadGatewayException;
+import com.demo.ecommerce.common.exceptions.BadRequestException;
+import com.demo.ecommerce.common.exceptions.ConflictException;
+import com.demo.ecommerce.common.exceptions.ResourceNotFoundException;
+import com.demo.ecommerce.inventory.InventoryService;
+import com.demo.ecommerce.orders.CheckoutService;
+import com.demo.ecommerce.orders.Order;
+import com.demo.ecommerce.orders.OrderRepository;
+import com.demo.ecommerce.orders.OrderStatus;
+import com.demo.ecommerce.products.Product;
+import com.demo.ecommerce.products.ProductRepository;
+import com.demo.ecommerce.users.User;
+import com.demo.ecommerce.users.UserRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("Integration")
+// Failures reach the service instead of being retried by the Stripe library
+@SpringBootTest(properties = {"payments.stripe.max-network-retries=0", "payments.stripe.webhook-secret=whsec_test"})
+public class PaymentServiceIntegrationTest {
+    private static final StripeStub stripe = StripeStub.start();
+
+    @DynamicPropertySource
+    static void stripeApi(DynamicPropertyRegistry registry) {
+        registry.add("payments.stripe.api-base", stripe::url);
+    }
+
+    @AfterAll
+    static void stopStripe() {
+        stripe.close();
+    }
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private CheckoutService checkoutService;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    private User user() {
+        return userRepository.save(TestUsers.customer().name("Paying User").build());
+    }
+
+    private Order order(User user) {
+        Product product = productRepository.save(Product.builder().name("Paid Product").price(1000).user(user).build());
+        inventoryService.adjust(product.getId(), 10);
+        cartService.add(user.getId(), product.getId(), 1);
+        return checkoutService.checkout(user.getId());
+    }
+
+    private static Throwable failure(Supplier<CompletableFuture<?>> start) {
+        return assertThrows(CompletionException.class, () -> start.get().join()).getCause();
+    }
+
+    private Payment awaitStatus(long orderId, PaymentStatus status) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            Payment payment = paymentRepository.findByOrderId(orderId).orElseThrow();
+            if (payment.getStatus() == status) return payment;
+            Thread.sleep(50);
+        }
+        fail("Payment of order %s never became %s".formatted(orderId, status));
+        return null;
+    }
+
+    @DisplayName("Starting a payment charges the order total through one PaymentIntent, retries get the same one back")
+    @Test
+    void start() {
+        User user = user();
+        Order order = order(user);
+        int created = stripe.created();
+
+        PaymentSession first = paymentService.start(order.getId(), user.getId()).join();
+        PaymentSession retry = paymentService.start(order.getId(), user.getId()).join();
+
+        assertEquals(PaymentStatus.PENDING, first.status());
+        // 10.00 plus 21% tax
+        assertEquals(1210, first.amount());
+        assertEquals("eur", first.currency());
+        assertNotNull(first.clientSecret());
+        assertEquals(first.clientSecret(), retry.clientSecret());
+        assertEquals(created + 1, stripe.created());
+        Payment payment = paymentRepository.findByOrderId(order.getId()).orElseThrow();
+        assertEquals(1210, payment.getAmount());
+        assertTrue(first.clientSecret().startsWith(payment.getIntentId()));
+    }
+
+    @DisplayName("Concurrent starts for the same order create one PaymentIntent")
+    @Test
+    void concurrent() {
+        User user = user();
+        Order order = order(user);
+        int created = stripe.created();
+
+        List<CompletableFuture<PaymentSession>> sessions = new ArrayList<>();
+        for (int i = 0; i < 16; i++) sessions.add(CompletableFuture.supplyAsync(() -> paymentService.start(order.getId(), user.getId())).thenCompose(f -> f));
+
+        String secret = sessions.getFirst().join().clientSecret();
+        for (CompletableFuture<PaymentSession> session : sessions) assertEquals(secret, session.join().clientSecret());
+        assertEquals(created + 1, stripe.created());
+    }
+
+    @DisplayName("A retry after a Stripe failure sends the same idempotency key")
+    @Test
+    void retryAfterFailure() {
+        User user = user();
+        Order order = order(user);
+        int requests = stripe.creationKeys.size();
+
+        stripe.failNext(1);
+        assertInstanceOf(BadGatewayException.class, failure(() -> paymentService.start(order.getId(), user.getId())));
+        PaymentSession session = paymentService.start(order.getId(), user.getId()).join();
+
+        assertNotNull(session.clientSecret());
+        List<String> keys = stripe.creationKeys.subList(requests, stripe.creationKeys.size());
+        assertEquals(2, keys.size());
+        assertEquals(keys.get(0), keys.get(1));
+        assertEquals(paymentRepository.findByOrderId(order.getId()).orElseThrow().getIdempotencyKey(), keys.getFirst());
+    }
+
+    @DisplayName("Only the owner starts a payment, and only for an order with something to pay")
+    @Test
+    void rejected() {
+        User user = user();
+        Order order = order(user);
+
+        assertThrows(ResourceNotFoundException.class, () -> paymentService.start(order.getId(), user().getId()));
+        assertThrows(ResourceNotFoundException.class, () -> paymentService.start(Long.MAX_VALUE, user.getId()));
+        assertTrue(paymentService.find(order.getId(), user.getId()).isEmpty());
+
+        Order free = orderRepository.save(Order.builder().user(user).status(OrderStatus.PLACED).currency("EUR").build());
+        assertThrows(BadRequestException.class, () -> paymentService.start(free.getId(), user.getId()));
+
+        paymentService.start(order.getId(), user.getId()).join();
+        assertTrue(paymentService.find(order.getId(), user.getId()).isPresent());
+        assertTrue(paymentService.find(order.getId(), user().getId()).isEmpty());
+    }
+
+    @DisplayName("A signed webhook event marks the payment and the order paid")
+    @Test
+    void webhook() throws Exception {
+        User user = user();
+        Order order = order(user);
+        paymentService.start(order.getId(), user.getId()).join();
+        String intentId = paymentRepository.findByOrderId(order.getId()).orElseThrow().getIntentId();
+
+        String[] failed = StripeStub.event("payment_intent.payment_failed", intentId, order.getId(), "whsec_test");
+        paymentService.receive(failed[0], failed[1]);
+        awaitStatus(order.getId(), PaymentStatus.FAILED);
+
+        String[] succeeded = StripeStub.event("payment_intent.succeeded", intentId, order.getId(), "whsec_test");
+        paymentService.receive(succeeded[0], succeeded[1]);
+        awaitStatus(order.getId(), PaymentStatus.SUCCEEDED);
+        assertEquals(OrderStatus.PAID, orderRepository.findById(order.getId()).orElseThrow().getStatus());
+
+        // Late or repeated events do not undo a payment
+        paymentService.receive(failed[0], failed[1]);
+        Thread.sleep(200);
+        assertEquals(PaymentStatus.SUCCEEDED, paymentRepository.findByOrderId(order.getId()).orElseThrow().getStatus());
+        assertInstanceOf(ConflictException.class, failure(() -> paymentService.start(order.getId(), user.getId())));
+
+        String[] forged = StripeStub.event("payment_intent.succeeded", intentId, order.getId(), "whsec_other");
+        assertThrows(BadRequestException.class, () -> paymentService.receive(forged[0], forged[1]));
+    }
+
+    @DisplayName("Resuming a payment picks up a success the webhook has not delivered")
+    @Test
+    void resumeCatchesUp() {
+        User user = user();
+        Order order = order(user);
+        paymentService.start(order.getId(), user.getId()).join();
+        stripe.succeed(paymentRepository.findByOrderId(order.getId()).orElseThrow().getIntentId());
+
+        assertEquals(PaymentStatus.SUCCEEDED, paymentService.start(order.getId(), user.getId()).join().status());
+        assertEquals(OrderStatus.PAID, orderRepository.findById(order.getId()).orElseThrow().getStatus());
+    }
+}
@@ -0,0 +1,143 @@
+package com.demo.ecommerce.payments;
+
+import com.stripe.net.Webhook;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local stand-in for the PaymentIntents endpoints of the Stripe API, honouring idempotency keys like Stripe does:
+ * a repeated key gets the response of the first request.
+ */
+final class StripeStub implements AutoCloseable {
+    private final HttpServer server;
+    private final Map<String, Map<String, String>> intents = new ConcurrentHashMap<>();
+    private final Map<String, String> idempotentResponses = new ConcurrentHashMap<>();
+    private final AtomicInteger sequence = new AtomicInteger();
+    private final AtomicInteger failures = new AtomicInteger();
+    /** Idempotency keys of the creation requests, in order of arrival, failed ones included **/
+    final List<String> creationKeys = new CopyOnWriteArrayList<>();
+
+    private StripeStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/v1/payment_intents", this::handle);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.start();
+    }
+
+    static StripeStub start() {
+        try {
+            return new StripeStub();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /** @return the number of PaymentIntents created **/
+    int created() {
+        return sequence.get();
+    }
+
+    /** Answers the next creation requests with a server error **/
+    void failNext(int requests) {
+        failures.set(requests);
+    }
+
+    /** Marks an intent as paid, as if the customer had confirmed it **/
+    void succeed(String intentId) {
+        intents.get(intentId).put("status", "succeeded");
+    }
+
+    /** @return a payment_intent event signed with the secret, as Stripe would send it **/
+    static String[] event(String type, String intentId, long orderId, String secret) throws GeneralSecurityException {
+        String payload = """
+                {"id": "evt_%s", "object": "event", "api_version": "%s", "type": "%s",
+                 "data": {"object": {"id": "%s", "object": "payment_intent", "status": "%s", "metadata": {"order_id": "%s"}}}}"""
+                .formatted(UUID.randomUUID(), com.stripe.Stripe.API_VERSION, type, intentId,
+                        type.endsWith("succeeded") ? "succeeded" : "requires_payment_method", orderId);
+        long timestamp = Webhook.Util.getTimeNow();
+        String signature = Webhook.Util.computeHmacSha256(secret, timestamp + "." + payload);
+        return new String[]{payload, "t=%s,v1=%s".formatted(timestamp, signature)};
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        if (exchange.getRequestMethod().equals("POST") && path.equals("/v1/payment_intents")) {
+            String key = exchange.getRequestHeaders().getFirst("Idempotency-Key");
+            creationKeys.add(key);
+            if (failures.getAndUpdate(remaining -> Math.max(0, remaining - 1)) > 0) {
+                respond(exchange, 500, "{\"error\": {\"type\": \"api_error\", \"message\": \"Stub failure\"}}");
+                return;
+            }
+            Map<String, String> form = form(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            respond(exchange, 200, idempotentResponses.computeIfAbsent(key, k -> json(create(form))));
+        } else if (exchange.getRequestMethod().equals("GET") && path.startsWith("/v1/payment_intents/")) {
+            Map<String, String> intent = intents.get(path.substring("/v1/payment_intents/".length()));
+            if (intent == null) respond(exchange, 404, "{\"error\": {\"type\": \"invalid_request_error\", \"message\": \"No such payment_intent\"}}");
+            else respond(exchange, 200, json(intent));
+        } else {
+            respond(exchange, 404, "{\"error\": {\"type\": \"invalid_request_error\", \"message\": \"Unrecognized request URL\"}}");
+        }
+    }
+
+    private Map<String, String> create(Map<String, String> form) {
+        String id = "pi_" + sequence.incrementAndGet();
+        Map<String, String> intent = new ConcurrentHashMap<>();
+        intent.put("id", id);
+        intent.put("amount", form.get("amount"));
+        intent.put("currency", form.get("currency"));
+        intent.put("status", "requires_payment_method");
+        intent.put("client_secret", id + "_secret_stub");
+        intent.put("order_id", form.get("metadata[order_id]"));
+        intents.put(id, intent);
+        return intent;
+    }
+
+    private static String json(Map<String, String> intent) {
+        return """
+                {"id": "%s", "object": "payment_intent", "amount": %s, "currency": "%s", "status": "%s",
+                 "client_secret": "%s", "metadata": {"order_id": "%s"}}"""
+                .formatted(intent.get("id"), intent.get("amount"), intent.get("currency"), intent.get("status"),
+                        intent.get("client_secret"), intent.get("order_id"));
+    }
+
+    private static Map<String, String> form(String body) {
+        Map<String, String> form = new HashMap<>();
+        for (String pair : body.split("&")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0) form.put(URLDecoder.decode(pair.substring(0, separator), StandardCharsets.UTF_8),
+                    URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8));
+        }
+        return form;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (var out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
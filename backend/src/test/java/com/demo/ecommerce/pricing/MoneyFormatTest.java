@@ -0,0 +1,22 @@
+package com.demo.ecommerce.pricing;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@Tag("Unit")
+public class MoneyFormatTest {
+
+    @DisplayName("Amounts are formatted with the decimals of their currency")
+    @Test
+    void format() {
+        assertEquals("19.99 EUR", MoneyFormat.format(1999, "EUR"));
+        assertEquals("0.05 USD", MoneyFormat.format(5, "USD"));
+        assertEquals("-1.00 EUR", MoneyFormat.format(-100, "EUR"));
+        assertEquals("1999 JPY", MoneyFormat.format(1999, "JPY"));
+        assertEquals("1.000 BHD", MoneyFormat.format(1000, "BHD"));
+        assertEquals("-92233720368547758.08 EUR", MoneyFormat.format(Long.MIN_VALUE, "EUR"));
+    }
+}
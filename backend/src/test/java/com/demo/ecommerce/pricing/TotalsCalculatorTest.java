@@ -0,0 +1,107 @@
+package com.demo.ecommerce.pricing;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("Unit")
+public class TotalsCalculatorTest {
+
+    @DisplayName("Lines are summed and taxed per line, rounding half up")
+    @Test
+    void totals() {
+        TotalsCalculator calculator = new TotalsCalculator(4);
+        calculator.addLine(1999, 3, 2100);
+        calculator.addLine(250, 1, 1000);
+        calculator.addLine(5, 1, 1000);
+        calculator.compute();
+
+        assertEquals(6252, calculator.subtotal());
+        assertEquals(0, calculator.discount());
+        // 1259.37 -> 1259, 25 -> 25, 0.5 -> 1
+        assertEquals(1259, calculator.lineTax(0));
+        assertEquals(1, calculator.lineTax(2));
+        assertEquals(1285, calculator.tax());
+        assertEquals(7537, calculator.total());
+    }
+
+    @DisplayName("An order discount is shared in proportion to the lines and adds up exactly")
+    @Test
+    void orderDiscount() {
+        TotalsCalculator calculator = new TotalsCalculator(4);
+        calculator.addLine(100, 1, 0);
+        calculator.addLine(100, 1, 0);
+        calculator.addLine(100, 1, 0);
+        calculator.discountLine(2, 40);
+        calculator.discountOrder(100);
+        calculator.compute();
+
+        assertEquals(300, calculator.subtotal());
+        assertEquals(140, calculator.discount());
+        assertEquals(140, calculator.lineDiscount(0) + calculator.lineDiscount(1) + calculator.lineDiscount(2));
+        // 100 shared over 100, 100 and 60: 38.46, 38.46 and 23.07, the unit left over goes to the first line
+        assertEquals(39, calculator.lineDiscount(0));
+        assertEquals(38, calculator.lineDiscount(1));
+        assertEquals(63, calculator.lineDiscount(2));
+        assertEquals(160, calculator.total());
+    }
+
+    @DisplayName("Discounts never take a line or the order below zero, amounts that overflow fail")
+    @Test
+    void limits() {
+        TotalsCalculator calculator = new TotalsCalculator(1);
+        calculator.addLine(100, 2, 2100);
+        calculator.addLine(50, 1, 2100);
+        calculator.discountLine(0, 500);
+        calculator.discountOrder(Long.MAX_VALUE);
+        calculator.discountOrder(1);
+        calculator.compute();
+        assertEquals(250, calculator.discount());
+        assertEquals(0, calculator.total());
+        assertEquals(2, calculator.lines());
+
+        calculator.reset();
+        calculator.addLine(Long.MAX_VALUE / 2, 3, 0);
+        assertThrows(ArithmeticException.class, calculator::compute);
+        assertThrows(IllegalArgumentException.class, () -> calculator.addLine(-1, 1, 0));
+        assertThrows(IndexOutOfBoundsException.class, () -> calculator.lineTotal(1));
+    }
+
+    @DisplayName("Evaluating a cart allocates nothing once the calculator is sized")
+    @Test
+    void noAllocation() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        TotalsCalculator calculator = new TotalsCalculator(100);
+        long checksum = 0;
+        for (int round = 0; round < 2; round++) {
+            long before = threads.getCurrentThreadAllocatedBytes();
+            for (int cart = 0; cart < 10_000; cart++) {
+                calculator.reset();
+                for (int line = 0; line < 100; line++) calculator.discountLine(calculator.addLine(100 + line, 1 + line % 3, 2100), line % 7);
+                calculator.discountOrder(cart);
+                calculator.compute();
+                checksum += calculator.total();
+            }
+            long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+            // The first round warms up, the second may only see the odd allocation by the JIT or the bean itself
+            if (round == 1) assertTrue(allocated < 10_000, "allocated %s bytes for 10000 carts".formatted(allocated));
+        }
+        assertTrue(checksum > 0);
+    }
+
+    @DisplayName("A full cart at the highest price, quantity and tax rate does not overflow")
+    @Test
+    void highestPrices() {
+        TotalsCalculator calculator = new TotalsCalculator(100);
+        for (int line = 0; line < 100; line++) calculator.addLine(TotalsCalculator.MAX_UNIT_PRICE, 99, TotalsCalculator.BASIS_POINTS);
+        calculator.discountOrder(1);
+
+        calculator.compute();
+
+        assertEquals(2 * 100 * 99 * TotalsCalculator.MAX_UNIT_PRICE - 2, calculator.total());
+    }
+}
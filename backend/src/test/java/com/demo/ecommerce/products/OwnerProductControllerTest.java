@@ -0,0 +1,86 @@
+package com.demo.ecommerce.products;
+
+import com.demo.ecommerce.common.annotations.ImportTestContext;
+import com.demo.ecommerce.users.Role;
+import com.demo.ecommerce.users.User;
+import com.demo.ecommerce.users.UserMapperImpl;
+import com.demo.ecommerce.users.UserService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@Tag("Unit")
+@ImportTestContext({ProductMapperImpl.class, UserMapperImpl.class})
+@WebMvcTest(OwnerProductController.class)
+public class OwnerProductControllerTest {
+    @Autowired
+    MockMvc mockMvc;
+
+    @MockitoBean
+    ProductService productService;
+
+    @MockitoBean
+    UserService userService;
+
+    private User.UserBuilder testUser() {
+        return User.builder().id(3L).name("Test User").password("Pass123").email("test@builder.com").role(Role.CUSTOMER);
+    }
+
+    @DisplayName("List the products of a user with the owner taken from the fetched products")
+    @Test
+    void listOwnerProducts() throws Exception {
+        User owner = testUser().build();
+        Product product = Product.builder().id(5L).user(owner).name("Test Product").build();
+        ProductCursor next = ProductSortKey.ID.cursorOf(product);
+
+        when(productService.findPageByOwner(eq(3L), isNull(), eq(1), any())).thenReturn(new ProductPage(List.of(product), next));
+
+        mockMvc.perform(get("/api/users/{id}/products", 3).param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.owner.id").value(3))
+                .andExpect(jsonPath("$.owner.name").value("Test User"))
+                .andExpect(jsonPath("$.owner.password").doesNotExist())
+                .andExpect(jsonPath("$.items[0].id").value(5))
+                .andExpect(jsonPath("$.items[0].owner_id").value(3))
+                .andExpect(jsonPath("$.nextCursor").value(next.encode()));
+        verify(userService, never()).findById(anyLong());
+    }
+
+    @DisplayName("List the products of a user without products")
+    @Test
+    void listOwnerProductsEmpty() throws Exception {
+        when(productService.findPageByOwner(eq(3L), isNull(), eq(20), any())).thenReturn(new ProductPage(List.of(), null));
+        when(userService.findById(3L)).thenReturn(Optional.of(testUser().build()));
+
+        mockMvc.perform(get("/api/users/{id}/products", 3))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.owner.id").value(3))
+                .andExpect(jsonPath("$.items").isEmpty())
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @DisplayName("List the products of a user that does not exist returns 404")
+    @Test
+    void listOwnerProductsUnknownUser() throws Exception {
+        when(productService.findPageByOwner(eq(3L), isNull(), eq(20), any())).thenReturn(new ProductPage(List.of(), null));
+        when(userService.findById(3L)).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/users/{id}/products", 3))
+                .andExpect(status().isNotFound());
+    }
+}
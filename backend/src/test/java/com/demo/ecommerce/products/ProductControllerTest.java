@@ -1,10 +1,13 @@
 package com.demo.ecommerce.products;
 
+import com.demo.ecommerce.auth.AuthService;
 import com.demo.ecommerce.common.annotations.ImportTestContext;
 import com.demo.ecommerce.common.exceptions.BadRequestException;
 import com.demo.ecommerce.common.exceptions.ResourceNotFoundException;
+import com.demo.ecommerce.pricing.TotalsCalculator;
 import com.demo.ecommerce.products.dto.ProductCreateRequest;
 import com.demo.ecommerce.products.dto.ProductUpdateRequest;
+import com.demo.ecommerce.products.search.ProductSearchIndex;
 import com.demo.ecommerce.users.Role;
 import com.demo.ecommerce.users.User;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -14,16 +17,38 @@ import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 @Tag("Unit")
 @ImportTestContext(ProductMapperImpl.class)
@@ -41,12 +66,44 @@ public class ProductControllerTest {
     @MockitoBean
     ProductService productService;
 
+    @MockitoBean
+    ProductJsonCache productJsonCache;
+
+    @MockitoBean
+    ProductSearchIndex productSearchIndex;
+
+    @MockitoBean
+    ProductImportService productImportService;
+
+    @MockitoBean
+    ProductExportService productExportService;
+
+    @Autowired
+    JwtEncoder jwtEncoder;
+
     private User.UserBuilder testUser() {
         return User.builder().id(1L).name("Test User").password("Pass123").email("test@builder.com").role(Role.CUSTOMER);
     }
+    private String bearer(Role role) {
+        JwtClaimsSet claims = JwtClaimsSet.builder().subject("1").claim(AuthService.ROLE_CLAIM, role.name())
+                .expiresAt(Instant.now().plus(1, ChronoUnit.HOURS)).build();
+        return "Bearer " + jwtEncoder.encode(JwtEncoderParameters.from(JwsHeader.with(MacAlgorithm.HS256).build(), claims)).getTokenValue();
+    }
     private Product.ProductBuilder testProduct(User user) {
         return Product.builder().id(1L).user(user).name("Test Product").description("Test description").active(true);
     }
+    private byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.toByteArray();
+    }
+    private Map<Long, Product> orderedById(Product... products) {
+        Map<Long, Product> ordered = new LinkedHashMap<>();
+        for (Product product : products) ordered.put(product.getId(), product);
+        return ordered;
+    }
 
     @DisplayName("Get an non-existing product returns 404")
     @Test
@@ -71,6 +128,169 @@ public class ProductControllerTest {
                 .andExpect(content().json(objectMapper.writeValueAsString(productMapper.entityToResponse(testProduct))));
     }
 
+    @DisplayName("Get a product returns an ETag derived from its id and version")
+    @Test
+    void getProductETag() throws Exception {
+        Product testProduct = testProduct(testUser().build()).version(3).build();
+
+        when(productService.findById(testProduct.getId())).thenReturn(Optional.of(testProduct));
+
+        mockMvc.perform(get("/api/products/{id}", testProduct.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1-3\""));
+        verify(productService, never()).findVersion(anyLong());
+    }
+
+    @DisplayName("Get a product with a current If-None-Match returns 304 without loading it")
+    @Test
+    void getProductNotModified() throws Exception {
+        when(productService.findVersion(1L)).thenReturn(Optional.of(3));
+
+        mockMvc.perform(get("/api/products/{id}", 1L).header(HttpHeaders.IF_NONE_MATCH, "\"1-3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1-3\""))
+                .andExpect(content().string(""));
+        verify(productService, never()).findById(anyLong());
+    }
+
+    @DisplayName("Get a product with a stale If-None-Match returns the product")
+    @Test
+    void getProductModified() throws Exception {
+        Product testProduct = testProduct(testUser().build()).version(4).build();
+
+        when(productService.findVersion(testProduct.getId())).thenReturn(Optional.of(4));
+        when(productService.findById(testProduct.getId())).thenReturn(Optional.of(testProduct));
+
+        mockMvc.perform(get("/api/products/{id}", testProduct.getId()).header(HttpHeaders.IF_NONE_MATCH, "\"1-3\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1-4\""))
+                .andExpect(jsonPath("$.version").value(4));
+    }
+
+    @DisplayName("Get a non-existing product with If-None-Match returns 404")
+    @Test
+    void getNonExistingProductConditional() throws Exception {
+        when(productService.findVersion(Long.MAX_VALUE)).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/products/{id}", Long.MAX_VALUE).header(HttpHeaders.IF_NONE_MATCH, "\"1-3\""))
+                .andExpect(status().isNotFound());
+    }
+
+    @DisplayName("Get a product with the JSON cache enabled writes the cached gzip bytes without loading it")
+    @Test
+    void getProductPreserializedGzip() throws Exception {
+        Product testProduct = testProduct(testUser().build()).version(3).build();
+        byte[] json = objectMapper.writeValueAsBytes(productMapper.entityToResponse(testProduct));
+        byte[] gzip = gzip(json);
+
+        when(productJsonCache.isEnabled()).thenReturn(true);
+        when(productService.findVersion(1L)).thenReturn(Optional.of(3));
+        when(productJsonCache.get(1L, 3)).thenReturn(new ProductJsonCache.Encoded(1L, 3, json, gzip));
+
+        byte[] body = mockMvc.perform(get("/api/products/{id}", 1L).header(HttpHeaders.ACCEPT_ENCODING, "br, gzip;q=0.8"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1-3-gzip\""))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING))
+                .andReturn().getResponse().getContentAsByteArray();
+        assertArrayEquals(json, new GZIPInputStream(new ByteArrayInputStream(body)).readAllBytes());
+        verify(productService, never()).findById(anyLong());
+    }
+
+    @DisplayName("Get a product missing from the JSON cache encodes it once")
+    @Test
+    void getProductPreserializedMiss() throws Exception {
+        Product testProduct = testProduct(testUser().build()).version(3).build();
+        byte[] json = objectMapper.writeValueAsBytes(productMapper.entityToResponse(testProduct));
+
+        when(productJsonCache.isEnabled()).thenReturn(true);
+        when(productService.findVersion(1L)).thenReturn(Optional.of(3));
+        when(productService.findById(1L)).thenReturn(Optional.of(testProduct));
+        when(productJsonCache.encode(testProduct)).thenReturn(new ProductJsonCache.Encoded(1L, 3, json, gzip(json)));
+
+        mockMvc.perform(get("/api/products/{id}", 1L).header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1-3\""))
+                .andExpect(content().json(objectMapper.writeValueAsString(productMapper.entityToResponse(testProduct))));
+        verify(productJsonCache).encode(testProduct);
+    }
+
+    @DisplayName("Get several products returns them in request order and reports missing ids")
+    @Test
+    void getSeveralProducts() throws Exception {
+        User testUser = testUser().build();
+        Product first = testProduct(testUser).id(3L).build();
+        Product second = testProduct(testUser).id(1L).build();
+
+        when(productService.findAllById(eq(List.of(3L, 2L, 1L)), any())).thenReturn(orderedById(first, second));
+
+        mockMvc.perform(get("/api/products").param("ids", "3,2,1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id").value(3))
+                .andExpect(jsonPath("$.items[1].id").value(1))
+                .andExpect(jsonPath("$.missing[0]").value(2));
+    }
+
+    @DisplayName("Get several products with an invalid id returns 400")
+    @Test
+    void getSeveralProductsBadId() throws Exception {
+        mockMvc.perform(get("/api/products").param("ids", "1,0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @DisplayName("List products returns the page and the next cursor")
+    @Test
+    void listProducts() throws Exception {
+        User testUser = testUser().build();
+        Product testProduct = testProduct(testUser).build();
+        ProductCursor next = ProductSortKey.ID.cursorOf(testProduct);
+
+        when(productService.findPage(isNull(), eq(ProductSortKey.ID), eq(1), any())).thenReturn(new ProductPage(List.of(testProduct), next));
+
+        mockMvc.perform(get("/api/products").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id").value(testProduct.getId()))
+                .andExpect(jsonPath("$.nextCursor").value(next.encode()));
+    }
+
+    @DisplayName("List products with a malformed cursor returns 400")
+    @Test
+    void listProductsBadCursor() throws Exception {
+        mockMvc.perform(get("/api/products").param("cursor", "not a cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @DisplayName("List products with a limit out of range returns 400")
+    @Test
+    void listProductsBadLimit() throws Exception {
+        mockMvc.perform(get("/api/products").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @DisplayName("Search products returns the hits in rank order")
+    @Test
+    void searchProducts() throws Exception {
+        User testUser = testUser().build();
+        Product first = testProduct(testUser).id(2L).build();
+        Product second = testProduct(testUser).id(1L).build();
+
+        when(productSearchIndex.search("test", 20)).thenReturn(List.of(new ProductSearchIndex.SearchHit(2L, 2.0), new ProductSearchIndex.SearchHit(1L, 1.0)));
+        when(productService.findAllById(eq(List.of(2L, 1L)), any())).thenReturn(orderedById(first, second));
+
+        mockMvc.perform(get("/api/products/search").param("q", "test"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(2))
+                .andExpect(jsonPath("$[1].id").value(1));
+    }
+
+    @DisplayName("Search products without a query returns 400")
+    @Test
+    void searchProductsBlankQuery() throws Exception {
+        mockMvc.perform(get("/api/products/search").param("q", " "))
+                .andExpect(status().isBadRequest());
+    }
+
     @DisplayName("Create a product")
     @Test
     @Disabled
@@ -81,6 +301,7 @@ public class ProductControllerTest {
                 .active(true)
                 .description("Test description")
                 .ownerId(testUser.getId())
+                .price(1000L)
                 .name("Test product")
                 .build();
         Product product = productMapper.createToEntity(request);
@@ -104,6 +325,7 @@ public class ProductControllerTest {
                 .active(testProduct.isActive())
                 .description(testProduct.getDescription())
                 .ownerId(testUser.getId())
+                .price(1000L)
                 .name(testProduct.getName())
                 .build();
 
@@ -115,6 +337,120 @@ public class ProductControllerTest {
                 .andExpect(status().isBadRequest());
     }
 
+    @DisplayName("Create a product priced above the highest price returns a 400 status")
+    @Test
+    void createProductPriceTooHigh() throws Exception {
+        ProductCreateRequest request = ProductCreateRequest.builder()
+                .ownerId(1)
+                .price(TotalsCalculator.MAX_UNIT_PRICE + 1)
+                .name("Test product")
+                .build();
+
+        mockMvc.perform(post("/api/products")
+                        .content(objectMapper.writeValueAsString(request))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+        verify(productService, never()).create(any());
+    }
+
+    @DisplayName("Import products streams errors, progress and a summary")
+    @Test
+    void importProducts() throws Exception {
+        when(productImportService.importNdjson(any(), any())).thenAnswer(invocation -> {
+            ProductImportService.Listener listener = invocation.getArgument(1);
+            listener.onRowError(2, "Owner cannot be found");
+            listener.onProgress(2, 1);
+            return new ProductImportService.Summary(2, 1, 1);
+        });
+
+        mockMvc.perform(post("/api/products/import")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{}\n{}"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string("""
+                        {"type":"ERROR","line":2,"message":"Owner cannot be found"}
+                        {"type":"PROGRESS","processed":2,"imported":1}
+                        {"type":"SUMMARY","processed":2,"imported":1,"failed":1}
+                        """));
+    }
+
+    @DisplayName("Bulk deactivate products by id as an administrator returns the affected count")
+    @Test
+    void deactivateAll() throws Exception {
+        when(productService.deactivateAllById(List.of(1L, 2L))).thenReturn(2);
+
+        mockMvc.perform(post("/api/products/bulk/deactivate")
+                        .header(HttpHeaders.AUTHORIZATION, bearer(Role.ADMINISTRATOR))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":[1,2]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.affected").value(2));
+    }
+
+    @DisplayName("Bulk delete products by owner as an administrator returns the affected count")
+    @Test
+    void deleteAllByOwner() throws Exception {
+        when(productService.deleteAllByOwner(3L)).thenReturn(5);
+
+        mockMvc.perform(post("/api/products/bulk/delete")
+                        .header(HttpHeaders.AUTHORIZATION, bearer(Role.ADMINISTRATOR))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ownerId\":3}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.affected").value(5));
+    }
+
+    @DisplayName("Bulk operations need exactly one of ids and ownerId")
+    @Test
+    void bulkBadTarget() throws Exception {
+        mockMvc.perform(post("/api/products/bulk/delete")
+                        .header(HttpHeaders.AUTHORIZATION, bearer(Role.ADMINISTRATOR))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":[1],\"ownerId\":3}"))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(productService);
+    }
+
+    @DisplayName("Bulk operations are forbidden to customers and anonymous clients")
+    @Test
+    void bulkNotAdministrator() throws Exception {
+        mockMvc.perform(post("/api/products/bulk/delete")
+                        .header(HttpHeaders.AUTHORIZATION, bearer(Role.CUSTOMER))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ownerId\":3}"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(post("/api/products/bulk/delete")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ownerId\":3}"))
+                .andExpect(status().isUnauthorized());
+        verifyNoInteractions(productService);
+    }
+
+    @DisplayName("Export products writes one gzipped json line per product")
+    @Test
+    void exportProductsGzip() throws Exception {
+        User testUser = testUser().build();
+        Product first = testProduct(testUser).id(1L).build();
+        Product second = testProduct(testUser).id(2L).build();
+
+        when(productExportService.export(any(), any())).thenAnswer(invocation -> {
+            Consumer<Product> consumer = invocation.getArgument(1);
+            consumer.accept(first);
+            consumer.accept(second);
+            return 2L;
+        });
+
+        byte[] body = mockMvc.perform(get("/api/products/export").param("gzip", "true"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        String lines = new String(new GZIPInputStream(new ByteArrayInputStream(body)).readAllBytes(), StandardCharsets.UTF_8);
+        assertEquals(objectMapper.writeValueAsString(productMapper.entityToResponse(first)) + "\n"
+                + objectMapper.writeValueAsString(productMapper.entityToResponse(second)) + "\n", lines);
+    }
+
     @DisplayName("Delete a product by id")
     @Test
     void deleteProduct() throws Exception {
@@ -0,0 +1,76 @@
+package com.demo.ecommerce.products;
+
+import com.demo.ecommerce.common.TestUsers;
+import com.demo.ecommerce.users.User;
+import com.demo.ecommerce.users.UserRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("Integration")
+@SpringBootTest(properties = "products.export.fetch-size=2")
+public class ProductExportServiceIntegrationTest {
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductExportService productExportService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @DisplayName("Export streams filtered products in id order and detaches them")
+    @Transactional
+    @Test
+    void export() {
+        User user = userRepository.save(TestUsers.customer().build());
+        Product first = productRepository.save(Product.builder().name("Exported Product").user(user).build());
+        Product inactive = productRepository.save(Product.builder().name("Inactive Product").user(user).active(false).build());
+        Product second = productRepository.save(Product.builder().name("Exported Product").user(user).build());
+        entityManager.flush();
+        entityManager.clear();
+
+        List<Product> products = new ArrayList<>();
+        long exported = productExportService.export(ProductService.DEFAULT_FILTER_FLAGS, products::add);
+        List<Long> ids = products.stream().map(Product::getId).toList();
+
+        assertEquals(ids.size(), exported);
+        assertEquals(ids.stream().sorted().toList(), ids);
+        assertTrue(ids.containsAll(List.of(first.getId(), second.getId())));
+        assertFalse(ids.contains(inactive.getId()));
+        assertTrue(products.stream().noneMatch(entityManager::contains));
+    }
+
+    @DisplayName("Export does not keep the owners of exported products")
+    @Transactional
+    @Test
+    void exportOwners() {
+        List<Long> productIds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            User user = userRepository.save(TestUsers.customer().build());
+            productIds.add(productRepository.save(Product.builder().name("Exported Product").user(user).build()).getId());
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        List<User> owners = new ArrayList<>();
+        productExportService.export(ProductService.DEFAULT_FILTER_FLAGS, product -> {
+            if (productIds.contains(product.getId())) owners.add(product.getUser());
+        });
+
+        assertEquals(5, owners.size());
+        assertTrue(owners.stream().noneMatch(entityManager::contains));
+    }
+}
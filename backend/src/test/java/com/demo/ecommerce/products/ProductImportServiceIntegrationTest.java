@@ -0,0 +1,102 @@
+package com.demo.ecommerce.products;
+
+import com.demo.ecommerce.common.TestUsers;
+import com.demo.ecommerce.users.User;
+import com.demo.ecommerce.users.UserRepository;
+import com.demo.ecommerce.users.UserService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@Tag("Integration")
+@SpringBootTest(properties = "products.import.chunk-size=2")
+public class ProductImportServiceIntegrationTest {
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductImportService productImportService;
+
+    @MockitoSpyBean
+    private UserService userService;
+
+    private static class RecordingListener implements ProductImportService.Listener {
+        final List<Long> errorLines = new ArrayList<>();
+        final List<Long> progress = new ArrayList<>();
+
+        @Override
+        public void onRowError(long line, String message) {
+            errorLines.add(line);
+        }
+
+        @Override
+        public void onProgress(long processed, long imported) {
+            progress.add(imported);
+        }
+    }
+
+    private ProductImportService.Summary importLines(RecordingListener listener, String... lines) throws Exception {
+        byte[] input = String.join("\n", lines).getBytes(StandardCharsets.UTF_8);
+        return productImportService.importNdjson(new ByteArrayInputStream(input), listener);
+    }
+
+    @DisplayName("Import valid rows in chunks and report invalid ones by line")
+    @Test
+    void importNdjson() throws Exception {
+        User user = userRepository.save(TestUsers.customer().build());
+        long owner = user.getId();
+        long products = productRepository.count();
+        RecordingListener listener = new RecordingListener();
+
+        ProductImportService.Summary summary = importLines(listener,
+                "{\"name\":\"Imported 1\",\"price\":1000,\"ownerId\":%d}".formatted(owner),
+                "{\"name\":\"\",\"price\":1000,\"ownerId\":%d}".formatted(owner),
+                "",
+                "{\"name\":\"Imported 2\",\"price\":1000,\"ownerId\":%d}".formatted(Long.MAX_VALUE),
+                "{\"name\":\"Imported 3\",\"price\":1000,\"ownerId\":%d,\"active\":false}".formatted(owner),
+                "{not json",
+                "{\"name\":\"Imported 4\",\"description\":\"Last\",\"price\":1000,\"ownerId\":%d}".formatted(owner),
+                "{\"name\":\"No price\",\"ownerId\":%d}".formatted(owner));
+
+        assertEquals(new ProductImportService.Summary(7, 3, 4), summary);
+        assertEquals(List.of(2L, 4L, 6L, 8L), listener.errorLines);
+        assertEquals(List.of(2L, 3L), listener.progress);
+        assertEquals(products + 3, productRepository.count());
+    }
+
+    @DisplayName("Look up each owner id once, including ids that do not exist")
+    @Test
+    void importNdjsonOwnerLookups() throws Exception {
+        User user = userRepository.save(TestUsers.customer().build());
+        long owner = user.getId();
+        long missing = Long.MAX_VALUE;
+        RecordingListener listener = new RecordingListener();
+
+        ProductImportService.Summary summary = importLines(listener,
+                "{\"name\":\"Imported 1\",\"price\":1000,\"ownerId\":%d}".formatted(missing),
+                "{\"name\":\"Imported 2\",\"price\":1000,\"ownerId\":%d}".formatted(owner),
+                "{\"name\":\"Imported 3\",\"price\":1000,\"ownerId\":%d}".formatted(missing),
+                "{\"name\":\"Imported 4\",\"price\":1000,\"ownerId\":%d}".formatted(owner),
+                "{\"name\":\"Imported 5\",\"price\":1000,\"ownerId\":%d}".formatted(missing));
+
+        assertEquals(new ProductImportService.Summary(5, 2, 3), summary);
+        assertEquals(List.of(1L, 3L, 5L), listener.errorLines);
+        verify(userService, times(1)).findReferenceById(missing);
+        verify(userService, times(1)).findReferenceById(owner);
+    }
+}
@@ -0,0 +1,79 @@
+package com.demo.ecommerce.products;
+
+import com.demo.ecommerce.common.TestUsers;
+import com.demo.ecommerce.products.dto.ProductResponse;
+import com.demo.ecommerce.products.dto.ProductUpdateRequest;
+import com.demo.ecommerce.users.User;
+import com.demo.ecommerce.users.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayInputStream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("Integration")
+@SpringBootTest
+public class ProductJsonCacheIntegrationTest {
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductJsonCache productJsonCache;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Product testProduct() {
+        User user = userRepository.save(TestUsers.customer().build());
+        return productRepository.save(Product.builder().name("Test Product").description("This is a test product for testing purposes").user(user).build());
+    }
+
+    @DisplayName("Encoded products are cached for their version as JSON and gzip")
+    @Test
+    void encode() throws Exception {
+        Product product = testProduct();
+
+        ProductJsonCache.Encoded encoded = productJsonCache.encode(product);
+
+        assertSame(encoded, productJsonCache.get(product.getId(), product.getVersion()));
+        assertNull(productJsonCache.get(product.getId(), product.getVersion() + 1));
+        assertEquals(product.getName(), objectMapper.readValue(encoded.json(), ProductResponse.class).getName());
+        assertArrayEquals(encoded.json(), new GZIPInputStream(new ByteArrayInputStream(encoded.gzip())).readAllBytes());
+    }
+
+    @DisplayName("Product writes evict the encoded product")
+    @Test
+    void evictedOnWrite() {
+        Product product = testProduct();
+        productJsonCache.encode(product);
+
+        Product updated = productService.updateById(product.getId(), ProductUpdateRequest.builder().name("Changed Product").build());
+
+        assertNull(productJsonCache.get(product.getId(), product.getVersion()));
+        assertNull(productJsonCache.get(updated.getId(), updated.getVersion()));
+    }
+
+    @DisplayName("An older version never replaces a newer one")
+    @Test
+    void olderVersionIgnored() {
+        Product product = testProduct();
+        Product updated = productService.updateById(product.getId(), ProductUpdateRequest.builder().name("Changed Product").build());
+
+        productJsonCache.encode(updated);
+        productJsonCache.encode(product);
+
+        assertNotNull(productJsonCache.get(updated.getId(), updated.getVersion()));
+    }
+}
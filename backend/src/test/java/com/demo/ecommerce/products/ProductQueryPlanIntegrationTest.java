@@ -0,0 +1,168 @@
+package com.demo.ecommerce.products;
+
+import com.demo.ecommerce.common.TestUsers;
+import com.demo.ecommerce.users.User;
+import com.demo.ecommerce.users.UserRepository;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs EXPLAIN on the SQL the product queries generate and fails when one stops using the expected index, or when a
+ * listing starts issuing more statements per page.
+ */
+@Tag("Integration")
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.demo.ecommerce.products.ProductQueryPlanIntegrationTest$StatementRecorder")
+public class ProductQueryPlanIntegrationTest {
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // H2 generates the name of the primary key index and renames it whenever a migration copies the table
+    private String primaryKey;
+
+    /**
+     * Records the SQL Hibernate sends to the database.
+     */
+    public static class StatementRecorder implements StatementInspector {
+        static final List<String> statements = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        User user = userRepository.save(TestUsers.customer().build());
+        for (int i = 0; i < 20; i++) {
+            productRepository.save(Product.builder().name("Test Product " + i).user(user).build());
+        }
+        cacheManager.getCache(ProductCache.CACHE_NAME).clear();
+        primaryKey = jdbcTemplate.queryForObject("select index_name from information_schema.indexes where table_name = 'PRODUCTS' and index_type_name = 'PRIMARY KEY'", String.class);
+    }
+
+    /**
+     * Runs an action and explains every product query it executed. Parameters are bound to null, H2 picks the
+     * index from the shape of the query alone.
+     */
+    private List<String> plansOf(Runnable action) {
+        StatementRecorder.statements.clear();
+        action.run();
+        List<String> plans = StatementRecorder.statements.stream()
+                .filter(sql -> sql.startsWith("select") && sql.contains(" from products "))
+                .map(sql -> jdbcTemplate.query("explain " + sql,
+                        statement -> {
+                            for (int i = 1; i <= statement.getParameterMetaData().getParameterCount(); i++) statement.setObject(i, null);
+                        },
+                        result -> result.next() ? result.getString(1) : null))
+                .toList();
+        assertFalse(plans.isEmpty(), "No product query was executed");
+        return plans;
+    }
+
+    private void assertPlans(List<String> plans, String... expected) {
+        for (String plan : plans) {
+            assertFalse(plan.contains("tableScan"), () -> "Table scan:\n" + plan);
+            for (String fragment : expected) assertTrue(plan.contains(fragment), () -> "Expected '" + fragment + "' in:\n" + plan);
+        }
+    }
+
+    @DisplayName("Find by id uses the primary key")
+    @Test
+    void findById() {
+        long id = productRepository.findAll().getFirst().getId();
+        assertPlans(plansOf(() -> productService.findById(id)), primaryKey + ": ID = ?1");
+        assertPlans(plansOf(() -> productService.findById(id, EnumSet.noneOf(ProductExcludeFlag.class))), primaryKey + ": ID = ?1");
+    }
+
+    @DisplayName("Find the version of a product uses the primary key")
+    @Test
+    void findVersion() {
+        long id = productRepository.findAll().getFirst().getId();
+        assertPlans(plansOf(() -> productService.findVersion(id)), primaryKey + ": ID = ?1");
+    }
+
+    @DisplayName("Find several products by id uses the primary key")
+    @Test
+    void findAllById() {
+        assertPlans(plansOf(() -> productService.findAllById(List.of(1L, 2L, 3L), ProductService.DEFAULT_FILTER_FLAGS)), primaryKey + ": ID IN(");
+    }
+
+    @DisplayName("Paging by id reads the primary key in order and seeks to the cursor")
+    @Test
+    void findPageById() {
+        ProductPage first = productService.findPage(null, ProductSortKey.ID, 5, ProductService.DEFAULT_FILTER_FLAGS);
+
+        assertPlans(plansOf(() -> productService.findPage(null, ProductSortKey.ID, 5, ProductService.DEFAULT_FILTER_FLAGS)),
+                primaryKey, "index sorted");
+        assertPlans(plansOf(() -> productService.findPage(first.next(), ProductSortKey.ID, 5, ProductService.DEFAULT_FILTER_FLAGS)),
+                primaryKey + ": ID > ?", "index sorted");
+    }
+
+    @DisplayName("Paging by update time reads the (updated_at, id) index in order and seeks to the cursor")
+    @Test
+    void findPageByUpdatedAt() {
+        ProductPage first = productService.findPage(null, ProductSortKey.UPDATED_AT, 5, ProductService.DEFAULT_FILTER_FLAGS);
+
+        assertPlans(plansOf(() -> productService.findPage(null, ProductSortKey.UPDATED_AT, 5, ProductService.DEFAULT_FILTER_FLAGS)),
+                "IDX_PRODUCTS_UPDATED_AT_ID", "index sorted");
+        assertPlans(plansOf(() -> productService.findPage(first.next(), ProductSortKey.UPDATED_AT, 5, ProductService.DEFAULT_FILTER_FLAGS)),
+                "IDX_PRODUCTS_UPDATED_AT_ID: UPDATED_AT >= ?", "index sorted");
+    }
+
+    @DisplayName("Paging the products of an owner reads the (owner_id, id) index in order and seeks to the cursor")
+    @Test
+    void findPageByOwner() {
+        long owner = productRepository.findAll().getFirst().getUser().getId();
+        ProductPage first = productService.findPageByOwner(owner, null, 5, ProductService.DEFAULT_FILTER_FLAGS);
+
+        assertPlans(plansOf(() -> productService.findPageByOwner(owner, null, 5, ProductService.DEFAULT_FILTER_FLAGS)),
+                "IDX_PRODUCTS_OWNER_ID_ID: OWNER_ID = ?1", "AND ID > ?2", "/* index sorted */");
+        assertPlans(plansOf(() -> productService.findPageByOwner(owner, first.next(), 5, ProductService.DEFAULT_FILTER_FLAGS)),
+                "IDX_PRODUCTS_OWNER_ID_ID: OWNER_ID = ?1", "AND ID > ?2", "/* index sorted */");
+    }
+
+    @DisplayName("Paging the products of an owner and reading their owners takes one statement per page")
+    @Test
+    void findPageByOwnerStatementCount() {
+        long owner = productRepository.findAll().getFirst().getUser().getId();
+        ProductCursor cursor = null;
+        int pages = 0;
+        do {
+            StatementRecorder.statements.clear();
+            ProductPage page = productService.findPageByOwner(owner, cursor, 5, ProductService.DEFAULT_FILTER_FLAGS);
+            // Outside the transaction, an owner that was not fetched would throw instead of being loaded
+            page.products().forEach(product -> assertEquals("Test User", product.getUser().getName()));
+            assertEquals(1, StatementRecorder.statements.size(), () -> String.join("\n", StatementRecorder.statements));
+            cursor = page.next();
+            pages++;
+        } while (cursor != null);
+        assertTrue(pages > 1);
+    }
+}
@@ -1,5 +1,6 @@
 package com.demo.ecommerce.products;
 
+import com.demo.ecommerce.common.TestUsers;
 import com.demo.ecommerce.common.exceptions.BadRequestException;
 import com.demo.ecommerce.common.exceptions.ResourceNotFoundException;
 import com.demo.ecommerce.products.dto.ProductCreateRequest;
@@ -7,12 +8,24 @@ import com.demo.ecommerce.products.dto.ProductUpdateRequest;
 import com.demo.ecommerce.users.Role;
 import com.demo.ecommerce.users.User;
 import com.demo.ecommerce.users.UserRepository;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.validation.ConstraintViolationException;
+import org.hibernate.Hibernate;
 import org.junit.jupiter.api.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -28,15 +41,25 @@ public class ProductServiceIntegrationTest {
     @Autowired
     private ProductService productService;
 
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private CacheStats productCacheStats() {
+        return ((CaffeineCache) cacheManager.getCache(ProductCache.CACHE_NAME)).getNativeCache().stats();
+    }
+
     @DisplayName("Create a product")
     @Transactional
     @Test
     void create() {
-        User user = userRepository.save(User.builder().name("Test User").email("test@outlook.com").role(Role.CUSTOMER).password("1234").build());
+        User user = userRepository.save(TestUsers.customer().build());
         String name = "Test Product 2";
         String description = "Test description";
 
-        ProductCreateRequest product = ProductCreateRequest.builder().name(name).description(description).ownerId(user.getId()).build();
+        ProductCreateRequest product = ProductCreateRequest.builder().name(name).description(description).price(1000L).ownerId(user.getId()).build();
         Product newProduct = productService.create(product);
 
         assertTrue(productRepository.existsById(newProduct.getId()));
@@ -44,6 +67,28 @@ public class ProductServiceIntegrationTest {
         assertEquals(product.getDescription(), newProduct.getDescription());
     }
 
+    @DisplayName("Create a product references the owner without loading it")
+    @Test
+    void createOwnerReference() {
+        User user = userRepository.save(TestUsers.customer().build());
+
+        Product product = productService.create(ProductCreateRequest.builder().name("Test Product").price(1000L).ownerId(user.getId()).build());
+
+        assertFalse(Hibernate.isInitialized(product.getUser()));
+        assertEquals(user.getId(), product.getUser().getId());
+    }
+
+    @DisplayName("A product needs a price when created, updates without one keep it")
+    @Test
+    void price() {
+        User user = userRepository.save(TestUsers.customer().build());
+        assertThrows(ConstraintViolationException.class, () -> productService.create(ProductCreateRequest.builder().name("Test Product").ownerId(user.getId()).build()));
+
+        Product product = productService.create(ProductCreateRequest.builder().name("Test Product").price(1250L).ownerId(user.getId()).build());
+        assertEquals(1250, productService.updateById(product.getId(), ProductUpdateRequest.builder().name("Changed Product").build()).getPrice());
+        assertEquals(990, productService.updateById(product.getId(), ProductUpdateRequest.builder().name("Changed Product").price(990L).build()).getPrice());
+    }
+
     @DisplayName("Create a product with user that doesn't exist throws BadRequestException")
     @Transactional
     @Test
@@ -51,14 +96,14 @@ public class ProductServiceIntegrationTest {
         String name = "Test Product 2";
         String description = "Test description";
 
-        ProductCreateRequest product = ProductCreateRequest.builder().name(name).description(description).ownerId(Long.MAX_VALUE).build();
+        ProductCreateRequest product = ProductCreateRequest.builder().name(name).description(description).price(1000L).ownerId(Long.MAX_VALUE).build();
         assertThrows(BadRequestException.class, () -> productService.create(product));
     }
 
     @DisplayName("Find a product by id")
     @Test
     void findById() {
-        User user = userRepository.save(User.builder().name("Test User").email("test@outlook.com").role(Role.CUSTOMER).password("1234").build());
+        User user = userRepository.save(TestUsers.customer().build());
         Product product = productRepository.save(Product.builder().name("Test Product").description("This is a test product for testing purposes").user(user).build());
 
         assertTrue(productService.findById(product.getId()).isPresent());
@@ -75,7 +120,7 @@ public class ProductServiceIntegrationTest {
     @DisplayName("Find an inactive product by id using default filters returns empty")
     @Test
     void findByIdInactive(){
-        User user = userRepository.save(User.builder().name("Test User").email("test@outlook.com").role(Role.CUSTOMER).password("1234").build());
+        User user = userRepository.save(TestUsers.customer().build());
         Product product = productRepository.save(Product.builder().name("Test Product").description("This is a test product for testing purposes").user(user).active(false).build());
 
         assertTrue(productRepository.existsById(product.getId()));
@@ -86,7 +131,7 @@ public class ProductServiceIntegrationTest {
     @DisplayName("Find a deleted product by id using default filters returns empty")
     @Test
     void findByIdDeleted(){
-        User user = userRepository.save(User.builder().name("Test User").email("test@outlook.com").role(Role.CUSTOMER).password("1234").build());
+        User user = userRepository.save(TestUsers.customer().build());
         Product product = productRepository.save(Product.builder().name("Test Product").description("This is a test product for testing purposes").user(user).build());
 
         productService.deleteById(product.getId());
@@ -96,14 +141,199 @@ public class ProductServiceIntegrationTest {
         assertEquals(product, productService.findById(product.getId(), EnumSet.noneOf(ProductExcludeFlag.class)).get());
     }
 
+    @DisplayName("Repeated lookups of a product are served from the cache")
+    @Test
+    void findByIdCached(){
+        User user = userRepository.save(TestUsers.customer().build());
+        Product product = productRepository.save(Product.builder().name("Test Product").description("This is a test product for testing purposes").user(user).build());
+
+        long hits = productCacheStats().hitCount();
+        assertTrue(productService.findById(product.getId()).isPresent());
+        assertTrue(productService.findById(product.getId()).isPresent());
+        assertEquals(hits + 1, productCacheStats().hitCount());
+    }
+
+    @DisplayName("Cached products are refreshed by updates and deletes")
+    @Test
+    void findByIdCachedRefreshedOnWrite(){
+        User user = userRepository.save(TestUsers.customer().build());
+        Product product = productRepository.save(Product.builder().name("Test Product").description("This is a test product for testing purposes").user(user).build());
+        int version = productService.findById(product.getId()).get().getVersion();
+
+        productService.updateById(product.getId(), ProductUpdateRequest.builder().name("Changed Product").build());
+        Product updated = productService.findById(product.getId()).get();
+        assertEquals("Changed Product", updated.getName());
+        assertEquals(version + 1, updated.getVersion());
+
+        productService.deleteById(product.getId());
+        assertTrue(productService.findById(product.getId()).isEmpty());
+        assertNotNull(productService.findById(product.getId(), EnumSet.noneOf(ProductExcludeFlag.class)).get().getDeletedAt());
+    }
+
+    @DisplayName("Find the version of a product follows its updates and filters")
+    @Test
+    void findVersion(){
+        User user = userRepository.save(TestUsers.customer().build());
+        Product product = productRepository.save(Product.builder().name("Test Product").description("This is a test product for testing purposes").user(user).build());
+
+        assertEquals(product.getVersion(), productService.findVersion(product.getId()).get());
+        productService.updateById(product.getId(), ProductUpdateRequest.builder().name("Changed Product").build());
+        assertEquals(product.getVersion() + 1, productService.findVersion(product.getId()).get());
+
+        productService.deleteById(product.getId());
+        assertTrue(productService.findVersion(product.getId()).isEmpty());
+        assertEquals(product.getVersion() + 2, productService.findVersion(product.getId(), EnumSet.noneOf(ProductExcludeFlag.class)).get());
+        assertTrue(productService.findVersion(Long.MAX_VALUE).isEmpty());
+    }
+
+    @DisplayName("Find several products by id keeps the request order and skips missing and filtered ones")
+    @Test
+    void findAllById(){
+        User user = userRepository.save(TestUsers.customer().build());
+        Product first = productRepository.save(Product.builder().name("Test Product").user(user).build());
+        Product second = productRepository.save(Product.builder().name("Test Product").user(user).build());
+        Product inactive = productRepository.save(Product.builder().name("Test Product").user(user).active(false).build());
+        // Warm the cache for one of them so both the cached and the queried paths are used
+        productService.findById(first.getId());
+
+        Map<Long, Product> found = productService.findAllById(List.of(second.getId(), Long.MAX_VALUE, inactive.getId(), first.getId()), ProductService.DEFAULT_FILTER_FLAGS);
+
+        assertEquals(List.of(second.getId(), first.getId()), List.copyOf(found.keySet()));
+    }
+
+    @DisplayName("Page through products by id skipping filtered ones")
+    @Test
+    void findPageById(){
+        User user = userRepository.save(TestUsers.customer().build());
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(productRepository.save(Product.builder().name("Paged Product " + i).user(user).build()).getId());
+        }
+        productRepository.save(Product.builder().name("Inactive Product").user(user).active(false).build());
+
+        ProductPage first = productService.findPage(new ProductCursor(ProductSortKey.ID, null, ids.getFirst() - 1), ProductSortKey.ID, 3, ProductService.DEFAULT_FILTER_FLAGS);
+        assertEquals(ids.subList(0, 3), first.products().stream().map(Product::getId).toList());
+        assertNotNull(first.next());
+
+        ProductPage second = productService.findPage(ProductCursor.decode(first.next().encode()), ProductSortKey.ID, 3, ProductService.DEFAULT_FILTER_FLAGS);
+        assertEquals(ids.subList(3, 5), second.products().stream().map(Product::getId).toList());
+        assertNull(second.next());
+    }
+
+    @DisplayName("Page through the products of one owner with the owner fetched")
+    @Test
+    void findPageByOwner(){
+        User owner = userRepository.save(TestUsers.customer().build());
+        User other = userRepository.save(TestUsers.customer().name("Other User").build());
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            ids.add(productRepository.save(Product.builder().name("Owned Product " + i).user(owner).build()).getId());
+            productRepository.save(Product.builder().name("Other Product " + i).user(other).build());
+        }
+        productRepository.save(Product.builder().name("Inactive Product").user(owner).active(false).build());
+
+        ProductPage first = productService.findPageByOwner(owner.getId(), null, 2, ProductService.DEFAULT_FILTER_FLAGS);
+        assertEquals(ids.subList(0, 2), first.products().stream().map(Product::getId).toList());
+        assertTrue(Hibernate.isInitialized(first.products().getFirst().getUser()));
+        assertEquals("Test User", first.products().getFirst().getUser().getName());
+
+        ProductPage second = productService.findPageByOwner(owner.getId(), first.next(), 2, ProductService.DEFAULT_FILTER_FLAGS);
+        assertEquals(ids.subList(2, 3), second.products().stream().map(Product::getId).toList());
+        assertNull(second.next());
+
+        ProductCursor byUpdate = new ProductCursor(ProductSortKey.UPDATED_AT, Instant.now(), 1);
+        assertThrows(BadRequestException.class, () -> productService.findPageByOwner(owner.getId(), byUpdate, 2, ProductService.DEFAULT_FILTER_FLAGS));
+    }
+
+    @DisplayName("Deactivate products by id in one statement, bumping versions and skipping inactive ones")
+    @Test
+    void deactivateAllById(){
+        User user = userRepository.save(TestUsers.customer().build());
+        Product first = productRepository.save(Product.builder().name("Bulk Product 1").user(user).build());
+        Product second = productRepository.save(Product.builder().name("Bulk Product 2").user(user).build());
+        Product inactive = productRepository.save(Product.builder().name("Inactive Product").user(user).active(false).build());
+        // Cached before the bulk update, must not be served afterwards
+        assertTrue(productService.findById(first.getId()).isPresent());
+
+        assertEquals(2, productService.deactivateAllById(List.of(first.getId(), second.getId(), inactive.getId(), first.getId(), Long.MAX_VALUE)));
+
+        Product deactivated = productRepository.findById(first.getId()).orElseThrow();
+        assertFalse(deactivated.isActive());
+        assertNull(deactivated.getDeletedAt());
+        assertEquals(first.getVersion() + 1, deactivated.getVersion());
+        assertTrue(deactivated.getUpdatedAt().isAfter(first.getUpdatedAt()));
+        assertEquals(inactive.getVersion(), productRepository.findById(inactive.getId()).orElseThrow().getVersion());
+        assertTrue(productService.findById(first.getId()).isEmpty());
+        assertEquals(Optional.of(first.getVersion() + 1), productService.findVersion(first.getId(), EnumSet.noneOf(ProductExcludeFlag.class)));
+    }
+
+    @DisplayName("A reader that loaded a product before a bulk update commits cannot cache it afterwards")
+    @Test
+    void deactivateAllByIdRacingReader() throws Exception {
+        User user = userRepository.save(TestUsers.customer().build());
+        Product product = productRepository.save(Product.builder().name("Bulk Product").user(user).build());
+
+        // The reader's copy is only cached when its transaction commits, after the bulk update committed on another thread
+        transactionTemplate.executeWithoutResult(status -> {
+            assertTrue(productService.findById(product.getId()).isPresent());
+            CompletableFuture.runAsync(() -> assertEquals(1, productService.deactivateAllById(List.of(product.getId())))).join();
+        });
+
+        assertTrue(productService.findById(product.getId()).isEmpty());
+        assertEquals(Optional.empty(), productService.findVersion(product.getId()));
+        assertEquals(Optional.of(product.getVersion() + 1), productService.findVersion(product.getId(), EnumSet.noneOf(ProductExcludeFlag.class)));
+        // The tombstone gives way to the committed state
+        assertFalse(productService.findById(product.getId(), EnumSet.noneOf(ProductExcludeFlag.class)).orElseThrow().isActive());
+    }
+
+    @DisplayName("Soft-delete the products of an owner and leave other owners untouched")
+    @Test
+    void deleteAllByOwner(){
+        User owner = userRepository.save(TestUsers.customer().build());
+        User other = userRepository.save(TestUsers.customer().name("Other User").build());
+        Product owned = productRepository.save(Product.builder().name("Owned Product").user(owner).build());
+        productRepository.save(Product.builder().name("Owned Inactive Product").user(owner).active(false).build());
+        Product kept = productRepository.save(Product.builder().name("Other Product").user(other).build());
+
+        assertEquals(2, productService.deleteAllByOwner(owner.getId()));
+        assertEquals(0, productService.deleteAllByOwner(owner.getId()));
+
+        Product deleted = productRepository.findById(owned.getId()).orElseThrow();
+        assertNotNull(deleted.getDeletedAt());
+        assertEquals(owned.getVersion() + 1, deleted.getVersion());
+        assertNull(productRepository.findById(kept.getId()).orElseThrow().getDeletedAt());
+        assertTrue(productService.findPageByOwner(owner.getId(), null, 10, EnumSet.of(ProductExcludeFlag.DELETED)).products().isEmpty());
+    }
+
+    @DisplayName("Page through products by update time")
+    @Test
+    void findPageByUpdatedAt(){
+        User user = userRepository.save(TestUsers.customer().build());
+        Product oldest = productRepository.save(Product.builder().name("Paged Product").user(user).build());
+        Product newest = productRepository.save(Product.builder().name("Paged Product").user(user).build());
+        productService.updateById(oldest.getId(), ProductUpdateRequest.builder().name("Updated Product").build());
+
+        ProductCursor start = ProductSortKey.UPDATED_AT.cursorOf(productRepository.findById(newest.getId()).get());
+        ProductPage page = productService.findPage(start, ProductSortKey.UPDATED_AT, 1, ProductService.DEFAULT_FILTER_FLAGS);
+
+        assertEquals(List.of(oldest.getId()), page.products().stream().map(Product::getId).toList());
+    }
+
+    @DisplayName("Paging with a cursor of another sort order throws BadRequestException")
+    @Test
+    void findPageCursorMismatch(){
+        ProductCursor cursor = new ProductCursor(ProductSortKey.ID, null, 1);
+        assertThrows(BadRequestException.class, () -> productService.findPage(cursor, ProductSortKey.UPDATED_AT, 10, ProductService.DEFAULT_FILTER_FLAGS));
+    }
+
     @DisplayName("Update a product by id")
     @Transactional
     @Test
     void updateById(){
-        User ogUser = userRepository.save(User.builder().name("Test User").email("test@outlook.com").role(Role.CUSTOMER).password("1234").build());
+        User ogUser = userRepository.save(TestUsers.customer().build());
         Product ogProduct = productRepository.save(Product.builder().name("Test Product").description("This is a test product for testing purposes").user(ogUser).build());
 
-        User newOwner = userRepository.save(User.builder().name("Test Admin").email("admin@outlook.com").role(Role.ADMINISTRATOR).password("12345").build());
+        User newOwner = userRepository.save(TestUsers.customer().name("Test Admin").role(Role.ADMINISTRATOR).build());
         ProductUpdateRequest productChanges = ProductUpdateRequest.builder().name("Changed Product").description("Changed description").active(false).build();
 
         //assertEquals(newOwner, ogProduct.getUser());
@@ -126,7 +356,7 @@ public class ProductServiceIntegrationTest {
     @Test
     void updateByIdNotFound(){
         final long ID = Long.MAX_VALUE;
-        User user = userRepository.save(User.builder().name("Test User").email("test@outlook.com").role(Role.CUSTOMER).password("1234").build());
+        User user = userRepository.save(TestUsers.customer().build());
         ProductUpdateRequest productChanges = ProductUpdateRequest.builder().name("Changed Product").description("Changed description").build();
 
         assertFalse(productRepository.existsById(ID));
@@ -137,7 +367,7 @@ public class ProductServiceIntegrationTest {
     @Transactional
     @Test
     void deleteById(){
-        User user = userRepository.save(User.builder().name("Test User").email("test@outlook.com").role(Role.CUSTOMER).password("1234").build());
+        User user = userRepository.save(TestUsers.customer().build());
         Product product = productRepository.save(Product.builder().name("Test Product").description("This is a test product for testing purposes").user(user).build());
 
         assertNull(productRepository.findById(product.getId()).get().getDeletedAt());
@@ -161,7 +391,7 @@ public class ProductServiceIntegrationTest {
     @Test
     void deleteByIdAlreadyDeleted(){
         final long ID = Long.MAX_VALUE;
-        User user = userRepository.save(User.builder().name("Test User").email("test@outlook.com").role(Role.CUSTOMER).password("1234").build());
+        User user = userRepository.save(TestUsers.customer().build());
         Product product = productRepository.save(Product.builder().name("Test Product").description("This is a test product for testing purposes").user(user).build());
 
         // Delete it once should be correct
@@ -0,0 +1,97 @@
+package com.demo.ecommerce.products.search;
+
+import com.demo.ecommerce.common.TestUsers;
+import com.demo.ecommerce.products.Product;
+import com.demo.ecommerce.products.ProductExcludeFlag;
+import com.demo.ecommerce.products.ProductRepository;
+import com.demo.ecommerce.products.ProductService;
+import com.demo.ecommerce.products.dto.ProductCreateRequest;
+import com.demo.ecommerce.products.dto.ProductUpdateRequest;
+import com.demo.ecommerce.users.User;
+import com.demo.ecommerce.users.UserRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("Integration")
+@SpringBootTest
+public class ProductSearchIndexIntegrationTest {
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+
+    private User testUser() {
+        return userRepository.save(TestUsers.customer().build());
+    }
+
+    private List<Long> searchIds(String query) {
+        return productSearchIndex.search(query, 10).stream().map(ProductSearchIndex.SearchHit::id).toList();
+    }
+
+    @DisplayName("Created products are searchable by name and description, name matches rank first")
+    @Test
+    void searchCreated() {
+        User user = testUser();
+        Product inDescription = productService.create(ProductCreateRequest.builder().name("Kettle").description("Quietboil technology").price(1000L).ownerId(user.getId()).build());
+        Product inName = productService.create(ProductCreateRequest.builder().name("Quietboil kettle").description("Stainless steel").price(1000L).ownerId(user.getId()).build());
+
+        assertEquals(List.of(inName.getId(), inDescription.getId()), searchIds("quietboil"));
+    }
+
+    @DisplayName("The last query word matches as a prefix")
+    @Test
+    void searchPrefix() {
+        User user = testUser();
+        Product product = productService.create(ProductCreateRequest.builder().name("Snugglewool blanket").price(1000L).ownerId(user.getId()).build());
+
+        assertEquals(List.of(product.getId()), searchIds("snugg"));
+        assertEquals(List.of(product.getId()), searchIds("blanket snugglew"));
+        assertTrue(searchIds("snugg qwzx").isEmpty());
+    }
+
+    @DisplayName("Updated, deactivated and deleted products are reindexed")
+    @Test
+    void searchReindexedOnWrite() {
+        User user = testUser();
+        Product product = productService.create(ProductCreateRequest.builder().name("Zephyrite lamp").price(1000L).ownerId(user.getId()).build());
+
+        productService.updateById(product.getId(), ProductUpdateRequest.builder().name("Moonquartz lamp").build());
+        assertTrue(searchIds("zephyrite").isEmpty());
+        assertEquals(List.of(product.getId()), searchIds("moonquartz"));
+
+        productService.updateById(product.getId(), ProductUpdateRequest.builder().name("Moonquartz lamp").active(false).build());
+        assertTrue(searchIds("moonquartz").isEmpty());
+
+        productService.updateById(product.getId(), ProductUpdateRequest.builder().name("Moonquartz lamp").build(), EnumSet.noneOf(ProductExcludeFlag.class));
+        assertEquals(List.of(product.getId()), searchIds("moonquartz"));
+        productService.deleteById(product.getId());
+        assertTrue(searchIds("moonquartz").isEmpty());
+    }
+
+    @DisplayName("A full reindex picks up products written outside of ProductService")
+    @Test
+    void reindex() {
+        User user = testUser();
+        Product product = productRepository.save(Product.builder().name("Glimmerfrost vase").user(user).build());
+        assertTrue(searchIds("glimmerfrost").isEmpty());
+
+        productSearchIndex.reindex();
+
+        assertEquals(List.of(product.getId()), searchIds("glimmerfrost"));
+    }
+}
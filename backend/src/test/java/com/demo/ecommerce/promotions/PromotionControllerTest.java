@@ -0,0 +1,132 @@
+package com.demo.ecommerce.promotions;
+
+import com.demo.ecommerce.auth.AuthService;
+import com.demo.ecommerce.common.annotations.ImportTestContext;
+import com.demo.ecommerce.common.exceptions.BadRequestException;
+import com.demo.ecommerce.promotions.dto.PromotionRequest;
+import com.demo.ecommerce.users.Role;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@Tag("Unit")
+@ImportTestContext(PromotionMapperImpl.class)
+@WebMvcTest(PromotionController.class)
+public class PromotionControllerTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private PromotionService promotionService;
+
+    @Autowired
+    private JwtEncoder jwtEncoder;
+
+    private String bearer(Role role) {
+        JwtClaimsSet claims = JwtClaimsSet.builder().subject("1").claim(AuthService.ROLE_CLAIM, role.name())
+                .expiresAt(Instant.now().plus(1, ChronoUnit.HOURS)).build();
+        return "Bearer " + jwtEncoder.encode(JwtEncoderParameters.from(JwsHeader.with(MacAlgorithm.HS256).build(), claims)).getTokenValue();
+    }
+
+    private Promotion.PromotionBuilder testPromotion() {
+        return Promotion.builder().id(7).name("3 for 2").type(PromotionType.BUNDLE).productId(3L).buyQuantity(3).freeQuantity(1);
+    }
+
+    @DisplayName("Create a promotion as an administrator returns 201 with its location")
+    @Test
+    void create() throws Exception {
+        when(promotionService.create(any(PromotionRequest.class))).thenReturn(testPromotion().build());
+
+        mockMvc.perform(post("/api/promotions")
+                        .header(HttpHeaders.AUTHORIZATION, bearer(Role.ADMINISTRATOR))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"3 for 2\",\"type\":\"BUNDLE\",\"productId\":3,\"buyQuantity\":3,\"freeQuantity\":1}"))
+                .andExpect(status().isCreated())
+                .andExpect(header().string(HttpHeaders.LOCATION, "http://localhost/api/promotions/7"))
+                .andExpect(jsonPath("$.type").value("BUNDLE"))
+                .andExpect(jsonPath("$.productId").value(3))
+                .andExpect(jsonPath("$.active").value(true));
+    }
+
+    @DisplayName("Invalid promotions are rejected with 400")
+    @Test
+    void createInvalid() throws Exception {
+        mockMvc.perform(post("/api/promotions")
+                        .header(HttpHeaders.AUTHORIZATION, bearer(Role.ADMINISTRATOR))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Too much\",\"type\":\"PERCENTAGE\",\"rate\":10001}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/promotions")
+                        .header(HttpHeaders.AUTHORIZATION, bearer(Role.ADMINISTRATOR))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"No type\"}"))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(promotionService);
+
+        when(promotionService.create(any(PromotionRequest.class))).thenThrow(new BadRequestException("A bundle promotion needs a free quantity of at least 1 and below the buy quantity"));
+        mockMvc.perform(post("/api/promotions")
+                        .header(HttpHeaders.AUTHORIZATION, bearer(Role.ADMINISTRATOR))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Free\",\"type\":\"BUNDLE\",\"buyQuantity\":2,\"freeQuantity\":2}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @DisplayName("Get, list, update and delete promotions")
+    @Test
+    void readUpdateDelete() throws Exception {
+        when(promotionService.findById(7)).thenReturn(Optional.of(testPromotion().build()));
+        when(promotionService.findAll(5, 2)).thenReturn(List.of(testPromotion().build(), testPromotion().id(8).build()));
+        when(promotionService.updateById(eq(7L), any(PromotionRequest.class))).thenReturn(testPromotion().active(false).version(1).build());
+
+        mockMvc.perform(get("/api/promotions/7").header(HttpHeaders.AUTHORIZATION, bearer(Role.ADMINISTRATOR)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("3 for 2"));
+        mockMvc.perform(get("/api/promotions/9").header(HttpHeaders.AUTHORIZATION, bearer(Role.ADMINISTRATOR)))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/promotions?after=5&limit=2").header(HttpHeaders.AUTHORIZATION, bearer(Role.ADMINISTRATOR)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[1].id").value(8));
+        mockMvc.perform(put("/api/promotions/7")
+                        .header(HttpHeaders.AUTHORIZATION, bearer(Role.ADMINISTRATOR))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"3 for 2\",\"type\":\"BUNDLE\",\"productId\":3,\"buyQuantity\":3,\"freeQuantity\":1,\"active\":false}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.active").value(false))
+                .andExpect(jsonPath("$.version").value(1));
+        mockMvc.perform(delete("/api/promotions/7").header(HttpHeaders.AUTHORIZATION, bearer(Role.ADMINISTRATOR)))
+                .andExpect(status().isNoContent());
+        verify(promotionService).deleteById(7);
+    }
+
+    @DisplayName("Promotions are forbidden to customers and anonymous clients")
+    @Test
+    void notAdministrator() throws Exception {
+        mockMvc.perform(get("/api/promotions").header(HttpHeaders.AUTHORIZATION, bearer(Role.CUSTOMER)))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(post("/api/promotions")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"10% off\",\"type\":\"PERCENTAGE\",\"rate\":1000}"))
+                .andExpect(status().isUnauthorized());
+        verifyNoInteractions(promotionService);
+    }
+}
@@ -0,0 +1,195 @@
+package com.demo.ecommerce.promotions;
+
+import com.demo.ecommerce.pricing.TotalsCalculator;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("Unit")
+public class PromotionIndexTest {
+    private static final long NOW = Instant.parse("2026-06-01T12:00:00Z").toEpochMilli();
+
+    // Three lines: product 1 of owner 10 in "books", product 2 of owner 11 in "toys", product 3 of owner 10 without category
+    private static final long[] PRODUCTS = {1, 2, 3};
+    private static final long[] OWNERS = {10, 11, 10};
+    private static final String[] CATEGORIES = {"books", "toys", null};
+
+    private long ids;
+
+    private Promotion.PromotionBuilder promotion(PromotionType type) {
+        return Promotion.builder().id(++ids).name("Test Promotion").type(type);
+    }
+
+    /** Prices the three lines: 2 x 10.00, 3 x 5.00 and 1 x 3.00, untaxed **/
+    private static TotalsCalculator priced(PromotionIndex index) {
+        TotalsCalculator totals = new TotalsCalculator(3);
+        totals.addLine(1000, 2, 0);
+        totals.addLine(500, 3, 0);
+        totals.addLine(300, 1, 0);
+        index.apply(totals, PRODUCTS, OWNERS, CATEGORIES, NOW);
+        totals.compute();
+        return totals;
+    }
+
+    @DisplayName("Each line gets the largest discount among the promotions of its product, owner, category and the global ones")
+    @Test
+    void lineDiscounts() {
+        PromotionIndex index = new PromotionIndex();
+        index.load(List.of(
+                promotion(PromotionType.PERCENTAGE).productId(1L).rate(1000).build(),
+                promotion(PromotionType.PERCENTAGE).ownerId(10L).rate(2500).build(),
+                promotion(PromotionType.BUNDLE).category("toys").buyQuantity(3).freeQuantity(1).build(),
+                promotion(PromotionType.PERCENTAGE).rate(500).build(),
+                promotion(PromotionType.PERCENTAGE).productId(1L).rate(9000).active(false).build()));
+
+        TotalsCalculator totals = priced(index);
+        // 25% of 20.00 beats 10% and 5%; 1 of 3 units free beats 5%; 25% of 3.00
+        assertEquals(500, totals.lineDiscount(0));
+        assertEquals(500, totals.lineDiscount(1));
+        assertEquals(75, totals.lineDiscount(2));
+        assertEquals(1075, totals.discount());
+        assertEquals(4, index.size());
+    }
+
+    @DisplayName("Every target of a promotion must match, and only within its window")
+    @Test
+    void targetsAndWindow() {
+        PromotionIndex index = new PromotionIndex();
+        index.load(List.of(
+                promotion(PromotionType.PERCENTAGE).ownerId(10L).category("books").rate(5000).build(),
+                promotion(PromotionType.PERCENTAGE).rate(9000).startsAt(Instant.ofEpochMilli(NOW + 1)).build(),
+                promotion(PromotionType.PERCENTAGE).rate(9000).endsAt(Instant.ofEpochMilli(NOW)).build(),
+                promotion(PromotionType.PERCENTAGE).rate(100).startsAt(Instant.ofEpochMilli(NOW)).endsAt(Instant.ofEpochMilli(NOW + 1)).build()));
+
+        TotalsCalculator totals = priced(index);
+        assertEquals(1000, totals.lineDiscount(0));
+        assertEquals(15, totals.lineDiscount(1));
+        assertEquals(3, totals.lineDiscount(2));
+    }
+
+    @DisplayName("The largest threshold reached by its matching lines, after their own discounts, comes off the order")
+    @Test
+    void thresholds() {
+        PromotionIndex index = new PromotionIndex();
+        Promotion owner = promotion(PromotionType.THRESHOLD).ownerId(10L).minAmount(2000).amount(300).build();
+        index.load(List.of(owner,
+                promotion(PromotionType.THRESHOLD).minAmount(3800).amount(200).build(),
+                promotion(PromotionType.THRESHOLD).minAmount(3801).amount(1000).build()));
+
+        // Owner 10 has 20.00 + 3.00, the whole cart 38.00
+        assertEquals(300, priced(index).discount());
+
+        // 20% off the first line leaves owner 10 with 16.00 + 3.00 and the cart with 34.00
+        index.put(promotion(PromotionType.PERCENTAGE).productId(1L).rate(2000).build());
+        assertEquals(400, priced(index).discount());
+
+        owner.setMinAmount(1900);
+        owner.setVersion(1);
+        index.put(owner);
+        assertEquals(400 + 300, priced(index).discount());
+    }
+
+    @DisplayName("Changes recompile one promotion, in version order, and deleted promotions stay deleted")
+    @Test
+    void changes() {
+        PromotionIndex index = new PromotionIndex();
+        Promotion promotion = promotion(PromotionType.PERCENTAGE).productId(1L).rate(1000).build();
+        assertTrue(index.put(promotion));
+        assertEquals(200, priced(index).lineDiscount(0));
+
+        // Moves from the bucket of product 1 to the bucket of owner 11
+        Promotion moved = promotion(PromotionType.PERCENTAGE).id(promotion.getId()).ownerId(11L).rate(1000).version(1).build();
+        assertTrue(index.put(moved));
+        assertFalse(index.put(promotion));
+        assertEquals(0, priced(index).lineDiscount(0));
+        assertEquals(150, priced(index).lineDiscount(1));
+        assertEquals(1, index.size());
+
+        moved.setActive(false);
+        moved.setVersion(2);
+        assertTrue(index.put(moved));
+        assertEquals(0, priced(index).discount());
+        assertEquals(0, index.size());
+
+        Promotion deleted = promotion(PromotionType.THRESHOLD).amount(100).build();
+        index.put(deleted);
+        assertEquals(100, priced(index).discount());
+        index.remove(deleted.getId());
+        deleted.setVersion(5);
+        assertFalse(index.put(deleted));
+        assertEquals(0, priced(index).discount());
+    }
+
+    @DisplayName("Buckets are found after the tables grow and entries are removed")
+    @Test
+    void manyProducts() {
+        PromotionIndex index = new PromotionIndex();
+        List<Promotion> promotions = new ArrayList<>();
+        for (long product = 1; product <= 1000; product++) {
+            Promotion promotion = promotion(PromotionType.PERCENTAGE).productId(product).rate(1000).build();
+            promotions.add(promotion);
+            index.put(promotion);
+        }
+        for (Promotion promotion : promotions) {
+            if (promotion.getProductId() % 2 == 1) index.remove(promotion.getId());
+        }
+
+        assertEquals(500, index.size());
+        long[] products = new long[1000];
+        TotalsCalculator totals = new TotalsCalculator(1000);
+        for (int line = 0; line < 1000; line++) {
+            products[line] = line + 1;
+            totals.addLine(100, 1, 0);
+        }
+        index.apply(totals, products, new long[1000], new String[1000], NOW);
+        totals.compute();
+        for (int line = 0; line < 1000; line++) assertEquals(products[line] % 2 == 0 ? 10 : 0, totals.lineDiscount(line), "product " + products[line]);
+    }
+
+    @DisplayName("Evaluating a cart does not allocate")
+    @Test
+    void noAllocation() {
+        PromotionIndex index = new PromotionIndex();
+        List<Promotion> promotions = new ArrayList<>();
+        for (long i = 1; i <= 1000; i++) {
+            promotions.add(promotion(PromotionType.PERCENTAGE).productId(i).rate(500).build());
+            promotions.add(promotion(PromotionType.THRESHOLD).ownerId(i % 50 + 1).minAmount(i * 10).amount(i).build());
+        }
+        promotions.add(promotion(PromotionType.BUNDLE).category("books").buyQuantity(2).freeQuantity(1).build());
+        index.load(promotions);
+
+        long[] products = new long[100];
+        long[] owners = new long[100];
+        String[] categories = new String[100];
+        for (int line = 0; line < 100; line++) {
+            products[line] = line * 7 + 1;
+            owners[line] = line % 50 + 1;
+            categories[line] = line % 2 == 0 ? "books" : "toys";
+        }
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        TotalsCalculator totals = new TotalsCalculator(100);
+        long checksum = 0;
+        for (int round = 0; round < 2; round++) {
+            long before = threads.getCurrentThreadAllocatedBytes();
+            for (int cart = 0; cart < 10_000; cart++) {
+                totals.reset();
+                for (int line = 0; line < 100; line++) totals.addLine(100 + line, 1 + line % 3, 2100);
+                index.apply(totals, products, owners, categories, NOW);
+                totals.compute();
+                checksum += totals.discount();
+            }
+            long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+            // The first round warms up, the second may only see the odd allocation by the JIT or the bean itself
+            if (round == 1) assertTrue(allocated < 10_000, "allocated %s bytes for 10000 carts".formatted(allocated));
+        }
+        assertTrue(checksum > 0);
+    }
+}
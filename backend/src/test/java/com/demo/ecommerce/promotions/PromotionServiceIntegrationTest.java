@@ -0,0 +1,149 @@
+package com.demo.ecommerce.promotions;
+
+import com.demo.ecommerce.carts.CartService;
+import com.demo.ecommerce.carts.CartTotals;
+import com.demo.ecommerce.common.TestUsers;
+import com.demo.ecommerce.common.exceptions.BadRequestException;
+import com.demo.ecommerce.common.exceptions.ResourceNotFoundException;
+import com.demo.ecommerce.inventory.InventoryService;
+import com.demo.ecommerce.orders.CheckoutService;
+import com.demo.ecommerce.orders.Order;
+import com.demo.ecommerce.products.Product;
+import com.demo.ecommerce.products.ProductRepository;
+import com.demo.ecommerce.promotions.dto.PromotionRequest;
+import com.demo.ecommerce.users.User;
+import com.demo.ecommerce.users.UserRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Promotions here target products and owners created by each test, so they never apply to the carts of other tests.
+ */
+@Tag("Integration")
+@SpringBootTest
+public class PromotionServiceIntegrationTest {
+    @Autowired
+    private PromotionService promotionService;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private CheckoutService checkoutService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private User user() {
+        return userRepository.save(TestUsers.customer().build());
+    }
+
+    private Product product(User owner, String category) {
+        Product product = productRepository.save(Product.builder().name("Test Product").price(1000).category(category).user(owner).build());
+        inventoryService.adjust(product.getId(), 10);
+        return product;
+    }
+
+    @DisplayName("Cart totals apply a promotion once it is created, and follow its changes")
+    @Test
+    void cartTotals() {
+        User user = user();
+        Product product = product(user, "books");
+        cartService.add(user.getId(), product.getId(), 3);
+        assertEquals(new CartTotals(1, 3, "EUR", 3000, 0, 630, 3630), cartService.totals(user.getId()));
+
+        Promotion promotion = promotionService.create(PromotionRequest.builder().name("10% off").type(PromotionType.PERCENTAGE)
+                .productId(product.getId()).rate(1000).build());
+        // 30.00 - 3.00, taxed at 21%: 5.67
+        assertEquals(new CartTotals(1, 3, "EUR", 3000, 300, 567, 3267), cartService.totals(user.getId()));
+
+        promotionService.updateById(promotion.getId(), PromotionRequest.builder().name("3 for 2").type(PromotionType.BUNDLE)
+                .productId(product.getId()).buyQuantity(3).freeQuantity(1).build());
+        assertEquals(new CartTotals(1, 3, "EUR", 3000, 1000, 420, 2420), cartService.totals(user.getId()));
+
+        promotionService.updateById(promotion.getId(), PromotionRequest.builder().name("Next week").type(PromotionType.BUNDLE)
+                .productId(product.getId()).buyQuantity(3).freeQuantity(1).startsAt(Instant.now().plusSeconds(7 * 24 * 3600)).build());
+        assertEquals(0, cartService.totals(user.getId()).discount());
+
+        promotionService.updateById(promotion.getId(), PromotionRequest.builder().name("10% off").type(PromotionType.PERCENTAGE)
+                .productId(product.getId()).rate(1000).build());
+        promotionService.deleteById(promotion.getId());
+        assertEquals(0, cartService.totals(user.getId()).discount());
+        assertTrue(promotionService.findById(promotion.getId()).isEmpty());
+    }
+
+    @DisplayName("Checkout takes a reached threshold off the order, shared over its lines")
+    @Test
+    void checkout() {
+        User user = user();
+        Product first = product(user, "books");
+        Product second = product(user, null);
+        promotionService.create(PromotionRequest.builder().name("5.00 off 30.00").type(PromotionType.THRESHOLD)
+                .ownerId(user.getId()).minAmount(3000).amount(500).build());
+        promotionService.create(PromotionRequest.builder().name("Books").type(PromotionType.PERCENTAGE)
+                .ownerId(user.getId()).category("books").rate(2000).build());
+        cartService.add(user.getId(), first.getId(), 2);
+        cartService.add(user.getId(), second.getId(), 1);
+
+        // The books promotion leaves 16.00 + 10.00, below the threshold
+        assertEquals(400, cartService.totals(user.getId()).discount());
+        cartService.add(user.getId(), second.getId(), 1);
+
+        Order order = checkoutService.checkout(user.getId());
+        assertEquals(4000, order.getSubtotal());
+        assertEquals(900, order.getDiscount());
+        // 5.00 is shared as 2.23 and 2.77 over 16.00 and 20.00, leaving 13.77 and 17.23 taxed at 2.89 and 3.62
+        assertEquals(651, order.getTax());
+        assertEquals(3751, order.getTotal());
+    }
+
+    @DisplayName("Promotions are checked against their type and targets")
+    @Test
+    void validation() {
+        User user = user();
+        Product product = product(user, null);
+
+        assertThrows(BadRequestException.class, () -> promotionService.create(PromotionRequest.builder().name("Nothing off")
+                .type(PromotionType.PERCENTAGE).productId(product.getId()).build()));
+        assertThrows(BadRequestException.class, () -> promotionService.create(PromotionRequest.builder().name("Free")
+                .type(PromotionType.BUNDLE).productId(product.getId()).buyQuantity(2).freeQuantity(2).build()));
+        assertThrows(BadRequestException.class, () -> promotionService.create(PromotionRequest.builder().name("Unknown product")
+                .type(PromotionType.PERCENTAGE).productId(Long.MAX_VALUE).rate(1000).build()));
+        assertThrows(BadRequestException.class, () -> promotionService.create(PromotionRequest.builder().name("Unknown owner")
+                .type(PromotionType.PERCENTAGE).ownerId(Long.MAX_VALUE).rate(1000).build()));
+        Instant now = Instant.now();
+        assertThrows(BadRequestException.class, () -> promotionService.create(PromotionRequest.builder().name("Backwards")
+                .type(PromotionType.PERCENTAGE).productId(product.getId()).rate(1000).startsAt(now).endsAt(now).build()));
+        assertThrows(ResourceNotFoundException.class, () -> promotionService.deleteById(Long.MAX_VALUE));
+    }
+
+    @DisplayName("Reloading compiles the same promotions the changes did")
+    @Test
+    void load() {
+        User user = user();
+        Product product = product(user, null);
+        cartService.add(user.getId(), product.getId(), 1);
+        promotionService.create(PromotionRequest.builder().name("10% off").type(PromotionType.PERCENTAGE)
+                .productId(product.getId()).rate(1000).build());
+        promotionService.create(PromotionRequest.builder().name("Inactive").type(PromotionType.PERCENTAGE)
+                .productId(product.getId()).rate(5000).active(false).build());
+        int indexed = promotionService.indexed();
+
+        promotionService.load();
+        assertEquals(indexed, promotionService.indexed());
+        assertEquals(100, cartService.totals(user.getId()).discount());
+    }
+}
@@ -0,0 +1,134 @@
+package com.demo.ecommerce.ratelimit;
+
+import com.demo.ecommerce.auth.AuthController;
+import com.demo.ecommerce.auth.AuthService;
+import com.demo.ecommerce.common.annotations.ImportTestContext;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.net.URI;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@Tag("Unit")
+@ImportTestContext({})
+@WebMvcTest(value = AuthController.class, properties = {
+        "security.rate-limit.routes[0].path=/api/auth/**",
+        "security.rate-limit.routes[0].capacity=2",
+        "security.rate-limit.routes[0].period=1h"})
+public class RateLimitFilterTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtEncoder jwtEncoder;
+
+    @Autowired
+    private RateLimiter rateLimiter;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockitoBean
+    private AuthService authService;
+
+    private String accessToken(String subject) {
+        JwtClaimsSet claims = JwtClaimsSet.builder().subject(subject).claim(AuthService.ROLE_CLAIM, "CUSTOMER")
+                .expiresAt(Instant.now().plus(1, ChronoUnit.HOURS)).build();
+        return jwtEncoder.encode(JwtEncoderParameters.from(JwsHeader.with(MacAlgorithm.HS256).build(), claims)).getTokenValue();
+    }
+
+    @DisplayName("Requests over the limit of a user are rejected with 429 and Retry-After")
+    @Test
+    void limitPerUser() throws Exception {
+        String token = accessToken("11");
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(get("/api/auth/me").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                    .andExpect(status().isOk());
+        }
+
+        mockMvc.perform(get("/api/auth/me").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1800"))
+                .andExpect(jsonPath("$.type").value("Too Many Requests"));
+
+        // Another user from the same address has their own bucket
+        mockMvc.perform(get("/api/auth/me").header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken("12")))
+                .andExpect(status().isOk());
+    }
+
+    @DisplayName("Anonymous requests are limited per remote address")
+    @Test
+    void limitPerAddress() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(get("/api/auth/me").with(request -> { request.setRemoteAddr("10.0.0.1"); return request; }))
+                    .andExpect(status().isUnauthorized());
+        }
+
+        mockMvc.perform(get("/api/auth/me").with(request -> { request.setRemoteAddr("10.0.0.1"); return request; }))
+                .andExpect(status().isTooManyRequests());
+        mockMvc.perform(get("/api/auth/me").with(request -> { request.setRemoteAddr("10.0.0.2"); return request; }))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @DisplayName("Encoded and non-normalized paths count against the route of the path they resolve to")
+    @Test
+    void limitEncodedPath() throws Exception {
+        String token = accessToken("13");
+        mockMvc.perform(get(URI.create("/%61pi/auth/me")).header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/auth/me").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get(URI.create("/api/auth/%6De")).header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isTooManyRequests());
+    }
+
+    @DisplayName("Routes match the path within the application, without the context path")
+    @Test
+    void limitContextPath() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(get("/shop/api/auth/me").contextPath("/shop").with(request -> { request.setRemoteAddr("10.0.0.3"); return request; }))
+                    .andExpect(status().isUnauthorized());
+        }
+
+        mockMvc.perform(get("/shop/api/auth/me").contextPath("/shop").with(request -> { request.setRemoteAddr("10.0.0.3"); return request; }))
+                .andExpect(status().isTooManyRequests());
+    }
+
+    @DisplayName("Paths the firewall would reject are still normalized by the filter itself")
+    @Test
+    void limitNonNormalizedPath() throws Exception {
+        RateLimitFilter filter = new RateLimitFilter(rateLimiter, objectMapper);
+        String[] paths = {"/api//auth/me", "/api/./auth/me;jsessionid=1", "/api/x/../auth/me"};
+        int[] statuses = new int[paths.length];
+        for (int i = 0; i < paths.length; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", paths[i]);
+            request.setRemoteAddr("10.0.0.4");
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            filter.doFilter(request, response, new MockFilterChain());
+            statuses[i] = response.getStatus();
+        }
+
+        assertArrayEquals(new int[]{200, 200, 429}, statuses);
+    }
+}
@@ -0,0 +1,110 @@
+package com.demo.ecommerce.ratelimit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("Unit")
+public class RateLimiterTest {
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private long now = 1_000 * SECOND;
+
+    private RateLimiter rateLimiter(RateLimitProperties.Route... routes) {
+        return new RateLimiter(new RateLimitProperties(true, Duration.ofMinutes(1), List.of(routes)), () -> now);
+    }
+
+    @DisplayName("A client can burst up to the capacity, then tokens refill at capacity per period")
+    @Test
+    void burstThenRefill() {
+        RateLimiter rateLimiter = rateLimiter(new RateLimitProperties.Route("/api/**", List.of(), 3, Duration.ofSeconds(3)));
+
+        for (int i = 0; i < 3; i++) assertEquals(0, rateLimiter.tryAcquire("GET", "/api/products", "ip:1"));
+        assertEquals(SECOND, rateLimiter.tryAcquire("GET", "/api/products", "ip:1"));
+
+        now += SECOND / 2;
+        assertEquals(SECOND / 2, rateLimiter.tryAcquire("GET", "/api/products", "ip:1"));
+        now += SECOND / 2;
+        assertEquals(0, rateLimiter.tryAcquire("GET", "/api/products", "ip:1"));
+        assertTrue(rateLimiter.tryAcquire("GET", "/api/products", "ip:1") > 0);
+    }
+
+    @DisplayName("Clients and routes have separate buckets, the first matching route applies")
+    @Test
+    void perClientAndRoute() {
+        RateLimiter rateLimiter = rateLimiter(
+                new RateLimitProperties.Route("/api/auth/**", List.of("post"), 1, Duration.ofMinutes(1)),
+                new RateLimitProperties.Route("/api/**", List.of(), 1, Duration.ofMinutes(1)));
+
+        assertEquals(0, rateLimiter.tryAcquire("POST", "/api/auth/login", "ip:1"));
+        assertTrue(rateLimiter.tryAcquire("POST", "/api/auth/login", "ip:1") > 0);
+        assertEquals(0, rateLimiter.tryAcquire("POST", "/api/auth/login", "ip:2"));
+        // GET falls through to the second route, which has its own bucket
+        assertEquals(0, rateLimiter.tryAcquire("GET", "/api/auth/me", "ip:1"));
+        assertTrue(rateLimiter.tryAcquire("GET", "/api/products", "ip:1") > 0);
+        // Unmatched paths are not limited
+        for (int i = 0; i < 10; i++) assertEquals(0, rateLimiter.tryAcquire("GET", "/swagger-ui.html", "ip:1"));
+    }
+
+    @DisplayName("Buckets are evicted once fully refilled")
+    @Test
+    void evictIdle() {
+        RateLimiter rateLimiter = rateLimiter(new RateLimitProperties.Route("/api/**", List.of(), 2, Duration.ofSeconds(2)));
+        rateLimiter.tryAcquire("GET", "/api/products", "ip:1");
+        rateLimiter.tryAcquire("GET", "/api/products", "ip:1");
+        rateLimiter.tryAcquire("GET", "/api/products", "ip:2");
+
+        rateLimiter.evictIdle();
+        assertEquals(2, rateLimiter.size());
+
+        now += SECOND;
+        rateLimiter.evictIdle();
+        assertEquals(1, rateLimiter.size());
+
+        now += SECOND;
+        rateLimiter.evictIdle();
+        assertEquals(0, rateLimiter.size());
+    }
+
+    @DisplayName("Concurrent requests never take more tokens than the bucket holds")
+    @Test
+    void concurrentAcquire() throws Exception {
+        RateLimiter rateLimiter = rateLimiter(new RateLimitProperties.Route("/api/**", List.of(), 1000, Duration.ofHours(1)));
+        AtomicInteger allowed = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int t = 0; t < 16; t++) {
+                tasks.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 500; i++) {
+                        if (rateLimiter.tryAcquire("GET", "/api/products", "ip:1") == 0) allowed.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> task : tasks) task.get();
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1000, allowed.get());
+    }
+
+    @DisplayName("Nothing is limited when disabled")
+    @Test
+    void disabled() {
+        RateLimiter rateLimiter = new RateLimiter(new RateLimitProperties(false, Duration.ofMinutes(1),
+                List.of(new RateLimitProperties.Route("/api/**", List.of(), 1, Duration.ofHours(1)))), () -> now);
+        for (int i = 0; i < 10; i++) assertEquals(0, rateLimiter.tryAcquire("GET", "/api/products", "ip:1"));
+    }
+}
@@ -0,0 +1,61 @@
+package com.demo.ecommerce.users;
+
+import com.demo.ecommerce.auth.dto.LoginRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@Tag("Integration")
+@AutoConfigureMockMvc
+@SpringBootTest(properties = {
+        "users.bootstrap-admin.email=admin@bootstrap.test",
+        // BCrypt of Admin123
+        "users.bootstrap-admin.password-hash=$2a$04$Fs1ooghD9jPupmR6.Q40aOUNP5L/bU5Jg0riqgPa5e6FaTf.S2W.O"})
+public class AdminBootstrapIntegrationTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private AdminBootstrap adminBootstrap;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @DisplayName("The bootstrap administrator signs in and calls administrator routes")
+    @Test
+    void signIn() throws Exception {
+        String response = mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new LoginRequest("admin@bootstrap.test", "Admin123"))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String accessToken = objectMapper.readTree(response).get("accessToken").asText();
+
+        mockMvc.perform(get("/api/promotions").header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken))
+                .andExpect(status().isOk());
+    }
+
+    @DisplayName("The bootstrap administrator is created once")
+    @Test
+    void createOnce() {
+        adminBootstrap.createAdmin();
+
+        assertEquals(1, userRepository.findAll().stream().filter(user -> "admin@bootstrap.test".equals(user.getEmail())).count());
+        assertEquals(Role.ADMINISTRATOR, userRepository.findByEmail("admin@bootstrap.test").orElseThrow().getRole());
+    }
+}
@@ -0,0 +1,36 @@
+package com.demo.ecommerce.users;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Tag("Unit")
+public class KnownUserIdsTest {
+    private final KnownUserIds knownUserIds = new KnownUserIds(new CaffeineCacheManager(KnownUserIds.CACHE_NAME));
+
+    @DisplayName("An ID is known until its user is removed")
+    @Test
+    void addAndRemove() {
+        knownUserIds.add(1, knownUserIds.stamp());
+        assertTrue(knownUserIds.contains(1));
+
+        knownUserIds.remove(1);
+        assertFalse(knownUserIds.contains(1));
+    }
+
+    @DisplayName("An ID read before a removal is not kept, the read may have seen a user deleted since")
+    @Test
+    void addAfterRemove() {
+        long stamp = knownUserIds.stamp();
+        knownUserIds.remove(1);
+        knownUserIds.add(1, stamp);
+
+        assertFalse(knownUserIds.contains(1));
+        knownUserIds.add(1, knownUserIds.stamp());
+        assertTrue(knownUserIds.contains(1));
+    }
+}
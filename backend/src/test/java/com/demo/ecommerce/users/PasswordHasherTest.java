@@ -0,0 +1,73 @@
+package com.demo.ecommerce.users;
+
+import com.demo.ecommerce.common.exceptions.TooManyRequestsException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("Unit")
+public class PasswordHasherTest {
+    /**
+     * An encoder whose hashes block until released, to fill the hashing pool deterministically.
+     */
+    private static class BlockingEncoder implements PasswordEncoder {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "hash:" + rawPassword;
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return encodedPassword.equals("hash:" + rawPassword);
+        }
+    }
+
+    @DisplayName("Passwords are hashed with the configured encoder")
+    @Test
+    void encode() {
+        PasswordHasher hasher = new PasswordHasher(new BCryptPasswordEncoder(4), 1, 1);
+        try {
+            assertTrue(new BCryptPasswordEncoder(4).matches("Pass123", hasher.encode("Pass123")));
+        } finally {
+            hasher.destroy();
+        }
+    }
+
+    @DisplayName("Hashing is rejected with TooManyRequestsException once the pool and its queue are full")
+    @Test
+    void saturated() throws Exception {
+        BlockingEncoder encoder = new BlockingEncoder();
+        PasswordHasher hasher = new PasswordHasher(encoder, 1, 1);
+        try {
+            CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> hasher.encode("first"));
+            encoder.started.await();
+            CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> hasher.encode("second"));
+            // The queued task cannot be observed directly, wait until the pool reports it
+            while (queued.isDone() || hasher.queued() == 0) Thread.onSpinWait();
+
+            assertThrows(TooManyRequestsException.class, () -> hasher.encode("third"));
+
+            encoder.release.countDown();
+            assertEquals("hash:first", running.get());
+            assertEquals("hash:second", queued.get());
+        } finally {
+            hasher.destroy();
+        }
+    }
+}
@@ -1,27 +1,43 @@
 package com.demo.ecommerce.users;
 
+import com.demo.ecommerce.auth.AuthService;
 import com.demo.ecommerce.common.annotations.ImportTestContext;
 import com.demo.ecommerce.common.exceptions.ResourceNotFoundException;
+import com.demo.ecommerce.common.exceptions.TooManyRequestsException;
+import com.demo.ecommerce.users.dto.UserBulkDeleteRequest;
 import com.demo.ecommerce.users.dto.UserCreate;
 import com.demo.ecommerce.users.dto.UserPublicData;
+import com.demo.ecommerce.users.dto.UserUpdate;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
 import java.util.Optional;
 
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @Tag("Unit")
@@ -37,6 +53,22 @@ public class UserControllerTest {
     @MockitoBean
     private UserService userService;
 
+    @MockitoBean
+    private UserImportService userImportService;
+
+    @Autowired
+    private JwtEncoder jwtEncoder;
+
+    private String bearer(Role role) {
+        return bearer(1, role);
+    }
+
+    private String bearer(long userId, Role role) {
+        JwtClaimsSet claims = JwtClaimsSet.builder().subject(String.valueOf(userId)).claim(AuthService.ROLE_CLAIM, role.name())
+                .expiresAt(Instant.now().plus(1, ChronoUnit.HOURS)).build();
+        return "Bearer " + jwtEncoder.encode(JwtEncoderParameters.from(JwsHeader.with(MacAlgorithm.HS256).build(), claims)).getTokenValue();
+    }
+
     @DisplayName("Get a user")
     @Test
     void getExistingUser() throws Exception {
@@ -75,12 +107,11 @@ public class UserControllerTest {
         String name = "Test";
         String email = "test@outlook.com";
         String password = "TestPassword";
-        Role role = Role.CUSTOMER;
-        UserCreate newUser = new UserCreate(name, email, password, role);
+        UserCreate newUser = new UserCreate(name, email, password);
         User user = User.builder()
                 .id(1L)
                 .name(name)
-                .role(role)
+                .role(Role.CUSTOMER)
                 .email(email)
                 .password(password)
                 .build();
@@ -100,18 +131,18 @@ public class UserControllerTest {
         String name = "Test";
         String email = "test@outlook.com";
         String password = "TestPassword";
-        Role role = Role.CUSTOMER;
-        UserCreate newUser = new UserCreate(name, email, password, role);
+        UserUpdate newUser = new UserUpdate(name, email, password);
         User user = User.builder()
                 .id(userId)
                 .name(name)
                 .email(email)
-                .role(role)
+                .role(Role.CUSTOMER)
                 .build();
 
-        when(userService.updateUser(eq(userId), any(UserCreate.class))).thenReturn(user);
+        when(userService.updateUser(eq(userId), any(UserUpdate.class))).thenReturn(user);
 
         mockMvc.perform(put("/api/users/{id}", userId)
+                        .header(HttpHeaders.AUTHORIZATION, bearer(userId, Role.CUSTOMER))
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(newUser)))
                 .andExpect(status().isOk());
@@ -124,17 +155,142 @@ public class UserControllerTest {
         String name = "Test";
         String email = "test@outlook.com";
         String password = "TestPassword";
-        Role role = Role.CUSTOMER;
-        UserCreate newUser = new UserCreate(name, email, password, role);
+        UserUpdate newUser = new UserUpdate(name, email, password);
 
-        when(userService.updateUser(eq(userId), any(UserCreate.class))).thenThrow(new ResourceNotFoundException());
+        when(userService.updateUser(eq(userId), any(UserUpdate.class))).thenThrow(new ResourceNotFoundException());
 
         mockMvc.perform(put("/api/users/{id}", userId)
+                        .header(HttpHeaders.AUTHORIZATION, bearer(userId, Role.CUSTOMER))
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(newUser)))
                 .andExpect(status().isNotFound());
     }
 
+    @DisplayName("Update a user without a password")
+    @Test
+    void updateUserKeepPassword() throws Exception {
+        long userId = 10L;
+        UserUpdate newUser = UserUpdate.builder().name("Test").email("test@outlook.com").build();
+        User user = User.builder().id(userId).name("Test").email("test@outlook.com").role(Role.CUSTOMER).build();
+
+        when(userService.updateUser(eq(userId), any(UserUpdate.class))).thenReturn(user);
+
+        mockMvc.perform(put("/api/users/{id}", userId)
+                        .header(HttpHeaders.AUTHORIZATION, bearer(userId, Role.CUSTOMER))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(newUser)))
+                .andExpect(status().isOk());
+    }
+
+    @DisplayName("Update a user with a blank password returns 400")
+    @Test
+    void updateUserBlankPassword() throws Exception {
+        UserUpdate newUser = UserUpdate.builder().name("Test").email("test@outlook.com").password(" ").build();
+
+        mockMvc.perform(put("/api/users/{id}", 10L)
+                        .header(HttpHeaders.AUTHORIZATION, bearer(10, Role.CUSTOMER))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(newUser)))
+                .andExpect(status().isBadRequest());
+        verify(userService, never()).updateUser(anyLong(), any());
+    }
+
+    @DisplayName("Create a user while password hashing is saturated returns 429")
+    @Test
+    void createUserTooManyRequests() throws Exception {
+        UserCreate newUser = new UserCreate("Test", "test@outlook.com", "TestPassword");
+
+        when(userService.createUser(any(UserCreate.class))).thenThrow(new TooManyRequestsException());
+
+        mockMvc.perform(post("/api/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(newUser)))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+    }
+
+    @DisplayName("Import users streams a result per row and a summary")
+    @Test
+    void importUsers() throws Exception {
+        when(userImportService.importNdjson(any(), eq(true), any())).thenAnswer(invocation -> {
+            UserImportService.Listener listener = invocation.getArgument(2);
+            listener.onRowError(1, "Password is not a BCrypt hash");
+            listener.onCreated(2, 7);
+            return new UserImportService.Summary(2, 1, 1);
+        });
+
+        mockMvc.perform(post("/api/users/import")
+                        .header(HttpHeaders.AUTHORIZATION, bearer(Role.ADMINISTRATOR))
+                        .param("hashed", "true")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{}\n{}"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string("""
+                        {"type":"ERROR","line":1,"message":"Password is not a BCrypt hash"}
+                        {"type":"CREATED","line":2,"id":7}
+                        {"type":"SUMMARY","processed":2,"created":1,"failed":1}
+                        """));
+    }
+
+    @DisplayName("Import users as a customer or anonymously is rejected")
+    @Test
+    void importUsersNotAdministrator() throws Exception {
+        mockMvc.perform(post("/api/users/import")
+                        .header(HttpHeaders.AUTHORIZATION, bearer(Role.CUSTOMER))
+                        .param("hashed", "true")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{}"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(post("/api/users/import")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{}"))
+                .andExpect(status().isUnauthorized());
+        verifyNoInteractions(userImportService);
+    }
+
+    @DisplayName("Update another user's account, or without signing in, is rejected")
+    @Test
+    void updateOtherUser() throws Exception {
+        UserUpdate newUser = UserUpdate.builder().name("Test").email("test@outlook.com").build();
+
+        mockMvc.perform(put("/api/users/{id}", 10L)
+                        .header(HttpHeaders.AUTHORIZATION, bearer(11, Role.CUSTOMER))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(newUser)))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(put("/api/users/{id}", 10L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(newUser)))
+                .andExpect(status().isUnauthorized());
+        verifyNoInteractions(userService);
+    }
+
+    @DisplayName("Change a user's role as an administrator")
+    @Test
+    void updateRole() throws Exception {
+        User user = User.builder().id(10L).name("Test").email("test@outlook.com").role(Role.ADMINISTRATOR).build();
+        when(userService.updateRole(10L, Role.ADMINISTRATOR)).thenReturn(user);
+
+        mockMvc.perform(put("/api/users/{id}/role", 10L)
+                        .header(HttpHeaders.AUTHORIZATION, bearer(Role.ADMINISTRATOR))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"role\":\"ADMINISTRATOR\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(10));
+    }
+
+    @DisplayName("Change a role as a customer, even their own, is forbidden")
+    @Test
+    void updateRoleForbidden() throws Exception {
+        mockMvc.perform(put("/api/users/{id}/role", 10L)
+                        .header(HttpHeaders.AUTHORIZATION, bearer(10, Role.CUSTOMER))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"role\":\"ADMINISTRATOR\"}"))
+                .andExpect(status().isForbidden());
+        verifyNoInteractions(userService);
+    }
+
     @DisplayName("Delete a user returns NoContent")
     @Test
     void deleteUser() throws Exception {
@@ -156,4 +312,28 @@ public class UserControllerTest {
         mockMvc.perform(delete("/api/users/{id}", id))
                 .andExpect(status().isNotFound());
     }
+
+    @DisplayName("Bulk delete users as an administrator returns the affected count")
+    @Test
+    void deleteUsers() throws Exception {
+        when(userService.deleteAllById(List.of(1L, 2L))).thenReturn(1);
+
+        mockMvc.perform(post("/api/users/bulk/delete")
+                        .header(HttpHeaders.AUTHORIZATION, bearer(Role.ADMINISTRATOR))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new UserBulkDeleteRequest(List.of(1L, 2L)))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.affected").value(1));
+    }
+
+    @DisplayName("Bulk delete users as a customer is forbidden")
+    @Test
+    void deleteUsersForbidden() throws Exception {
+        mockMvc.perform(post("/api/users/bulk/delete")
+                        .header(HttpHeaders.AUTHORIZATION, bearer(Role.CUSTOMER))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new UserBulkDeleteRequest(List.of(1L)))))
+                .andExpect(status().isForbidden());
+        verifyNoInteractions(userService);
+    }
 }
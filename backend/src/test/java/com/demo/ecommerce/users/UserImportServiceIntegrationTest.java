@@ -0,0 +1,116 @@
+package com.demo.ecommerce.users;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("Integration")
+@SpringBootTest(properties = {"users.import.chunk-size=2", "users.password-hashing.strength=4"})
+public class UserImportServiceIntegrationTest {
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserImportService userImportService;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    private static class RecordingListener implements UserImportService.Listener {
+        final List<Long> createdLines = new ArrayList<>();
+        final List<Long> createdIds = new ArrayList<>();
+        final List<Long> errorLines = new ArrayList<>();
+
+        @Override
+        public void onCreated(long line, long id) {
+            createdLines.add(line);
+            createdIds.add(id);
+        }
+
+        @Override
+        public void onRowError(long line, String message) {
+            errorLines.add(line);
+        }
+    }
+
+    private UserImportService.Summary importLines(boolean hashed, RecordingListener listener, String... lines) throws Exception {
+        byte[] input = String.join("\n", lines).getBytes(StandardCharsets.UTF_8);
+        return userImportService.importNdjson(new ByteArrayInputStream(input), hashed, listener);
+    }
+
+    private static String userLine(String name, String password) {
+        return "{\"name\":\"%s\",\"email\":\"%s@import.com\",\"password\":\"%s\"}".formatted(name, name, password);
+    }
+
+    @DisplayName("Import valid rows with hashed passwords and report every row by line")
+    @Test
+    void importNdjson() throws Exception {
+        long users = userRepository.count();
+        RecordingListener listener = new RecordingListener();
+
+        UserImportService.Summary summary = importLines(false, listener,
+                userLine("first", "Pass1"),
+                userLine("", "Pass2"),
+                "",
+                userLine("second", "Pass3"),
+                "{not json",
+                userLine("third", "Pass4"),
+                userLine("fourth", "Pass5"),
+                userLine("fifth", "Pass6"));
+
+        assertEquals(new UserImportService.Summary(7, 5, 2), summary);
+        assertEquals(List.of(2L, 5L), listener.errorLines);
+        assertEquals(List.of(1L, 4L, 6L, 7L, 8L), listener.createdLines);
+        assertEquals(users + 5, userRepository.count());
+
+        User first = userRepository.findById(listener.createdIds.getFirst()).orElseThrow();
+        assertEquals("first", first.getName());
+        assertTrue(passwordEncoder.matches("Pass1", first.getPassword()));
+        User fifth = userRepository.findById(listener.createdIds.getLast()).orElseThrow();
+        assertTrue(passwordEncoder.matches("Pass6", fifth.getPassword()));
+    }
+
+    @DisplayName("Import pre-hashed passwords as they are and reject raw ones")
+    @Test
+    void importNdjsonHashed() throws Exception {
+        String hash = passwordEncoder.encode("Secret1");
+        RecordingListener listener = new RecordingListener();
+
+        UserImportService.Summary summary = importLines(true, listener,
+                userLine("hashed", hash),
+                userLine("raw", "Secret2"));
+
+        assertEquals(new UserImportService.Summary(2, 1, 1), summary);
+        assertEquals(List.of(2L), listener.errorLines);
+        User user = userRepository.findById(listener.createdIds.getFirst()).orElseThrow();
+        assertEquals(hash, user.getPassword());
+    }
+
+    @DisplayName("Reject rows whose email is taken by an existing user or an earlier row")
+    @Test
+    void importNdjsonEmailTaken() throws Exception {
+        RecordingListener listener = new RecordingListener();
+        importLines(false, listener, userLine("existing", "Pass1"));
+        listener = new RecordingListener();
+
+        UserImportService.Summary summary = importLines(false, listener,
+                userLine("existing", "Pass2"),
+                userLine("repeated", "Pass3"),
+                userLine("repeated", "Pass4"),
+                userLine("repeated", "Pass5"));
+
+        assertEquals(new UserImportService.Summary(4, 1, 3), summary);
+        assertEquals(List.of(1L, 3L, 4L), listener.errorLines);
+        assertEquals(List.of(2L), listener.createdLines);
+    }
+}
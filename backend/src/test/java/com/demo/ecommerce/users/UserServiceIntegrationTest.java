@@ -1,12 +1,24 @@
 package com.demo.ecommerce.users;
 
+import com.demo.ecommerce.common.TestUsers;
+import com.demo.ecommerce.common.exceptions.BadRequestException;
+import com.demo.ecommerce.common.exceptions.ConflictException;
 import com.demo.ecommerce.common.exceptions.ResourceNotFoundException;
+import com.demo.ecommerce.orders.Order;
+import com.demo.ecommerce.orders.OrderRepository;
+import com.demo.ecommerce.orders.OrderStatus;
+import com.demo.ecommerce.products.Product;
+import com.demo.ecommerce.products.ProductRepository;
 import com.demo.ecommerce.users.dto.UserCreate;
+import com.demo.ecommerce.users.dto.UserUpdate;
 import org.junit.jupiter.api.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 @Tag("Integration")
@@ -19,8 +31,17 @@ public class UserServiceIntegrationTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
     public static User.UserBuilder testUser(){
-        return User.builder().name("Test").email("test@outlook.com").role(Role.CUSTOMER).password("Pass123");
+        return TestUsers.customer().name("Test").password("Pass123");
     }
 
     @DisplayName("Find an existing user by id")
@@ -38,17 +59,37 @@ public class UserServiceIntegrationTest {
         assertTrue(userService.findById(ID).isEmpty());
     }
 
+    @DisplayName("Find a reference to an existing user, and none once it is deleted")
+    @Test
+    public void findReferenceById() {
+        User user = userRepository.save(testUser().build());
+        assertEquals(user.getId(), userService.findReferenceById(user.getId()).get().getId());
+
+        userService.deleteById(user.getId());
+
+        assertTrue(userService.findReferenceById(user.getId()).isEmpty());
+        assertTrue(userService.findReferenceById(Long.MAX_VALUE).isEmpty());
+    }
+
     @DisplayName("Creates an user")
     @Test
     public void create() {
         String name = "Test1";
         String email = "test1@outlook.com";
         String password = "TestPass123";
-        Role role = Role.CUSTOMER;
 
-        User user = userService.createUser(new UserCreate(name, email, password, role));
+        User user = userService.createUser(new UserCreate(name, email, password));
 
         assertTrue(userRepository.existsById(user.getId()));
+        assertEquals(Role.CUSTOMER, user.getRole());
+    }
+
+    @DisplayName("Create a user with a taken email throws a ConflictException")
+    @Test
+    public void createEmailTaken() {
+        userService.createUser(new UserCreate("Test1", "taken@outlook.com", "TestPass123"));
+
+        assertThrows(ConflictException.class, () -> userService.createUser(new UserCreate("Test2", "taken@outlook.com", "TestPass123")));
     }
 
     @DisplayName("Update an existing user by id")
@@ -58,18 +99,49 @@ public class UserServiceIntegrationTest {
 
         String name = "NewTest";
         String email = "new@mail.com";
-        Role role = Role.ADMINISTRATOR;
-        UserCreate newUserCommand = new UserCreate(name, email, "TestPass123", role);
+        UserUpdate newUserCommand = new UserUpdate(name, email, "TestPass123");
 
         assertNotEquals(newUserCommand.getName(), ogUser.getName());
         assertNotEquals(newUserCommand.getEmail(), ogUser.getEmail());
-        assertNotEquals(newUserCommand.getRole(), ogUser.getRole());
 
         User newUser = userService.updateUser(ogUser.getId(), newUserCommand);
 
         assertEquals(newUserCommand.getName(), newUser.getName());
         assertEquals(newUserCommand.getEmail(), newUser.getEmail());
-        assertEquals(newUserCommand.getRole(), newUser.getRole());
+        assertEquals(ogUser.getRole(), newUser.getRole());
+    }
+
+    @DisplayName("Change the role of a user")
+    @Test
+    public void updateRole(){
+        User user = userService.createUser(new UserCreate("Test", "test@outlook.com", "Pass123"));
+
+        userService.updateRole(user.getId(), Role.ADMINISTRATOR);
+
+        assertEquals(Role.ADMINISTRATOR, userRepository.findById(user.getId()).orElseThrow().getRole());
+        assertThrows(ResourceNotFoundException.class, () -> userService.updateRole(Long.MAX_VALUE, Role.ADMINISTRATOR));
+    }
+
+    @DisplayName("Update a user with a new password re-hashes it")
+    @Test
+    public void updateByIdNewPassword(){
+        User user = userService.createUser(new UserCreate("Test", "test@outlook.com", "OldPass123"));
+
+        User updated = userService.updateUser(user.getId(), new UserUpdate("Test", "test@outlook.com", "NewPass123"));
+
+        assertTrue(passwordEncoder.matches("NewPass123", updated.getPassword()));
+    }
+
+    @DisplayName("Update a user without a password keeps the current hash")
+    @Test
+    public void updateByIdKeepPassword(){
+        User user = userService.createUser(new UserCreate("Test", "test@outlook.com", "OldPass123"));
+        String hash = user.getPassword();
+
+        User updated = userService.updateUser(user.getId(), UserUpdate.builder().name("NewTest").email("test@outlook.com").build());
+
+        assertEquals("NewTest", updated.getName());
+        assertEquals(hash, updated.getPassword());
     }
 
     @DisplayName("Update an non-existing user by id throws a ResourceNotFoundException")
@@ -77,11 +149,10 @@ public class UserServiceIntegrationTest {
     public void updateByIdNotFound(){
         final long ID = Long.MAX_VALUE;
         assertFalse(userRepository.existsById(ID));
-        assertThrows(ResourceNotFoundException.class, () -> userService.updateUser(ID, UserCreate.builder()
+        assertThrows(ResourceNotFoundException.class, () -> userService.updateUser(ID, UserUpdate.builder()
                 .name("NewTest")
                 .email("new@mail.com")
                 .password("Pass123")
-                .role(Role.ADMINISTRATOR)
                 .build()));
     }
 
@@ -104,4 +175,36 @@ public class UserServiceIntegrationTest {
 
         assertThrows(ResourceNotFoundException.class, () -> userService.deleteById(ID));
     }
+
+    @DisplayName("Delete several users in one statement, skipping unknown ids")
+    @Test
+    public void deleteAllById() {
+        User first = userRepository.save(testUser().build());
+        User second = userRepository.save(testUser().build());
+
+        assertEquals(2, userService.deleteAllById(List.of(first.getId(), second.getId(), Long.MAX_VALUE)));
+
+        assertFalse(userRepository.existsById(first.getId()));
+        assertFalse(userRepository.existsById(second.getId()));
+    }
+
+    @DisplayName("Delete a user that owns products throws a BadRequestException")
+    @Test
+    public void deleteAllByIdOwningProducts() {
+        User user = userRepository.save(testUser().build());
+        productRepository.save(Product.builder().name("Owned Product").user(user).build());
+
+        assertThrows(BadRequestException.class, () -> userService.deleteAllById(List.of(user.getId())));
+    }
+
+    @DisplayName("Delete a user that placed orders throws a BadRequestException")
+    @Test
+    public void deleteAllByIdWithOrders() {
+        User user = userRepository.save(testUser().build());
+        orderRepository.save(Order.builder().user(user).status(OrderStatus.PLACED).currency("EUR").build());
+
+        BadRequestException e = assertThrows(BadRequestException.class, () -> userService.deleteAllById(List.of(user.getId())));
+        assertEquals("Users that still own products or promotions, or have placed orders, cannot be deleted", e.getMessage());
+        assertTrue(userRepository.existsById(user.getId()));
+    }
 }